@@ -569,6 +569,11 @@ struct ScheduledTask {
 
 struct ScheduleStatusResult {
   1: list<ScheduledTask> tasks
+  /**
+   * Set when a query with a limit filled its page.  Passing this value back as
+   * TaskQuery.continuationToken fetches the following page.
+   */
+  2: optional string continuationToken
 }
 
 struct GetJobsResult {
@@ -590,6 +595,11 @@ struct TaskQuery {
   11: optional set<JobKey> jobKeys
   12: optional i32 offset
   13: optional i32 limit
+  /**
+   * Resumes a paginated query after the page that returned this token.  Tasks are paged in task
+   * ID order, so pages remain stable while tasks are added or removed.
+   */
+  15: optional string continuationToken
 }
 
 struct HostStatus {
@@ -0,0 +1,211 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.common.stats;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import org.apache.aurora.common.base.MorePreconditions;
+
+/**
+ * A stats tracker to export percentiles of non-negative values in fixed memory.
+ *
+ * Values are counted in buckets whose width grows with the magnitude of the values, in the manner
+ * of HdrHistogram.  Each power of two is divided into {@code 2^precisionBits} buckets, so the value
+ * reported for a percentile is within a relative error of {@code 2^-precisionBits} of a recorded
+ * value.  Recording a value only increments a striped counter and never locks, which makes the
+ * histogram suitable for paths with many concurrent writers.
+ *
+ * Like {@link Percentile}, the histogram registers a variable for each requested percentile, and
+ * computes percentiles over the values recorded since the previous sample.  Percentiles are
+ * computed by walking the bucket counts, without copying or sorting the recorded values.
+ */
+public class Histogram {
+
+  private static final int DEFAULT_PRECISION_BITS = 5;
+
+  private final int precisionBits;
+  private final int subBucketCount;
+  private final long highestTrackableValue;
+  private final LongAdder[] buckets;
+  private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  // Bucket counts of the last sampling window, guarded by this.
+  private final long[] window;
+  private long windowCount = 0;
+  private long windowMin = 0;
+  private long windowMax = 0;
+
+  private final Map<Double, SampledStat<Double>> statsByPercentile;
+
+  /**
+   * Creates a new histogram that tracks values up to {@link Long#MAX_VALUE} with the default
+   * precision.
+   *
+   * @param name The name of the value whose percentiles are being tracked.
+   * @param percentiles The percentiles to track.
+   */
+  public Histogram(String name, double... percentiles) {
+    this(name, Long.MAX_VALUE, DEFAULT_PRECISION_BITS, percentiles);
+  }
+
+  /**
+   * Creates a new histogram.
+   *
+   * @param name The name of the value whose percentiles are being tracked.
+   * @param highestTrackableValue The highest value to distinguish.  Higher values are counted with
+   *     this value, although they are still reported as the maximum.
+   * @param precisionBits The number of bits of precision of the bucket boundaries, which bounds the
+   *     memory used to {@code (64 - precisionBits) * 2^precisionBits} counters.
+   * @param percentiles The percentiles to track.
+   */
+  public Histogram(
+      String name,
+      long highestTrackableValue,
+      int precisionBits,
+      double... percentiles) {
+
+    MorePreconditions.checkNotBlank(name);
+    Preconditions.checkArgument(highestTrackableValue > 0, "Highest value must be positive.");
+    Preconditions.checkArgument(precisionBits >= 1 && precisionBits <= 16,
+        "Precision must be between 1 and 16 bits.");
+    Preconditions.checkNotNull(percentiles);
+    Preconditions.checkArgument(percentiles.length > 0, "Must specify at least one percentile.");
+
+    this.precisionBits = precisionBits;
+    this.subBucketCount = 1 << precisionBits;
+    this.highestTrackableValue = highestTrackableValue;
+    this.buckets = new LongAdder[bucketIndex(highestTrackableValue) + 1];
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+    this.window = new long[buckets.length];
+
+    ImmutableMap.Builder<Double, SampledStat<Double>> builder = ImmutableMap.builder();
+    for (int i = 0; i < percentiles.length; i++) {
+      boolean sampleFirst = i == 0;
+      String statName = String.format("%s_%s_percentile", name, percentiles[i])
+          .replace('.', '_');
+
+      SampledStat<Double> stat = new PercentileVar(statName, percentiles[i], sampleFirst);
+      Stats.export(stat);
+      builder.put(percentiles[i], stat);
+    }
+    statsByPercentile = builder.build();
+  }
+
+  /**
+   * Get the variables associated with this histogram.
+   *
+   * @return A map from tracked percentile to the Stat corresponding to it
+   */
+  public Map<Double, ? extends Stat<?>> getPercentiles() {
+    return statsByPercentile;
+  }
+
+  @VisibleForTesting
+  SampledStat<Double> getPercentile(double percentile) {
+    return statsByPercentile.get(percentile);
+  }
+
+  /**
+   * Records a value.  Negative values are recorded as zero.
+   *
+   * @param value The value to record.
+   */
+  public void record(long value) {
+    long clamped = Math.max(0, value);
+    buckets[bucketIndex(Math.min(clamped, highestTrackableValue))].increment();
+    min.accumulate(clamped);
+    max.accumulate(clamped);
+  }
+
+  private int bucketIndex(long value) {
+    // Values below twice the number of sub-buckets have buckets of their own.  Above that, each
+    // power of two is split into subBucketCount buckets of equal width.
+    int shift = 63 - Long.numberOfLeadingZeros(value) - precisionBits;
+    if (shift < 0) {
+      return (int) value;
+    }
+    return ((shift + 1) << precisionBits) + (int) ((value >>> shift) - subBucketCount);
+  }
+
+  @VisibleForTesting
+  long highestEquivalentValue(int index) {
+    int shift = (index >> precisionBits) - 1;
+    if (shift < 0) {
+      return index;
+    }
+    long lowest = (long) (subBucketCount + (index & (subBucketCount - 1))) << shift;
+    return lowest + ((1L << shift) - 1);
+  }
+
+  private synchronized void startWindow() {
+    // A value recorded while the counters are being reset may be counted in either window.
+    long count = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      window[i] = buckets[i].sumThenReset();
+      count += window[i];
+    }
+    windowCount = count;
+    windowMin = min.getThenReset();
+    windowMax = max.getThenReset();
+  }
+
+  private synchronized double valueAt(double percentile) {
+    if (windowCount == 0) {
+      return 0d;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(windowCount * percentile / 100));
+    long seen = 0;
+    for (int i = 0; i < window.length; i++) {
+      seen += window[i];
+      if (seen >= rank) {
+        if (i == window.length - 1) {
+          // The last bucket also counts the values beyond the highest trackable value.
+          return windowMax;
+        }
+        // Within the bucket, report its highest value, but never beyond the recorded range.
+        return Math.max(windowMin, Math.min(highestEquivalentValue(i), windowMax));
+      }
+    }
+    return windowMax;
+  }
+
+  private class PercentileVar extends SampledStat<Double> {
+    private final double percentile;
+    private final boolean sampleFirst;
+
+    PercentileVar(String name, double percentile, boolean sampleFirst) {
+      super(name, 0d);
+      this.percentile = percentile;
+      this.sampleFirst = sampleFirst;
+    }
+
+    @Override
+    public Double doSample() {
+      if (sampleFirst) {
+        startWindow();
+      }
+      return valueAt(percentile);
+    }
+  }
+}
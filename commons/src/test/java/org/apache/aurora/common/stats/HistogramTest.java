@@ -0,0 +1,109 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.common.stats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+  private static final double EPSILON = 1e-6;
+  private static final double[] PERCENTILES = new double[] {0, 10, 50, 90, 99, 100};
+
+  private Histogram histogram;
+
+  @Before
+  public void setUp() {
+    histogram = new Histogram("test", PERCENTILES);
+  }
+
+  @Test
+  public void testNoData() {
+    checkPercentiles(0, 0, 0, 0, 0, 0);
+  }
+
+  @Test
+  public void testSingleValue() {
+    histogram.record(10);
+    checkPercentiles(10, 10, 10, 10, 10, 10);
+    checkValuesAreFlushed();
+  }
+
+  @Test
+  public void testSmallValuesAreExact() {
+    for (int i = 1; i <= 50; i++) {
+      histogram.record(i);
+    }
+    checkPercentiles(1, 5, 25, 45, 50, 50);
+    checkValuesAreFlushed();
+  }
+
+  @Test
+  public void testRelativeError() {
+    for (int i = 0; i <= 10000; i++) {
+      histogram.record(i);
+    }
+
+    double[] expected = new double[] {0, 1000, 5000, 9000, 9900, 10000};
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      double actual = histogram.getPercentile(PERCENTILES[i]).sample();
+      assertTrue(actual + " is not close to " + expected[i],
+          actual >= expected[i] && actual <= expected[i] * (1 + 1.0 / 32));
+    }
+    checkValuesAreFlushed();
+  }
+
+  @Test
+  public void testNegativeValues() {
+    histogram.record(-5);
+    histogram.record(3);
+    checkPercentiles(0, 0, 0, 3, 3, 3);
+  }
+
+  @Test
+  public void testHighestTrackableValue() {
+    Histogram bounded = new Histogram("bounded", 1000, 3, 50, 100);
+    bounded.record(10);
+    bounded.record(10);
+    bounded.record(5000);
+    bounded.record(Long.MAX_VALUE);
+
+    assertEquals(10, bounded.getPercentile(50).sample(), EPSILON);
+    assertEquals(Long.MAX_VALUE, bounded.getPercentile(100).sample(), EPSILON);
+  }
+
+  @Test
+  public void testBucketBoundaries() {
+    // Values up to 63 are exact; above, each power of two is split into 32 buckets.
+    assertEquals(63, histogram.highestEquivalentValue(63));
+    assertEquals(65, histogram.highestEquivalentValue(64));
+    assertEquals(Long.MAX_VALUE, histogram.highestEquivalentValue((64 - 5) * 32 - 1));
+  }
+
+  private void checkPercentiles(double... values) {
+    assertEquals(PERCENTILES.length, values.length);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(values[i], histogram.getPercentile(PERCENTILES[i]).sample(), EPSILON);
+    }
+  }
+
+  private void checkValuesAreFlushed() {
+    for (double percentile : PERCENTILES) {
+      assertEquals(0, histogram.getPercentile(percentile).sample(), EPSILON);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+import org.apache.aurora.benchmark.fakes.FakeLog;
+import org.apache.aurora.common.application.Lifecycle;
+import org.apache.aurora.common.util.BuildInfo;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.common.util.testing.FakeBuildInfo;
+import org.apache.aurora.gen.storage.Op;
+import org.apache.aurora.gen.storage.SaveTasks;
+import org.apache.aurora.scheduler.log.Log;
+import org.apache.aurora.scheduler.storage.Snapshotter;
+import org.apache.aurora.scheduler.storage.durability.Persistence;
+import org.apache.aurora.scheduler.storage.durability.Persistence.PersistenceException;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.log.LogPersistenceModule;
+import org.apache.aurora.scheduler.storage.log.SnapshotterImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Performance benchmarks for persisting transactions to the replicated log.
+ */
+public class LogPersistenceBenchmarks {
+
+  /**
+   * Persists single-task transactions from concurrent writers against a log whose appends take a
+   * fixed amount of time, comparing a synchronous append per transaction with group commit.
+   */
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Benchmark)
+  public abstract static class AbstractPersistBenchmark {
+    private Persistence persistence;
+    private Op op;
+
+    @Param({"false", "true"})
+    protected boolean groupCommit;
+
+    @Param({"1000"})
+    protected long appendDelayMicros;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      LogPersistenceModule.Options options = new LogPersistenceModule.Options();
+      options.groupCommit = groupCommit;
+      persistence = Guice.createInjector(
+          new LogPersistenceModule(options),
+          new AbstractModule() {
+            @Override
+            protected void configure() {
+              bind(Log.class).toInstance(new FakeLog(appendDelayMicros, TimeUnit.MICROSECONDS));
+              bind(Lifecycle.class).toInstance(new Lifecycle(() -> { }));
+              bind(BuildInfo.class).toInstance(FakeBuildInfo.generateBuildInfo());
+              bind(Clock.class).toInstance(Clock.SYSTEM_CLOCK);
+              bind(Snapshotter.class).to(SnapshotterImpl.class);
+            }
+          })
+          .getInstance(Persistence.class);
+      persistence.prepare();
+
+      Set<IScheduledTask> tasks = new Tasks.Builder().build(1);
+      op = Op.saveTasks(new SaveTasks().setTasks(IScheduledTask.toBuildersSet(tasks)));
+    }
+
+    @Benchmark
+    public boolean run() throws PersistenceException {
+      persistence.persist(ImmutableList.of(op).stream());
+      // Return non-guessable result to satisfy "blackhole" requirement.
+      return System.currentTimeMillis() % 5 == 0;
+    }
+  }
+
+  @Threads(1)
+  public static class Persist1Thread extends AbstractPersistBenchmark {
+  }
+
+  @Threads(8)
+  public static class Persist8Threads extends AbstractPersistBenchmark {
+  }
+
+  @Threads(32)
+  public static class Persist32Threads extends AbstractPersistBenchmark {
+  }
+}
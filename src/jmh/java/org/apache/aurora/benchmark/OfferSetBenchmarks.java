@@ -0,0 +1,128 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Data;
+import org.apache.aurora.scheduler.offers.HostOffer;
+import org.apache.aurora.scheduler.offers.OfferOrder;
+import org.apache.aurora.scheduler.offers.OfferOrderBuilder;
+import org.apache.aurora.scheduler.offers.OfferSet;
+import org.apache.aurora.scheduler.offers.OfferSetImpl;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Performance benchmarks for maintaining and iterating the ordered {@link OfferSet}.
+ *
+ * <p>Offers are spread over several CPU and RAM sizes so that the resource orderings are
+ * exercised on every comparison.
+ */
+public class OfferSetBenchmarks {
+
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class OfferSetBenchmark {
+    private static final int NUM_OFFERS = 20000;
+    private static final int NUM_SHAPES = 10;
+
+    /**
+     * Offer order to maintain, as a comma separated list of {@link OfferOrder} values.
+     */
+    @Param({"RANDOM", "CPU,MEMORY,RANDOM", "REVOCABLE_CPU,CPU,RANDOM"})
+    protected String offerOrder;
+
+    private OfferSet offerSet;
+    private HostOffer[] offers;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUpOffers() {
+      Set<IHostAttributes> hosts = new Hosts.Builder()
+          .setNumHostsPerRack(10)
+          .build(NUM_OFFERS);
+
+      ImmutableList.Builder<HostOffer> built = ImmutableList.builder();
+      int shape = 0;
+      for (List<IHostAttributes> chunk
+          : Iterables.partition(hosts, NUM_OFFERS / NUM_SHAPES)) {
+
+        built.addAll(new Offers.Builder()
+            .setCpu(1.0 + shape)
+            .setRam(Amount.of(1L + (shape * 7) % NUM_SHAPES, Data.GB))
+            .build(ImmutableSet.copyOf(chunk)));
+        shape++;
+      }
+      offers = Iterables.toArray(built.build(), HostOffer.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpOfferSet() {
+      ImmutableList.Builder<OfferOrder> order = ImmutableList.builder();
+      for (String value : offerOrder.split(",")) {
+        order.add(OfferOrder.valueOf(value));
+      }
+      offerSet = new OfferSetImpl(OfferOrderBuilder.create(order.build()));
+      for (HostOffer offer : offers) {
+        offerSet.add(offer);
+      }
+      next = 0;
+    }
+
+    /**
+     * Removes an offer from a full set and adds it back, as when an offer is used and replaced.
+     */
+    @Benchmark
+    public void removeAndAdd() {
+      HostOffer offer = offers[next];
+      next = (next + 1) % offers.length;
+      offerSet.remove(offer);
+      offerSet.add(offer);
+    }
+
+    /**
+     * Iterates over all offers in order, as when searching for an offer to assign a task to.
+     */
+    @Benchmark
+    public void orderedIteration(Blackhole blackhole) {
+      for (HostOffer offer : offerSet.values()) {
+        blackhole.consume(offer);
+      }
+    }
+  }
+}
@@ -40,6 +40,7 @@ import org.apache.aurora.benchmark.fakes.FakeDriver;
 import org.apache.aurora.benchmark.fakes.FakeRescheduleCalculator;
 import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
 import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Data;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.Clock;
@@ -55,6 +56,7 @@ import org.apache.aurora.scheduler.config.CommandLine;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.events.EventSink;
+import org.apache.aurora.scheduler.filter.AttributeAggregateCache;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilterImpl;
 import org.apache.aurora.scheduler.mesos.Driver;
@@ -115,7 +117,7 @@ public class SchedulingBenchmarks {
     private static final Amount<Long, Time> DELAY_FOREVER = Amount.of(30L, Time.DAYS);
     private static final Integer BATCH_SIZE = 5;
     protected Storage storage;
-    private TaskScheduler taskScheduler;
+    protected TaskScheduler taskScheduler;
     private OfferManager offerManager;
     private EventBus eventBus;
     private BenchmarkSettings settings;
@@ -136,6 +138,7 @@ public class SchedulingBenchmarks {
       options.preemptor.preemptionDelay = NO_DELAY;
       options.preemptor.preemptionSlotSearchInterval = NO_DELAY;
       options.preemptor.reservationMaxBatchSize = BATCH_SIZE;
+      configureOptions(options);
 
       // TODO(maxim): Find a way to DRY it and reuse existing modules instead.
       Injector injector = Guice.createInjector(
@@ -182,6 +185,7 @@ public class SchedulingBenchmarks {
               bind(UpdateAgentReserver.NullAgentReserver.class).in(Singleton.class);
               bind(SchedulingFilter.class).to(SchedulingFilterImpl.class);
               bind(SchedulingFilterImpl.class).in(Singleton.class);
+              bind(AttributeAggregateCache.class).to(AttributeAggregateCache.Uncached.class);
               bind(ExecutorSettings.class).toInstance(TestExecutorSettings.THERMOS_EXECUTOR);
               bind(Storage.class).toInstance(storage);
               bind(Driver.class).toInstance(new FakeDriver());
@@ -210,6 +214,10 @@ public class SchedulingBenchmarks {
       saveTasks(settings.getTasks());
     }
 
+    protected void configureOptions(CliOptions options) {
+      // No-op by default.  Subclasses may use this to enable features under test.
+    }
+
     protected void withInjector(Injector injector) {
       // No-op by default.  Subclasses may use this to retrieve bindings from the injector for use
       // in their test.
@@ -372,8 +380,20 @@ public class SchedulingBenchmarks {
     @Param({"1", "10", "100", "1000"})
     public int numPendingTasks;
 
+    @Param({"false", "true"})
+    public boolean incrementalSlotSearch;
+
+    @Param({"1", "8"})
+    public int slotSearchThreads;
+
     private Runnable pendingTaskProcessor;
 
+    @Override
+    protected void configureOptions(CliOptions options) {
+      options.preemptor.incrementalSlotSearch = incrementalSlotSearch;
+      options.preemptor.slotSearchThreads = slotSearchThreads;
+    }
+
     @Override
     protected void withInjector(Injector injector) {
       pendingTaskProcessor =
@@ -400,6 +420,60 @@ public class SchedulingBenchmarks {
     }
   }
 
+  /**
+   * Tests scheduling many distinct task groups of a job with a large footprint, either one group
+   * per scheduling attempt or all groups in a single multi-group round.
+   */
+  public static class MultiGroupSchedulingBenchmark extends AbstractBase {
+    private static final int NUM_GROUPS = 1000;
+
+    @Param({"false", "true"})
+    public boolean multiGroupRound;
+
+    private Set<IScheduledTask> pendingTasks;
+
+    @Override
+    protected BenchmarkSettings getSettings() {
+      ImmutableSet.Builder<IScheduledTask> tasks = ImmutableSet.builder();
+      for (int i = 0; i < NUM_GROUPS; i++) {
+        // Distinct RAM requests make each task a group of its own.
+        tasks.addAll(new Tasks.Builder()
+            .setTier(TaskTestUtil.PROD_TIER_NAME)
+            .setRam(Amount.of(1024L + i, Data.MB))
+            .addValueConstraint("host", "denied")
+            .build(1));
+      }
+
+      pendingTasks = tasks.build();
+
+      return new BenchmarkSettings.Builder()
+          .setSiblingClusterUtilization(0.5)
+          .setVictimClusterUtilization(0.4)
+          .setHostAttributes(new Hosts.Builder().setNumHostsPerRack(2).build(10000))
+          .setTasks(pendingTasks)
+          .build();
+    }
+
+    @Override
+    public Set<String> runBenchmark() {
+      return storage.write((Storage.MutateWork.Quiet<Set<String>>) store -> {
+        if (multiGroupRound) {
+          return taskScheduler.schedule(
+              store,
+              org.apache.aurora.scheduler.base.Tasks.ids(pendingTasks));
+        }
+
+        ImmutableSet.Builder<String> result = ImmutableSet.builder();
+        for (IScheduledTask task : pendingTasks) {
+          result.addAll(taskScheduler.schedule(
+              store,
+              org.apache.aurora.scheduler.base.Tasks.ids(task)));
+        }
+        return result.build();
+      });
+    }
+  }
+
   private static class NoopExecutor extends AbstractExecutorService
       implements ScheduledExecutorService {
 
@@ -0,0 +1,129 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.Constraint;
+import org.apache.aurora.gen.LimitConstraint;
+import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.gen.TaskConstraint;
+import org.apache.aurora.gen.ValueConstraint;
+import org.apache.aurora.scheduler.TierManager;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.configuration.executor.TestExecutorSettings;
+import org.apache.aurora.scheduler.filter.AttributeAggregate;
+import org.apache.aurora.scheduler.filter.SchedulingFilter;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
+import org.apache.aurora.scheduler.filter.SchedulingFilterImpl;
+import org.apache.aurora.scheduler.offers.HostOffer;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Performance benchmarks for a single {@link SchedulingFilter} evaluation.
+ *
+ * <p>Every offer fits the task, so these benchmarks exercise the path taken by offers that are
+ * not vetoed.  Run with the GC profiler (enabled by default in the jmh task) and check
+ * {@code gc.alloc.rate.norm} to verify the bytes allocated per evaluation.
+ */
+public class SchedulingFilterBenchmarks {
+
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class FilterBenchmark {
+    private static final int NUM_HOSTS = 1000;
+    private static final TierManager TIER_MANAGER = TaskTestUtil.TIER_MANAGER;
+
+    /**
+     * Constraints of the task: none, a negated value constraint, or a host limit constraint.
+     */
+    @Param({"none", "value", "limit"})
+    protected String constraint;
+
+    private SchedulingFilter filter;
+    private UnusedResource[] resources;
+    private ResourceRequest request;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      filter = new SchedulingFilterImpl(Amount.of(1L, Time.MINUTES), new FakeClock());
+
+      Set<HostOffer> offers = new Offers.Builder()
+          .build(new Hosts.Builder().setNumHostsPerRack(10).build(NUM_HOSTS));
+      resources = new UnusedResource[offers.size()];
+      int i = 0;
+      for (HostOffer offer : offers) {
+        resources[i++] = offer.getUnusedResource(false);
+      }
+
+      TaskConfig task = Iterables.getOnlyElement(new Tasks.Builder().build(1))
+          .getAssignedTask()
+          .getTask()
+          .newBuilder();
+      switch (constraint) {
+        case "value":
+          task.setConstraints(ImmutableSet.of(new Constraint(
+              "host",
+              TaskConstraint.value(new ValueConstraint(true, ImmutableSet.of("denied"))))));
+          break;
+        case "limit":
+          task.setConstraints(ImmutableSet.of(new Constraint(
+              "host",
+              TaskConstraint.limit(new LimitConstraint(1)))));
+          break;
+        default:
+          task.setConstraints(ImmutableSet.of());
+      }
+
+      request = ResourceRequest.fromTask(
+          ITaskConfig.build(task),
+          TestExecutorSettings.THERMOS_EXECUTOR,
+          AttributeAggregate.empty(),
+          TIER_MANAGER);
+    }
+
+    @Benchmark
+    public Set<Veto> runBenchmark() {
+      UnusedResource resource = resources[next];
+      next = (next + 1) % resources.length;
+      return filter.filter(resource, request);
+    }
+  }
+}
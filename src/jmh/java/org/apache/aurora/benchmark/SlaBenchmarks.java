@@ -0,0 +1,172 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.EventBus;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.ServerInfo;
+import org.apache.aurora.gen.TaskEvent;
+import org.apache.aurora.scheduler.TierManager;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.sla.MetricCalculator;
+import org.apache.aurora.scheduler.sla.SlaModule;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.IServerInfo;
+import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Performance benchmarks for the SLA metric calculation.
+ */
+public class SlaBenchmarks {
+
+  /**
+   * Measures an SLA metric refresh over a large cluster, where a small number of tasks changed
+   * state since the previous refresh.
+   */
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class MetricRefreshBenchmark {
+    private static final int INSTANCES_PER_JOB = 100;
+
+    @Param({"3000"})
+    private int numJobs;
+
+    @Param({"10", "100"})
+    private int changesPerRefresh;
+
+    @Param({"false", "true"})
+    private boolean incremental;
+
+    private Storage storage;
+    private FakeClock clock;
+    private EventBus eventBus;
+    private MetricCalculator calculator;
+    private List<String> taskIds;
+
+    @Setup(Level.Trial)
+    public void setUpBenchmark() {
+      clock = new FakeClock();
+      clock.setNowMillis(1);
+      SlaModule.Options options = new SlaModule.Options();
+      options.slaIncrementalMetrics = incremental;
+      options.slaNonProdMetrics = options.slaProdMetrics;
+      Injector injector = Guice.createInjector(
+          new AbstractModule() {
+            @Override
+            protected void configure() {
+              bind(Clock.class).toInstance(clock);
+              bind(StatsProvider.class).toInstance(new FakeStatsProvider());
+              bind(IServerInfo.class).toInstance(IServerInfo.build(new ServerInfo("jmh", "")));
+              bind(TierManager.class).toInstance(TaskTestUtil.TIER_MANAGER);
+            }
+          },
+          new MemStorageModule(),
+          new SlaModule(options));
+
+      storage = injector.getInstance(Storage.class);
+      storage.prepare();
+
+      taskIds = Lists.newArrayList();
+      storage.write((Storage.MutateWork.NoResult.Quiet) store -> {
+        for (int i = 0; i < numJobs; i++) {
+          Set<IScheduledTask> tasks = new Tasks.Builder()
+              .setJob("job" + i)
+              .setScheduleStatus(ScheduleStatus.RUNNING)
+              .build(INSTANCES_PER_JOB);
+          store.getUnsafeTaskStore().saveTasks(tasks);
+          tasks.forEach(task -> taskIds.add(task.getAssignedTask().getTaskId()));
+        }
+      });
+
+      eventBus = new EventBus();
+      injector.getInstance(Key.get(new TypeLiteral<Set<EventSubscriber>>() { }))
+          .forEach(eventBus::register);
+
+      calculator = injector.getInstance(MetricCalculator.class);
+      // The first refresh loads all tasks, which is excluded from the measurement.
+      calculator.run();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+      clock.advance(Amount.of(1L, Time.SECONDS));
+      long now = clock.nowMillis();
+
+      List<TaskStateChange> changes = Lists.newArrayList();
+      storage.write((Storage.MutateWork.NoResult.Quiet) store -> {
+        for (int i = 0; i < changesPerRefresh; i++) {
+          String taskId = taskIds.get(ThreadLocalRandom.current().nextInt(taskIds.size()));
+          IScheduledTask old = store.getTaskStore().fetchTask(taskId).get();
+          ScheduleStatus next = old.getStatus() == ScheduleStatus.RUNNING
+              ? ScheduleStatus.STARTING
+              : ScheduleStatus.RUNNING;
+          ScheduledTask builder = old.newBuilder().setStatus(next);
+          builder.setTaskEvents(ImmutableList.<TaskEvent>builder()
+              .addAll(builder.getTaskEvents())
+              .add(new TaskEvent(now, next))
+              .build());
+          IScheduledTask task = IScheduledTask.build(builder);
+          store.getUnsafeTaskStore().saveTasks(ImmutableSet.of(task));
+          changes.add(TaskStateChange.transition(task, old.getStatus()));
+        }
+      });
+      changes.forEach(eventBus::post);
+    }
+
+    @Benchmark
+    public void runMetricRefresh() {
+      calculator.run();
+    }
+  }
+}
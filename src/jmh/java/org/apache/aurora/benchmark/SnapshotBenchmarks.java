@@ -17,16 +17,33 @@ import java.util.concurrent.TimeUnit;
 
 import javax.inject.Singleton;
 
+import com.google.common.hash.Hashing;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 
+import org.apache.aurora.benchmark.fakes.FakeLog;
 import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
+import org.apache.aurora.common.application.Lifecycle;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Data;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.BuildInfo;
 import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.common.util.testing.FakeBuildInfo;
+import org.apache.aurora.gen.storage.LogEntry;
 import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.scheduler.log.Log;
+import org.apache.aurora.scheduler.storage.Snapshotter;
 import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.durability.Persistence;
+import org.apache.aurora.scheduler.storage.durability.Persistence.PersistenceException;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.log.Entries;
+import org.apache.aurora.scheduler.storage.log.EntrySerializer.EntrySerializerImpl;
+import org.apache.aurora.scheduler.storage.log.LogPersistenceModule;
+import org.apache.aurora.scheduler.storage.log.SnapshotDeduplicator.SnapshotDeduplicatorImpl;
 import org.apache.aurora.scheduler.storage.log.SnapshotterImpl;
 import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
 import org.apache.thrift.TException;
@@ -106,4 +123,63 @@ public class SnapshotBenchmarks {
       return storage.write(snapshotStore::from);
     }
   }
+
+  /**
+   * Recovers from a log holding a single deduplicated, deflated and framed snapshot, as written by
+   * the scheduler.
+   */
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1)
+  @Measurement(iterations = 5)
+  @Fork(1)
+  @Threads(1)
+  @State(Scope.Thread)
+  public static class RecoverLogBenchmark {
+    private Persistence persistence;
+
+    @Param({"500000"})
+    private int numTasks;
+
+    @Param({"1", "4", "8"})
+    private int recoveryThreads;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      LogPersistenceModule.Options options = new LogPersistenceModule.Options();
+      options.recoveryThreads = recoveryThreads;
+      FakeLog log = new FakeLog();
+      persistence = Guice.createInjector(
+          new LogPersistenceModule(options),
+          new AbstractModule() {
+            @Override
+            protected void configure() {
+              bind(Log.class).toInstance(log);
+              bind(Lifecycle.class).toInstance(new Lifecycle(() -> { }));
+              bind(BuildInfo.class).toInstance(FakeBuildInfo.generateBuildInfo());
+              bind(Clock.class).toInstance(Clock.SYSTEM_CLOCK);
+              bind(Snapshotter.class).to(SnapshotterImpl.class);
+            }
+          })
+          .getInstance(Persistence.class);
+
+      Snapshot snapshot = new Snapshot()
+          .setTimestamp(1L)
+          .setTasks(IScheduledTask.toBuildersSet(new Tasks.Builder().build(numTasks)));
+      LogEntry entry = Entries.deflate(
+          LogEntry.deduplicatedSnapshot(new SnapshotDeduplicatorImpl().deduplicate(snapshot)));
+      Log.Stream stream = log.open();
+      for (byte[] chunk : new EntrySerializerImpl(Amount.of(512, Data.KB), Hashing.md5())
+          .serialize(entry)) {
+
+        stream.append(chunk);
+      }
+      persistence.prepare();
+    }
+
+    @Benchmark
+    public long run() throws PersistenceException {
+      return persistence.recover().count();
+    }
+  }
 }
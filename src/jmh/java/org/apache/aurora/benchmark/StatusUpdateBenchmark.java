@@ -157,13 +157,20 @@ public class StatusUpdateBenchmark {
   }
 
   // Benchmark with 1000 tasks to easily observe the kilo-qps of status
-  // update processing. Consider varying this number if needed.
-  private static final int NUM_TASKS = 1000;
+  // update processing, and with bursts of 50k tasks to observe how the
+  // handler copes with a large backlog.
+  @Param({"1000", "50000"})
+  private int numTasks;
 
   // Vary the storage latency to observe the effect on throughput.
   @Param({"5", "25", "100"})
   private long latencyMilliseconds;
 
+  // Compare the default handler with the coalescing, adaptively-batching
+  // status update pipeline.
+  @Param({"false", "true"})
+  private boolean pipelined;
+
   private Scheduler scheduler;
   private AbstractExecutionThreadService statusHandler;
   private SlowStorageWrapper storage;
@@ -225,6 +232,8 @@ public class StatusUpdateBenchmark {
             bind(new TypeLiteral<Integer>() { })
                 .annotatedWith(TaskStatusHandlerImpl.MaxBatchSize.class)
                 .toInstance(1000);
+            bind(TaskStatusHandlerImpl.Settings.class)
+                .toInstance(new TaskStatusHandlerImpl.Settings(pipelined, 10000));
             bind(TaskStatusHandler.class).to(TaskStatusHandlerImpl.class);
             bind(TaskStatusHandlerImpl.class).in(Singleton.class);
             bind(IServerInfo.class).toInstance(IServerInfo.build(new ServerInfo("jmh", "")));
@@ -262,7 +271,7 @@ public class StatusUpdateBenchmark {
   public void createTasks() {
     tasks = new Tasks.Builder()
         .setScheduleStatus(ScheduleStatus.STARTING)
-        .build(NUM_TASKS);
+        .build(numTasks);
 
     storage.write(
         (NoResult.Quiet) storeProvider -> storeProvider.getUnsafeTaskStore().saveTasks(tasks));
@@ -277,16 +286,11 @@ public class StatusUpdateBenchmark {
 
   @Benchmark
   public boolean runBenchmark() throws InterruptedException {
+    // Each task reports STARTING followed by RUNNING, as an executor does.  Only the RUNNING update
+    // transitions the task, since the tasks are stored as STARTING.
     for (String taskId : org.apache.aurora.scheduler.base.Tasks.ids(tasks)) {
-      Protos.TaskStatus status = Protos.TaskStatus.newBuilder()
-          .setState(Protos.TaskState.TASK_RUNNING)
-          .setSource(Protos.TaskStatus.Source.SOURCE_EXECUTOR)
-          .setMessage("message")
-          .setTimestamp(1D)
-          .setTaskId(Protos.TaskID.newBuilder().setValue(taskId).build())
-          .build();
-
-      scheduler.statusUpdate(new FakeSchedulerDriver(), ProtosConversion.convert(status));
+      sendStatusUpdate(taskId, Protos.TaskState.TASK_STARTING);
+      sendStatusUpdate(taskId, Protos.TaskState.TASK_RUNNING);
     }
 
     // Wait for all task transitions to complete.
@@ -295,4 +299,16 @@ public class StatusUpdateBenchmark {
     // Return an unguessable value.
     return System.currentTimeMillis() % 5 == 0;
   }
+
+  private void sendStatusUpdate(String taskId, Protos.TaskState state) {
+    Protos.TaskStatus status = Protos.TaskStatus.newBuilder()
+        .setState(state)
+        .setSource(Protos.TaskStatus.Source.SOURCE_EXECUTOR)
+        .setMessage("message")
+        .setTimestamp(1D)
+        .setTaskId(Protos.TaskID.newBuilder().setValue(taskId).build())
+        .build();
+
+    scheduler.statusUpdate(new FakeSchedulerDriver(), ProtosConversion.convert(status));
+  }
 }
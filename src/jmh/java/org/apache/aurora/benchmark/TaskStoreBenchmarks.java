@@ -13,9 +13,13 @@
  */
 package org.apache.aurora.benchmark;
 
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.util.Modules;
@@ -23,6 +27,7 @@ import com.google.inject.util.Modules;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.TaskStore;
@@ -42,6 +47,7 @@ import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 
 public class TaskStoreBenchmarks {
@@ -145,4 +151,97 @@ public class TaskStoreBenchmarks {
           store -> store.getTaskStore().fetchTasks(Query.instanceScoped(job, 0))).size();
     }
   }
+
+  /**
+   * Issues a mix of indexed reads and status mutations against a shared store, to measure
+   * contention on the secondary indices.  Each mutation moves a task between status index keys.
+   */
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Benchmark)
+  public abstract static class AbstractMixedReadWriteBenchmark {
+    private static final int NUM_JOBS = 100;
+
+    private Storage storage;
+    private List<IJobKey> jobs;
+    private List<String> taskIds;
+
+    @Param({"10000", "100000"})
+    protected int numTasks;
+
+    @Param({"10"})
+    protected int writePercent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      storage = Guice.createInjector(
+          Modules.combine(
+              new MemStorageModule(),
+              new AbstractModule() {
+                @Override
+                protected void configure() {
+                  bind(StatsProvider.class).toInstance(new FakeStatsProvider());
+                  bind(Clock.class).toInstance(new FakeClock());
+                }
+              }))
+          .getInstance(Storage.class);
+
+      ImmutableSet.Builder<IScheduledTask> tasks = ImmutableSet.builder();
+      for (int i = 0; i < NUM_JOBS; i++) {
+        tasks.addAll(new Tasks.Builder()
+            .setJob("job" + i)
+            .setScheduleStatus(ScheduleStatus.RUNNING)
+            .build(numTasks / NUM_JOBS));
+      }
+      Set<IScheduledTask> allTasks = tasks.build();
+      jobs = allTasks.stream()
+          .map(org.apache.aurora.scheduler.base.Tasks::getJob)
+          .distinct()
+          .collect(ImmutableList.toImmutableList());
+      taskIds = allTasks.stream()
+          .map(org.apache.aurora.scheduler.base.Tasks::id)
+          .collect(ImmutableList.toImmutableList());
+      storage.write((Storage.MutateWork.NoResult.Quiet)
+          storeProvider -> storeProvider.getUnsafeTaskStore().saveTasks(allTasks));
+    }
+
+    @Benchmark
+    public int run() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      if (random.nextInt(100) < writePercent) {
+        String taskId = taskIds.get(random.nextInt(taskIds.size()));
+        return storage.write(storeProvider -> storeProvider.getUnsafeTaskStore().mutateTask(
+            taskId,
+            task -> IScheduledTask.build(task.newBuilder().setStatus(
+                task.getStatus() == ScheduleStatus.RUNNING
+                    ? ScheduleStatus.KILLING
+                    : ScheduleStatus.RUNNING))))
+            .isPresent() ? 1 : 0;
+      } else {
+        IJobKey job = jobs.get(random.nextInt(jobs.size()));
+        return storage.read(store ->
+            store.getTaskStore().fetchTasks(Query.jobScoped(job).byStatus(ScheduleStatus.RUNNING)))
+            .size();
+      }
+    }
+  }
+
+  @Threads(1)
+  public static class MixedReadWrite1Thread extends AbstractMixedReadWriteBenchmark {
+  }
+
+  @Threads(4)
+  public static class MixedReadWrite4Threads extends AbstractMixedReadWriteBenchmark {
+  }
+
+  @Threads(16)
+  public static class MixedReadWrite16Threads extends AbstractMixedReadWriteBenchmark {
+  }
+
+  @Threads(32)
+  public static class MixedReadWrite32Threads extends AbstractMixedReadWriteBenchmark {
+  }
 }
@@ -0,0 +1,97 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark.fakes;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.common.collect.ImmutableList;
+
+import org.apache.aurora.scheduler.log.Log;
+
+/**
+ * An in-memory log.  Appends may simulate the latency of a replicated append, and appended
+ * entries are optionally retained so they can be read back.
+ */
+public class FakeLog implements Log {
+  private static final Position POSITION = new Position() { };
+
+  private final long appendDelayNanos;
+  private final boolean retainEntries;
+  private final AtomicLong appends = new AtomicLong();
+  private final List<byte[]> entries = new ArrayList<>();
+
+  /**
+   * Creates a log that retains appended entries, without an append delay.
+   */
+  public FakeLog() {
+    this(0, TimeUnit.NANOSECONDS, true);
+  }
+
+  /**
+   * Creates a log that discards appended entries after the given delay.
+   *
+   * @param appendDelay Time each append takes.
+   * @param unit Unit of {@code appendDelay}.
+   */
+  public FakeLog(long appendDelay, TimeUnit unit) {
+    this(appendDelay, unit, false);
+  }
+
+  private FakeLog(long appendDelay, TimeUnit unit, boolean retainEntries) {
+    this.appendDelayNanos = unit.toNanos(appendDelay);
+    this.retainEntries = retainEntries;
+  }
+
+  public long getAppends() {
+    return appends.get();
+  }
+
+  @Override
+  public Stream open() {
+    return new Stream() {
+      @Override
+      public Position append(byte[] contents) {
+        if (appendDelayNanos > 0) {
+          LockSupport.parkNanos(appendDelayNanos);
+        }
+        appends.incrementAndGet();
+        if (retainEntries) {
+          synchronized (entries) {
+            entries.add(contents);
+          }
+        }
+        return POSITION;
+      }
+
+      @Override
+      public Iterator<Entry> readAll() {
+        List<byte[]> contents;
+        synchronized (entries) {
+          contents = ImmutableList.copyOf(entries);
+        }
+        return contents.stream().<Entry>map(bytes -> () -> bytes).iterator();
+      }
+
+      @Override
+      public void truncateBefore(Position position) {
+        // no-op
+      }
+    };
+  }
+}
@@ -14,31 +14,53 @@
 package io.github.aurora.scheduler.offers;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Qualifier;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.EvictingQueue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Ordering;
 import com.google.inject.Inject;
 
+import org.apache.aurora.common.stats.Histogram;
+import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferSet;
@@ -51,9 +73,10 @@ import org.apache.http.HttpEntity;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.EntityTemplate;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,24 +91,72 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
  * HttpOfferSetImpl sorts offers using an external endpoint.
  * It sends the request (request + offers) to the external endpoint
  * and receives the response (sorted offers).
+ *
+ * <p>Requests are encoded directly into pooled, persistent connections to the endpoint. With
+ * delta encoding enabled, each request only carries the offers that changed since the last view
+ * acknowledged by the endpoint, identified by a version number.
+ *
+ * <p>With batch ordering enabled, the offers are ordered for all task groups of a scheduling round
+ * in a single request, sent before the round starts matching offers.  If the endpoint does not
+ * answer before the batch deadline, the round proceeds with the local offer ordering.
  */
 @VisibleForTesting
 public class HttpOfferSetImpl implements OfferSet {
   private static final Logger LOG = LoggerFactory.getLogger(HttpOfferSetImpl.class);
+  private static final int DEFAULT_MAX_CONNECTIONS = 10;
+  private static final long DEFAULT_BATCH_DEADLINE_MS = 100;
 
-  static List<Long> latencyMsList = Collections.synchronizedList(new LinkedList<>());
-  static List<Long> offerSetDiffList = Collections.synchronizedList(new LinkedList<>());
-  private static Iterable<IScheduledTask> startingTasks = new LinkedList<>();
+  // Number of STARTING tasks per agent ID, guarded by the class lock.
+  private static Map<String, Integer> startingTaskCounts = new HashMap<>();
   private static long failureCount = 0;
   private static boolean useEndpoint = false;
 
+  // Latencies and offer set differences recorded since the deprecated per-interval stats were last
+  // computed by StatCalculator.  Only the most recent latencies are kept for the median.
+  private static final int MAX_INTERVAL_LATENCIES = 1000;
+  private static final Object INTERVAL_LOCK = new Object();
+  private static final EvictingQueue<Long> intervalLatenciesNs =
+      EvictingQueue.create(MAX_INTERVAL_LATENCIES);
+  private static long intervalLatencyCount = 0;
+  private static long intervalLatencySumNs = 0;
+  private static long intervalLatencyMaxNs = 0;
+  private static long intervalMaxOfferSetDiff = 0;
+
   private final Set<HostOffer> offers;
-  private final ObjectMapper jsonMapper = new ObjectMapper();
-  private final CloseableHttpClient httpClient = HttpClients.createDefault();
+  private final ObjectMapper jsonMapper = new ObjectMapper()
+      .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+  private final CloseableHttpClient httpClient;
+  private final RequestConfig requestConfig;
   private final int timeoutMs;
   private final int maxRetries;
   private final int maxStartingTasksPerSlave;
   private final boolean filterEnabled;
+  private final boolean deltaEncoding;
+  private final boolean batchOrdering;
+  private final long batchDeadlineMs;
+  // Only created with batch ordering enabled.
+  @Nullable
+  private final ExecutorService batchExecutor;
+  @Nullable
+  private final ScheduledExecutorService deadlineTimer;
+
+  // Orderings received for task groups about to be matched, when using batch ordering.  Entries
+  // are replaced when a group is prepared again, and expire in case it never is.
+  private final Cache<TaskGroupKey, PreparedOrdering> preparedOrderings =
+      CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.MINUTES).build();
+
+  private final Histogram latencyUs = new Histogram("http_offer_set_latency_us", 50, 90, 99);
+  private final Histogram roundLatencyUs =
+      new Histogram("http_offer_set_round_latency_us", 50, 90, 99);
+  private final Histogram offerSetDiff = new Histogram("http_offer_set_diff", 50, 90, 99);
+  private final AtomicLong deadlineMisses;
+  private final AtomicLong localFallbacks;
+  private volatile long lastOfferSetDiff = 0;
+
+  // The offers last acknowledged by the endpoint, by offer ID, when using delta encoding.
+  private final Map<String, HostOffer> pluginView = new HashMap<>();
+  private long pluginViewVersion = 0;
+  private long nextVersion = 1;
 
   private URL endpoint;
 
@@ -101,6 +172,15 @@ public class HttpOfferSetImpl implements OfferSet {
     maxRetries = mMaxRetries;
     maxStartingTasksPerSlave = mMaxStartingTasksPerSlave;
     filterEnabled = mFilterEnabled;
+    deltaEncoding = false;
+    batchOrdering = false;
+    batchDeadlineMs = DEFAULT_BATCH_DEADLINE_MS;
+    httpClient = createHttpClient(DEFAULT_MAX_CONNECTIONS);
+    requestConfig = createRequestConfig(timeoutMs);
+    batchExecutor = null;
+    deadlineTimer = null;
+    deadlineMisses = new AtomicLong();
+    localFallbacks = new AtomicLong();
   }
 
   @VisibleForTesting
@@ -128,13 +208,38 @@ public class HttpOfferSetImpl implements OfferSet {
   @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
   @interface FilterEnabled { }
 
+  @VisibleForTesting
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface MaxConnections { }
+
+  @VisibleForTesting
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface DeltaEncoding { }
+
+  @VisibleForTesting
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface BatchOrdering { }
+
+  @VisibleForTesting
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface BatchDeadlineMs { }
+
   @Inject
   public HttpOfferSetImpl(Ordering<HostOffer> ordering,
                           @TimeoutMs Integer mTimeoutMs,
                           @Endpoint String url,
                           @MaxRetries Integer mMaxRetries,
                           @MaxStartingTaskPerSlave Integer mMaxStartingTasksPerSlave,
-                          @FilterEnabled Boolean mFilterEnabled) {
+                          @FilterEnabled Boolean mFilterEnabled,
+                          @MaxConnections Integer mMaxConnections,
+                          @DeltaEncoding Boolean mDeltaEncoding,
+                          @BatchOrdering Boolean mBatchOrdering,
+                          @BatchDeadlineMs Long mBatchDeadlineMs,
+                          StatsProvider statsProvider) {
     offers = new ConcurrentSkipListSet<>(ordering);
     try {
       endpoint = new URL(Objects.requireNonNull(url));
@@ -149,11 +254,66 @@ public class HttpOfferSetImpl implements OfferSet {
     maxRetries = Objects.requireNonNull(mMaxRetries);
     maxStartingTasksPerSlave = Objects.requireNonNull(mMaxStartingTasksPerSlave);
     filterEnabled = Objects.requireNonNull(mFilterEnabled);
+    deltaEncoding = Objects.requireNonNull(mDeltaEncoding);
+    batchOrdering = Objects.requireNonNull(mBatchOrdering);
+    batchDeadlineMs = Objects.requireNonNull(mBatchDeadlineMs);
+    httpClient = createHttpClient(Objects.requireNonNull(mMaxConnections));
+    requestConfig = createRequestConfig(timeoutMs);
+    batchExecutor = batchOrdering ? createBatchExecutor(mMaxConnections) : null;
+    deadlineTimer = batchOrdering ? createDeadlineTimer() : null;
+    deadlineMisses = statsProvider.makeCounter("http_offer_set_deadline_misses");
+    localFallbacks = statsProvider.makeCounter("http_offer_set_local_fallbacks");
     LOG.info("HttpOfferSet's endpoint: {}", endpoint);
     LOG.info("HttpOfferSet's timeout: {} (ms)", timeoutMs);
     LOG.info("HttpOfferSet's max retries: {}", maxRetries);
     LOG.info("HttpOfferSet's filter enabled: {}", filterEnabled);
     LOG.info("HttpOfferSet's max number of starting tasks per slave: {}", maxStartingTasksPerSlave);
+    LOG.info("HttpOfferSet's max connections: {}", mMaxConnections);
+    LOG.info("HttpOfferSet's delta encoding: {}", deltaEncoding);
+    LOG.info("HttpOfferSet's batch ordering: {}", batchOrdering);
+    LOG.info("HttpOfferSet's batch deadline: {} (ms)", batchDeadlineMs);
+  }
+
+  private static CloseableHttpClient createHttpClient(int maxConnections) {
+    // Keep connections to the endpoint open between requests, rather than paying for a new
+    // connection on each scheduling attempt.
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnections);
+    return HttpClients.custom().setConnectionManager(connectionManager).build();
+  }
+
+  private static ExecutorService createBatchExecutor(int maxConnections) {
+    return AsyncUtil.loggingExecutor(
+        maxConnections,
+        maxConnections,
+        new LinkedBlockingQueue<>(),
+        "HttpOfferSet-batch-%d",
+        LOG);
+  }
+
+  private static ScheduledExecutorService createDeadlineTimer() {
+    // Kept apart from the batch executor, so that deadlines fire even while all of its threads are
+    // waiting on the endpoint.
+    return AsyncUtil.singleThreadLoggingScheduledExecutor("HttpOfferSet-deadline-%d", LOG);
+  }
+
+  private static RequestConfig createRequestConfig(int timeoutMs) {
+    return RequestConfig.custom()
+        .setConnectionRequestTimeout(timeoutMs)
+        .setConnectTimeout(timeoutMs)
+        .setSocketTimeout(timeoutMs)
+        .build();
+  }
+
+  /**
+   * Stops the threads used for batch ordering, if any.
+   */
+  void shutdown() {
+    if (batchExecutor != null) {
+      batchExecutor.shutdownNow();
+      deadlineTimer.shutdownNow();
+    }
   }
 
   public static synchronized void incrementFailureCount() {
@@ -176,9 +336,89 @@ public class HttpOfferSetImpl implements OfferSet {
     return HttpOfferSetImpl.useEndpoint;
   }
 
-  public static synchronized void fetchStartingTasks(Storage storage) {
-    startingTasks = Storage.Util.fetchTasks(storage,
-        Query.unscoped().byStatus(ScheduleStatus.STARTING));
+  /**
+   * Recounts the STARTING tasks per agent from storage.  Counts are otherwise maintained
+   * incrementally from task state changes, so this only reconciles changes that were missed.
+   *
+   * @param storage Storage to fetch STARTING tasks from.
+   */
+  public static void fetchStartingTasks(Storage storage) {
+    Map<String, Integer> counts = new HashMap<>();
+    for (IScheduledTask task : Storage.Util.fetchTasks(storage,
+        Query.unscoped().byStatus(ScheduleStatus.STARTING))) {
+
+      counts.merge(task.getAssignedTask().getSlaveId(), 1, Integer::sum);
+    }
+    synchronized (HttpOfferSetImpl.class) {
+      startingTaskCounts = counts;
+    }
+  }
+
+  /**
+   * Updates the STARTING task count of the task's agent.
+   *
+   * @param stateChange Task state change.
+   */
+  public static synchronized void taskChangedState(TaskStateChange stateChange) {
+    String slaveId = stateChange.getTask().getAssignedTask().getSlaveId();
+    if (slaveId == null) {
+      return;
+    }
+    boolean wasStarting = stateChange.getOldState().orElse(null) == ScheduleStatus.STARTING;
+    boolean isStarting = stateChange.getNewState() == ScheduleStatus.STARTING;
+    if (isStarting && !wasStarting) {
+      startingTaskCounts.merge(slaveId, 1, Integer::sum);
+    } else if (wasStarting && !isStarting) {
+      startingTaskCounts.computeIfPresent(slaveId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+  }
+
+  /**
+   * Takes the latencies and offer set differences recorded since the previous call.
+   *
+   * @return Stats of the interval since the previous call.
+   */
+  static IntervalStats takeIntervalStats() {
+    List<Long> latenciesNs;
+    long avgLatencyNs;
+    long worstLatencyNs;
+    long maxOfferSetDiff;
+    synchronized (INTERVAL_LOCK) {
+      latenciesNs = ImmutableList.copyOf(intervalLatenciesNs);
+      avgLatencyNs = intervalLatencyCount == 0 ? 0 : intervalLatencySumNs / intervalLatencyCount;
+      worstLatencyNs = intervalLatencyMaxNs;
+      maxOfferSetDiff = intervalMaxOfferSetDiff;
+      intervalLatenciesNs.clear();
+      intervalLatencyCount = 0;
+      intervalLatencySumNs = 0;
+      intervalLatencyMaxNs = 0;
+      intervalMaxOfferSetDiff = 0;
+    }
+    return new IntervalStats(
+        Util.percentile(latenciesNs, 50.0).doubleValue(),
+        avgLatencyNs,
+        worstLatencyNs,
+        maxOfferSetDiff);
+  }
+
+  @VisibleForTesting
+  static synchronized Map<String, Integer> getStartingTaskCounts() {
+    return ImmutableMap.copyOf(startingTaskCounts);
+  }
+
+  @VisibleForTesting
+  long getLastOfferSetDiff() {
+    return lastOfferSetDiff;
+  }
+
+  @VisibleForTesting
+  long getDeadlineMisses() {
+    return deadlineMisses.get();
+  }
+
+  @VisibleForTesting
+  long getLocalFallbacks() {
+    return localFallbacks.get();
   }
 
   @Override
@@ -216,73 +456,199 @@ public class HttpOfferSetImpl implements OfferSet {
       return offers;
     }
 
-    // count the number of starting tasks per slave
-    Map<String, Integer> hostTaskCountMap = new HashMap<>();
-    synchronized (startingTasks) {
-      for (IScheduledTask task : startingTasks) {
-        String slaveId = task.getAssignedTask().getSlaveId();
-        hostTaskCountMap.put(slaveId, hostTaskCountMap.getOrDefault(slaveId, 0) + 1);
-      }
-    }
-
     // find the bad offers and put them at the bottom of the list
     List<HostOffer> badOffers = new LinkedList<>();
-    List<HostOffer> goodOffers = new LinkedList<>();
-    if (maxStartingTasksPerSlave > 0) {
-      if (!filterEnabled) {
-        badOffers =  offers.stream()
-            .filter(offer ->
-                hostTaskCountMap.getOrDefault(offer.getOffer().getAgentId().getValue(), 0)
-                    >= maxStartingTasksPerSlave)
-            .collect(Collectors.toList());
-      }
-      goodOffers =  offers.stream()
-          .filter(offer ->
-              hostTaskCountMap.getOrDefault(offer.getOffer().getAgentId().getValue(), 0)
-                  < maxStartingTasksPerSlave)
-          .collect(Collectors.toList());
-
-      if (!badOffers.isEmpty()) {
-        LOG.info("the number of bad offers: {}", badOffers.size());
-      }
-    } else {
-      goodOffers = offers.stream().collect(Collectors.toList());
-    }
+    List<HostOffer> goodOffers = partitionOffers(badOffers);
 
     // if the external http endpoint was not reachable or we have nothing to send out
     if (!HttpOfferSetImpl.isUseEndpoint() || goodOffers.isEmpty()) {
       goodOffers.addAll(badOffers);
-      HttpOfferSetImpl.latencyMsList.add(System.nanoTime() - startTime);
+      recordLatency(startTime);
+      return goodOffers;
+    }
+
+    // with batch ordering, the endpoint is never called while matching offers.
+    if (batchOrdering) {
+      goodOffers = orderPrepared(groupKey, goodOffers);
+      goodOffers.addAll(badOffers);
+      recordLatency(startTime);
       return goodOffers;
     }
 
     List<HostOffer> orderedOffers = null;
     try {
-      // create json request & send the Rest API request to the scheduler plugin
-      ScheduleRequest scheduleRequest = createRequest(goodOffers, resourceRequest, startTime);
-      LOG.info("Sending request {}", scheduleRequest.jobKey);
-      String responseStr = sendRequest(scheduleRequest);
-      orderedOffers = processResponse(goodOffers, responseStr, badOffers.size());
+      if (deltaEncoding) {
+        orderedOffers = orderWithDelta(goodOffers, resourceRequest, startTime, badOffers.size());
+      } else {
+        // create json request & send the Rest API request to the scheduler plugin
+        ScheduleRequest scheduleRequest = createRequest(goodOffers, resourceRequest, startTime);
+        LOG.info("Sending request {}", scheduleRequest.jobKey);
+        String responseStr = sendRequest(scheduleRequest);
+        orderedOffers = processResponse(goodOffers, responseStr, badOffers.size());
+      }
     } catch (Exception e) {
       LOG.error("Failed to schedule the task of {} using {} ",
           resourceRequest.getTask().getJob().toString(), endpoint, e);
       HttpOfferSetImpl.incrementFailureCount();
     } finally {
-      // stop reaching the endpoint if failure is consistent.
-      if (HttpOfferSetImpl.getFailureCount() >= maxRetries) {
-        LOG.error("Reaches {} retries. {} is disabled", maxRetries, endpoint);
-        HttpOfferSetImpl.setUseEndpoint(false);
-      }
+      checkFailureCount();
     }
     if (orderedOffers != null) {
       goodOffers = orderedOffers;
     }
 
     goodOffers.addAll(badOffers);
-    HttpOfferSetImpl.latencyMsList.add(System.nanoTime() - startTime);
+    recordLatency(startTime);
     return goodOffers;
   }
 
+  @Override
+  public CompletableFuture<Void> prepareOrdering(
+      Map<TaskGroupKey, ResourceRequest> resourceRequests) {
+
+    if (!batchOrdering || resourceRequests.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    // orderings from an earlier round no longer reflect the offers.
+    preparedOrderings.invalidateAll(resourceRequests.keySet());
+    if (!HttpOfferSetImpl.isUseEndpoint() || offers.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    long startTime = System.nanoTime();
+    List<HostOffer> badOffers = new LinkedList<>();
+    List<HostOffer> goodOffers = partitionOffers(badOffers);
+    if (goodOffers.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    List<TaskGroupKey> groupKeys = ImmutableList.copyOf(resourceRequests.keySet());
+    BatchScheduleRequest batchRequest = new BatchScheduleRequest(
+        groupKeys.stream()
+            .map(groupKey ->
+                createRequest(ImmutableList.of(), resourceRequests.get(groupKey), startTime))
+            .collect(Collectors.toList()),
+        goodOffers.stream()
+            .map(offer -> new Host(offer.getAttributes().getHost(), new Resource(offer)))
+            .collect(Collectors.toList()));
+    LOG.info("Sending batch request for {} task groups", groupKeys.size());
+
+    // The round proceeds as soon as either the endpoint answers or the deadline passes.  Only an
+    // answer that arrives first is used, so that all groups of a round see consistent orderings.
+    CompletableFuture<Void> prepared = new CompletableFuture<>();
+    AtomicBoolean decided = new AtomicBoolean(false);
+    ScheduledFuture<?> deadline = deadlineTimer.schedule(
+        () -> {
+          if (decided.compareAndSet(false, true)) {
+            LOG.warn("{} did not order offers for {} task groups within {} ms",
+                endpoint, groupKeys.size(), batchDeadlineMs);
+            deadlineMisses.incrementAndGet();
+            prepared.complete(null);
+          }
+        },
+        batchDeadlineMs,
+        TimeUnit.MILLISECONDS);
+
+    CompletableFuture.supplyAsync(() -> orderBatch(batchRequest), batchExecutor)
+        .whenComplete((response, error) -> {
+          boolean inTime = decided.compareAndSet(false, true);
+          if (inTime) {
+            deadline.cancel(false);
+          }
+          if (error != null) {
+            LOG.error("Failed to order offers for {} task groups using {}",
+                groupKeys.size(), endpoint, error);
+            HttpOfferSetImpl.incrementFailureCount();
+            checkFailureCount();
+          } else if (inTime) {
+            Set<HostOffer> sent = ImmutableSet.copyOf(goodOffers);
+            for (int i = 0; i < groupKeys.size(); i++) {
+              ScheduleResponse groupResponse = response.responses.get(i);
+              if (groupResponse.error.trim().isEmpty()) {
+                preparedOrderings.put(
+                    groupKeys.get(i),
+                    new PreparedOrdering(
+                        orderOffers(goodOffers, groupResponse, badOffers.size()),
+                        sent));
+              } else {
+                LOG.error("Unable to receive offers for {} from {} due to {}",
+                    batchRequest.requests.get(i).jobKey, endpoint, groupResponse.error);
+              }
+            }
+            roundLatencyUs.record(
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+          } else {
+            LOG.info("Ignoring response for {} task groups received after the deadline",
+                groupKeys.size());
+          }
+          prepared.complete(null);
+        });
+    return prepared;
+  }
+
+  // partitionOffers returns the offers of agents below the limit of STARTING tasks.  The other
+  // offers are added to badOffers, unless they are filtered out.
+  private List<HostOffer> partitionOffers(List<HostOffer> badOffers) {
+    if (maxStartingTasksPerSlave <= 0) {
+      return offers.stream().collect(Collectors.toList());
+    }
+
+    // the number of starting tasks per slave
+    Map<String, Integer> hostTaskCountMap = getStartingTaskCounts();
+    List<HostOffer> goodOffers = new LinkedList<>();
+    for (HostOffer offer : offers) {
+      if (hostTaskCountMap.getOrDefault(offer.getOffer().getAgentId().getValue(), 0)
+          < maxStartingTasksPerSlave) {
+        goodOffers.add(offer);
+      } else if (!filterEnabled) {
+        badOffers.add(offer);
+      }
+    }
+    if (!badOffers.isEmpty()) {
+      LOG.info("the number of bad offers: {}", badOffers.size());
+    }
+    return goodOffers;
+  }
+
+  // orderPrepared orders offers as prepared for the group, or keeps the local ordering if the
+  // endpoint did not answer in time.  Offers received since the ordering was prepared follow the
+  // ordered ones, while offers the endpoint left out of its ordering are skipped.
+  private List<HostOffer> orderPrepared(TaskGroupKey groupKey, List<HostOffer> goodOffers) {
+    PreparedOrdering prepared = preparedOrderings.getIfPresent(groupKey);
+    if (prepared == null) {
+      localFallbacks.incrementAndGet();
+      return goodOffers;
+    }
+
+    Set<HostOffer> available = ImmutableSet.copyOf(goodOffers);
+    List<HostOffer> orderedOffers = prepared.orderedOffers.stream()
+        .filter(available::contains)
+        .collect(Collectors.toList());
+    goodOffers.stream()
+        .filter(offer -> !prepared.sentOffers.contains(offer))
+        .forEach(orderedOffers::add);
+    return orderedOffers;
+  }
+
+  // stop reaching the endpoint if failure is consistent.
+  private void checkFailureCount() {
+    if (HttpOfferSetImpl.getFailureCount() >= maxRetries) {
+      LOG.error("Reaches {} retries. {} is disabled", maxRetries, endpoint);
+      HttpOfferSetImpl.setUseEndpoint(false);
+    }
+  }
+
+  private void recordLatency(long startTime) {
+    long latencyNs = System.nanoTime() - startTime;
+    latencyUs.record(TimeUnit.NANOSECONDS.toMicros(latencyNs));
+    synchronized (INTERVAL_LOCK) {
+      intervalLatenciesNs.add(latencyNs);
+      intervalLatencyCount++;
+      intervalLatencySumNs += latencyNs;
+      intervalLatencyMaxNs = Math.max(intervalLatencyMaxNs, latencyNs);
+    }
+  }
+
   //createScheduleRequest creates the ScheduleRequest to be sent out to the plugin.
   private ScheduleRequest createRequest(List<HostOffer> mOffers,
                                         ResourceRequest resourceRequest,
@@ -300,33 +666,109 @@ public class HttpOfferSetImpl implements OfferSet {
     return new ScheduleRequest(req, hosts, jobKeyStr);
   }
 
-  // sendRequest sends ScheduleRequest to the external endpoint and gets ordered offers in json
-  private String sendRequest(ScheduleRequest scheduleRequest) throws IOException {
+  // orderWithDelta sends only the offers changed since the endpoint's last acknowledged view.
+  // The request is built under the view's lock but sent outside of it.  While a request is in
+  // flight the endpoint's view is unknown, so concurrent requests are sent in full, and only the
+  // most recently sent request may install its view once acknowledged.
+  private List<HostOffer> orderWithDelta(List<HostOffer> mOffers,
+                                         ResourceRequest resourceRequest,
+                                         long startTime,
+                                         int badOfferSize) throws IOException {
+
+    Map<String, HostOffer> view = new HashMap<>();
+    for (HostOffer offer : mOffers) {
+      view.put(offer.getOffer().getId().getValue(), offer);
+    }
+
+    ScheduleRequest scheduleRequest =
+        createRequest(ImmutableList.of(), resourceRequest, startTime);
+    List<Host> changed = new ArrayList<>();
+    List<String> removed;
+    long version;
+    synchronized (pluginView) {
+      for (HostOffer offer : mOffers) {
+        String offerId = offer.getOffer().getId().getValue();
+        if (!offer.equals(pluginView.get(offerId))) {
+          Host host = new Host(offer.getAttributes().getHost(), new Resource(offer));
+          host.setOfferId(offerId);
+          changed.add(host);
+        }
+      }
+      removed = pluginView.keySet().stream()
+          .filter(offerId -> !view.containsKey(offerId))
+          .collect(Collectors.toList());
+      version = nextVersion++;
+      scheduleRequest.setBaseVersion(pluginViewVersion);
+
+      // The endpoint's view is unknown until it acknowledges this request, so the next request
+      // is a full one unless this one succeeds.
+      pluginView.clear();
+      pluginViewVersion = 0;
+    }
+    scheduleRequest.setHosts(changed);
+    scheduleRequest.setVersion(version);
+    scheduleRequest.setRemovedOffers(removed);
+    LOG.info("Sending request {} with {} changed and {} removed offers",
+        scheduleRequest.jobKey, changed.size(), removed.size());
+
+    ScheduleResponse response = parseResponse(sendRequest(scheduleRequest));
+    if (response.version != version) {
+      throw new IOException("Endpoint acknowledged offer set version " + response.version
+          + " instead of " + version);
+    }
+    synchronized (pluginView) {
+      if (version == nextVersion - 1) {
+        pluginView.putAll(view);
+        pluginViewVersion = version;
+      }
+    }
+    return orderOffers(mOffers, response, badOfferSize);
+  }
+
+  // orderBatch sends BatchScheduleRequest to the external endpoint and gets ordered offers for
+  // each of its requests.
+  private BatchScheduleResponse orderBatch(BatchScheduleRequest batchRequest) {
+    try {
+      BatchScheduleResponse response =
+          jsonMapper.readValue(sendRequest(batchRequest), BatchScheduleResponse.class);
+      if (!response.error.trim().isEmpty()) {
+        throw new IOException(response.error);
+      }
+      if (response.responses.size() != batchRequest.requests.size()) {
+        throw new IOException("Received " + response.responses.size() + " responses for "
+            + batchRequest.requests.size() + " requests");
+      }
+      return response;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // sendRequest sends a request to the external endpoint and gets ordered offers in json
+  private String sendRequest(Object scheduleRequest) throws IOException {
     LOG.debug("Sending request for {}", scheduleRequest);
     HttpPost request = new HttpPost(endpoint.toString());
-    RequestConfig requestConfig = RequestConfig.custom()
-            .setConnectionRequestTimeout(timeoutMs)
-            .setConnectTimeout(timeoutMs)
-            .setSocketTimeout(timeoutMs)
-            .build();
     request.setConfig(requestConfig);
     request.addHeader("Content-Type", "application/json; utf-8");
     request.addHeader("Accept", "application/json");
-    request.setEntity(new StringEntity(jsonMapper.writeValueAsString(scheduleRequest)));
-    try {
-      CloseableHttpResponse response = httpClient.execute(request);
+    // Encode the request directly into the connection instead of building it as a string first.
+    request.setEntity(new EntityTemplate(out -> jsonMapper.writeValue(out, scheduleRequest)));
+    // Closing the response returns its connection to the pool.
+    try (CloseableHttpResponse response = httpClient.execute(request)) {
       HttpEntity entity = response.getEntity();
       if (entity == null) {
         throw new IOException("Empty response from the external http endpoint.");
       }
       return EntityUtils.toString(entity);
-    } catch (IOException ie) {
-      throw ie;
     }
   }
 
   List<HostOffer> processResponse(List<HostOffer> mOffers, String responseStr, int badOfferSize)
       throws IOException {
+    return orderOffers(mOffers, parseResponse(responseStr), badOfferSize);
+  }
+
+  private ScheduleResponse parseResponse(String responseStr) throws IOException {
     ScheduleResponse response = jsonMapper.readValue(responseStr, ScheduleResponse.class);
     LOG.info("Received {} offers", response.hosts.size());
 
@@ -334,6 +776,12 @@ public class HttpOfferSetImpl implements OfferSet {
       LOG.error("Unable to receive offers from {} due to {}", endpoint, response.error);
       throw new IOException(response.error);
     }
+    return response;
+  }
+
+  private List<HostOffer> orderOffers(List<HostOffer> mOffers,
+                                      ScheduleResponse response,
+                                      int badOfferSize) {
     // Use Map<String, List<HostOffer>> to fix offers with duplicate host name issue
     Map<String, List<HostOffer>> offerMap = mOffers.stream().
             collect(Collectors.groupingBy(offer -> offer.getOffer().getHostname(),
@@ -346,7 +794,11 @@ public class HttpOfferSetImpl implements OfferSet {
 
     //offSetDiff is the value of the difference between Aurora offers and response offers
     long offSetDiff = mOffers.size() + badOfferSize - orderedOffers.size() + extraOffers.size();
-    offerSetDiffList.add(offSetDiff);
+    offerSetDiff.record(offSetDiff);
+    lastOfferSetDiff = offSetDiff;
+    synchronized (INTERVAL_LOCK) {
+      intervalMaxOfferSetDiff = Math.max(intervalMaxOfferSetDiff, offSetDiff);
+    }
     if (offSetDiff > 0) {
       LOG.warn("The number of different offers between the original and received offer sets is {}",
           offSetDiff);
@@ -366,12 +818,41 @@ public class HttpOfferSetImpl implements OfferSet {
     return orderedOffers;
   }
 
+  static final class IntervalStats {
+    final double medianLatencyNs;
+    final long avgLatencyNs;
+    final long worstLatencyNs;
+    final long maxOfferSetDiff;
+
+    IntervalStats(double mMedianLatencyNs,
+                  long mAvgLatencyNs,
+                  long mWorstLatencyNs,
+                  long mMaxOfferSetDiff) {
+      medianLatencyNs = mMedianLatencyNs;
+      avgLatencyNs = mAvgLatencyNs;
+      worstLatencyNs = mWorstLatencyNs;
+      maxOfferSetDiff = mMaxOfferSetDiff;
+    }
+  }
+
+  private static final class PreparedOrdering {
+    private final List<HostOffer> orderedOffers;
+    private final Set<HostOffer> sentOffers;
+
+    PreparedOrdering(List<HostOffer> mOrderedOffers, Set<HostOffer> mSentOffers) {
+      orderedOffers = mOrderedOffers;
+      sentOffers = mSentOffers;
+    }
+  }
+
   @Nonnull
   static class Host {
     @Nonnull
     String name = "";
     @Nonnull
     Resource offer = new Resource(0, 0, 0);
+    // Only set when using delta encoding, where offers are identified by ID.
+    String offerId;
 
     Host(String mName, Resource mOffer) {
       name = mName;
@@ -398,6 +879,15 @@ public class HttpOfferSetImpl implements OfferSet {
     public void setOffer(Resource mOffer) {
       offer = mOffer;
     }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getOfferId() {
+      return offerId;
+    }
+
+    public void setOfferId(String mOfferId) {
+      offerId = mOfferId;
+    }
   }
 
   @Nonnull
@@ -458,6 +948,11 @@ public class HttpOfferSetImpl implements OfferSet {
     Resource request = new Resource(0, 0, 0);
     @Nonnull
     List<Host> hosts = new LinkedList<>();;
+    // The following are only set when using delta encoding.  hosts then holds the offers added or
+    // changed since baseVersion, which is 0 if hosts holds all offers.
+    Long version;
+    Long baseVersion;
+    List<String> removedOffers;
 
     ScheduleRequest(Resource mRequest, List<Host> mHosts, String mJobKey) {
       request = mRequest;
@@ -494,6 +989,98 @@ public class HttpOfferSetImpl implements OfferSet {
     public void setHosts(List<Host> mHosts) {
       hosts = mHosts;
     }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getVersion() {
+      return version;
+    }
+
+    public void setVersion(Long mVersion) {
+      version = mVersion;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getBaseVersion() {
+      return baseVersion;
+    }
+
+    public void setBaseVersion(Long mBaseVersion) {
+      baseVersion = mBaseVersion;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public List<String> getRemovedOffers() {
+      return removedOffers;
+    }
+
+    public void setRemovedOffers(List<String> mRemovedOffers) {
+      removedOffers = mRemovedOffers;
+    }
+  }
+
+  @Nonnull
+  static class BatchScheduleRequest {
+    @Nonnull
+    List<ScheduleRequest> requests = new LinkedList<>();
+    // The offers to order for all requests, which carry no hosts of their own.
+    @Nonnull
+    List<Host> hosts = new LinkedList<>();
+
+    BatchScheduleRequest(List<ScheduleRequest> mRequests, List<Host> mHosts) {
+      requests = mRequests;
+      hosts = mHosts;
+    }
+
+    @Override
+    public String toString() {
+      return "BatchScheduleRequest{" + "requests=" + requests + ", hosts=" + hosts + '}';
+    }
+
+    public List<ScheduleRequest> getRequests() {
+      return requests;
+    }
+
+    public void setRequests(List<ScheduleRequest> mRequests) {
+      requests = mRequests;
+    }
+
+    public List<Host> getHosts() {
+      return hosts;
+    }
+
+    public void setHosts(List<Host> mHosts) {
+      hosts = mHosts;
+    }
+  }
+
+  @Nonnull
+  static class BatchScheduleResponse {
+    @Nonnull
+    String error = "";
+    // The responses to the requests, in the order of the requests.
+    @Nonnull
+    List<ScheduleResponse> responses = new LinkedList<>();
+
+    @Override
+    public String toString() {
+      return "BatchScheduleResponse{" + "error='" + error + '\'' + ", responses=" + responses + '}';
+    }
+
+    public String getError() {
+      return error;
+    }
+
+    public void setError(String mError) {
+      error = mError;
+    }
+
+    public List<ScheduleResponse> getResponses() {
+      return responses;
+    }
+
+    public void setResponses(List<ScheduleResponse> mResponses) {
+      responses = mResponses;
+    }
   }
 
   @Nonnull
@@ -502,6 +1089,8 @@ public class HttpOfferSetImpl implements OfferSet {
     String error = "";
     @Nonnull
     List<String> hosts = new LinkedList<>();
+    // The offer set version the endpoint holds after this response, when using delta encoding.
+    long version;
 
     @Override
     public String toString() {
@@ -523,5 +1112,13 @@ public class HttpOfferSetImpl implements OfferSet {
     public void setHosts(List<String> mHosts) {
       hosts = mHosts;
     }
+
+    public long getVersion() {
+      return version;
+    }
+
+    public void setVersion(long mVersion) {
+      version = mVersion;
+    }
   }
 }
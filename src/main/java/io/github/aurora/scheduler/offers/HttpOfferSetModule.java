@@ -37,6 +37,8 @@ import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.config.CliOptions;
 import org.apache.aurora.scheduler.config.CommandLine;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
+import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferOrderBuilder;
 import org.apache.aurora.scheduler.offers.OfferSet;
@@ -83,6 +85,29 @@ public class HttpOfferSetModule extends AbstractModule {
     @Parameter(names = "-http_offer_set_task_fetch_interval",
         description = "Interval of fetching starting tasks from task_store")
     TimeAmount httpOfferSetTaskFetchInterval = new TimeAmount(1, Time.SECONDS);
+
+    @Parameter(names = "-http_offer_set_max_connections",
+        description = "Maximum number of persistent connections to the http_offer_set_endpoint",
+        validateValueWith = PositiveNumber.class)
+    int httpOfferSetMaxConnections = 10;
+
+    @Parameter(names = "-http_offer_set_delta_encoding",
+        description = "Only send the offers changed since the last request acknowledged by the "
+            + "http_offer_set_endpoint. The endpoint must support delta encoded requests.",
+        arity = 1)
+    boolean httpOfferSetDeltaEncoding = false;
+
+    @Parameter(names = "-http_offer_set_batch_ordering",
+        description = "Order the offers for all task groups of a scheduling round in a single "
+            + "request to the http_offer_set_endpoint, sent before the round starts. The endpoint "
+            + "must support batch requests.",
+        arity = 1)
+    boolean httpOfferSetBatchOrdering = false;
+
+    @Parameter(names = "-http_offer_set_batch_deadline",
+        description = "Time to wait for the http_offer_set_endpoint to answer a batch request, "
+            + "after which the scheduling round uses the local offer ordering.")
+    TimeAmount httpOfferSetBatchDeadline = new TimeAmount(100, Time.MILLISECONDS);
   }
 
   static {
@@ -117,13 +142,28 @@ public class HttpOfferSetModule extends AbstractModule {
         bind(Boolean.class)
             .annotatedWith(HttpOfferSetImpl.FilterEnabled.class)
             .toInstance(options.httpOfferSetFilterEnabled);
-        bind(OfferSet.class).to(HttpOfferSetImpl.class).in(Singleton.class);
+        bind(Integer.class)
+            .annotatedWith(HttpOfferSetImpl.MaxConnections.class)
+            .toInstance(options.httpOfferSetMaxConnections);
+        bind(Boolean.class)
+            .annotatedWith(HttpOfferSetImpl.DeltaEncoding.class)
+            .toInstance(options.httpOfferSetDeltaEncoding);
+        bind(Boolean.class)
+            .annotatedWith(HttpOfferSetImpl.BatchOrdering.class)
+            .toInstance(options.httpOfferSetBatchOrdering);
+        bind(Long.class)
+            .annotatedWith(HttpOfferSetImpl.BatchDeadlineMs.class)
+            .toInstance(options.httpOfferSetBatchDeadline.as(Time.MILLISECONDS));
+        bind(HttpOfferSetImpl.class).in(Singleton.class);
+        bind(OfferSet.class).to(HttpOfferSetImpl.class);
         expose(OfferSet.class);
+        expose(HttpOfferSetImpl.class);
       }
     });
 
     bind(StatCalculator.class).in(com.google.inject.Singleton.class);
     bind(TaskFetcher.class).in(com.google.inject.Singleton.class);
+    PubsubEventModule.bindSubscriber(binder(), TaskFetcher.class);
 
     bind(ScheduledExecutorService.class)
         .annotatedWith(Executor.class)
@@ -165,6 +205,7 @@ public class HttpOfferSetModule extends AbstractModule {
     private final ScheduledExecutorService executor;
     private final StatCalculator calculator;
     private final TaskFetcher taskFetcher;
+    private final HttpOfferSetImpl offerSet;
     private final Long refreshRateMs;
     private final Long taskFetcherRateMs;
     private final Integer maxStartingTasksPerSlave;
@@ -174,12 +215,14 @@ public class HttpOfferSetModule extends AbstractModule {
             @Executor ScheduledExecutorService mExecutor,
             StatCalculator mCalculator,
             TaskFetcher mTaskFetcher,
+            HttpOfferSetImpl mOfferSet,
             @RefreshRateMs Long mRefreshRateMs,
             @TaskFetcherRateSec Long mTaskFetcherRateMs,
             @MaxStartingTaskPerSlave Integer mMaxStartingTasksPerSlave) {
       executor = requireNonNull(mExecutor);
       calculator = requireNonNull(mCalculator);
       taskFetcher = requireNonNull(mTaskFetcher);
+      offerSet = requireNonNull(mOfferSet);
       refreshRateMs = requireNonNull(mRefreshRateMs);
       taskFetcherRateMs = requireNonNull(mTaskFetcherRateMs);
       maxStartingTasksPerSlave = requireNonNull(mMaxStartingTasksPerSlave);
@@ -195,7 +238,7 @@ public class HttpOfferSetModule extends AbstractModule {
 
     @Override
     protected void shutDown() {
-      // Ignored.
+      offerSet.shutdown();
     }
   }
 }
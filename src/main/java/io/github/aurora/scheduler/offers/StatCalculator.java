@@ -13,9 +13,7 @@
  */
 package io.github.aurora.scheduler.offers;
 
-import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
@@ -67,41 +65,26 @@ public class StatCalculator implements Runnable {
 
   @Override
   public void run() {
-    // make copies of stat data as synchronizedList is not thread-safe iterating
-    List<Long> latencyList;
-    synchronized (HttpOfferSetImpl.latencyMsList) {
-      latencyList = HttpOfferSetImpl.latencyMsList.stream().collect(Collectors.toList());
-    }
-    List<Long> offerSetDiffList;
-    synchronized (HttpOfferSetImpl.offerSetDiffList) {
-      offerSetDiffList = HttpOfferSetImpl.offerSetDiffList.stream().collect(Collectors.toList());
-    }
     long failureCount = HttpOfferSetImpl.getFailureCount();
-
-    // reset the stats.
-    HttpOfferSetImpl.latencyMsList.clear();
     HttpOfferSetImpl.resetFailureCount();
-    HttpOfferSetImpl.offerSetDiffList.clear();
 
-    float medianLatency =
-            Util.percentile(latencyList, 50.0)
-                              .floatValue() / 1000000;
-    float avgLatency =
-            (float) Util.avg(latencyList) / 1000000;
-    float worstLatency =
-            (float) Util.max(latencyList) / 1000000;
+    String failureCountName = "http_offer_set_failure_count";
+    metricCache.getUnchecked(failureCountName).set(failureCountName, failureCount);
 
+    // Deprecated in favor of the percentiles exported by HttpOfferSetImpl, and kept for existing
+    // dashboards.
+    HttpOfferSetImpl.IntervalStats interval = HttpOfferSetImpl.takeIntervalStats();
     String medianLatencyName = "http_offer_set_median_latency_ms";
-    metricCache.getUnchecked(medianLatencyName).set(medianLatencyName, medianLatency);
+    metricCache.getUnchecked(medianLatencyName)
+        .set(medianLatencyName, (float) interval.medianLatencyNs / 1000000);
     String worstLatencyName = "http_offer_set_worst_latency_ms";
-    metricCache.getUnchecked(worstLatencyName).set(worstLatencyName, worstLatency);
+    metricCache.getUnchecked(worstLatencyName)
+        .set(worstLatencyName, (float) interval.worstLatencyNs / 1000000);
     String avgLatencyName = "http_offer_set_avg_latency_ms";
-    metricCache.getUnchecked(avgLatencyName).set(avgLatencyName, avgLatency);
-    String failureCountName = "http_offer_set_failure_count";
-    metricCache.getUnchecked(failureCountName).set(failureCountName, failureCount);
-
-    long maxOfferSetDiff = Util.max(offerSetDiffList);
-    String maxOffSetDiffName = "http_offer_set_max_diff";
-    metricCache.getUnchecked(maxOffSetDiffName).set(maxOffSetDiffName, maxOfferSetDiff);
+    metricCache.getUnchecked(avgLatencyName)
+        .set(avgLatencyName, (float) interval.avgLatencyNs / 1000000);
+    String maxOfferSetDiffName = "http_offer_set_max_diff";
+    metricCache.getUnchecked(maxOfferSetDiffName)
+        .set(maxOfferSetDiffName, interval.maxOfferSetDiff);
   }
 }
@@ -15,9 +15,17 @@ package io.github.aurora.scheduler.offers;
 
 import javax.inject.Inject;
 
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.storage.Storage;
 
-public class TaskFetcher implements Runnable {
+/**
+ * Maintains the number of STARTING tasks per agent from task state changes, and periodically
+ * reconciles it with storage when run.
+ */
+public class TaskFetcher implements Runnable, EventSubscriber {
   private final Storage storage;
 
   @Inject
@@ -29,4 +37,9 @@ public class TaskFetcher implements Runnable {
   public void run() {
     HttpOfferSetImpl.fetchStartingTasks(storage);
   }
+
+  @Subscribe
+  public void taskChangedState(TaskStateChange stateChange) {
+    HttpOfferSetImpl.taskChangedState(stateChange);
+  }
 }
@@ -0,0 +1,86 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.aurora.scheduler.scheduling;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+
+/**
+ * Maintains the number of PENDING tasks per priority from task state changes, so that the highest
+ * priority of pending tasks can be read without scanning them.
+ */
+public class PendingPriorities implements EventSubscriber {
+  // Number of PENDING tasks per priority, guarded by this.
+  private final NavigableMap<Integer, Integer> counts = new TreeMap<>();
+  private volatile int maxPriority = 0;
+
+  /**
+   * Gets the highest priority of pending tasks.
+   *
+   * @return The highest pending priority, or {@code 0} if there are no pending tasks.
+   */
+  public int getMaxPriority() {
+    return maxPriority;
+  }
+
+  @Subscribe
+  public synchronized void taskChangedState(TaskStateChange stateChange) {
+    boolean wasPending = stateChange.getOldState().orElse(null) == ScheduleStatus.PENDING;
+    boolean isPending = stateChange.getNewState() == ScheduleStatus.PENDING;
+    if (isPending && !wasPending) {
+      counts.merge(priority(stateChange.getTask()), 1, Integer::sum);
+      updateMaxPriority();
+    } else if (wasPending && !isPending) {
+      decrement(stateChange.getTask());
+    }
+  }
+
+  @Subscribe
+  public synchronized void tasksDeleted(TasksDeleted event) {
+    for (IScheduledTask task : event.getTasks()) {
+      if (task.getStatus() == ScheduleStatus.PENDING) {
+        decrement(task);
+      }
+    }
+  }
+
+  @VisibleForTesting
+  synchronized Map<Integer, Integer> getCounts() {
+    return ImmutableMap.copyOf(counts);
+  }
+
+  private void decrement(IScheduledTask task) {
+    counts.computeIfPresent(priority(task), (priority, count) -> count > 1 ? count - 1 : null);
+    updateMaxPriority();
+  }
+
+  private void updateMaxPriority() {
+    maxPriority = counts.isEmpty() ? 0 : Math.max(0, counts.lastKey());
+  }
+
+  private static int priority(IScheduledTask task) {
+    return task.getAssignedTask().getTask().getPriority();
+  }
+}
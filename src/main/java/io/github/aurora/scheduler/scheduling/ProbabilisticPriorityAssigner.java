@@ -16,29 +16,26 @@ package io.github.aurora.scheduler.scheduling;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.Map;
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Qualifier;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import org.apache.aurora.common.stats.Histogram;
 import org.apache.aurora.common.stats.StatsProvider;
-import org.apache.aurora.gen.ScheduleStatus;
-import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.scheduling.TaskAssignerImpl;
 import org.apache.aurora.scheduler.state.StateManager;
-import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
-import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.updater.UpdateAgentReserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,7 +52,9 @@ public class ProbabilisticPriorityAssigner extends TaskAssignerImpl {
   private static final Logger LOG = LoggerFactory.
       getLogger(ProbabilisticPriorityAssigner.class);
 
-  private static Iterable<IScheduledTask> pendindTasks = new LinkedList<>();
+  private final PendingPriorities pendingPriorities;
+  private final Histogram priorityCheckLatencyUs =
+      new Histogram("probabilistic_priority_check_latency_us", 50, 90, 99);
 
   private Double exponent;
 
@@ -71,8 +70,10 @@ public class ProbabilisticPriorityAssigner extends TaskAssignerImpl {
       OfferManager offerManager,
       UpdateAgentReserver updateAgentReserver,
       StatsProvider statsProvider,
+      PendingPriorities pendingPriorities,
       @Exponent Double exponent) {
     super(stateManager, taskFactory, offerManager, updateAgentReserver, statsProvider);
+    this.pendingPriorities = requireNonNull(pendingPriorities);
     this.exponent = requireNonNull(exponent);
   }
 
@@ -87,18 +88,16 @@ public class ProbabilisticPriorityAssigner extends TaskAssignerImpl {
 
     // probabilistic priority queueing: may not schedule these tasks if
     // there are pending tasks with higher priority.
-    Set<Integer> prioritySet = new HashSet<>();
-    synchronized (pendindTasks) {
-      for (IScheduledTask t: pendindTasks) {
-        prioritySet.add(t.getAssignedTask().getTask().getPriority());
-      }
-    }
-    //this group is not always included in the pending task set
-    prioritySet.add(groupKey.getTask().getPriority());
-
-    if (!isScheduled(prioritySet, groupKey.getTask().getPriority())) {
+    long startTime = System.nanoTime();
+    int priority = groupKey.getTask().getPriority();
+    //this group is not always counted as pending
+    int maxPriority = Math.max(pendingPriorities.getMaxPriority(), priority);
+
+    boolean scheduled = isScheduled(maxPriority, priority);
+    priorityCheckLatencyUs.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+    if (!scheduled) {
       LOG.info("{} is being skipped to prioritize tasks with a higher priority {}",
-          groupKey, prioritySet);
+          groupKey, maxPriority);
       return new HashSet<String>();
     }
 
@@ -106,7 +105,7 @@ public class ProbabilisticPriorityAssigner extends TaskAssignerImpl {
   }
 
   /**
-   * Determine whether or not schedule the group with priority based on the set of priorities
+   * Determine whether or not schedule the group with priority based on the highest priority
    * of pending tasks.
    * The exponent controls the probabilistic outcome. The higher exponent, the less chance that
    * the low priority tasks can be scheduled.
@@ -115,28 +114,15 @@ public class ProbabilisticPriorityAssigner extends TaskAssignerImpl {
    * If exponent is 0, there is no probabilistic priority queueing.
    */
   @VisibleForTesting
-  boolean isScheduled(Set<Integer> prioritySet, int priority) {
-    int maxPriority = 0;
-    for (int p: prioritySet) {
-      if (maxPriority < p) {
-        maxPriority = p;
-      }
-    }
+  boolean isScheduled(int maxPriority, int priority) {
     double maxExp = Math.pow(maxPriority + 1, exponent);
     double threshold = Math.pow(priority + 1, exponent);
 
-    Random rand = new Random();
-    double chance = rand.nextDouble() * maxExp;
+    double chance = ThreadLocalRandom.current().nextDouble() * maxExp;
 
     return chance <= threshold;
   }
 
-  @VisibleForTesting
-  public static synchronized void fetchPendingTasks(Storage storage) {
-    pendindTasks =
-        Storage.Util.fetchTasks(storage, Query.unscoped().byStatus(ScheduleStatus.PENDING));
-  }
-
   @VisibleForTesting
   void setExponent(Double exp) {
     this.exponent = exp;
@@ -1,32 +0,0 @@
-/**
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package io.github.aurora.scheduler.scheduling;
-
-import javax.inject.Inject;
-
-import org.apache.aurora.scheduler.storage.Storage;
-
-public class TaskFetcher implements Runnable {
-  private final Storage storage;
-
-  @Inject
-  TaskFetcher(Storage mStorage) {
-    storage = mStorage;
-  }
-
-  @Override
-  public void run() {
-    ProbabilisticPriorityAssigner.fetchPendingTasks(storage);
-  }
-}
@@ -13,8 +13,14 @@
  */
 package org.apache.aurora.scheduler;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
@@ -28,6 +34,9 @@ import javax.inject.Inject;
 
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
 
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.Percentile;
 import org.apache.aurora.common.stats.SlidingStats;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.BackoffStrategy;
@@ -44,6 +53,13 @@ import static com.google.common.base.Preconditions.checkState;
 /**
  * Generic helper that allows bundling multiple work items into a single {@link Storage}
  * transaction aiming to reduce the write lock contention.
+ * <p>
+ * By default work items are processed in submission order.  When prioritized mode is enabled in
+ * {@link Settings}, each {@link Priority} is queued separately and batches are filled by
+ * deficit round robin, so a burst of work of one priority gets a bounded share of each batch
+ * rather than delaying all other work.  The batch size is also adapted so that a batch holds the
+ * storage write lock for about a target duration, which keeps other batch workers from waiting
+ * behind large batches.
  *
  * @param <T> Expected result type.
  */
@@ -58,6 +74,52 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
    */
   public static final NoResult NO_RESULT = new NoResult() { };
 
+  /**
+   * Priority classes of work, with their relative share of a batch when all are backlogged.
+   */
+  public enum Priority {
+    HIGH(4),
+    NORMAL(2),
+    LOW(1);
+
+    private final int weight;
+
+    Priority(int weight) {
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * Settings for the batch processing mode.
+   */
+  public static class Settings {
+    private final boolean prioritized;
+    private final long targetLockHoldNanos;
+
+    /**
+     * Creates settings for the default mode, which processes work in submission order in batches
+     * of the maximum size.
+     */
+    public Settings() {
+      this(false, Amount.of(0L, Time.MILLISECONDS));
+    }
+
+    /**
+     * Creates settings.
+     *
+     * @param prioritized Whether to queue work by priority, and adapt the batch size.
+     * @param targetLockHold Target storage write lock hold time per batch in prioritized mode.
+     */
+    public Settings(boolean prioritized, Amount<Long, Time> targetLockHold) {
+      this.prioritized = prioritized;
+      this.targetLockHoldNanos = targetLockHold.as(Time.NANOSECONDS);
+    }
+  }
+
+  private static final Priority[] PRIORITIES = Priority.values();
+  // Weight of the latest batch in the moving average of the lock hold time per item.
+  private static final double LOCK_HOLD_DECAY = 0.2;
+
   private static final Logger LOG = LoggerFactory.getLogger(BatchWorker.class);
   private final Storage storage;
   private final int maxBatchSize;
@@ -68,6 +130,16 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
   private final AtomicInteger lastBatchSize = new AtomicInteger(0);
   private final AtomicLong itemsProcessed;
   private final AtomicLong batchesProcessed;
+  private final Settings settings;
+  private final Map<Priority, Percentile<Long>> itemLatencies = new EnumMap<>(Priority.class);
+
+  // State of prioritized mode, only accessed by the worker thread except for the backlog size.
+  private final Map<Priority, Deque<WorkItem<T>>> backlog = new EnumMap<>(Priority.class);
+  private final AtomicInteger backlogSize = new AtomicInteger(0);
+  private final int[] credits = new int[PRIORITIES.length];
+  private int cursor = 0;
+  private double itemLockHoldNanos = 0;
+  private final AtomicInteger batchSizeLimit;
 
   /**
    * Wraps result returned by the {@link RepeatableWork} item.
@@ -131,13 +203,26 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
   protected BatchWorker(
       Storage storage,
       StatsProvider statsProvider,
-      int maxBatchSize) {
+      int maxBatchSize,
+      Settings settings) {
 
     this.storage = requireNonNull(storage);
     this.maxBatchSize = maxBatchSize;
+    this.settings = requireNonNull(settings);
+    this.batchSizeLimit = new AtomicInteger(maxBatchSize);
+    for (Priority priority : PRIORITIES) {
+      backlog.put(priority, new ArrayDeque<>());
+      itemLatencies.put(priority, new Percentile<>(
+          serviceName() + "_item_latency_" + priority.name().toLowerCase(Locale.ENGLISH) + "_ms",
+          1,
+          null,
+          50, 90, 99));
+    }
 
     scheduledExecutor = AsyncUtil.singleThreadLoggingScheduledExecutor(serviceName() + "-%d", LOG);
-    statsProvider.makeGauge(serviceName() + "_queue_size", () -> workQueue.size());
+    statsProvider.makeGauge(
+        serviceName() + "_queue_size",
+        () -> workQueue.size() + backlogSize.get());
     statsProvider.makeGauge(
         serviceName() + "_last_processed_batch_size",
         () -> lastBatchSize.intValue());
@@ -145,6 +230,7 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
     batchLocked = new SlidingStats(serviceName() + "_batch_locked", "nanos");
     itemsProcessed = statsProvider.makeCounter(serviceName() + "_items_processed");
     batchesProcessed = statsProvider.makeCounter(serviceName() + "_batches_processed");
+    statsProvider.makeGauge(serviceName() + "_batch_size_limit", () -> batchSizeLimit.get());
   }
 
   /**
@@ -154,10 +240,24 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
    * @return {@link CompletableFuture} to wait on.
    */
   public CompletableFuture<T> execute(Work<T> work) {
+    return execute(Priority.NORMAL, work);
+  }
+
+  /**
+   * Executes a non-repeatable {@link Work} with a priority, and returns {@link CompletableFuture}
+   * to wait on.  The priority is only honored in prioritized mode.
+   *
+   * @param priority Priority of the work.
+   * @param work A non-repeatable {@link Work} to execute.
+   * @return {@link CompletableFuture} to wait on.
+   */
+  public CompletableFuture<T> execute(Priority priority, Work<T> work) {
     CompletableFuture<T> result = new CompletableFuture<>();
     workQueue.add(new WorkItem<>(
         work,
         result,
+        priority,
+        System.nanoTime(),
         Optional.empty(),
         Optional.empty()));
 
@@ -179,6 +279,8 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
     workQueue.add(new WorkItem<>(
         work,
         result,
+        Priority.NORMAL,
+        System.nanoTime(),
         Optional.of(backoffStrategy),
         Optional.of(0L)));
 
@@ -188,6 +290,11 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
   @Override
   protected void run() throws Exception {
     while (isRunning()) {
+      if (settings.prioritized) {
+        runPrioritized();
+        continue;
+      }
+
       List<WorkItem<T>> batch = new LinkedList<>();
 
       // Make the loop responsive to shutdown under light load by using
@@ -201,6 +308,74 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
     }
   }
 
+  private void runPrioritized() throws InterruptedException {
+    if (backlogSize.get() == 0) {
+      // Make the loop responsive to shutdown under light load by using
+      // a short non-configurable timeout in poll().
+      WorkItem<T> head = workQueue.poll(3, TimeUnit.SECONDS);
+      if (head == null) {
+        return;
+      }
+      addToBacklog(head);
+    }
+
+    List<WorkItem<T>> submitted = new ArrayList<>();
+    workQueue.drainTo(submitted);
+    submitted.forEach(this::addToBacklog);
+
+    processBatch(nextBatch(batchSizeLimit.get()));
+  }
+
+  private void addToBacklog(WorkItem<T> item) {
+    backlog.get(item.priority).addLast(item);
+    backlogSize.incrementAndGet();
+  }
+
+  /**
+   * Takes the next batch from the backlog by deficit round robin over the priorities.  Each visit
+   * to a backlogged priority grants it credits for its weight worth of items, and unused credits
+   * carry over to the next batch if the batch fills up first.
+   */
+  private List<WorkItem<T>> nextBatch(int limit) {
+    List<WorkItem<T>> batch = new ArrayList<>(Math.min(limit, backlogSize.get()));
+    int idle = 0;
+    while (batch.size() < limit && idle < PRIORITIES.length) {
+      Deque<WorkItem<T>> queue = backlog.get(PRIORITIES[cursor]);
+      if (queue.isEmpty()) {
+        credits[cursor] = 0;
+        cursor = (cursor + 1) % PRIORITIES.length;
+        idle++;
+        continue;
+      }
+
+      idle = 0;
+      if (credits[cursor] == 0) {
+        credits[cursor] = PRIORITIES[cursor].weight;
+      }
+      while (credits[cursor] > 0 && !queue.isEmpty() && batch.size() < limit) {
+        batch.add(queue.removeFirst());
+        credits[cursor]--;
+      }
+      if (credits[cursor] == 0 || queue.isEmpty()) {
+        credits[cursor] = 0;
+        cursor = (cursor + 1) % PRIORITIES.length;
+      }
+    }
+    backlogSize.addAndGet(-batch.size());
+    return batch;
+  }
+
+  private void adaptBatchSize(int batchSize, long lockedNanos) {
+    double perItem = (double) lockedNanos / batchSize;
+    itemLockHoldNanos = itemLockHoldNanos == 0
+        ? perItem
+        : (1 - LOCK_HOLD_DECAY) * itemLockHoldNanos + LOCK_HOLD_DECAY * perItem;
+    long limit = itemLockHoldNanos == 0
+        ? maxBatchSize
+        : (long) (settings.targetLockHoldNanos / itemLockHoldNanos);
+    batchSizeLimit.set((int) Math.max(1, Math.min(maxBatchSize, limit)));
+  }
+
   private void processBatch(List<WorkItem<T>> batch) {
     if (!batch.isEmpty()) {
       long unlockedStart = System.nanoTime();
@@ -210,6 +385,8 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
           Result<T> itemResult = item.work.apply(storeProvider);
           if (itemResult.isCompleted) {
             item.result.complete(itemResult.value);
+            itemLatencies.get(item.priority).record(
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - item.submittedNanos));
           } else {
             // Work not finished yet - re-queue for a followup later.
             long backoffMsec = backoffFor(item);
@@ -217,13 +394,19 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
                 () -> workQueue.add(new WorkItem<>(
                     item.work,
                     item.result,
+                    item.priority,
+                    item.submittedNanos,
                     item.backoffStrategy,
                     Optional.of(backoffMsec))),
                 backoffMsec,
                 TimeUnit.MILLISECONDS);
           }
         }
-        batchLocked.accumulate(System.nanoTime() - lockedStart);
+        long lockedNanos = System.nanoTime() - lockedStart;
+        batchLocked.accumulate(lockedNanos);
+        if (settings.prioritized) {
+          adaptBatchSize(batch.size(), lockedNanos);
+        }
       });
       batchUnlocked.accumulate(System.nanoTime() - unlockedStart);
       batchesProcessed.incrementAndGet();
@@ -241,17 +424,23 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
   private class WorkItem<V> {
     private final RepeatableWork<V> work;
     private final CompletableFuture<T> result;
+    private final Priority priority;
+    private final long submittedNanos;
     private final Optional<BackoffStrategy> backoffStrategy;
     private final Optional<Long> lastBackoffMsec;
 
     WorkItem(
         RepeatableWork<V> work,
         CompletableFuture<T> result,
+        Priority priority,
+        long submittedNanos,
         Optional<BackoffStrategy> backoffStrategy,
         Optional<Long> lastBackoffMsec) {
 
       this.work = work;
       this.result = result;
+      this.priority = requireNonNull(priority);
+      this.submittedNanos = submittedNanos;
       this.backoffStrategy = backoffStrategy;
       this.lastBackoffMsec = lastBackoffMsec;
     }
@@ -34,6 +34,7 @@ import org.apache.aurora.scheduler.TaskIdGenerator.TaskIdGeneratorImpl;
 import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.config.CliOptions;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveAmount;
 import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.storage.Storage;
@@ -65,11 +66,36 @@ public class SchedulerModule extends AbstractModule {
         description = "The maximum number of status updates that can be processed in a batch.")
     public int maxStatusUpdateBatchSize = 1000;
 
+    @Parameter(names = "-status_update_pipeline",
+        description = "Coalesce the status updates of a task within a batch, grow the status "
+            + "update batch size while a backlog persists, and acknowledge status updates off the "
+            + "storage thread.",
+        arity = 1)
+    public boolean statusUpdatePipeline = false;
+
+    @Parameter(names = "-max_status_update_adaptive_batch_size",
+        validateValueWith = PositiveNumber.class,
+        description = "The maximum number of status updates that can be processed in a batch "
+            + "while a backlog persists, when -status_update_pipeline is enabled.")
+    public int maxStatusUpdateAdaptiveBatchSize = 10000;
+
     @Parameter(names = "-max_task_event_batch_size",
         validateValueWith = PositiveNumber.class,
         description =
             "The maximum number of task state change events that can be processed in a batch.")
     public int maxTaskEventBatchSize = 300;
+
+    @Parameter(names = "-batch_worker_prioritized",
+        description = "Queue storage batch work by priority and share batches fairly between "
+            + "priorities, adapting the batch size to the measured storage lock hold time.",
+        arity = 1)
+    public boolean batchWorkerPrioritized = false;
+
+    @Parameter(names = "-batch_worker_target_lock_hold",
+        validateValueWith = PositiveAmount.class,
+        description = "Target storage write lock hold time of a batch, when "
+            + "-batch_worker_prioritized is enabled.")
+    public TimeAmount batchWorkerTargetLockHold = new TimeAmount(50, Time.MILLISECONDS);
   }
 
   private final Options options;
@@ -81,6 +107,9 @@ public class SchedulerModule extends AbstractModule {
   @Override
   protected void configure() {
     bind(TaskIdGenerator.class).to(TaskIdGeneratorImpl.class);
+    bind(BatchWorker.Settings.class).toInstance(new BatchWorker.Settings(
+        options.batchWorkerPrioritized,
+        options.batchWorkerTargetLockHold));
 
     install(new PrivateModule() {
       @Override
@@ -108,6 +137,9 @@ public class SchedulerModule extends AbstractModule {
     bind(new TypeLiteral<Integer>() { })
         .annotatedWith(TaskStatusHandlerImpl.MaxBatchSize.class)
         .toInstance(options.maxStatusUpdateBatchSize);
+    bind(TaskStatusHandlerImpl.Settings.class).toInstance(new TaskStatusHandlerImpl.Settings(
+        options.statusUpdatePipeline,
+        options.maxStatusUpdateAdaptiveBatchSize));
 
     bind(TaskStatusHandler.class).to(TaskStatusHandlerImpl.class);
     bind(TaskStatusHandlerImpl.class).in(Singleton.class);
@@ -119,8 +151,13 @@ public class SchedulerModule extends AbstractModule {
 
   public static class TaskEventBatchWorker extends BatchWorker<NoResult> {
     @Inject
-    TaskEventBatchWorker(CliOptions options, Storage storage, StatsProvider statsProvider) {
-      super(storage, statsProvider, options.scheduler.maxTaskEventBatchSize);
+    TaskEventBatchWorker(
+        CliOptions options,
+        Storage storage,
+        StatsProvider statsProvider,
+        BatchWorker.Settings settings) {
+
+      super(storage, statsProvider, options.scheduler.maxTaskEventBatchSize, settings);
     }
 
     @Override
@@ -15,10 +15,17 @@ package org.apache.aurora.scheduler;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
@@ -28,9 +35,13 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
 import com.google.common.util.concurrent.MoreExecutors;
 
+import org.apache.aurora.common.stats.Percentile;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.base.Conversions;
+import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.state.StateChangeResult;
 import org.apache.aurora.scheduler.state.StateManager;
@@ -68,6 +79,14 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
   private final BlockingQueue<TaskStatus> pendingUpdates;
   private final int maxBatchSize;
   private final CachedCounters counters;
+  private final Settings settings;
+  private final Clock clock;
+  private final Optional<ExecutorService> ackExecutor;
+  private final AtomicLong coalescedUpdates;
+  private final Percentile<Long> queueDepth;
+  private final Percentile<Long> batchSizes;
+  private final Percentile<Long> updateLatencies;
+  private int batchSizeLimit;
 
   private final AtomicReference<Thread> threadReference = new AtomicReference<>();
 
@@ -87,6 +106,35 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
   @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
   public @interface MaxBatchSize { }
 
+  /**
+   * Settings for the status update pipeline.
+   */
+  public static class Settings {
+    private final boolean pipelined;
+    private final int maxAdaptiveBatchSize;
+
+    /**
+     * Creates settings for the default mode, which applies every update in batches of up to the
+     * maximum batch size, and acknowledges updates on the processing thread.
+     */
+    public Settings() {
+      this(false, 0);
+    }
+
+    /**
+     * Creates settings.
+     *
+     * @param pipelined Whether to coalesce the updates of a task within a batch, adapt the batch
+     *                  size to the backlog, and acknowledge updates asynchronously.
+     * @param maxAdaptiveBatchSize Upper bound of the batch size while a backlog persists, in
+     *                             pipelined mode.
+     */
+    public Settings(boolean pipelined, int maxAdaptiveBatchSize) {
+      this.pipelined = pipelined;
+      this.maxAdaptiveBatchSize = maxAdaptiveBatchSize;
+    }
+  }
+
   @Inject
   TaskStatusHandlerImpl(
       Storage storage,
@@ -95,7 +143,9 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
       final Driver driver,
       @StatusUpdateQueue BlockingQueue<TaskStatus> pendingUpdates,
       @MaxBatchSize Integer maxBatchSize,
-      CachedCounters counters) {
+      CachedCounters counters,
+      Settings settings,
+      Clock clock) {
 
     this.storage = requireNonNull(storage);
     this.stateManager = requireNonNull(stateManager);
@@ -103,9 +153,25 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
     this.pendingUpdates = requireNonNull(pendingUpdates);
     this.maxBatchSize = requireNonNull(maxBatchSize);
     this.counters = requireNonNull(counters);
+    this.settings = requireNonNull(settings);
+    this.clock = requireNonNull(clock);
     requireNonNull(statsProvider);
 
+    this.batchSizeLimit = maxBatchSize;
+    this.ackExecutor = settings.pipelined
+        ? Optional.of(AsyncUtil.loggingExecutor(
+            1,
+            1,
+            new LinkedBlockingQueue<>(),
+            "StatusUpdateAck-%d",
+            LOG))
+        : Optional.empty();
+
     statsProvider.exportSize("status_updates_queue_size", this.pendingUpdates);
+    this.coalescedUpdates = statsProvider.makeCounter("status_updates_coalesced");
+    this.queueDepth = new Percentile<>("status_update_queue_depth", 1, null, 50, 90, 99);
+    this.batchSizes = new Percentile<>("status_update_batch_size", 1, null, 50, 90, 99);
+    this.updateLatencies = new Percentile<>("status_update_latency_ms", 1, null, 50, 90, 99);
 
     addListener(
         new Listener() {
@@ -132,12 +198,17 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
     }
   }
 
+  @Override
+  protected void shutDown() {
+    ackExecutor.ifPresent(ExecutorService::shutdown);
+  }
+
   @Override
   protected void run() {
     threadReference.set(Thread.currentThread());
 
     while (isRunning()) {
-      final Queue<TaskStatus> updates = new ArrayDeque<>();
+      final List<TaskStatus> updates = new ArrayList<>();
 
       try {
         updates.add(pendingUpdates.take());
@@ -147,12 +218,21 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
       }
 
       // Process all other available updates, up to the limit on batch size.
-      // TODO(bmahler): Expose histogram metrics of the batch sizes.
-      pendingUpdates.drainTo(updates, maxBatchSize - updates.size());
+      queueDepth.record((long) pendingUpdates.size() + 1);
+      pendingUpdates.drainTo(updates, batchSizeLimit - updates.size());
+      batchSizes.record((long) updates.size());
+
+      Collection<TaskStatus> effectiveUpdates = updates;
+      if (settings.pipelined) {
+        effectiveUpdates = coalesce(updates);
+        coalescedUpdates.addAndGet(updates.size() - effectiveUpdates.size());
+        adaptBatchSizeLimit();
+      }
 
       try {
+        Collection<TaskStatus> toApply = effectiveUpdates;
         storage.write((NoResult.Quiet) storeProvider -> {
-          for (TaskStatus status : updates) {
+          for (TaskStatus status : toApply) {
             ScheduleStatus translatedState = Conversions.convertProtoState(status.getState());
 
             StateChangeResult result = stateManager.changeState(
@@ -168,8 +248,10 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
           }
         });
 
-        for (TaskStatus status : updates) {
-          driver.acknowledgeStatusUpdate(status);
+        if (ackExecutor.isPresent()) {
+          ackExecutor.get().execute(() -> acknowledge(updates));
+        } else {
+          acknowledge(updates);
         }
       } catch (RuntimeException e) {
         LOG.error("Failed to process status update batch " + updates, e);
@@ -177,6 +259,54 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
     }
   }
 
+  private void acknowledge(List<TaskStatus> updates) {
+    long nowMs = clock.nowMillis();
+    for (TaskStatus status : updates) {
+      driver.acknowledgeStatusUpdate(status);
+      if (status.hasTimestamp()) {
+        // The status timestamp is set by the agent, so this includes delivery to the scheduler.
+        long sentMs = (long) (status.getTimestamp() * TimeUnit.SECONDS.toMillis(1));
+        updateLatencies.record(Math.max(0, nowMs - sentMs));
+      }
+    }
+  }
+
+  /**
+   * Grows the batch size limit while a backlog persists after draining a batch, so that the fixed
+   * cost of a storage write is amortized over more updates, and shrinks it back once the backlog
+   * is cleared, to keep the write lock hold time short.
+   */
+  private void adaptBatchSizeLimit() {
+    int ceiling = Math.max(maxBatchSize, settings.maxAdaptiveBatchSize);
+    if (pendingUpdates.isEmpty()) {
+      batchSizeLimit = Math.max(maxBatchSize, batchSizeLimit / 2);
+    } else {
+      batchSizeLimit = (int) Math.min((long) ceiling, 2L * batchSizeLimit);
+    }
+  }
+
+  /**
+   * Coalesces the updates of each task within a batch, keeping only the latest update of a task,
+   * or its first terminal update.  Updates following a terminal update can not transition the
+   * task, and intermediate non-terminal updates are superseded by the latest one.  Every update
+   * is still acknowledged.
+   *
+   * @param updates Updates of a batch, in the order they were received.
+   * @return The updates to apply, in the order their tasks were first seen in the batch.
+   */
+  @VisibleForTesting
+  static Collection<TaskStatus> coalesce(List<TaskStatus> updates) {
+    Map<String, TaskStatus> latest = new LinkedHashMap<>();
+    for (TaskStatus status : updates) {
+      TaskStatus previous = latest.get(status.getTaskId().getValue());
+      if (previous == null
+          || !Tasks.isTerminated(Conversions.convertProtoState(previous.getState()))) {
+        latest.put(status.getTaskId().getValue(), status);
+      }
+    }
+    return latest.values();
+  }
+
   @VisibleForTesting
   static String statName(TaskStatus status, StateChangeResult result) {
     return "status_update_" + status.getReason() + "_" + result;
@@ -186,7 +186,7 @@ public class AppModule extends AbstractModule {
     install(new SchedulingModule(options.scheduling));
     install(new AsyncStatsModule(options.asyncStats));
     install(new MetadataModule());
-    install(new QuotaModule());
+    install(new QuotaModule(options.quota));
     install(new JettyServerModule(options));
     install(new PreemptorModule(options));
     install(new SchedulerDriverModule(kind));
@@ -188,7 +188,9 @@ public class SchedulerMain {
         new StatsModule(options.stats),
         new AppModule(options),
         new CronModule(options.cron),
-        new MemStorageModule(Bindings.annotatedKeyFactory(Volatile.class)));
+        new MemStorageModule(
+            options.memStorage,
+            Bindings.annotatedKeyFactory(Volatile.class)));
   }
 
   /**
@@ -40,6 +40,7 @@ import org.apache.aurora.scheduler.mesos.CommandLineDriverSettingsModule;
 import org.apache.aurora.scheduler.offers.OfferManagerModule;
 import org.apache.aurora.scheduler.preemptor.PreemptorModule;
 import org.apache.aurora.scheduler.pruning.PruningModule;
+import org.apache.aurora.scheduler.quota.QuotaModule;
 import org.apache.aurora.scheduler.reconciliation.ReconciliationModule;
 import org.apache.aurora.scheduler.resources.ResourceSettings;
 import org.apache.aurora.scheduler.scheduling.SchedulingModule;
@@ -50,6 +51,7 @@ import org.apache.aurora.scheduler.stats.StatsModule;
 import org.apache.aurora.scheduler.storage.backup.BackupModule;
 import org.apache.aurora.scheduler.storage.log.LogPersistenceModule;
 import org.apache.aurora.scheduler.storage.log.SnapshotModule;
+import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
 import org.apache.aurora.scheduler.thrift.aop.AopModule;
 import org.apache.aurora.scheduler.updater.UpdaterModule;
 
@@ -68,6 +70,7 @@ public class CliOptions {
   public final LogPersistenceModule.Options logPersistence = new LogPersistenceModule.Options();
   public final SnapshotModule.Options snapshot = new SnapshotModule.Options();
   public final BackupModule.Options backup = new BackupModule.Options();
+  public final MemStorageModule.Options memStorage = new MemStorageModule.Options();
   public final AopModule.Options aop = new AopModule.Options();
   public final PruningModule.Options pruning = new PruningModule.Options();
   public final CommandLineDriverSettingsModule.Options driver =
@@ -88,6 +91,7 @@ public class CliOptions {
   public final CronModule.Options cron = new CronModule.Options();
   public final ResourceSettings resourceSettings = new ResourceSettings();
   public final MaintenanceModule.Options maintenance = new MaintenanceModule.Options();
+  public final QuotaModule.Options quota = new QuotaModule.Options();
   final List<Object> custom;
 
   public CliOptions() {
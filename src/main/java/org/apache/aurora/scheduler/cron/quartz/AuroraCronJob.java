@@ -107,9 +107,10 @@ class AuroraCronJob implements Job, EventSubscriber {
     CronBatchWorker(
         Storage storage,
         StatsProvider statsProvider,
-        @CronMaxBatchSize int maxBatchSize) {
+        @CronMaxBatchSize int maxBatchSize,
+        BatchWorker.Settings settings) {
 
-      super(storage, statsProvider, maxBatchSize);
+      super(storage, statsProvider, maxBatchSize, settings);
     }
 
     @Override
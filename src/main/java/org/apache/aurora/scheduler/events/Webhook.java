@@ -14,7 +14,18 @@
 package org.apache.aurora.scheduler.events;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
@@ -22,14 +33,20 @@ import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Inject;
 
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.BackoffStrategy;
+import org.apache.aurora.common.util.TruncatedBinaryBackoff;
 import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.asynchttpclient.AsyncCompletionHandler;
 import org.asynchttpclient.AsyncHttpClient;
 import org.asynchttpclient.BoundRequestBuilder;
 import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Response;
 import org.asynchttpclient.util.HttpConstants;
 import org.slf4j.Logger;
@@ -39,6 +56,12 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Watches TaskStateChanges and send events to configured endpoint.
+ * <p>
+ * By default, every event is posted individually as soon as it occurs.  If delivery settings are
+ * configured, events are instead queued in a bounded queue and posted by a single thread as JSON
+ * arrays of up to a batch size of events, so that the number of requests in flight is bounded
+ * regardless of the event rate.  Failed batches are retried with backoff.  Events that arrive while
+ * the queue is full, or whose batch can not be delivered, are dropped and counted.
  */
 public class Webhook extends AbstractIdleService implements EventSubscriber {
   @VisibleForTesting
@@ -49,6 +72,16 @@ public class Webhook extends AbstractIdleService implements EventSubscriber {
   static final String ERRORS_STAT_NAME = "webhooks_errors";
   @VisibleForTesting
   static final String USER_ERRORS_STAT_NAME = "webhooks_user_errors";
+  @VisibleForTesting
+  static final String QUEUE_SIZE_STAT_NAME = "webhooks_queue_size";
+  @VisibleForTesting
+  static final String BATCHES_STAT_NAME = "webhooks_batches_delivered";
+  @VisibleForTesting
+  static final String RETRIES_STAT_NAME = "webhooks_retries";
+  @VisibleForTesting
+  static final String OVERFLOW_DROPS_STAT_NAME = "webhooks_events_dropped_overflow";
+  @VisibleForTesting
+  static final String UNDELIVERABLE_DROPS_STAT_NAME = "webhooks_events_dropped_undeliverable";
 
   private static final Logger LOG = LoggerFactory.getLogger(Webhook.class);
 
@@ -61,6 +94,15 @@ public class Webhook extends AbstractIdleService implements EventSubscriber {
   private final AtomicLong errorsCounter;
   private final AtomicLong userErrorsCounter;
 
+  // Queued delivery state, only used if delivery settings are configured.
+  private final BlockingQueue<TaskStateChange> queue;
+  private final Optional<ExecutorService> sender;
+  private final Optional<BackoffStrategy> retryBackoff;
+  private final AtomicLong batchesCounter;
+  private final AtomicLong retriesCounter;
+  private final AtomicLong overflowDropsCounter;
+  private final AtomicLong undeliverableDropsCounter;
+
   @Inject
   Webhook(AsyncHttpClient httpClient, WebhookInfo webhookInfo, StatsProvider statsProvider) {
     this.webhookInfo = requireNonNull(webhookInfo);
@@ -71,12 +113,31 @@ public class Webhook extends AbstractIdleService implements EventSubscriber {
     this.userErrorsCounter = statsProvider.makeCounter(USER_ERRORS_STAT_NAME);
     this.isWhitelisted = status -> !webhookInfo.getWhitelistedStatuses().isPresent()
         || webhookInfo.getWhitelistedStatuses().get().contains(status);
+
+    Optional<WebhookInfo.Delivery> delivery = webhookInfo.getDelivery();
+    this.queue = delivery
+        .<BlockingQueue<TaskStateChange>>map(d -> new ArrayBlockingQueue<>(d.getMaxQueueSize()))
+        .orElse(new LinkedBlockingQueue<>());
+    this.sender = delivery.map(d -> AsyncUtil.loggingExecutor(
+        1,
+        1,
+        new LinkedBlockingQueue<>(),
+        "Webhook-Delivery-%d",
+        LOG));
+    this.retryBackoff = delivery.map(d -> new TruncatedBinaryBackoff(
+        Amount.of((long) d.getRetryBackoffMsec(), Time.MILLISECONDS),
+        Amount.of((long) d.getMaxRetryBackoffMsec(), Time.MILLISECONDS)));
+    this.batchesCounter = statsProvider.makeCounter(BATCHES_STAT_NAME);
+    this.retriesCounter = statsProvider.makeCounter(RETRIES_STAT_NAME);
+    this.overflowDropsCounter = statsProvider.makeCounter(OVERFLOW_DROPS_STAT_NAME);
+    this.undeliverableDropsCounter = statsProvider.makeCounter(UNDELIVERABLE_DROPS_STAT_NAME);
+    statsProvider.exportSize(QUEUE_SIZE_STAT_NAME, queue);
     LOG.info("Webhook enabled with info" + this.webhookInfo);
   }
 
-  private BoundRequestBuilder createRequest(TaskStateChange stateChange) {
+  private BoundRequestBuilder createRequest(String body) {
     return httpClient.preparePost(webhookInfo.getTargetURI().toString())
-        .setBody(stateChange.toJson())
+        .setBody(body)
         .setSingleHeaders(webhookInfo.getHeaders())
         .addHeader("Timestamp", Long.toString(Instant.now().toEpochMilli()));
   }
@@ -95,10 +156,17 @@ public class Webhook extends AbstractIdleService implements EventSubscriber {
     // first initializes. In that case we do not want to resend the entire state. This check also
     // ensures that only whitelisted statuses will be sent to the configured endpoint.
     if (stateChange.isTransition() && isWhitelisted.apply(stateChange.getNewState())) {
+      if (webhookInfo.getDelivery().isPresent()) {
+        if (!queue.offer(stateChange)) {
+          overflowDropsCounter.incrementAndGet();
+        }
+        return;
+      }
+
       attemptsCounter.incrementAndGet();
       try {
         // We don't care about the response body, so only listen for the HTTP status code.
-        createRequest(stateChange).execute(new AsyncCompletionHandler<Integer>() {
+        createRequest(stateChange.toJson()).execute(new AsyncCompletionHandler<Integer>() {
           @Override
           public void onThrowable(Throwable t) {
             errorsCounter.incrementAndGet();
@@ -130,13 +198,117 @@ public class Webhook extends AbstractIdleService implements EventSubscriber {
     }
   }
 
+  private enum Outcome {
+    DELIVERED,
+    REJECTED,
+    FAILED
+  }
+
+  private void deliverEvents(WebhookInfo.Delivery delivery) {
+    try {
+      while (true) {
+        List<TaskStateChange> batch = new ArrayList<>(delivery.getBatchSize());
+        batch.add(queue.take());
+
+        // Wait a little while for more events, to avoid posting many small batches.
+        long deadlineNanos = System.nanoTime()
+            + TimeUnit.MILLISECONDS.toNanos(delivery.getBatchDelayMsec());
+        while (batch.size() < delivery.getBatchSize()) {
+          queue.drainTo(batch, delivery.getBatchSize() - batch.size());
+          long remainingNanos = deadlineNanos - System.nanoTime();
+          if (batch.size() == delivery.getBatchSize() || remainingNanos <= 0) {
+            break;
+          }
+          TaskStateChange next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+
+        deliverBatch(delivery, batch);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void deliverBatch(WebhookInfo.Delivery delivery, List<TaskStateChange> batch)
+      throws InterruptedException {
+
+    String body = batch.stream()
+        .map(TaskStateChange::toJson)
+        .collect(Collectors.joining(",", "[", "]"));
+    long backoffMs = 0;
+    int attempts = 0;
+    while (true) {
+      Outcome outcome = post(body);
+      attempts++;
+      if (outcome == Outcome.DELIVERED) {
+        batchesCounter.incrementAndGet();
+        return;
+      }
+      if (outcome == Outcome.REJECTED || attempts > delivery.getMaxRetries()) {
+        LOG.warn("Dropping {} Webhook events after {} attempts", batch.size(), attempts);
+        undeliverableDropsCounter.addAndGet(batch.size());
+        return;
+      }
+
+      retriesCounter.incrementAndGet();
+      backoffMs = retryBackoff.get().calculateBackoffMs(backoffMs);
+      Thread.sleep(backoffMs);
+    }
+  }
+
+  private Outcome post(String body) throws InterruptedException {
+    attemptsCounter.incrementAndGet();
+    int statusCode;
+    ListenableFuture<Response> response = null;
+    try {
+      response = createRequest(body).execute();
+      // Bound the wait, so that an unresponsive endpoint can not stall delivery indefinitely.
+      statusCode = response
+          .get(webhookInfo.getConnectonTimeoutMsec(), TimeUnit.MILLISECONDS)
+          .getStatusCode();
+    } catch (ExecutionException | TimeoutException | RuntimeException e) {
+      if (response != null) {
+        response.cancel(true);
+      }
+      LOG.error("Error sending a Webhook event batch", e);
+      errorsCounter.incrementAndGet();
+      return Outcome.FAILED;
+    }
+
+    if (statusCode == HttpConstants.ResponseStatusCodes.OK_200) {
+      successCounter.incrementAndGet();
+      return Outcome.DELIVERED;
+    }
+
+    userErrorsCounter.incrementAndGet();
+    // Client errors other than throttling will not succeed on a retry.
+    boolean retryable = statusCode >= 500 || statusCode == 429;
+    return retryable ? Outcome.FAILED : Outcome.REJECTED;
+  }
+
   @Override
   protected void startUp() throws Exception {
-    // No-op
+    if (sender.isPresent()) {
+      WebhookInfo.Delivery delivery = webhookInfo.getDelivery().get();
+      sender.get().execute(() -> deliverEvents(delivery));
+    }
   }
 
   @Override
   protected void shutDown() throws Exception {
+    if (sender.isPresent()) {
+      sender.get().shutdownNow();
+      sender.get().awaitTermination(
+          webhookInfo.getConnectonTimeoutMsec(),
+          TimeUnit.MILLISECONDS);
+      if (!queue.isEmpty()) {
+        LOG.info("Discarding {} queued Webhook events.", queue.size());
+      }
+    }
     LOG.info("Shutting down async Webhook client.");
     httpClient.close();
   }
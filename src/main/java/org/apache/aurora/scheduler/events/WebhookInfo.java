@@ -34,6 +34,8 @@ import org.codehaus.jackson.annotate.JsonProperty;
 
 import static java.util.Objects.requireNonNull;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Defines configuration for Webhook.
  */
@@ -42,6 +44,7 @@ public class WebhookInfo {
   private final Map<String, String> headers;
   private final URI targetURI;
   private final Optional<List<ScheduleStatus>> whitelistedStatuses;
+  private final Optional<Delivery> delivery;
 
   /**
    * Return key:value pairs of headers to set for every connection.
@@ -79,6 +82,131 @@ public class WebhookInfo {
     return whitelistedStatuses;
   }
 
+  /**
+   * Returns the optional settings for queued, batched delivery of events.  If absent, every event
+   * is posted individually as soon as it occurs.
+   *
+   * @return an optional delivery configuration.
+   */
+  Optional<Delivery> getDelivery() {
+    return delivery;
+  }
+
+  /**
+   * Defines how events are queued, batched and retried when delivered to the endpoint.  Events are
+   * posted as a JSON array of up to {@code batchSize} events.
+   */
+  public static class Delivery {
+    static final int DEFAULT_MAX_QUEUE_SIZE = 10000;
+    static final int DEFAULT_BATCH_SIZE = 100;
+    static final int DEFAULT_BATCH_DELAY_MSEC = 100;
+    static final int DEFAULT_MAX_RETRIES = 3;
+    static final int DEFAULT_RETRY_BACKOFF_MSEC = 1000;
+    static final int DEFAULT_MAX_RETRY_BACKOFF_MSEC = 30000;
+
+    private final int maxQueueSize;
+    private final int batchSize;
+    private final int batchDelayMsec;
+    private final int maxRetries;
+    private final int retryBackoffMsec;
+    private final int maxRetryBackoffMsec;
+
+    @JsonCreator
+    public Delivery(
+        @JsonProperty("maxQueueSize") Integer maxQueueSize,
+        @JsonProperty("batchSize") Integer batchSize,
+        @JsonProperty("batchDelayMsec") Integer batchDelayMsec,
+        @JsonProperty("maxRetries") Integer maxRetries,
+        @JsonProperty("retryBackoffMsec") Integer retryBackoffMsec,
+        @JsonProperty("maxRetryBackoffMsec") Integer maxRetryBackoffMsec) {
+
+      this.maxQueueSize = Optional.ofNullable(maxQueueSize).orElse(DEFAULT_MAX_QUEUE_SIZE);
+      this.batchSize = Optional.ofNullable(batchSize).orElse(DEFAULT_BATCH_SIZE);
+      this.batchDelayMsec = Optional.ofNullable(batchDelayMsec).orElse(DEFAULT_BATCH_DELAY_MSEC);
+      this.maxRetries = Optional.ofNullable(maxRetries).orElse(DEFAULT_MAX_RETRIES);
+      this.retryBackoffMsec =
+          Optional.ofNullable(retryBackoffMsec).orElse(DEFAULT_RETRY_BACKOFF_MSEC);
+      this.maxRetryBackoffMsec =
+          Optional.ofNullable(maxRetryBackoffMsec).orElse(DEFAULT_MAX_RETRY_BACKOFF_MSEC);
+      checkArgument(this.maxQueueSize > 0, "maxQueueSize must be positive.");
+      checkArgument(this.batchSize > 0, "batchSize must be positive.");
+      checkArgument(this.batchDelayMsec >= 0, "batchDelayMsec must not be negative.");
+      checkArgument(this.maxRetries >= 0, "maxRetries must not be negative.");
+      checkArgument(this.retryBackoffMsec > 0, "retryBackoffMsec must be positive.");
+      checkArgument(
+          this.maxRetryBackoffMsec >= this.retryBackoffMsec,
+          "maxRetryBackoffMsec must not be less than retryBackoffMsec.");
+    }
+
+    /**
+     * Returns the maximum number of events waiting to be delivered.  Events that arrive while the
+     * queue is full are dropped.
+     *
+     * @return Maximum queue size.
+     */
+    int getMaxQueueSize() {
+      return maxQueueSize;
+    }
+
+    /**
+     * Returns the maximum number of events posted in a single request.
+     *
+     * @return Maximum batch size.
+     */
+    int getBatchSize() {
+      return batchSize;
+    }
+
+    /**
+     * Returns how long to wait for more events to fill a batch, once the first event of the batch
+     * is available.
+     *
+     * @return Batch delay in milliseconds.
+     */
+    int getBatchDelayMsec() {
+      return batchDelayMsec;
+    }
+
+    /**
+     * Returns the maximum number of times a failed batch is retried before its events are dropped.
+     *
+     * @return Maximum number of retries.
+     */
+    int getMaxRetries() {
+      return maxRetries;
+    }
+
+    /**
+     * Returns the initial backoff between retries of a failed batch.
+     *
+     * @return Initial retry backoff in milliseconds.
+     */
+    int getRetryBackoffMsec() {
+      return retryBackoffMsec;
+    }
+
+    /**
+     * Returns the maximum backoff between retries of a failed batch.
+     *
+     * @return Maximum retry backoff in milliseconds.
+     */
+    int getMaxRetryBackoffMsec() {
+      return maxRetryBackoffMsec;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("maxQueueSize", maxQueueSize)
+          .add("batchSize", batchSize)
+          .add("batchDelayMsec", batchDelayMsec)
+          .add("maxRetries", maxRetries)
+          .add("retryBackoffMsec", retryBackoffMsec)
+          .add("maxRetryBackoffMsec", maxRetryBackoffMsec)
+          .toString();
+    }
+  }
+
   private static final Predicate<List<String>> IS_ALL_WHITELISTED = statuses ->
       !Optional.ofNullable(statuses).isPresent()
           || Optional.ofNullable(statuses).get().stream().anyMatch(status -> "*".equals(status));
@@ -88,7 +216,8 @@ public class WebhookInfo {
        @JsonProperty("headers") Map<String, String> headers,
        @JsonProperty("targetURL") String targetURL,
        @JsonProperty("timeoutMsec") Integer timeout,
-       @JsonProperty("statuses") List<String> statuses) throws URISyntaxException {
+       @JsonProperty("statuses") List<String> statuses,
+       @JsonProperty("delivery") Delivery delivery) throws URISyntaxException {
 
     this.headers = ImmutableMap.copyOf(headers);
     this.targetURI = new URI(requireNonNull(targetURL));
@@ -98,10 +227,11 @@ public class WebhookInfo {
             s -> ImmutableList.copyOf(s.stream()
                 .map(ScheduleStatus::valueOf)
                 .collect(Collectors.toList())));
+    this.delivery = Optional.ofNullable(delivery);
   }
 
   WebhookInfo(WebhookInfoBuilder builder) throws URISyntaxException {
-    this(builder.headers, builder.targetURL, builder.timeout, builder.statuses);
+    this(builder.headers, builder.targetURL, builder.timeout, builder.statuses, builder.delivery);
   }
 
   @VisibleForTesting
@@ -114,6 +244,7 @@ public class WebhookInfo {
     private Map<String, String> headers;
     private String targetURL;
     private List<String> statuses;
+    private Delivery delivery;
 
     public WebhookInfoBuilder setTimeout(Integer timeout) {
       this.timeout = timeout;
@@ -155,6 +286,11 @@ public class WebhookInfo {
       return this;
     }
 
+    public WebhookInfoBuilder setDelivery(Delivery delivery) {
+      this.delivery = delivery;
+      return this;
+    }
+
     public WebhookInfo build() {
       try {
         return new WebhookInfo(this);
@@ -166,11 +302,12 @@ public class WebhookInfo {
 
   @Override
   public String toString() {
-    return MoreObjects.toStringHelper(this)
+    MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this)
         .add("headers", headers.toString())
         .add("targetURI", targetURI.toString())
         .add("connectTimeoutMsec", connectTimeoutMsec)
-        .add("whitelistedStatuses", whitelistedStatuses.orElse(null))
-        .toString();
+        .add("whitelistedStatuses", whitelistedStatuses.orElse(null));
+    delivery.ifPresent(d -> helper.add("delivery", d));
+    return helper.toString();
   }
 }
@@ -99,6 +99,16 @@ public final class AttributeAggregate {
     return new AttributeAggregate(aggregator);
   }
 
+  /**
+   * Creates an aggregate from precomputed attribute counts.
+   *
+   * @param counts Counts of attribute name and value combinations.
+   * @return An {@link AttributeAggregate} instance.
+   */
+  static AttributeAggregate of(ImmutableMultiset<Pair<String, String>> counts) {
+    return new AttributeAggregate(Suppliers.ofInstance(counts));
+  }
+
   private static ImmutableMultiset.Builder<Pair<String, String>> addAttributes(
       ImmutableMultiset.Builder<Pair<String, String>> builder,
       Iterable<IAttribute> attributes) {
@@ -0,0 +1,60 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.filter;
+
+import java.util.Set;
+
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+
+/**
+ * Supplies the {@link AttributeAggregate} of active jobs to scheduling and preemption.
+ */
+public interface AttributeAggregateCache extends EventSubscriber {
+
+  /**
+   * Gets the attribute aggregate of a job's active tasks.  The returned aggregate is owned by the
+   * caller, and may be updated without affecting other callers.
+   *
+   * @param storeProvider Store provider to read job state from, if necessary.
+   * @param jobKey Job key.
+   * @return The job's attribute aggregate.
+   */
+  AttributeAggregate getJobActiveState(StoreProvider storeProvider, IJobKey jobKey);
+
+  /**
+   * Notifies the cache that tasks were assigned to agents within the current transaction, ahead
+   * of the corresponding task state change events.
+   *
+   * @param storeProvider Store provider to read the assigned tasks from.
+   * @param taskIds IDs of the assigned tasks.
+   */
+  void tasksAssigned(StoreProvider storeProvider, Set<String> taskIds);
+
+  /**
+   * A cache that computes aggregates from storage on every request.
+   */
+  class Uncached implements AttributeAggregateCache {
+    @Override
+    public AttributeAggregate getJobActiveState(StoreProvider storeProvider, IJobKey jobKey) {
+      return AttributeAggregate.getJobActiveState(storeProvider, jobKey);
+    }
+
+    @Override
+    public void tasksAssigned(StoreProvider storeProvider, Set<String> taskIds) {
+      // No-op.
+    }
+  }
+}
@@ -15,9 +15,6 @@ package org.apache.aurora.scheduler.filter;
 
 import java.util.Set;
 
-import com.google.common.base.Predicates;
-import com.google.common.collect.Iterables;
-
 import org.apache.aurora.scheduler.storage.entities.IAttribute;
 import org.apache.aurora.scheduler.storage.entities.IValueConstraint;
 
@@ -31,15 +28,19 @@ final class AttributeFilter {
   }
 
   /**
-   * Tests whether a constraint is satisfied by attributes.
+   * Tests whether any of the values of a constraint are present, regardless of negation.
    *
    * @param values Host attribute values.
    * @param constraint Constraint to match.
-   * @return {@code true} if the attribute satisfies the constraint, {@code false} otherwise.
+   * @return {@code true} if any constraint value is in {@code values}.
    */
-  static boolean matches(Set<String> values, IValueConstraint constraint) {
-    boolean match = Iterables.any(constraint.getValues(), Predicates.in(values));
-    return constraint.isNegated() ^ match;
+  static boolean containsAny(Set<String> values, IValueConstraint constraint) {
+    for (String value : constraint.getValues()) {
+      if (values.contains(value)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -14,19 +14,15 @@
 package org.apache.aurora.scheduler.filter;
 
 import java.util.Optional;
-import java.util.Set;
 
-import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
 
-import org.apache.aurora.gen.Attribute;
 import org.apache.aurora.scheduler.base.SchedulerException;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
 import org.apache.aurora.scheduler.storage.entities.IAttribute;
 import org.apache.aurora.scheduler.storage.entities.IConstraint;
 import org.apache.aurora.scheduler.storage.entities.ITaskConstraint;
+import org.apache.aurora.scheduler.storage.entities.IValueConstraint;
 
 /**
  * Filter that determines whether a task's constraints are satisfied.
@@ -36,13 +32,13 @@ final class ConstraintMatcher {
     // Utility class.
   }
 
-  private static final Function<IAttribute, Set<String>> GET_VALUES =
-      IAttribute::getValues;
-
   /**
    * Gets the veto (if any) for a scheduling constraint based on the {@link AttributeAggregate} this
    * filter was created with.
    *
+   * <p>Host attributes sharing the constraint name are matched individually rather than merged,
+   * so that evaluating a satisfied constraint does not allocate.
+   *
    * @param constraint Scheduling filter to check.
    * @return A veto if the constraint is not satisfied based on the existing state of the job.
    */
@@ -51,40 +47,37 @@ final class ConstraintMatcher {
       Iterable<IAttribute> hostAttributes,
       IConstraint constraint) {
 
-    Iterable<IAttribute> sameNameAttributes =
-        Iterables.filter(hostAttributes, new NameFilter(constraint.getName()));
-    Optional<IAttribute> attribute;
-    if (Iterables.isEmpty(sameNameAttributes)) {
-      attribute = Optional.empty();
-    } else {
-      Set<String> attributeValues = ImmutableSet.copyOf(
-          Iterables.concat(Iterables.transform(sameNameAttributes, GET_VALUES)));
-      attribute =
-          Optional.of(IAttribute.build(new Attribute(constraint.getName(), attributeValues)));
-    }
-
+    String name = constraint.getName();
     ITaskConstraint taskConstraint = constraint.getConstraint();
     switch (taskConstraint.getSetField()) {
       case VALUE:
-        boolean matches = AttributeFilter.matches(
-            attribute.map(GET_VALUES).orElse(ImmutableSet.of()),
-            taskConstraint.getValue());
-        return matches
+        IValueConstraint valueConstraint = taskConstraint.getValue();
+        boolean anyValue = false;
+        for (IAttribute attribute : hostAttributes) {
+          if (name.equals(attribute.getName())
+              && AttributeFilter.containsAny(attribute.getValues(), valueConstraint)) {
+            anyValue = true;
+            break;
+          }
+        }
+        return valueConstraint.isNegated() ^ anyValue
             ? Optional.empty()
-            : Optional.of(Veto.constraintMismatch(constraint.getName()));
+            : Optional.of(Veto.constraintMismatch(name));
 
       case LIMIT:
-        if (!attribute.isPresent()) {
-          return Optional.of(Veto.constraintMismatch(constraint.getName()));
+        int limit = taskConstraint.getLimit().getLimit();
+        boolean present = false;
+        for (IAttribute attribute : hostAttributes) {
+          if (name.equals(attribute.getName())) {
+            present = true;
+            if (!AttributeFilter.matches(attribute, limit, cachedjobState)) {
+              return Optional.of(Veto.unsatisfiedLimit(name));
+            }
+          }
         }
-
-        boolean satisfied = AttributeFilter.matches(
-            attribute.get(),
-            taskConstraint.getLimit().getLimit(),
-            cachedjobState);
-        return satisfied
+        return present
             ? Optional.empty()
-            : Optional.of(Veto.unsatisfiedLimit(constraint.getName()));
+            : Optional.of(Veto.constraintMismatch(name));
 
       default:
         throw new SchedulerException("Failed to recognize the constraint type: "
@@ -0,0 +1,313 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.filter;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.common.collections.Pair;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.HostAttributesChanged;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.storage.AttributeStore;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
+import org.apache.aurora.scheduler.storage.entities.IAttribute;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An attribute aggregate cache that maintains the aggregate of each requested job incrementally,
+ * from task state changes and host attribute changes, rather than recomputing it from storage on
+ * every scheduling attempt.
+ *
+ * <p>Callers are handed an immutable snapshot of the job's attribute counts, which is shared until
+ * the job's state next changes.  Since {@link AttributeAggregate#updateAttributeAggregate} replaces
+ * rather than mutates the underlying counts, updates made by a caller are not visible to others.
+ *
+ * <p>Events are delivered asynchronously, so a job's aggregate may briefly lag behind storage.
+ * Tasks assigned within a scheduling transaction are applied immediately through
+ * {@link #tasksAssigned(StoreProvider, Set)}, and each job is periodically reloaded from storage
+ * to bound any drift.
+ *
+ * <p>Event handlers never access storage while holding the cache monitor, since callers on the
+ * scheduling path may hold the storage write lock while waiting for the monitor.
+ */
+public class IncrementalAttributeAggregateCache implements AttributeAggregateCache {
+
+  @VisibleForTesting
+  static final long RELOAD_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+  @VisibleForTesting
+  static final String LOADS = "attribute_aggregate_cache_loads";
+  @VisibleForTesting
+  static final String HITS = "attribute_aggregate_cache_hits";
+
+  private final Storage storage;
+  private final Clock clock;
+  private final AtomicLong loads;
+  private final AtomicLong hits;
+  private final Map<IJobKey, JobState> jobs = Maps.newHashMap();
+
+  @Inject
+  IncrementalAttributeAggregateCache(Storage storage, Clock clock, StatsProvider statsProvider) {
+    this.storage = requireNonNull(storage);
+    this.clock = requireNonNull(clock);
+    this.loads = statsProvider.makeCounter(LOADS);
+    this.hits = statsProvider.makeCounter(HITS);
+  }
+
+  @Override
+  public synchronized AttributeAggregate getJobActiveState(
+      StoreProvider storeProvider,
+      IJobKey jobKey) {
+
+    JobState state = jobs.get(jobKey);
+    if (state == null || clock.nowMillis() - state.loadedAtMs >= RELOAD_INTERVAL_MS) {
+      state = load(storeProvider, jobKey);
+      // Jobs without active tasks are not kept, so that the cache only holds running jobs.
+      if (state.isEmpty()) {
+        jobs.remove(jobKey);
+      } else {
+        jobs.put(jobKey, state);
+      }
+      loads.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return AttributeAggregate.of(state.snapshot());
+  }
+
+  private JobState load(StoreProvider storeProvider, IJobKey jobKey) {
+    JobState state = new JobState(clock.nowMillis());
+    AttributeStore attributeStore = storeProvider.getAttributeStore();
+    for (IScheduledTask task : storeProvider.getTaskStore()
+        .fetchTasks(Query.jobScoped(jobKey).byStatus(Tasks.SLAVE_ASSIGNED_STATES))) {
+
+      String host = Tasks.scheduledToSlaveHost(task);
+      state.add(Tasks.id(task), host, attributes(state, host, attributeStore));
+    }
+    return state;
+  }
+
+  @Nullable
+  private static IHostAttributes attributes(
+      JobState state,
+      String host,
+      AttributeStore attributeStore) {
+
+    return state.needsAttributes(host)
+        ? attributeStore.getHostAttributes(host).orElse(null)
+        : null;
+  }
+
+  @Override
+  public synchronized void tasksAssigned(StoreProvider storeProvider, Set<String> taskIds) {
+    if (taskIds.isEmpty() || jobs.isEmpty()) {
+      return;
+    }
+
+    for (IScheduledTask task : storeProvider.getTaskStore()
+        .fetchTasks(Query.taskScoped(taskIds).byStatus(Tasks.SLAVE_ASSIGNED_STATES))) {
+
+      JobState state = jobs.get(Tasks.getJob(task));
+      if (state != null) {
+        String host = Tasks.scheduledToSlaveHost(task);
+        state.add(
+            Tasks.id(task),
+            host,
+            attributes(state, host, storeProvider.getAttributeStore()));
+      }
+    }
+  }
+
+  @Subscribe
+  public void taskChangedState(TaskStateChange change) {
+    IScheduledTask task = change.getTask();
+    IJobKey jobKey = Tasks.getJob(task);
+    if (Tasks.SLAVE_ASSIGNED_STATES.contains(change.getNewState())) {
+      // The task is applied from the event under the monitor, so that it is ordered with other
+      // events for the same task.  Only the host attributes are filled in afterwards.
+      String host = Tasks.scheduledToSlaveHost(task);
+      synchronized (this) {
+        JobState state = jobs.get(jobKey);
+        if (state == null) {
+          return;
+        }
+        state.add(change.getTaskId(), host, null);
+        if (!state.needsAttributes(host)) {
+          return;
+        }
+      }
+
+      // Host attributes are read outside of the monitor, see class doc.
+      Optional<IHostAttributes> attributes =
+          storage.read(store -> store.getAttributeStore().getHostAttributes(host));
+      if (attributes.isPresent()) {
+        synchronized (this) {
+          JobState state = jobs.get(jobKey);
+          if (state != null && state.needsAttributes(host)) {
+            state.updateHost(host, attributes.get());
+          }
+        }
+      }
+    } else if (Tasks.isTerminated(change.getNewState())) {
+      // Transitions into other inactive states (e.g. PENDING) are not removals, and may be
+      // delivered after the task was assigned.
+      remove(jobKey, change.getTaskId());
+    }
+  }
+
+  @Subscribe
+  public void tasksDeleted(TasksDeleted deleted) {
+    for (IScheduledTask task : deleted.getTasks()) {
+      remove(Tasks.getJob(task), Tasks.id(task));
+    }
+  }
+
+  private synchronized void remove(IJobKey jobKey, String taskId) {
+    JobState state = jobs.get(jobKey);
+    if (state != null) {
+      state.remove(taskId);
+      if (state.isEmpty()) {
+        jobs.remove(jobKey);
+      }
+    }
+  }
+
+  @Subscribe
+  public synchronized void hostAttributesChanged(HostAttributesChanged change) {
+    IHostAttributes attributes = change.getAttributes();
+    for (JobState state : jobs.values()) {
+      state.updateHost(attributes.getHost(), attributes);
+    }
+  }
+
+  @VisibleForTesting
+  synchronized Optional<AttributeAggregate> getCached(IJobKey jobKey) {
+    return Optional.ofNullable(jobs.get(jobKey))
+        .map(state -> AttributeAggregate.of(state.snapshot()));
+  }
+
+  /**
+   * Active tasks of a job and the attribute counts of the hosts they are assigned to.
+   */
+  private static final class JobState {
+    private final long loadedAtMs;
+    private final Map<String, String> hostsByTask = Maps.newHashMap();
+    private final Multiset<String> hosts = HashMultiset.create();
+    private final Map<String, IHostAttributes> hostAttributes = Maps.newHashMap();
+    private final Multiset<Pair<String, String>> counts = HashMultiset.create();
+    private ImmutableMultiset<Pair<String, String>> snapshot;
+
+    JobState(long loadedAtMs) {
+      this.loadedAtMs = loadedAtMs;
+    }
+
+    boolean needsAttributes(String host) {
+      return !hostAttributes.containsKey(host);
+    }
+
+    boolean isEmpty() {
+      return hostsByTask.isEmpty();
+    }
+
+    void add(String taskId, String host, @Nullable IHostAttributes attributes) {
+      String previous = hostsByTask.get(taskId);
+      if (host.equals(previous)) {
+        return;
+      }
+      if (previous != null) {
+        remove(taskId);
+      }
+
+      hostsByTask.put(taskId, host);
+      hosts.add(host);
+      adjust(hostAttributes.get(host), 1);
+      if (attributes != null && needsAttributes(host)) {
+        updateHost(host, attributes);
+      }
+      snapshot = null;
+    }
+
+    void remove(String taskId) {
+      String host = hostsByTask.remove(taskId);
+      if (host == null) {
+        return;
+      }
+
+      adjust(hostAttributes.get(host), -1);
+      hosts.remove(host);
+      if (!hosts.contains(host)) {
+        hostAttributes.remove(host);
+      }
+      snapshot = null;
+    }
+
+    void updateHost(String host, IHostAttributes attributes) {
+      int tasksOnHost = hosts.count(host);
+      if (tasksOnHost == 0) {
+        return;
+      }
+
+      adjust(hostAttributes.put(host, attributes), -tasksOnHost);
+      adjust(attributes, tasksOnHost);
+      snapshot = null;
+    }
+
+    private void adjust(@Nullable IHostAttributes attributes, int delta) {
+      if (attributes == null) {
+        return;
+      }
+
+      for (IAttribute attribute : attributes.getAttributes()) {
+        for (String value : attribute.getValues()) {
+          Pair<String, String> key = Pair.of(attribute.getName(), value);
+          if (delta > 0) {
+            counts.add(key, delta);
+          } else {
+            counts.remove(key, -delta);
+          }
+        }
+      }
+    }
+
+    ImmutableMultiset<Pair<String, String>> snapshot() {
+      if (snapshot == null) {
+        snapshot = ImmutableMultiset.copyOf(counts);
+      }
+      return snapshot;
+    }
+  }
+}
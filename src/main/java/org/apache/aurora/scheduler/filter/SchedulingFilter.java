@@ -14,24 +14,32 @@
 package org.apache.aurora.scheduler.filter;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Ordering;
 
+import org.apache.aurora.gen.TaskConstraint;
 import org.apache.aurora.scheduler.TierManager;
+import org.apache.aurora.scheduler.configuration.ConfigurationManager;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.resources.ResourceManager;
+import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.aurora.scheduler.storage.entities.IConstraint;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 
 import static java.util.Objects.requireNonNull;
 
+import static org.apache.aurora.scheduler.configuration.ConfigurationManager.DEDICATED_ATTRIBUTE;
 import static org.apache.aurora.scheduler.filter.SchedulingFilter.VetoType.CONSTRAINT_MISMATCH;
 import static org.apache.aurora.scheduler.filter.SchedulingFilter.VetoType.INSUFFICIENT_RESOURCES;
 import static org.apache.aurora.scheduler.filter.SchedulingFilter.VetoType.LIMIT_NOT_SATISFIED;
@@ -258,6 +266,8 @@ public interface SchedulingFilter {
     private final ResourceBag offer;
     private final IHostAttributes attributes;
     private final Optional<Instant> unavailabilityStart;
+    private final double[] resourceVector;
+    private final boolean dedicated;
 
     @VisibleForTesting
     public UnusedResource(ResourceBag offer, IHostAttributes attributes) {
@@ -272,6 +282,18 @@ public interface SchedulingFilter {
       this.offer = offer;
       this.attributes = attributes;
       this.unavailabilityStart = start;
+      this.resourceVector = toVector(offer);
+      this.dedicated = Iterables.any(
+          attributes.getAttributes(),
+          new ConstraintMatcher.NameFilter(DEDICATED_ATTRIBUTE));
+    }
+
+    private static double[] toVector(ResourceBag bag) {
+      double[] vector = new double[ResourceType.values().length];
+      for (Map.Entry<ResourceType, Double> entry : bag.getResourceVectors().entrySet()) {
+        vector[entry.getKey().ordinal()] = entry.getValue();
+      }
+      return vector;
     }
 
     public ResourceBag getResourceBag() {
@@ -286,6 +308,26 @@ public interface SchedulingFilter {
       return unavailabilityStart;
     }
 
+    /**
+     * Gets the available amount of a resource, without the map lookup of
+     * {@link ResourceBag#valueOf(ResourceType)}.
+     *
+     * @param type Resource type.
+     * @return Available amount, or 0.0 if the resource is not offered.
+     */
+    double valueOf(ResourceType type) {
+      return resourceVector[type.ordinal()];
+    }
+
+    /**
+     * Whether the host carries the dedicated attribute.
+     *
+     * @return {@code true} if the host is dedicated.
+     */
+    boolean isDedicated() {
+      return dedicated;
+    }
+
     @Override
     public boolean equals(Object o) {
       if (!(o instanceof UnusedResource)) {
@@ -313,6 +355,12 @@ public interface SchedulingFilter {
     private final AttributeAggregate jobState;
     private final boolean revocable;
 
+    // Precompiled forms of the above, consulted by the scheduling filter for every offer.
+    private final List<IConstraint> sortedConstraints;
+    private final boolean dedicated;
+    private final ResourceType[] resourceTypes;
+    private final double[] resourceValues;
+
     private ResourceRequest(
         ITaskConfig task,
         ResourceBag request,
@@ -323,8 +371,32 @@ public interface SchedulingFilter {
       this.request = requireNonNull(request);
       this.jobState = requireNonNull(jobState);
       this.revocable = revocable;
+      this.sortedConstraints = VALUES_FIRST.immutableSortedCopy(task.getConstraints());
+      this.dedicated = ConfigurationManager.isDedicated(task.getConstraints());
+
+      Map<ResourceType, Double> vectors = request.getResourceVectors();
+      this.resourceTypes = new ResourceType[vectors.size()];
+      this.resourceValues = new double[vectors.size()];
+      int i = 0;
+      for (Map.Entry<ResourceType, Double> entry : vectors.entrySet()) {
+        resourceTypes[i] = entry.getKey();
+        resourceValues[i] = entry.getValue();
+        i++;
+      }
     }
 
+    private static boolean isValueConstraint(IConstraint constraint) {
+      return constraint.getConstraint().getSetField() == TaskConstraint._Fields.VALUE;
+    }
+
+    private static final Ordering<IConstraint> VALUES_FIRST = Ordering.from(
+        (a, b) -> {
+          if (a.getConstraint().getSetField() == b.getConstraint().getSetField()) {
+            return 0;
+          }
+          return isValueConstraint(a) ? -1 : 1;
+        });
+
     public static ResourceRequest fromTask(
         ITaskConfig task,
         ExecutorSettings executorSettings,
@@ -358,6 +430,41 @@ public interface SchedulingFilter {
       return revocable;
     }
 
+    /**
+     * Gets the task constraints, with value constraints ordered ahead of limit constraints.
+     *
+     * @return Sorted task constraints.
+     */
+    List<IConstraint> getSortedConstraints() {
+      return sortedConstraints;
+    }
+
+    /**
+     * Whether the task has a dedicated constraint.
+     *
+     * @return {@code true} if the task is dedicated.
+     */
+    boolean isDedicated() {
+      return dedicated;
+    }
+
+    /**
+     * Gets the number of requested resource types.
+     *
+     * @return Number of resource types in the request.
+     */
+    int getResourceCount() {
+      return resourceTypes.length;
+    }
+
+    ResourceType getResourceType(int index) {
+      return resourceTypes[index];
+    }
+
+    double getResourceValue(int index) {
+      return resourceValues[index];
+    }
+
     @Override
     public boolean equals(Object o) {
       if (!(o instanceof ResourceRequest)) {
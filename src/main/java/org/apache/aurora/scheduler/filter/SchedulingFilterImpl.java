@@ -14,8 +14,8 @@
 package org.apache.aurora.scheduler.filter;
 
 import java.time.Instant;
-import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -23,40 +23,33 @@ import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Ordering;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.gen.MaintenanceMode;
-import org.apache.aurora.gen.TaskConstraint;
-import org.apache.aurora.scheduler.configuration.ConfigurationManager;
 import org.apache.aurora.scheduler.offers.OfferManagerModule.UnavailabilityThreshold;
-import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.aurora.scheduler.storage.entities.IAttribute;
 import org.apache.aurora.scheduler.storage.entities.IConstraint;
-import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 
 import static java.util.Objects.requireNonNull;
 
 import static org.apache.aurora.gen.MaintenanceMode.DRAINED;
 import static org.apache.aurora.gen.MaintenanceMode.DRAINING;
-import static org.apache.aurora.scheduler.configuration.ConfigurationManager.DEDICATED_ATTRIBUTE;
 
 /**
  * Implementation of the scheduling filter that ensures resource requirements of tasks are
  * fulfilled, and that tasks are allowed to run on the given machine.
  */
 public class SchedulingFilterImpl implements SchedulingFilter {
-  private final Amount<Long, Time> unavailabilityThreshold;
+  private final long unavailabilityThresholdMs;
   private final Clock clock;
 
   @Inject
   public SchedulingFilterImpl(@UnavailabilityThreshold Amount<Long, Time> threshold, Clock clock) {
-    this.unavailabilityThreshold = requireNonNull(threshold);
+    this.unavailabilityThresholdMs = requireNonNull(threshold).as(Time.MILLISECONDS);
     this.clock = requireNonNull(clock);
   }
 
@@ -69,49 +62,34 @@ public class SchedulingFilterImpl implements SchedulingFilter {
         (int) (VetoType.INSUFFICIENT_RESOURCES.getScore() * value) / range);
   }
 
-  private static void maybeAddVeto(
-      ImmutableSet.Builder<Veto> vetoes,
-      ResourceType resourceType,
-      double available,
-      double requested) {
-
-    double tooLarge = requested - available;
-    if (tooLarge > 0) {
-      vetoes.add(Veto.insufficientResources(
-          resourceType.getAuroraName(),
-          scale(tooLarge, resourceType.getScalingRange())));
+  private static Set<Veto> getResourceVetoes(UnusedResource available, ResourceRequest required) {
+    // Builders are only created once a veto is found, so that the common case of a fitting offer
+    // does not allocate.
+    ImmutableSet.Builder<Veto> vetoes = null;
+    for (int i = 0; i < required.getResourceCount(); i++) {
+      ResourceType resourceType = required.getResourceType(i);
+      double tooLarge = required.getResourceValue(i) - available.valueOf(resourceType);
+      if (tooLarge > 0) {
+        if (vetoes == null) {
+          vetoes = ImmutableSet.builder();
+        }
+        vetoes.add(Veto.insufficientResources(
+            resourceType.getAuroraName(),
+            scale(tooLarge, resourceType.getScalingRange())));
+      }
     }
+    return vetoes == null ? ImmutableSet.of() : vetoes.build();
   }
 
-  private static Set<Veto> getResourceVetoes(ResourceBag available, ResourceBag required) {
-    ImmutableSet.Builder<Veto> vetoes = ImmutableSet.builder();
-    required.streamResourceVectors().forEach(
-        e -> maybeAddVeto(vetoes, e.getKey(), available.valueOf(e.getKey()), e.getValue()));
-    return vetoes.build();
-  }
-
-  private static boolean isValueConstraint(IConstraint constraint) {
-    return constraint.getConstraint().getSetField() == TaskConstraint._Fields.VALUE;
-  }
-
-  private static final Ordering<IConstraint> VALUES_FIRST = Ordering.from(
-      new Comparator<IConstraint>() {
-        @Override
-        public int compare(IConstraint a, IConstraint b) {
-          if (a.getConstraint().getSetField() == b.getConstraint().getSetField()) {
-            return 0;
-          }
-          return isValueConstraint(a) ? -1 : 1;
-        }
-      });
-
-  private Optional<Veto> getConstraintVeto(
-      Iterable<IConstraint> taskConstraints,
+  private static Optional<Veto> getConstraintVeto(
+      List<IConstraint> taskConstraints,
       AttributeAggregate jobState,
       Iterable<IAttribute> offerAttributes) {
 
-    for (IConstraint constraint : VALUES_FIRST.sortedCopy(taskConstraints)) {
-      Optional<Veto> veto = ConstraintMatcher.getVeto(jobState, offerAttributes, constraint);
+    // Constraints are pre-sorted with value constraints first, as they are cheaper to evaluate.
+    for (int i = 0; i < taskConstraints.size(); i++) {
+      Optional<Veto> veto =
+          ConstraintMatcher.getVeto(jobState, offerAttributes, taskConstraints.get(i));
       if (veto.isPresent()) {
         // Break early to avoid potentially-expensive operations to satisfy other constraints.
         return veto;
@@ -129,22 +107,15 @@ public class SchedulingFilterImpl implements SchedulingFilter {
 
   private Optional<Veto> getMesosMaintenanceVeto(Optional<Instant> unavailabilityStart) {
     if (unavailabilityStart.isPresent()) {
-      Instant start = unavailabilityStart.get();
-      Instant drainTime = start.minusMillis(unavailabilityThreshold.as(Time.MILLISECONDS));
+      long drainTimeMs = unavailabilityStart.get().toEpochMilli() - unavailabilityThresholdMs;
 
-      if (clock.nowInstant().isAfter(drainTime)) {
+      if (clock.nowMillis() > drainTimeMs) {
         return Optional.of(Veto.maintenance(DRAINING.toString().toLowerCase()));
       }
     }
     return Optional.empty();
   }
 
-  private boolean isDedicated(IHostAttributes attributes) {
-    return Iterables.any(
-        attributes.getAttributes(),
-        new ConstraintMatcher.NameFilter(DEDICATED_ATTRIBUTE));
-  }
-
   @Timed("scheduling_filter")
   @Override
   public Set<Veto> filter(UnusedResource resource, ResourceRequest request) {
@@ -153,9 +124,7 @@ public class SchedulingFilterImpl implements SchedulingFilter {
     // a veto reason in the NearestFit.
 
     // 1. Dedicated constraint check (highest score).
-    if (!ConfigurationManager.isDedicated(request.getConstraints())
-        && isDedicated(resource.getAttributes())) {
-
+    if (!request.isDedicated() && resource.isDedicated()) {
       return ImmutableSet.of(Veto.dedicatedHostConstraintMismatch());
     }
 
@@ -173,7 +142,7 @@ public class SchedulingFilterImpl implements SchedulingFilter {
 
     // 3. Value and limit constraint check.
     Optional<Veto> constraintVeto = getConstraintVeto(
-        request.getConstraints(),
+        request.getSortedConstraints(),
         request.getJobState(),
         resource.getAttributes().getAttributes());
 
@@ -182,6 +151,6 @@ public class SchedulingFilterImpl implements SchedulingFilter {
     }
 
     // 4. Resource check (lowest score).
-    return getResourceVetoes(resource.getResourceBag(), request.getResourceBag());
+    return getResourceVetoes(resource, request);
   }
 }
@@ -14,6 +14,7 @@
 package org.apache.aurora.scheduler.offers;
 
 import java.time.Instant;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Supplier;
@@ -22,6 +23,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Suppliers;
 
 import org.apache.aurora.scheduler.base.Conversions;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
 import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
@@ -38,8 +40,15 @@ import static org.apache.mesos.v1.Protos.Offer;
 public class HostOffer {
   private final Offer offer;
   private final IHostAttributes hostAttributes;
-  private final Supplier<ResourceBag> revocableResources;
-  private final Supplier<ResourceBag> nonRevocableResources;
+  private final ResourceBag revocableResources;
+  private final ResourceBag nonRevocableResources;
+  // Scalar values of the above bags indexed by ResourceType ordinal, used as sort keys so that
+  // offer orderings do not need to rebuild resource bags for each comparison.
+  private final double[] revocableVector;
+  private final double[] nonRevocableVector;
+  private final Optional<Instant> unavailabilityStart;
+  private final Supplier<UnusedResource> revocableUnused;
+  private final Supplier<UnusedResource> nonRevocableUnused;
 
   // Offers lacking CPU or mem are flagged so that they may be efficiently ignored during
   // scheduling.  However, they are retained for other purposes such as preemption and cluster
@@ -52,10 +61,15 @@ public class HostOffer {
     this.offer = requireNonNull(offer);
     this.hostAttributes = requireNonNull(hostAttributes);
     this.nonZeroCpuAndMem = offerHasCpuAndMem(offer);
-    this.revocableResources =
-        Suppliers.memoize(() -> bagFromMesosResources(getOfferResources(offer, true)));
-    this.nonRevocableResources =
-        Suppliers.memoize(() -> bagFromMesosResources(getOfferResources(offer, false)));
+    this.revocableResources = bagFromMesosResources(getOfferResources(offer, true));
+    this.nonRevocableResources = bagFromMesosResources(getOfferResources(offer, false));
+    this.revocableVector = toVector(revocableResources);
+    this.nonRevocableVector = toVector(nonRevocableResources);
+    this.unavailabilityStart = offer.hasUnavailability()
+        ? Optional.of(Conversions.getStart(offer.getUnavailability()))
+        : Optional.empty();
+    this.revocableUnused = Suppliers.memoize(() -> new UnusedResource(this, true));
+    this.nonRevocableUnused = Suppliers.memoize(() -> new UnusedResource(this, false));
   }
 
   private static boolean offerHasCpuAndMem(Offer offer) {
@@ -64,6 +78,14 @@ public class HostOffer {
         && resources.valueOf(ResourceType.RAM_MB) > 0.0;
   }
 
+  private static double[] toVector(ResourceBag bag) {
+    double[] vector = new double[ResourceType.values().length];
+    for (Map.Entry<ResourceType, Double> entry : bag.getResourceVectors().entrySet()) {
+      vector[entry.getKey().ordinal()] = entry.getValue();
+    }
+    return vector;
+  }
+
   public Offer getOffer() {
     return offer;
   }
@@ -77,15 +99,33 @@ public class HostOffer {
   }
 
   public ResourceBag getResourceBag(boolean revocable) {
-    return revocable ? revocableResources.get() : nonRevocableResources.get();
+    return revocable ? revocableResources : nonRevocableResources;
+  }
+
+  /**
+   * Gets the amount of a resource in this offer, without building a {@link ResourceBag}.
+   *
+   * @param type Resource type to get.
+   * @param revocable Whether to use revocable or non-revocable resources.
+   * @return Amount of the resource, or {@code 0.0} if the offer does not have it.
+   */
+  public double getResourceValue(ResourceType type, boolean revocable) {
+    return (revocable ? revocableVector : nonRevocableVector)[type.ordinal()];
+  }
+
+  /**
+   * Gets this offer as input to the scheduling filter.  The result is computed once per offer, as
+   * the filter is applied to each offer many times.
+   *
+   * @param revocable Whether to use revocable or non-revocable resources.
+   * @return Unused resources of this offer.
+   */
+  public UnusedResource getUnusedResource(boolean revocable) {
+    return revocable ? revocableUnused.get() : nonRevocableUnused.get();
   }
 
   public Optional<Instant> getUnavailabilityStart() {
-    if (offer.hasUnavailability()) {
-      return Optional.of(Conversions.getStart(offer.getUnavailability()));
-    } else {
-      return Optional.empty();
-    }
+    return unavailabilityStart;
   }
 
   @Override
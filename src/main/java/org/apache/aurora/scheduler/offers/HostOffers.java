@@ -16,11 +16,13 @@ package org.apache.aurora.scheduler.offers;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -30,7 +32,6 @@ import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
-import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.mesos.v1.Protos;
@@ -59,6 +60,11 @@ class HostOffers {
   // Keep track of the number of offers evaluated for vetoes when getting matching offers
   private final AtomicLong vetoEvaluatedOffers;
 
+  // Index of offers by available resources, to skip offers that are too small for a request
+  // without evaluating them.
+  private final Optional<OfferShapeIndex> shapeIndex;
+  private final AtomicLong shapeSkippedOffers;
+
   HostOffers(StatsProvider statsProvider,
              OfferSettings offerSettings,
              SchedulingFilter schedulingFilter) {
@@ -67,6 +73,9 @@ class HostOffers {
         .getStaticBanCacheBuilder()
         .build();
     this.schedulingFilter = requireNonNull(schedulingFilter);
+    this.shapeIndex = offerSettings.isShapeIndexEnabled()
+        ? Optional.of(new OfferShapeIndex())
+        : Optional.empty();
 
     statsProvider.makeGauge(OfferManagerImpl.OUTSTANDING_OFFERS, offers::size);
     statsProvider.makeGauge(OfferManagerImpl.STATICALLY_BANNED_OFFERS,
@@ -76,6 +85,7 @@ class HostOffers {
     statsProvider.makeGauge(OfferManagerImpl.GLOBALLY_BANNED_OFFERS, globallyBannedOffers::size);
 
     vetoEvaluatedOffers = statsProvider.makeCounter(OfferManagerImpl.VETO_EVALUATED_OFFERS);
+    shapeSkippedOffers = statsProvider.makeCounter(OfferManagerImpl.SHAPE_SKIPPED_OFFERS);
   }
 
   /**
@@ -100,6 +110,7 @@ class HostOffers {
 
   private void addInternal(HostOffer offer) {
     offers.add(offer);
+    shapeIndex.ifPresent(index -> index.add(offer));
     offersById.put(offer.getOffer().getId(), offer);
     offersBySlave.put(offer.getOffer().getAgentId(), offer);
     offersByHost.put(offer.getOffer().getHostname(), offer);
@@ -109,6 +120,7 @@ class HostOffers {
     HostOffer removed = offersById.remove(id);
     if (removed != null) {
       offers.remove(removed);
+      shapeIndex.ifPresent(index -> index.remove(removed));
       offersBySlave.remove(removed.getOffer().getAgentId());
       offersByHost.remove(removed.getOffer().getHostname());
     }
@@ -166,18 +178,55 @@ class HostOffers {
    * collection, and may reflect changes that happen after the construction of the iterable.
    * This property is mainly used in {@code launchTask}.
    *
+   * <p>When the shape index is enabled, the offers with enough CPU, RAM and disk for
+   * {@code resourceRequest} are found by range scanning the index.  Other offers are skipped with a
+   * set lookup before any scheduling filter evaluation, and the iteration ends once all candidates
+   * have been returned.  No offers are visited at all if none can fit the request.  Offers added
+   * after this method is called are not returned.
+   *
    * @param groupKey The task group to get offers for.
    * @return The offers a given task group can use.
    */
   synchronized Iterable<HostOffer> getAllMatching(TaskGroupKey groupKey,
                                                   ResourceRequest resourceRequest) {
 
+    FluentIterable<HostOffer> candidates;
+    if (shapeIndex.isPresent()) {
+      Set<Protos.OfferID> fitting = shapeIndex.get().getCandidates(
+          resourceRequest.getResourceBag(),
+          resourceRequest.isRevocable());
+      shapeSkippedOffers.addAndGet(offersById.size() - fitting.size());
+      if (fitting.isEmpty()) {
+        return ImmutableList.of();
+      }
+
+      // The offer set still decides the order, as reading candidates out of the index would
+      // bypass custom offer orderings.
+      candidates = FluentIterable.from(offers.getOrdered(groupKey, resourceRequest))
+          .filter(o -> fitting.contains(o.getOffer().getId()))
+          .limit(fitting.size());
+    } else {
+      candidates = FluentIterable.from(offers.getOrdered(groupKey, resourceRequest));
+    }
+
+    Optional<TaskGroupKey> vetoGroup = Optional.of(groupKey);
     return Iterables.unmodifiableIterable(
-        FluentIterable.from(offers.getOrdered(groupKey, resourceRequest))
+        candidates
             .filter(o -> !isGloballyBanned(o))
             .filter(o -> !isStaticallyBanned(o, groupKey))
             .filter(HostOffer::hasCpuAndMem)
-            .filter(o -> !isVetoed(o, resourceRequest, Optional.of(groupKey))));
+            .filter(o -> !isVetoed(o, resourceRequest, vetoGroup)));
+  }
+
+  /**
+   * Prepares the offer ordering for task groups that are about to be matched.  This does not hold
+   * the intrinsic lock, as the offer set may take a while to prepare its orderings.
+   *
+   * @param resourceRequests Requests of the task groups about to be matched.
+   * @return A future that completes when matching may proceed.
+   */
+  CompletableFuture<Void> prepareOrdering(Map<TaskGroupKey, ResourceRequest> resourceRequests) {
+    return offers.prepareOrdering(resourceRequests);
   }
 
   private synchronized boolean isGloballyBanned(HostOffer offer) {
@@ -198,8 +247,9 @@ class HostOffers {
                            Optional<TaskGroupKey> groupKey) {
 
     vetoEvaluatedOffers.incrementAndGet();
-    UnusedResource unusedResource = new UnusedResource(offer, resourceRequest.isRevocable());
-    Set<Veto> vetoes = schedulingFilter.filter(unusedResource, resourceRequest);
+    Set<Veto> vetoes = schedulingFilter.filter(
+        offer.getUnusedResource(resourceRequest.isRevocable()),
+        resourceRequest);
     if (!vetoes.isEmpty()) {
       if (groupKey.isPresent() && Veto.identifyGroup(vetoes) == SchedulingFilter.VetoGroup.STATIC) {
         addStaticGroupBan(offer.getOffer().getId(), groupKey.get());
@@ -225,6 +275,7 @@ class HostOffers {
 
   synchronized void clear() {
     offers.clear();
+    shapeIndex.ifPresent(OfferShapeIndex::clear);
     offersById.clear();
     offersBySlave.clear();
     offersByHost.clear();
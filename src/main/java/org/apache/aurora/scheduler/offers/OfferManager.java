@@ -13,7 +13,9 @@
  */
 package org.apache.aurora.scheduler.offers;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -95,6 +97,19 @@ public interface OfferManager extends EventSubscriber {
    */
   Iterable<HostOffer> getAllMatching(TaskGroupKey groupKey, ResourceRequest resourceRequest);
 
+  /**
+   * Prepares the offer ordering for task groups that are about to be matched against offers.
+   * See {@link OfferSet#prepareOrdering(Map)}.
+   *
+   * @param resourceRequests Requests of the task groups about to be matched.
+   * @return A future that completes when matching may proceed.
+   */
+  default CompletableFuture<Void> prepareOrdering(
+      Map<TaskGroupKey, ResourceRequest> resourceRequests) {
+
+    return CompletableFuture.completedFuture(null);
+  }
+
   /**
    * Launches the task matched against the offer.
    *
@@ -13,8 +13,10 @@
  */
 package org.apache.aurora.scheduler.offers;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
@@ -57,6 +59,8 @@ public class OfferManagerImpl implements OfferManager {
   static final String GLOBALLY_BANNED_OFFERS = "globally_banned_offers_size";
   @VisibleForTesting
   static final String VETO_EVALUATED_OFFERS = "veto_evaluated_offers";
+  @VisibleForTesting
+  static final String SHAPE_SKIPPED_OFFERS = "shape_skipped_offers";
 
   private final HostOffers hostOffers;
   private final AtomicLong offerRaces;
@@ -173,6 +177,13 @@ public class OfferManagerImpl implements OfferManager {
     return hostOffers.getAllMatching(groupKey, resourceRequest);
   }
 
+  @Override
+  public CompletableFuture<Void> prepareOrdering(
+      Map<TaskGroupKey, ResourceRequest> resourceRequests) {
+
+    return hostOffers.prepareOrdering(resourceRequests);
+  }
+
   /**
    * Notifies the queue that the driver is disconnected, and all the stored offers are now
    * invalid.
@@ -107,6 +107,12 @@ public class OfferManagerModule extends AbstractModule {
                 + "the cache will grow indefinitely. However, entries will expire within "
                 + "'min_offer_hold_time' + 'offer_hold_jitter_window' of being written.")
     public long offerStaticBanCacheMaxSize = Long.MAX_VALUE;
+
+    @Parameter(names = "-offer_shape_index",
+        description = "Index offers by available CPU, RAM and disk, so that offers too small for a "
+            + "task are skipped without evaluating scheduling constraints.",
+        arity = 1)
+    public boolean offerShapeIndex = false;
   }
 
   /**
@@ -212,6 +218,7 @@ public class OfferManagerModule extends AbstractModule {
         offerSet,
         Amount.of(maxOfferHoldTime, Time.SECONDS),
         cliOptions.offer.offerStaticBanCacheMaxSize,
-        Ticker.systemTicker());
+        Ticker.systemTicker(),
+        cliOptions.offer.offerShapeIndex);
   }
 }
@@ -25,9 +25,6 @@ import static org.apache.aurora.gen.MaintenanceMode.DRAINED;
 import static org.apache.aurora.gen.MaintenanceMode.DRAINING;
 import static org.apache.aurora.gen.MaintenanceMode.NONE;
 import static org.apache.aurora.gen.MaintenanceMode.SCHEDULED;
-import static org.apache.aurora.scheduler.resources.ResourceManager.bagFromMesosResources;
-import static org.apache.aurora.scheduler.resources.ResourceManager.getNonRevocableOfferResources;
-import static org.apache.aurora.scheduler.resources.ResourceManager.getRevocableOfferResources;
 
 /**
  * Utility class for creating compounded offer orders based on some combination of offer ordering.
@@ -64,23 +61,25 @@ public final class OfferOrderBuilder {
   private static final Ordering<HostOffer> REVOCABLE_CPU_COMPARATOR =
       revocableResourceOrdering(ResourceType.CPUS);
 
+  // Resource orderings compare the primitive values precomputed by HostOffer, as they are
+  // evaluated on every insertion into and removal from the offer set.
   private static Ordering<HostOffer> nonRevocableResourceOrdering(ResourceType resourceType) {
-    return Ordering
-        .natural()
-        .onResultOf(o -> bagFromMesosResources(
-            getNonRevocableOfferResources(o.getOffer())).valueOf(resourceType));
+    return Ordering.from((a, b) -> Double.compare(
+        a.getResourceValue(resourceType, false),
+        b.getResourceValue(resourceType, false)));
   }
 
   private static Ordering<HostOffer> revocableResourceOrdering(ResourceType resourceType) {
-    return Ordering
-        .natural()
-        .onResultOf(o -> {
-          double resource = bagFromMesosResources(
-              getRevocableOfferResources(o.getOffer())).valueOf(resourceType);
-          // resource will be 0.0 if there is no revocable cpus available. Since the purpose of
-          // this ordering is to bin-pack revocable then we push those offers to the back.
-          return resource == 0.0 ? Double.MAX_VALUE : resource;
-        });
+    return Ordering.from((a, b) -> Double.compare(
+        revocableSortKey(a, resourceType),
+        revocableSortKey(b, resourceType)));
+  }
+
+  private static double revocableSortKey(HostOffer offer, ResourceType resourceType) {
+    double resource = offer.getResourceValue(resourceType, true);
+    // resource will be 0.0 if there is no revocable cpus available. Since the purpose of
+    // this ordering is to bin-pack revocable then we push those offers to the back.
+    return resource == 0.0 ? Double.MAX_VALUE : resource;
   }
 
   private static Ordering<HostOffer> getOrdering(Ordering<HostOffer> base, OfferOrder order) {
@@ -13,6 +13,9 @@
  */
 package org.apache.aurora.scheduler.offers;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 
@@ -38,4 +41,21 @@ public interface OfferSet {
    * ordering depending on the name of the task, or if the task is revocable.
    */
   Iterable<HostOffer> getOrdered(TaskGroupKey groupKey, ResourceRequest resourceRequest);
+
+  /**
+   * Prepares orderings for task groups that are about to be matched against offers.  This is
+   * called before the storage transaction in which {@link #getOrdered} is called for the groups,
+   * so an implementation may compute its orderings here without holding the storage lock.
+   *
+   * <p>The attribute aggregates of the requests are empty, as the job state is only known within
+   * the storage transaction.
+   *
+   * @param resourceRequests Requests of the task groups about to be matched.
+   * @return A future that completes when matching may proceed.
+   */
+  default CompletableFuture<Void> prepareOrdering(
+      Map<TaskGroupKey, ResourceRequest> resourceRequests) {
+
+    return CompletableFuture.completedFuture(null);
+  }
 }
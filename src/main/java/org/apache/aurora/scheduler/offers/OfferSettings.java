@@ -31,6 +31,7 @@ public class OfferSettings {
   private final Amount<Long, Time> filterDuration;
   private final OfferSet offerSet;
   private final CacheBuilder<Object, Object> staticBanCacheBuilder;
+  private final boolean shapeIndexEnabled;
 
   @VisibleForTesting
   public OfferSettings(Amount<Long, Time> filterDuration,
@@ -39,6 +40,17 @@ public class OfferSettings {
                        long staticBanCacheMaxSize,
                        Ticker staticBanTicker) {
 
+    this(filterDuration, offerSet, maxHoldTime, staticBanCacheMaxSize, staticBanTicker, false);
+  }
+
+  @VisibleForTesting
+  public OfferSettings(Amount<Long, Time> filterDuration,
+                       OfferSet offerSet,
+                       Amount<Long, Time> maxHoldTime,
+                       long staticBanCacheMaxSize,
+                       Ticker staticBanTicker,
+                       boolean shapeIndexEnabled) {
+
     this.filterDuration = requireNonNull(filterDuration);
     this.offerSet = requireNonNull(offerSet);
     this.staticBanCacheBuilder = CacheBuilder.newBuilder()
@@ -46,6 +58,7 @@ public class OfferSettings {
         .maximumSize(staticBanCacheMaxSize)
         .ticker(staticBanTicker)
         .recordStats();
+    this.shapeIndexEnabled = shapeIndexEnabled;
   }
 
   /**
@@ -69,4 +82,12 @@ public class OfferSettings {
   CacheBuilder<Object, Object> getStaticBanCacheBuilder() {
     return staticBanCacheBuilder;
   }
+
+  /**
+   * Whether offers should be indexed by available resources, to skip offers that are too small for
+   * a task without evaluating them.
+   */
+  boolean isShapeIndexEnabled() {
+    return shapeIndexEnabled;
+  }
 }
@@ -0,0 +1,175 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.offers;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.TreeMultiset;
+
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.resources.ResourceType;
+import org.apache.mesos.v1.Protos;
+
+import static org.apache.aurora.scheduler.resources.ResourceType.CPUS;
+import static org.apache.aurora.scheduler.resources.ResourceType.DISK_MB;
+import static org.apache.aurora.scheduler.resources.ResourceType.RAM_MB;
+
+/**
+ * An index of offers by the shape of their available resources, used to avoid evaluating offers
+ * that are too small to satisfy a resource request.
+ *
+ * <p>For each indexed resource type, the offers are kept in sorted buckets by available amount,
+ * separately for revocable and non-revocable resources.  Candidates for a request are found by
+ * range scanning the buckets of the scarcest requested resource, so offers without enough of it
+ * are never visited.
+ *
+ * <p>This class is not thread-safe, and relies on synchronization by {@link HostOffers}.
+ */
+class OfferShapeIndex {
+  @VisibleForTesting
+  static final List<ResourceType> DIMENSIONS = ImmutableList.of(CPUS, RAM_MB, DISK_MB);
+
+  private final Map<ResourceType, Buckets> nonRevocable = createBuckets();
+  private final Map<ResourceType, Buckets> revocable = createBuckets();
+
+  private static Map<ResourceType, Buckets> createBuckets() {
+    Map<ResourceType, Buckets> buckets = new EnumMap<>(ResourceType.class);
+    for (ResourceType type : DIMENSIONS) {
+      buckets.put(type, new Buckets());
+    }
+    return buckets;
+  }
+
+  void add(HostOffer offer) {
+    for (ResourceType type : DIMENSIONS) {
+      nonRevocable.get(type).add(offer.getResourceBag(false).valueOf(type), offer);
+      revocable.get(type).add(offer.getResourceBag(true).valueOf(type), offer);
+    }
+  }
+
+  void remove(HostOffer offer) {
+    for (ResourceType type : DIMENSIONS) {
+      nonRevocable.get(type).remove(offer.getResourceBag(false).valueOf(type), offer);
+      revocable.get(type).remove(offer.getResourceBag(true).valueOf(type), offer);
+    }
+  }
+
+  void clear() {
+    for (ResourceType type : DIMENSIONS) {
+      nonRevocable.get(type).clear();
+      revocable.get(type).clear();
+    }
+  }
+
+  /**
+   * Gets the offers with enough of each indexed resource to fit a request.  Only the offers with
+   * enough of the scarcest requested resource are visited.
+   *
+   * @param request Requested resources.
+   * @param revocableResources Whether the request is to be matched against revocable resources.
+   * @return IDs of the offers that may fit {@code request}.
+   */
+  Set<Protos.OfferID> getCandidates(ResourceBag request, boolean revocableResources) {
+    Map<ResourceType, Buckets> buckets = revocableResources ? revocable : nonRevocable;
+    ResourceType scarcest = null;
+    int scarcestCount = Integer.MAX_VALUE;
+    for (ResourceType type : DIMENSIONS) {
+      int count = buckets.get(type).countAtLeast(request.valueOf(type));
+      if (count < scarcestCount) {
+        scarcest = type;
+        scarcestCount = count;
+      }
+    }
+    if (scarcestCount == 0) {
+      return ImmutableSet.of();
+    }
+
+    ImmutableSet.Builder<Protos.OfferID> candidates = ImmutableSet.builder();
+    for (HostOffer offer : buckets.get(scarcest).atLeast(request.valueOf(scarcest))) {
+      if (mayFit(offer, request, revocableResources)) {
+        candidates.add(offer.getOffer().getId());
+      }
+    }
+    return candidates.build();
+  }
+
+  /**
+   * Checks whether an offer has enough of each indexed resource to fit a request.  An offer
+   * failing this check would be vetoed for insufficient resources by the scheduling filter.
+   *
+   * @param offer Offer to check.
+   * @param request Requested resources.
+   * @param revocableResources Whether the request is to be matched against revocable resources.
+   * @return {@code true} if the offer may fit the request.
+   */
+  static boolean mayFit(HostOffer offer, ResourceBag request, boolean revocableResources) {
+    ResourceBag available = offer.getResourceBag(revocableResources);
+    for (ResourceType type : DIMENSIONS) {
+      if (available.valueOf(type) < request.valueOf(type)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The offers of a single resource type, by available amount.  The amounts are also kept in a
+   * counting multiset, which counts the offers above an amount without visiting them.
+   */
+  private static final class Buckets {
+    private final TreeMultiset<Double> amounts = TreeMultiset.create();
+    private final NavigableMap<Double, Map<Protos.OfferID, HostOffer>> offers = new TreeMap<>();
+
+    void add(double amount, HostOffer offer) {
+      amounts.add(amount);
+      offers.computeIfAbsent(amount, key -> new HashMap<>()).put(offer.getOffer().getId(), offer);
+    }
+
+    void remove(double amount, HostOffer offer) {
+      Map<Protos.OfferID, HostOffer> bucket = offers.get(amount);
+      if (bucket != null && bucket.remove(offer.getOffer().getId()) != null) {
+        amounts.remove(amount);
+        if (bucket.isEmpty()) {
+          offers.remove(amount);
+        }
+      }
+    }
+
+    void clear() {
+      amounts.clear();
+      offers.clear();
+    }
+
+    int countAtLeast(double amount) {
+      return amounts.tailMultiset(amount, BoundType.CLOSED).size();
+    }
+
+    Iterable<HostOffer> atLeast(double amount) {
+      return Iterables.concat(Iterables.transform(
+          offers.tailMap(amount, true).values(),
+          Map::values));
+    }
+  }
+}
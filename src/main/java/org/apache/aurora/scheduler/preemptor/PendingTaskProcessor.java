@@ -19,9 +19,17 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Qualifier;
 
@@ -37,6 +45,7 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
@@ -50,10 +59,12 @@ import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.gen.TaskConstraint;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.filter.AttributeAggregate;
+import org.apache.aurora.scheduler.filter.AttributeAggregateCache;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.state.ClusterState;
@@ -90,6 +101,15 @@ public class PendingTaskProcessor implements Runnable {
   private final ClusterState clusterState;
   private final Clock clock;
   private final Integer reservationBatchSize;
+  private final AttributeAggregateCache attributeAggregates;
+  private final boolean incrementalSlotSearch;
+  private final int slotSearchWindow;
+  @Nullable private final ForkJoinPool slotSearchPool;
+
+  // Agents on which a slot search for a task group found no slot, along with the cluster state
+  // version the search was based on.  Only used by the run loop, and only when incremental slot
+  // search is enabled.
+  private final Map<TaskGroupKey, Map<String, Mismatch>> mismatches = Maps.newHashMap();
 
   /**
    * Binding annotation for the time interval after which a pending task becomes eligible to
@@ -111,6 +131,27 @@ public class PendingTaskProcessor implements Runnable {
   @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
   @interface ReservationBatchSize { }
 
+  /**
+   * Binding annotation for whether to skip re-evaluating task groups against agents that did not
+   * yield a slot, until the agent, its offer or the job's active tasks change.
+   */
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface IncrementalSlotSearch { }
+
+  /**
+   * Binding annotation for the number of threads to search for preemption slots on.  A single
+   * thread searches sequentially on the calling thread.
+   */
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface SlotSearchThreads { }
+
+  // Number of slaves to evaluate per slot search thread in each parallel window.  Larger windows
+  // reduce coordination overhead, at the cost of evaluating slaves past the first slot found.
+  @VisibleForTesting
+  static final int SLAVES_PER_THREAD = 4;
+
   @Inject
   PendingTaskProcessor(
       Storage storage,
@@ -121,7 +162,10 @@ public class PendingTaskProcessor implements Runnable {
       BiCache<PreemptionProposal, TaskGroupKey> slotCache,
       ClusterState clusterState,
       Clock clock,
-      @ReservationBatchSize Integer reservationBatchSize) {
+      @ReservationBatchSize Integer reservationBatchSize,
+      AttributeAggregateCache attributeAggregates,
+      @IncrementalSlotSearch Boolean incrementalSlotSearch,
+      @SlotSearchThreads Integer slotSearchThreads) {
 
     this.storage = requireNonNull(storage);
     this.offerManager = requireNonNull(offerManager);
@@ -132,6 +176,26 @@ public class PendingTaskProcessor implements Runnable {
     this.clusterState = requireNonNull(clusterState);
     this.clock = requireNonNull(clock);
     this.reservationBatchSize = requireNonNull(reservationBatchSize);
+    this.attributeAggregates = requireNonNull(attributeAggregates);
+    this.incrementalSlotSearch = requireNonNull(incrementalSlotSearch);
+    Preconditions.checkArgument(slotSearchThreads > 0);
+    if (slotSearchThreads > 1) {
+      this.slotSearchWindow = slotSearchThreads * SLAVES_PER_THREAD;
+      this.slotSearchPool = new ForkJoinPool(
+          slotSearchThreads,
+          pool -> {
+            ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("PreemptorSlotSearch-" + thread.getPoolIndex());
+            return thread;
+          },
+          null,
+          false);
+    } else {
+      this.slotSearchWindow = 1;
+      this.slotSearchPool = null;
+    }
+    metrics.recordSlotSearchPoolSize(slotSearchThreads);
   }
 
   @Timed("pending_task_processor_run")
@@ -139,6 +203,9 @@ public class PendingTaskProcessor implements Runnable {
   public void run() {
     metrics.recordTaskProcessorRun();
     storage.read(store -> {
+      // The version must be read before the snapshot, so that any change missing from the
+      // snapshot is reported at a later version.
+      long version = incrementalSlotSearch ? clusterState.getVersion() : 0;
       Multimap<String, PreemptionVictim> slavesToActiveTasks =
           clusterState.getSlavesToActiveTasks();
 
@@ -151,9 +218,10 @@ public class PendingTaskProcessor implements Runnable {
       Map<String, HostOffer> slavesToOffers =
           Maps.uniqueIndex(offerManager.getAll(), OFFER_TO_SLAVE_ID);
 
-      Set<String> allSlaves = Sets.newHashSet(Iterables.concat(
+      List<String> allSlaves = ImmutableList.copyOf(Sets.newHashSet(Iterables.concat(
           slavesToOffers.keySet(),
-          slavesToActiveTasks.keySet()));
+          slavesToActiveTasks.keySet())));
+      Set<String> reservedSlaves = Sets.newHashSet();
 
       // The algorithm below attempts to find a reservation for every task group by matching
       // it against all available slaves until a preemption slot is found. Groups are evaluated
@@ -162,47 +230,94 @@ public class PendingTaskProcessor implements Runnable {
       // identical task group instances are removed from further iteration if none of the
       // available slaves could yield a preemption proposal. A consuming iterator is used for
       // task groups to ensure iteration order is preserved after a task group is removed.
+      // When searching in parallel, slaves are evaluated in windows and the first slave in
+      // iteration order that yields a slot is reserved, so that reservations are the same as
+      // for a sequential search.  Results for the rest of the window are kept for the next
+      // instance of the same group.
       LoadingCache<IJobKey, AttributeAggregate> jobStates = attributeCache(store);
       List<TaskGroupKey> pendingGroups = fetchIdlePendingGroups(store);
+      mismatches.keySet().retainAll(pendingGroups);
       Iterator<TaskGroupKey> groups = Iterators.consumingIterator(pendingGroups.iterator());
       TaskGroupKey lastGroup = null;
-      Iterator<String> slaveIterator = allSlaves.iterator();
+      int slavePosition = 0;
+      Map<String, Optional<ImmutableSet<PreemptionVictim>>> lookahead = Maps.newHashMap();
+      AtomicInteger running = new AtomicInteger();
+      AtomicInteger peakParallelism = new AtomicInteger();
 
       while (!pendingGroups.isEmpty()) {
         boolean matched = false;
         TaskGroupKey group = groups.next();
         ITaskConfig task = group.getTask();
+        AttributeAggregate jobState = jobStates.getUnchecked(task.getJob());
 
         LOG.info("Searching for preemptible slots for {}", group);
         metrics.recordPreemptionAttemptFor(task);
         // Start over only if a different task group is being processed
         if (!group.equals(lastGroup)) {
-          slaveIterator = allSlaves.iterator();
+          slavePosition = 0;
+          lookahead.clear();
         }
-        while (slaveIterator.hasNext()) {
-          String slaveId = slaveIterator.next();
-          Optional<ImmutableSet<PreemptionVictim>> candidates =
-              preemptionVictimFilter.filterPreemptionVictims(
-                  task,
-                  slavesToActiveTasks.get(slaveId),
-                  jobStates.getUnchecked(task.getJob()),
-                  Optional.ofNullable(slavesToOffers.get(slaveId)),
-                  store);
-
-          metrics.recordSlotSearchResult(candidates, task);
-          if (candidates.isPresent()) {
-            // Slot found -> remove slave to avoid multiple task reservations.
-            Iterable<String> candidateTaskIds = Iterables.transform(
-                candidates.get(),
-                PreemptionVictim::getTaskId);
-            LOG.info("Found preemptible slot on agent {} for {} with candidates {}",
-                slaveId,
-                group,
-                Joiner.on(",").join(candidateTaskIds));
-            slaveIterator.remove();
-            slotCache.put(new PreemptionProposal(candidates.get(), slaveId), group);
-            matched = true;
-            break;
+        while (!matched && slavePosition < allSlaves.size()) {
+          List<Integer> window = Lists.newArrayList();
+          List<String> toEvaluate = Lists.newArrayList();
+          while (window.size() < slotSearchWindow && slavePosition < allSlaves.size()) {
+            String slaveId = allSlaves.get(slavePosition);
+            if (reservedSlaves.contains(slaveId)) {
+              slavePosition++;
+              continue;
+            }
+            if (!lookahead.containsKey(slaveId)) {
+              if (isKnownMismatch(group, slaveId, offer(slavesToOffers, slaveId))) {
+                metrics.recordSkippedSlotSearch();
+                slavePosition++;
+                continue;
+              }
+              toEvaluate.add(slaveId);
+            }
+            window.add(slavePosition++);
+          }
+
+          List<Optional<ImmutableSet<PreemptionVictim>>> evaluated = searchSlots(
+              toEvaluate,
+              slaveId -> {
+                peakParallelism.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                  return preemptionVictimFilter.filterPreemptionVictims(
+                      task,
+                      slavesToActiveTasks.get(slaveId),
+                      jobState,
+                      offer(slavesToOffers, slaveId),
+                      store);
+                } finally {
+                  running.decrementAndGet();
+                }
+              });
+          for (int i = 0; i < toEvaluate.size(); i++) {
+            lookahead.put(toEvaluate.get(i), evaluated.get(i));
+          }
+
+          for (int position : window) {
+            String slaveId = allSlaves.get(position);
+            Optional<ImmutableSet<PreemptionVictim>> candidates = lookahead.remove(slaveId);
+            metrics.recordSlotSearchResult(candidates, task);
+            if (!candidates.isPresent()) {
+              recordMismatch(group, slaveId, offer(slavesToOffers, slaveId), version);
+            } else {
+              // Slot found -> remove slave to avoid multiple task reservations.
+              Iterable<String> candidateTaskIds = Iterables.transform(
+                  candidates.get(),
+                  PreemptionVictim::getTaskId);
+              LOG.info("Found preemptible slot on agent {} for {} with candidates {}",
+                  slaveId,
+                  group,
+                  Joiner.on(",").join(candidateTaskIds));
+              reservedSlaves.add(slaveId);
+              slotCache.put(new PreemptionProposal(candidates.get(), slaveId), group);
+              matched = true;
+              // Resume the search for the next instance of this group after the reserved slave.
+              slavePosition = position + 1;
+              break;
+            }
           }
         }
         if (!matched) {
@@ -214,10 +329,98 @@ public class PendingTaskProcessor implements Runnable {
         }
         lastGroup = group;
       }
+      metrics.recordSlotSearchPeakParallelism(peakParallelism.get());
       return null;
     });
   }
 
+  private static Optional<HostOffer> offer(Map<String, HostOffer> slavesToOffers, String slaveId) {
+    return Optional.ofNullable(slavesToOffers.get(slaveId));
+  }
+
+  /**
+   * Searches for slots on a number of slaves, in parallel if a slot search pool is available.
+   *
+   * @param slaveIds Slaves to search.
+   * @param search Slot search for a slave.
+   * @return Search results, in the order of {@code slaveIds}.
+   */
+  private List<Optional<ImmutableSet<PreemptionVictim>>> searchSlots(
+      List<String> slaveIds,
+      Function<String, Optional<ImmutableSet<PreemptionVictim>>> search) {
+
+    if (slotSearchPool == null || slaveIds.size() < 2) {
+      return slaveIds.stream().map(search).collect(Collectors.toList());
+    }
+
+    List<ForkJoinTask<Optional<ImmutableSet<PreemptionVictim>>>> tasks = Lists.newArrayList();
+    for (String slaveId : slaveIds) {
+      Callable<Optional<ImmutableSet<PreemptionVictim>>> task = () -> search.apply(slaveId);
+      tasks.add(slotSearchPool.submit(task));
+    }
+    metrics.recordParallelSlotSearch(tasks.size());
+    return tasks.stream().map(ForkJoinTask::join).collect(Collectors.toList());
+  }
+
+  @Nullable
+  private static String offerId(Optional<HostOffer> offer) {
+    return offer.map(o -> o.getOffer().getId().getValue()).orElse(null);
+  }
+
+  private static boolean hasLimitConstraint(ITaskConfig task) {
+    return Iterables.any(
+        task.getConstraints(),
+        c -> c.getConstraint().getSetField() == TaskConstraint._Fields.LIMIT);
+  }
+
+  /**
+   * Checks whether a previous search for a group on an agent found no slot, and neither the
+   * agent's active tasks, its offer, nor (if the group has limit constraints) the job's active
+   * tasks changed since.
+   */
+  private boolean isKnownMismatch(TaskGroupKey group, String slaveId, Optional<HostOffer> offer) {
+    if (!incrementalSlotSearch) {
+      return false;
+    }
+
+    Map<String, Mismatch> groupMismatches = mismatches.get(group);
+    Mismatch mismatch = groupMismatches == null ? null : groupMismatches.get(slaveId);
+    if (mismatch == null) {
+      return false;
+    }
+
+    boolean unchanged = Objects.equals(mismatch.offerId, offerId(offer))
+        && clusterState.getAgentVersion(slaveId) <= mismatch.version
+        && (!hasLimitConstraint(group.getTask())
+            || clusterState.getJobVersion(group.getTask().getJob()) <= mismatch.version);
+    if (!unchanged) {
+      groupMismatches.remove(slaveId);
+    }
+    return unchanged;
+  }
+
+  private void recordMismatch(
+      TaskGroupKey group,
+      String slaveId,
+      Optional<HostOffer> offer,
+      long version) {
+
+    if (incrementalSlotSearch) {
+      mismatches.computeIfAbsent(group, key -> Maps.newHashMap())
+          .put(slaveId, new Mismatch(version, offerId(offer)));
+    }
+  }
+
+  private static final class Mismatch {
+    private final long version;
+    @Nullable private final String offerId;
+
+    Mismatch(long version, @Nullable String offerId) {
+      this.version = version;
+      this.offerId = offerId;
+    }
+  }
+
   private List<TaskGroupKey> fetchIdlePendingGroups(StoreProvider store) {
     Multiset<TaskGroupKey> taskGroupCounts = HashMultiset.create(
         FluentIterable.from(store.getTaskStore().fetchTasks(Query.statusScoped(PENDING)))
@@ -264,7 +467,7 @@ public class PendingTaskProcessor implements Runnable {
         new Function<IJobKey, AttributeAggregate>() {
           @Override
           public AttributeAggregate apply(IJobKey job) {
-            return AttributeAggregate.getJobActiveState(store, job);
+            return attributeAggregates.getJobActiveState(store, job);
           }
         }));
   }
@@ -16,6 +16,7 @@ package org.apache.aurora.scheduler.preemptor;
 import java.time.Instant;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -29,6 +30,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 
@@ -148,8 +150,8 @@ public interface PreemptionVictimFilter {
       }
     };
 
-    private final Comparator<PreemptionVictim> resourceOrder =
-        Comparator.comparing(victimToResources, ORDER).reversed();
+    private static final Comparator<Map.Entry<PreemptionVictim, ResourceBag>> RESOURCE_ORDER =
+        Map.Entry.<PreemptionVictim, ResourceBag>comparingByValue(ORDER).reversed();
 
     @Override
     public Optional<ImmutableSet<PreemptionVictim>> filterPreemptionVictims(
@@ -159,10 +161,12 @@ public interface PreemptionVictimFilter {
         Optional<HostOffer> offer,
         StoreProvider storeProvider) {
 
-      List<PreemptionVictim> sortedVictims = StreamSupport
+      // Resources of each victim are computed once and reused for both sorting and accumulation.
+      List<Map.Entry<PreemptionVictim, ResourceBag>> sortedVictims = StreamSupport
           .stream(possibleVictims.spliterator(), false)
           .filter(preemptionFilter(pendingTask))
-          .sorted(resourceOrder)
+          .map(victim -> Maps.immutableEntry(victim, victimToResources.apply(victim)))
+          .sorted(RESOURCE_ORDER)
           .collect(ImmutableList.toImmutableList());
       if (sortedVictims.isEmpty()) {
         return Optional.empty();
@@ -194,9 +198,9 @@ public interface PreemptionVictimFilter {
 
       ResourceBag totalResource = slackResources;
       Set<PreemptionVictim> toPreemptTasks = Sets.newHashSet();
-      for (PreemptionVictim victim : sortedVictims) {
-        toPreemptTasks.add(victim);
-        totalResource = totalResource.add(victimToResources.apply(victim));
+      for (Map.Entry<PreemptionVictim, ResourceBag> victim : sortedVictims) {
+        toPreemptTasks.add(victim.getKey());
+        totalResource = totalResource.add(victim.getValue());
 
         Set<Veto> vetoes = schedulingFilter.filter(
             new UnusedResource(totalResource, attributes.get(), unavailability),
@@ -43,6 +43,21 @@ public class PreemptorMetrics {
   @VisibleForTesting
   static final String UNMATCHED_TASKS = "preemptor_unmatched_tasks";
 
+  @VisibleForTesting
+  static final String SLOT_SEARCH_SKIPPED = "preemptor_slot_search_skipped";
+
+  @VisibleForTesting
+  static final String SLOT_SEARCH_POOL_SIZE = "preemptor_slot_search_pool_size";
+
+  @VisibleForTesting
+  static final String PARALLEL_SLOT_SEARCH_BATCHES = "preemptor_parallel_slot_search_batches";
+
+  @VisibleForTesting
+  static final String PARALLEL_SLOT_SEARCHES = "preemptor_parallel_slot_searches";
+
+  @VisibleForTesting
+  static final String SLOT_SEARCH_PEAK_PARALLELISM = "preemptor_slot_search_peak_parallelism";
+
   private volatile boolean exported = false;
   private final CachedCounters counters;
 
@@ -79,7 +94,12 @@ public class PreemptorMetrics {
         slotValidationStatName(false),
         MISSING_ATTRIBUTES_NAME,
         TASK_PROCESSOR_RUN_NAME,
-        UNMATCHED_TASKS);
+        UNMATCHED_TASKS,
+        SLOT_SEARCH_SKIPPED,
+        SLOT_SEARCH_POOL_SIZE,
+        PARALLEL_SLOT_SEARCH_BATCHES,
+        PARALLEL_SLOT_SEARCHES,
+        SLOT_SEARCH_PEAK_PARALLELISM);
     for (String stat : allStats) {
       counters.get(stat);
     }
@@ -160,6 +180,30 @@ public class PreemptorMetrics {
     increment(UNMATCHED_TASKS);
   }
 
+  void recordSkippedSlotSearch() {
+    increment(SLOT_SEARCH_SKIPPED);
+  }
+
+  void recordSlotSearchPoolSize(int threads) {
+    assertFullyExported();
+    counters.get(SLOT_SEARCH_POOL_SIZE).set(threads);
+  }
+
+  void recordParallelSlotSearch(int searches) {
+    increment(PARALLEL_SLOT_SEARCH_BATCHES);
+    counters.get(PARALLEL_SLOT_SEARCHES).addAndGet(searches);
+  }
+
+  /**
+   * Records the highest number of slot searches that ran concurrently during a slot search run.
+   *
+   * @param parallelism Peak number of concurrent slot searches.
+   */
+  void recordSlotSearchPeakParallelism(int parallelism) {
+    assertFullyExported();
+    counters.get(SLOT_SEARCH_PEAK_PARALLELISM).set(parallelism);
+  }
+
   void recordSlotValidationResult(Optional<?> result, IAssignedTask task) {
     increment(slotValidationStatName(result.isPresent()));
     increment(slotValidationByJobStatName(result.isPresent(), task.getTask().getJob()));
@@ -91,6 +91,18 @@ public class PreemptorModule extends AbstractModule {
         description = "The maximum number of reservations for a task group to be made in a batch.")
     public int reservationMaxBatchSize = 5;
 
+    @Parameter(names = "-preemption_incremental_slot_search",
+        description = "Skip searching for preemption slots for a task group on agents that did "
+            + "not yield a slot before, until the agent, its offer or the job's tasks change.",
+        arity = 1)
+    public boolean incrementalSlotSearch = false;
+
+    @Parameter(names = "-preemption_slot_search_threads",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of threads to search for preemption slots across agents with. "
+            + "A value of 1 searches agents sequentially.")
+    public int slotSearchThreads = 1;
+
     @Parameter(names = "-preemption_slot_finder_modules",
         description = "Guice modules for custom preemption slot searching for pending tasks.",
         splitter = CommaSplitter.class)
@@ -134,6 +146,12 @@ public class PreemptorModule extends AbstractModule {
           bind(new TypeLiteral<Integer>() { })
               .annotatedWith(PendingTaskProcessor.ReservationBatchSize.class)
               .toInstance(options.reservationMaxBatchSize);
+          bind(Boolean.class)
+              .annotatedWith(PendingTaskProcessor.IncrementalSlotSearch.class)
+              .toInstance(options.incrementalSlotSearch);
+          bind(Integer.class)
+              .annotatedWith(PendingTaskProcessor.SlotSearchThreads.class)
+              .toInstance(options.slotSearchThreads);
 
           for (Module module: MoreModules.instantiateAll(options.slotFinderModules, cliOptions)) {
             install(module);
@@ -34,6 +34,7 @@ import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.gen.apiConstants;
 import org.apache.aurora.scheduler.BatchWorker;
+import org.apache.aurora.scheduler.BatchWorker.Priority;
 import org.apache.aurora.scheduler.SchedulerModule.TaskEventBatchWorker;
 import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
 import org.apache.aurora.scheduler.base.Query;
@@ -143,7 +144,7 @@ public class TaskHistoryPruner implements EventSubscriber {
 
   private void deleteTasks(final Set<String> taskIds) {
     LOG.debug("Pruning inactive tasks {}", taskIds);
-    batchWorker.execute(storeProvider -> {
+    batchWorker.execute(Priority.LOW, storeProvider -> {
       stateManager.deleteTasks(storeProvider, taskIds);
       return BatchWorker.NO_RESULT;
     });
@@ -0,0 +1,153 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.quota;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.storage.TaskStore;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+
+/**
+ * A ledger of the active tasks of each role, grouped by job and task configuration.
+ * <p>
+ * The ledger is maintained incrementally from task store changes, which are applied within the
+ * storage transaction making them.  Quota checks may therefore compute a role's consumption from
+ * the handful of distinct configurations of each job, rather than by fetching and summing every
+ * active task of the role.
+ * <p>
+ * Task configurations are counted rather than their resources summed, so that adding and removing
+ * tasks can not accumulate floating point error.
+ * <p>
+ * The task store applies changes while holding the ledger's monitor, which allows the ledger to be
+ * reconciled against the store without racing concurrent writes.
+ */
+class QuotaLedger implements TaskStore.Listener {
+
+  // Active task configurations, keyed by role and job.
+  private final Map<String, Map<IJobKey, Multiset<ITaskConfig>>> roles = new HashMap<>();
+
+  @Override
+  public void taskChanged(Optional<IScheduledTask> before, Optional<IScheduledTask> after) {
+    ITaskConfig removed = activeConfig(before);
+    ITaskConfig added = activeConfig(after);
+
+    // Most changes are transitions between active states, which do not affect consumption.
+    if (Objects.equals(removed, added)) {
+      return;
+    }
+
+    synchronized (this) {
+      if (removed != null) {
+        remove(removed);
+      }
+      if (added != null) {
+        roles.computeIfAbsent(added.getJob().getRole(), role -> new HashMap<>())
+            .computeIfAbsent(added.getJob(), job -> HashMultiset.create())
+            .add(added);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void allTasksDeleted() {
+    roles.clear();
+  }
+
+  /**
+   * Gets the active task configurations of a role.
+   *
+   * @param role Role to fetch.
+   * @return Active task configurations of the role's jobs, with one entry per active task.
+   */
+  synchronized Map<IJobKey, Multiset<ITaskConfig>> getActiveTasks(String role) {
+    Map<IJobKey, Multiset<ITaskConfig>> jobs = roles.get(role);
+    if (jobs == null) {
+      return ImmutableMap.of();
+    }
+
+    ImmutableMap.Builder<IJobKey, Multiset<ITaskConfig>> copy = ImmutableMap.builder();
+    jobs.forEach((job, configs) -> copy.put(job, ImmutableMultiset.copyOf(configs)));
+    return copy.build();
+  }
+
+  /**
+   * Compares the ledger entries of a role against the task store, and replaces them if they have
+   * diverged.  Entries are compared by task configuration counts rather than by resource sums, so
+   * that the check is exact.
+   *
+   * @param role Role to reconcile.
+   * @param storedTasks Fetches the active task configurations of the role from the task store.
+   * @return {@code true} if the ledger had diverged and was reset.
+   */
+  synchronized boolean reconcile(
+      String role,
+      Supplier<Map<IJobKey, Multiset<ITaskConfig>>> storedTasks) {
+
+    // Holding the monitor blocks task store writes, so the fetched tasks match the changes the
+    // ledger has been notified of.
+    Map<IJobKey, Multiset<ITaskConfig>> stored = storedTasks.get();
+    if (stored.equals(getActiveTasks(role))) {
+      return false;
+    }
+
+    reset(role, stored);
+    return true;
+  }
+
+  /**
+   * Replaces the ledger entries of a role.
+   *
+   * @param role Role to replace.
+   * @param activeTasks Active task configurations of the role's jobs.
+   */
+  synchronized void reset(String role, Map<IJobKey, Multiset<ITaskConfig>> activeTasks) {
+    roles.remove(role);
+    activeTasks.forEach((job, configs) ->
+        roles.computeIfAbsent(role, r -> new HashMap<>()).put(job, HashMultiset.create(configs)));
+  }
+
+  private void remove(ITaskConfig config) {
+    Map<IJobKey, Multiset<ITaskConfig>> jobs = roles.get(config.getJob().getRole());
+    if (jobs == null) {
+      return;
+    }
+
+    Multiset<ITaskConfig> configs = jobs.get(config.getJob());
+    if (configs != null && configs.remove(config) && configs.isEmpty()) {
+      jobs.remove(config.getJob());
+      if (jobs.isEmpty()) {
+        roles.remove(config.getJob().getRole());
+      }
+    }
+  }
+
+  private static ITaskConfig activeConfig(Optional<IScheduledTask> task) {
+    return task
+        .filter(t -> Tasks.isActive(t.getStatus()))
+        .map(t -> t.getAssignedTask().getTask())
+        .orElse(null);
+  }
+}
@@ -13,23 +13,36 @@
  */
 package org.apache.aurora.scheduler.quota;
 
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.common.collect.RangeSet;
 
+import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.gen.JobUpdateQuery;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
@@ -53,6 +66,8 @@ import org.apache.aurora.scheduler.storage.entities.IResourceAggregate;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 import org.apache.aurora.scheduler.updater.Updates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static java.util.Objects.requireNonNull;
 
@@ -161,8 +176,37 @@ public interface QuotaManager {
    * Quota provider that stores quotas in the canonical store.
    */
   class QuotaManagerImpl implements QuotaManager {
+    private static final Logger LOG = LoggerFactory.getLogger(QuotaManagerImpl.class);
     private static final Predicate<ITaskConfig> NO_QUOTA_CHECK = or(PROD_DEDICATED, not(PROD));
 
+    /**
+     * Number of ledger-based consumption computations between reconciliations of the ledger
+     * against the task store.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.METHOD, ElementType.PARAMETER})
+    @Qualifier
+    @interface LedgerReconciliationInterval { }
+
+    private final Optional<QuotaLedger> ledger;
+    private final int reconciliationInterval;
+    private final AtomicLong ledgerChecks = new AtomicLong();
+    private final AtomicLong ledgerReconciliations;
+    private final AtomicLong ledgerMismatches;
+
+    @Inject
+    QuotaManagerImpl(
+        Optional<QuotaLedger> ledger,
+        @LedgerReconciliationInterval int reconciliationInterval,
+        StatsProvider statsProvider) {
+
+      Preconditions.checkArgument(reconciliationInterval > 0);
+      this.ledger = requireNonNull(ledger);
+      this.reconciliationInterval = reconciliationInterval;
+      this.ledgerReconciliations = statsProvider.makeCounter("quota_ledger_reconciliations");
+      this.ledgerMismatches = statsProvider.makeCounter("quota_ledger_mismatches");
+    }
+
     @Override
     public void saveQuota(
         final String ownerRole,
@@ -273,10 +317,6 @@ public interface QuotaManager {
         Optional<IJobUpdate> requestedUpdate,
         StoreProvider storeProvider) {
 
-      FluentIterable<IAssignedTask> tasks = FluentIterable
-          .from(storeProvider.getTaskStore().fetchTasks(Query.roleScoped(role).active()))
-          .transform(IScheduledTask::getAssignedTask);
-
       // Relies on the invariant of at-most-one active update per job.
       Map<IJobKey, IJobUpdateInstructions> updates = storeProvider.getJobUpdateStore()
           .fetchJobUpdates(updateQuery(role))
@@ -299,16 +339,104 @@ public interface QuotaManager {
               .filter(compose(equalTo(role), JobKeys::getRole))
               .uniqueIndex(IJobConfiguration::getKey);
 
+      ResourceBag quota = storeProvider.getQuotaStore().fetchQuota(role)
+          .map(ResourceManager::bagFromAggregate)
+          .orElse(EMPTY);
+
+      if (ledger.isPresent()) {
+        return getQuotaInfoFromLedger(role, quota, updates, cronTemplates, storeProvider);
+      }
+
+      FluentIterable<IAssignedTask> tasks = FluentIterable
+          .from(storeProvider.getTaskStore().fetchTasks(Query.roleScoped(role).active()))
+          .transform(IScheduledTask::getAssignedTask);
+
       return new QuotaInfo(
-          storeProvider.getQuotaStore().fetchQuota(role)
-              .map(ResourceManager::bagFromAggregate)
-              .orElse(EMPTY),
+          quota,
           getConsumption(tasks, updates, cronTemplates, PROD_SHARED),
           getConsumption(tasks, updates, cronTemplates, PROD_DEDICATED),
           getConsumption(tasks, updates, cronTemplates, NON_PROD_SHARED),
           getConsumption(tasks, updates, cronTemplates, NON_PROD_DEDICATED));
     }
 
+    private QuotaInfo getQuotaInfoFromLedger(
+        String role,
+        ResourceBag quota,
+        Map<IJobKey, IJobUpdateInstructions> updates,
+        Map<IJobKey, IJobConfiguration> cronTemplates,
+        StoreProvider storeProvider) {
+
+      if (ledgerChecks.incrementAndGet() % reconciliationInterval == 0) {
+        ledgerReconciliations.incrementAndGet();
+        if (ledger.get().reconcile(role, () -> fetchActiveTasks(role, storeProvider))) {
+          ledgerMismatches.incrementAndGet();
+          LOG.warn("Quota ledger for role {} diverged from the task store, resetting.", role);
+        }
+      }
+      Map<IJobKey, Multiset<ITaskConfig>> activeTasks = ledger.get().getActiveTasks(role);
+
+      // The update working set depends on instance IDs, which the ledger does not track.  Tasks of
+      // jobs with an active update are fetched instead, which is limited to a few jobs at a time.
+      FluentIterable<IAssignedTask> updatingTasks = updates.isEmpty()
+          ? FluentIterable.of()
+          : FluentIterable
+              .from(storeProvider.getTaskStore()
+                  .fetchTasks(Query.jobScoped(updates.keySet()).active()))
+              .transform(IScheduledTask::getAssignedTask);
+
+      return new QuotaInfo(
+          quota,
+          getConsumption(activeTasks, updatingTasks, updates, cronTemplates, PROD_SHARED),
+          getConsumption(activeTasks, updatingTasks, updates, cronTemplates, PROD_DEDICATED),
+          getConsumption(activeTasks, updatingTasks, updates, cronTemplates, NON_PROD_SHARED),
+          getConsumption(activeTasks, updatingTasks, updates, cronTemplates, NON_PROD_DEDICATED));
+    }
+
+    private static Map<IJobKey, Multiset<ITaskConfig>> fetchActiveTasks(
+        String role,
+        StoreProvider storeProvider) {
+
+      Map<IJobKey, Multiset<ITaskConfig>> storedTasks = Maps.newHashMap();
+      for (IScheduledTask task
+          : storeProvider.getTaskStore().fetchTasks(Query.roleScoped(role).active())) {
+
+        storedTasks.computeIfAbsent(Tasks.getJob(task), job -> HashMultiset.create())
+            .add(task.getAssignedTask().getTask());
+      }
+      return storedTasks;
+    }
+
+    private static ResourceBag getConsumption(
+        Map<IJobKey, Multiset<ITaskConfig>> activeTasks,
+        FluentIterable<IAssignedTask> updatingTasks,
+        Map<IJobKey, IJobUpdateInstructions> updatesByKey,
+        Map<IJobKey, IJobConfiguration> cronTemplatesByKey,
+        Predicate<ITaskConfig> filter) {
+
+      ResourceBag nonUpdatingConsumption = addAll(activeTasks.entrySet().stream()
+          .filter(job -> !cronTemplatesByKey.containsKey(job.getKey())
+              && !updatesByKey.containsKey(job.getKey()))
+          .map(job -> fromConfigs(job.getValue(), filter))
+          .collect(Collectors.toList()));
+
+      ResourceBag updatingConsumption = getNonCronConsumption(
+          updatesByKey,
+          updatingTasks
+              .filter(compose(filter, IAssignedTask::getTask))
+              .filter(compose(not(in(cronTemplatesByKey.keySet())), Tasks::getJob)),
+          filter);
+
+      ResourceBag cronConsumption = addAll(Iterables.transform(
+          Iterables.filter(
+              cronTemplatesByKey.values(),
+              compose(filter, IJobConfiguration::getTaskConfig)),
+          config -> scale(config).max(fromConfigs(
+              activeTasks.getOrDefault(config.getKey(), ImmutableMultiset.of()),
+              filter))));
+
+      return nonUpdatingConsumption.add(updatingConsumption).add(cronConsumption);
+    }
+
     private ResourceBag getConsumption(
         FluentIterable<IAssignedTask> tasks,
         Map<IJobKey, IJobUpdateInstructions> updatesByKey,
@@ -476,6 +604,16 @@ public interface QuotaManager {
           .map(QUOTA_RESOURCES).collect(Collectors.toList()));
     }
 
+    private static ResourceBag fromConfigs(
+        Multiset<ITaskConfig> configs,
+        Predicate<ITaskConfig> filter) {
+
+      return addAll(configs.entrySet().stream()
+          .filter(entry -> filter.apply(entry.getElement()))
+          .map(entry -> scale(entry.getElement(), entry.getCount()))
+          .collect(Collectors.toList()));
+    }
+
     private static int getUpdateInstanceCount(Set<IRange> ranges) {
       int instanceCount = 0;
       for (IRange range : ranges) {
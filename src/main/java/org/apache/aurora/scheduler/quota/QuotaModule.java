@@ -13,22 +13,68 @@
  */
 package org.apache.aurora.scheduler.quota;
 
+import java.util.Optional;
+
 import javax.inject.Singleton;
 
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
 import com.google.inject.AbstractModule;
+import com.google.inject.TypeLiteral;
 
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.quota.QuotaManager.QuotaManagerImpl;
+import org.apache.aurora.scheduler.quota.QuotaManager.QuotaManagerImpl.LedgerReconciliationInterval;
 import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.TaskStore;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * Guice module for the quota package.
  */
 public class QuotaModule extends AbstractModule {
 
+  @Parameters(separators = "=")
+  public static class Options {
+    @Parameter(names = "-enable_quota_ledger",
+        description = "Compute quota consumption from a ledger of active tasks that is maintained "
+            + "incrementally as tasks change, rather than by fetching all active tasks of a role "
+            + "on every quota check.",
+        arity = 1)
+    public boolean enableQuotaLedger = false;
+
+    @Parameter(names = "-quota_ledger_reconciliation_interval",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of quota checks served from the quota ledger between checks of the "
+            + "ledger against the task store.")
+    public int quotaLedgerReconciliationInterval = 100;
+  }
+
+  private final Options options;
+
+  public QuotaModule() {
+    this(new Options());
+  }
+
+  public QuotaModule(Options options) {
+    this.options = requireNonNull(options);
+  }
+
   @Override
   protected void configure() {
     requireBinding(Storage.class);
 
+    if (options.enableQuotaLedger) {
+      QuotaLedger ledger = new QuotaLedger();
+      bind(TaskStore.Listener.class).toInstance(ledger);
+      bind(new TypeLiteral<Optional<QuotaLedger>>() { }).toInstance(Optional.of(ledger));
+    } else {
+      bind(new TypeLiteral<Optional<QuotaLedger>>() { }).toInstance(Optional.empty());
+    }
+    bind(Integer.class).annotatedWith(LedgerReconciliationInterval.class)
+        .toInstance(options.quotaLedgerReconciliationInterval);
+
     bind(QuotaManager.class).to(QuotaManagerImpl.class);
     bind(QuotaManagerImpl.class).in(Singleton.class);
   }
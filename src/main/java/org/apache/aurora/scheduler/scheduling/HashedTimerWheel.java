@@ -0,0 +1,151 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A hashed timer wheel, which tracks a large number of timeouts at a fixed tick granularity.
+ * <p>
+ * Timeouts are hashed into a bucket by the tick in which they expire, so adding a timeout takes
+ * constant time and expiring timeouts only visits the buckets of the ticks that have elapsed.
+ * Timeouts further away than a full rotation of the wheel stay in their bucket until the wheel
+ * comes around to their tick.  A timeout never expires before its deadline, but may expire up to
+ * one tick after it.
+ * <p>
+ * The wheel has no thread of its own, it is advanced by calls to {@link #expire(long)}.
+ *
+ * @param <T> Type of the items scheduled on the wheel.
+ */
+class HashedTimerWheel<T> {
+
+  /**
+   * An item scheduled on the wheel.
+   *
+   * @param <T> Type of the scheduled item.
+   */
+  static final class Timeout<T> {
+    private final T item;
+    private final long deadlineMs;
+    private final long deadlineTick;
+
+    private Timeout(T item, long deadlineMs, long deadlineTick) {
+      this.item = item;
+      this.deadlineMs = deadlineMs;
+      this.deadlineTick = deadlineTick;
+    }
+
+    T getItem() {
+      return item;
+    }
+
+    long getDeadlineMs() {
+      return deadlineMs;
+    }
+  }
+
+  private final long tickMs;
+  private final int mask;
+  private final List<List<Timeout<T>>> buckets;
+  private long nextTick;
+  private int size = 0;
+
+  /**
+   * Creates a timer wheel.
+   *
+   * @param tick Granularity of the wheel.
+   * @param wheelSize Number of buckets in the wheel, which must be a power of two.
+   * @param nowMs Current time, in epoch milliseconds.
+   */
+  HashedTimerWheel(Amount<Long, Time> tick, int wheelSize, long nowMs) {
+    requireNonNull(tick);
+    checkArgument(tick.as(Time.MILLISECONDS) > 0, "Tick must be at least one millisecond.");
+    checkArgument(
+        wheelSize > 0 && Integer.bitCount(wheelSize) == 1,
+        "Wheel size must be a power of two.");
+
+    this.tickMs = tick.as(Time.MILLISECONDS);
+    this.mask = wheelSize - 1;
+    this.buckets = Lists.newArrayListWithCapacity(wheelSize);
+    for (int i = 0; i < wheelSize; i++) {
+      buckets.add(new ArrayList<>());
+    }
+    this.nextTick = Math.floorDiv(nowMs, tickMs) + 1;
+  }
+
+  /**
+   * Schedules an item to expire at a deadline.  A deadline that has already passed expires on the
+   * next call to {@link #expire(long)}.
+   *
+   * @param item Item to schedule.
+   * @param deadlineMs Time at which the item expires, in epoch milliseconds.
+   */
+  synchronized void schedule(T item, long deadlineMs) {
+    requireNonNull(item);
+    // Round up, so that the item does not expire before its deadline.
+    long tick = Math.max(-Math.floorDiv(-deadlineMs, tickMs), nextTick);
+    buckets.get((int) (tick & mask)).add(new Timeout<>(item, deadlineMs, tick));
+    size++;
+  }
+
+  /**
+   * Advances the wheel and removes all timeouts whose deadline has passed.
+   *
+   * @param nowMs Current time, in epoch milliseconds.
+   * @return Expired timeouts.
+   */
+  synchronized List<Timeout<T>> expire(long nowMs) {
+    long currentTick = Math.floorDiv(nowMs, tickMs);
+    if (currentTick < nextTick || size == 0) {
+      nextTick = Math.max(nextTick, currentTick + 1);
+      return ImmutableList.of();
+    }
+
+    List<Timeout<T>> expired = new ArrayList<>();
+    // Each bucket only needs to be visited once, no matter how many rotations have elapsed.
+    long lastTick = Math.min(currentTick, nextTick + mask);
+    for (long tick = nextTick; tick <= lastTick; tick++) {
+      buckets.get((int) (tick & mask)).removeIf(timeout -> {
+        if (timeout.deadlineTick <= currentTick) {
+          expired.add(timeout);
+          return true;
+        }
+        return false;
+      });
+    }
+    size -= expired.size();
+    nextTick = currentTick + 1;
+    return expired;
+  }
+
+  /**
+   * Gets the number of timeouts that have not yet expired.
+   *
+   * @return Number of scheduled timeouts.
+   */
+  synchronized int size() {
+    return size;
+  }
+}
@@ -13,6 +13,8 @@
  */
 package org.apache.aurora.scheduler.scheduling;
 
+import java.util.Optional;
+
 import javax.inject.Singleton;
 
 import com.beust.jcommander.Parameter;
@@ -29,6 +31,8 @@ import org.apache.aurora.scheduler.config.types.TimeAmount;
 import org.apache.aurora.scheduler.config.validators.PositiveAmount;
 import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
+import org.apache.aurora.scheduler.filter.AttributeAggregateCache;
+import org.apache.aurora.scheduler.filter.IncrementalAttributeAggregateCache;
 import org.apache.aurora.scheduler.preemptor.BiCache;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator.RescheduleCalculatorImpl;
 
@@ -94,6 +98,31 @@ public class SchedulingModule extends AbstractModule {
         validateValueWith = PositiveNumber.class,
         description = "The maximum number of tasks to pick in a single scheduling attempt.")
     public int maxTasksPerScheduleAttempt = 5;
+
+    @Parameter(names = "-scheduling_multi_group_rounds",
+        description = "Coalesce the scheduling attempts of all task groups that are due into a "
+            + "single round, which matches groups against offers in order of importance.",
+        arity = 1)
+    public boolean schedulingMultiGroupRounds = false;
+
+    @Parameter(names = "-task_group_timer_wheel",
+        description = "Evaluate task groups from a hashed timer wheel that submits all groups that "
+            + "are due to the scheduling batch worker without blocking, rather than scheduling "
+            + "each group individually on the async executor.",
+        arity = 1)
+    public boolean taskGroupTimerWheel = false;
+
+    @Parameter(names = "-task_group_timer_wheel_tick",
+        validateValueWith = PositiveAmount.class,
+        description = "Granularity of the task group timer wheel.")
+    public TimeAmount taskGroupTimerWheelTick = new TimeAmount(10, Time.MILLISECONDS);
+
+    @Parameter(names = "-incremental_attribute_aggregates",
+        description = "Maintain the attribute aggregates of active jobs incrementally from task "
+            + "state changes, rather than computing them from storage on every scheduling and "
+            + "preemption attempt.",
+        arity = 1)
+    public boolean incrementalAttributeAggregates = false;
   }
 
   private final Options options;
@@ -111,7 +140,11 @@ public class SchedulingModule extends AbstractModule {
             options.firstScheduleDelay,
             new TruncatedBinaryBackoff(options.initialSchedulePenalty, options.maxSchedulePenalty),
             RateLimiter.create(options.maxScheduleAttemptsPerSec),
-            options.maxTasksPerScheduleAttempt));
+            options.maxTasksPerScheduleAttempt,
+            options.schedulingMultiGroupRounds,
+            options.taskGroupTimerWheel
+                ? Optional.of(options.taskGroupTimerWheelTick)
+                : Optional.empty()));
 
         bind(RescheduleCalculatorImpl.RescheduleCalculatorSettings.class)
             .toInstance(new RescheduleCalculatorImpl.RescheduleCalculatorSettings(
@@ -133,6 +166,15 @@ public class SchedulingModule extends AbstractModule {
     bind(TaskGroups.TaskGroupBatchWorker.class).in(Singleton.class);
     addSchedulerActiveServiceBinding(binder()).to(TaskGroups.TaskGroupBatchWorker.class);
 
+    if (options.incrementalAttributeAggregates) {
+      bind(AttributeAggregateCache.class).to(IncrementalAttributeAggregateCache.class);
+      bind(IncrementalAttributeAggregateCache.class).in(Singleton.class);
+    } else {
+      bind(AttributeAggregateCache.class).to(AttributeAggregateCache.Uncached.class);
+      bind(AttributeAggregateCache.Uncached.class).in(Singleton.class);
+    }
+    PubsubEventModule.bindSubscriber(binder(), AttributeAggregateCache.class);
+
     install(new PrivateModule() {
       @Override
       protected void configure() {
@@ -15,6 +15,7 @@ package org.apache.aurora.scheduler.scheduling;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
@@ -43,4 +44,15 @@ public interface TaskAssigner {
       TaskGroupKey groupKey,
       Set<IAssignedTask> tasks,
       Map<String, TaskGroupKey> preemptionReservations);
+
+  /**
+   * Prepares to assign tasks of the given groups, ahead of the storage transaction in which
+   * {@link #maybeAssign} is called.
+   *
+   * @param resourceRequests Requests of the task groups about to be assigned.
+   * @return A future that completes when assignment may proceed.
+   */
+  default CompletableFuture<Void> prepare(Map<TaskGroupKey, ResourceRequest> resourceRequests) {
+    return CompletableFuture.completedFuture(null);
+  }
 }
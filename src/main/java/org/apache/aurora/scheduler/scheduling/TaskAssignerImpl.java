@@ -17,6 +17,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
@@ -246,6 +247,11 @@ public class TaskAssignerImpl implements TaskAssigner {
     return matchesByOffer.values();
   }
 
+  @Override
+  public CompletableFuture<Void> prepare(Map<TaskGroupKey, ResourceRequest> resourceRequests) {
+    return offerManager.prepareOrdering(resourceRequests);
+  }
+
   @Timed("assigner_maybe_assign")
   @Override
   public Set<String> maybeAssign(
@@ -15,12 +15,18 @@ package org.apache.aurora.scheduler.scheduling;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
@@ -28,9 +34,12 @@ import javax.inject.Qualifier;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.RateLimiter;
 
@@ -39,6 +48,7 @@ import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.SlidingStats;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.BackoffStrategy;
+import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.scheduler.BatchWorker;
 import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
@@ -47,8 +57,11 @@ import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
 import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static java.lang.annotation.ElementType.FIELD;
 import static java.lang.annotation.ElementType.METHOD;
@@ -69,9 +82,16 @@ import static org.apache.aurora.gen.ScheduleStatus.PENDING;
  * cannot starve a 1 instance job.
  */
 public class TaskGroups implements EventSubscriber {
+  private static final Logger LOG = LoggerFactory.getLogger(TaskGroups.class);
 
   @VisibleForTesting
   static final String SCHEDULE_ATTEMPTS_BLOCKS = "schedule_attempts_blocks";
+  @VisibleForTesting
+  static final String DUE_GROUP_BACKLOG = "task_group_due_backlog";
+  @VisibleForTesting
+  static final String TIMER_WHEEL_SIZE = "task_group_timer_wheel_size";
+
+  private static final int TIMER_WHEEL_BUCKETS = 1024;
 
   private final ConcurrentMap<TaskGroupKey, TaskGroup> groups = Maps.newConcurrentMap();
   private final ScheduledExecutorService executor;
@@ -79,6 +99,7 @@ public class TaskGroups implements EventSubscriber {
   private final TaskScheduler taskScheduler;
   private final RescheduleCalculator rescheduleCalculator;
   private final BatchWorker<Set<String>> batchWorker;
+  private final Clock clock;
 
   // Track the penalties of tasks at the time they were scheduled. This is to provide data that
   // may influence the selection of a different backoff strategy.
@@ -86,6 +107,16 @@ public class TaskGroups implements EventSubscriber {
       new SlidingStats("scheduled_task_penalty", "ms");
   private final AtomicLong scheduleAttemptsBlocks;
 
+  // Scheduling attempts waiting to be evaluated in the next multi-group round.
+  private final List<PendingAttempt> pendingRound = Lists.newArrayList();
+  private final SlidingStats roundGroups = new SlidingStats("schedule_round_groups", "groups");
+
+  // Timer wheel state, only used when task groups are evaluated from a timer wheel.
+  private final Optional<HashedTimerWheel<TaskGroup>> timerWheel;
+  private final Deque<TaskGroup> dueGroups = new ArrayDeque<>();
+  private final AtomicBoolean ticking = new AtomicBoolean(false);
+  private final SlidingStats timerDrift = new SlidingStats("task_group_timer_drift", "ms");
+
   /**
    * Annotation for the max scheduling batch size.
    */
@@ -100,9 +131,10 @@ public class TaskGroups implements EventSubscriber {
     TaskGroupBatchWorker(
         Storage storage,
         StatsProvider statsProvider,
-        @SchedulingMaxBatchSize int maxBatchSize) {
+        @SchedulingMaxBatchSize int maxBatchSize,
+        BatchWorker.Settings settings) {
 
-      super(storage, statsProvider, maxBatchSize);
+      super(storage, statsProvider, maxBatchSize, settings);
     }
 
     @Override
@@ -116,6 +148,8 @@ public class TaskGroups implements EventSubscriber {
     private final BackoffStrategy taskGroupBackoff;
     private final RateLimiter rateLimiter;
     private final int maxTasksPerSchedule;
+    private final boolean multiGroupRounds;
+    private final Optional<Amount<Long, Time>> timerWheelTick;
 
     public TaskGroupsSettings(
         Amount<Long, Time> firstScheduleDelay,
@@ -123,12 +157,54 @@ public class TaskGroups implements EventSubscriber {
         RateLimiter rateLimiter,
         int maxTasksPerSchedule) {
 
+      this(firstScheduleDelay, taskGroupBackoff, rateLimiter, maxTasksPerSchedule, false);
+    }
+
+    public TaskGroupsSettings(
+        Amount<Long, Time> firstScheduleDelay,
+        BackoffStrategy taskGroupBackoff,
+        RateLimiter rateLimiter,
+        int maxTasksPerSchedule,
+        boolean multiGroupRounds) {
+
+      this(
+          firstScheduleDelay,
+          taskGroupBackoff,
+          rateLimiter,
+          maxTasksPerSchedule,
+          multiGroupRounds,
+          Optional.empty());
+    }
+
+    /**
+     * Creates task group settings.
+     *
+     * @param firstScheduleDelay Delay before the first attempt to schedule a task group.
+     * @param taskGroupBackoff Backoff applied to a task group after a failed attempt.
+     * @param rateLimiter Limits the rate of scheduling attempts.
+     * @param maxTasksPerSchedule Maximum number of tasks of a group to attempt at a time.
+     * @param multiGroupRounds Whether the attempts of all task groups that are due are coalesced
+     *                         into a single scheduling round, rather than evaluated one group at a
+     *                         time.
+     * @param timerWheelTick If present, task groups are evaluated from a hashed timer wheel with
+     *                       this granularity rather than scheduled individually on the executor.
+     */
+    public TaskGroupsSettings(
+        Amount<Long, Time> firstScheduleDelay,
+        BackoffStrategy taskGroupBackoff,
+        RateLimiter rateLimiter,
+        int maxTasksPerSchedule,
+        boolean multiGroupRounds,
+        Optional<Amount<Long, Time>> timerWheelTick) {
+
       this.firstScheduleDelay = requireNonNull(firstScheduleDelay);
       Preconditions.checkArgument(firstScheduleDelay.getValue() > 0);
       this.taskGroupBackoff = requireNonNull(taskGroupBackoff);
       this.rateLimiter = requireNonNull(rateLimiter);
       this.maxTasksPerSchedule = maxTasksPerSchedule;
       Preconditions.checkArgument(maxTasksPerSchedule > 0);
+      this.multiGroupRounds = multiGroupRounds;
+      this.timerWheelTick = requireNonNull(timerWheelTick);
     }
   }
 
@@ -140,14 +216,22 @@ public class TaskGroups implements EventSubscriber {
       TaskScheduler taskScheduler,
       RescheduleCalculator rescheduleCalculator,
       TaskGroupBatchWorker batchWorker,
-      StatsProvider statsProvider) {
+      StatsProvider statsProvider,
+      Clock clock) {
 
     this.executor = requireNonNull(executor);
     this.settings = requireNonNull(settings);
     this.taskScheduler = requireNonNull(taskScheduler);
     this.rescheduleCalculator = requireNonNull(rescheduleCalculator);
     this.batchWorker = requireNonNull(batchWorker);
+    this.clock = requireNonNull(clock);
     this.scheduleAttemptsBlocks = statsProvider.makeCounter(SCHEDULE_ATTEMPTS_BLOCKS);
+    this.timerWheel = settings.timerWheelTick.map(
+        tick -> new HashedTimerWheel<TaskGroup>(tick, TIMER_WHEEL_BUCKETS, clock.nowMillis()));
+    if (timerWheel.isPresent()) {
+      statsProvider.makeGauge(DUE_GROUP_BACKLOG, this::getDueGroupBacklog);
+      statsProvider.makeGauge(TIMER_WHEEL_SIZE, timerWheel.get()::size);
+    }
   }
 
   private synchronized void evaluateGroupLater(Runnable evaluate, TaskGroup group) {
@@ -161,6 +245,12 @@ public class TaskGroups implements EventSubscriber {
   }
 
   private void startGroup(final TaskGroup group) {
+    if (timerWheel.isPresent()) {
+      timerWheel.get().schedule(group, clock.nowMillis() + group.getPenaltyMs());
+      startTicking();
+      return;
+    }
+
     Runnable monitor = new Runnable() {
       @Override
       public void run() {
@@ -170,8 +260,11 @@ public class TaskGroups implements EventSubscriber {
           if (settings.rateLimiter.acquire() > 0) {
             scheduleAttemptsBlocks.incrementAndGet();
           }
-          CompletableFuture<Set<String>> result = batchWorker.execute(storeProvider ->
-              taskScheduler.schedule(storeProvider, taskIds));
+          CompletableFuture<Set<String>> result = prepare(ImmutableSet.of(group.getKey()))
+              .thenCompose(prepared -> settings.multiGroupRounds
+                  ? joinRound(taskIds)
+                  : batchWorker.execute(storeProvider ->
+                      taskScheduler.schedule(storeProvider, taskIds)));
 
           Set<String> scheduled = null;
           try {
@@ -181,15 +274,7 @@ public class TaskGroups implements EventSubscriber {
             throw new RuntimeException(e);
           }
 
-          scheduledTaskPenalties.accumulate(group.getPenaltyMs());
-          if (scheduled.isEmpty()) {
-            penaltyMs = settings.taskGroupBackoff.calculateBackoffMs(group.getPenaltyMs());
-          } else {
-            group.remove(scheduled);
-            if (group.hasMore()) {
-              penaltyMs = settings.firstScheduleDelay.as(Time.MILLISECONDS);
-            }
-          }
+          penaltyMs = getNextPenaltyMs(group, scheduled);
         }
 
         group.setPenaltyMs(penaltyMs);
@@ -199,6 +284,204 @@ public class TaskGroups implements EventSubscriber {
     evaluateGroupLater(monitor, group);
   }
 
+  private long getNextPenaltyMs(TaskGroup group, Set<String> scheduled) {
+    scheduledTaskPenalties.accumulate(group.getPenaltyMs());
+    if (scheduled.isEmpty()) {
+      return settings.taskGroupBackoff.calculateBackoffMs(group.getPenaltyMs());
+    }
+
+    group.remove(scheduled);
+    return group.hasMore() ? settings.firstScheduleDelay.as(Time.MILLISECONDS) : 0;
+  }
+
+  private void startTicking() {
+    if (ticking.compareAndSet(false, true)) {
+      executor.schedule(
+          this::tick,
+          settings.timerWheelTick.get().as(Time.MILLISECONDS),
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Advances the timer wheel and submits the attempts of all task groups that are due to the batch
+   * worker, which coalesces them into batches.  The scheduler is prepared for all of these groups
+   * at once before their attempts are submitted.  Groups that are due while the scheduling rate
+   * limit is exhausted remain in the backlog until a later tick, rather than blocking the executor.
+   */
+  private void tick() {
+    try {
+      long nowMs = clock.nowMillis();
+      List<HashedTimerWheel.Timeout<TaskGroup>> expired = timerWheel.get().expire(nowMs);
+      synchronized (dueGroups) {
+        for (HashedTimerWheel.Timeout<TaskGroup> timeout : expired) {
+          timerDrift.accumulate(nowMs - timeout.getDeadlineMs());
+          dueGroups.addLast(timeout.getItem());
+        }
+      }
+
+      List<Map.Entry<TaskGroup, Set<String>>> attempts = Lists.newArrayList();
+      while (true) {
+        TaskGroup group;
+        Set<String> taskIds;
+        synchronized (dueGroups) {
+          group = dueGroups.peekFirst();
+          if (group == null) {
+            break;
+          }
+          taskIds = group.peek(settings.maxTasksPerSchedule);
+          if (!taskIds.isEmpty() && !settings.rateLimiter.tryAcquire()) {
+            scheduleAttemptsBlocks.incrementAndGet();
+            break;
+          }
+          dueGroups.removeFirst();
+        }
+        attempts.add(Maps.immutableEntry(group, taskIds));
+      }
+      attemptAll(attempts);
+    } finally {
+      ticking.set(false);
+      if (timerWheel.get().size() > 0 || getDueGroupBacklog() > 0) {
+        startTicking();
+      }
+    }
+  }
+
+  /**
+   * Prepares the scheduler for all groups due in a tick at once, and then attempts them.
+   */
+  private void attemptAll(List<Map.Entry<TaskGroup, Set<String>>> attempts) {
+    ImmutableSet.Builder<TaskGroupKey> groupKeys = ImmutableSet.builder();
+    attempts.stream()
+        .filter(attempt -> !attempt.getValue().isEmpty())
+        .forEach(attempt -> groupKeys.add(attempt.getKey().getKey()));
+    Set<TaskGroupKey> keys = groupKeys.build();
+
+    CompletableFuture<Void> prepared = keys.isEmpty()
+        ? CompletableFuture.completedFuture(null)
+        : prepare(keys);
+    prepared.thenRun(() ->
+        attempts.forEach(attempt -> attempt(attempt.getKey(), attempt.getValue())));
+  }
+
+  private CompletableFuture<Void> prepare(Set<TaskGroupKey> groupKeys) {
+    // Scheduling proceeds whether or not the scheduler could prepare for it.
+    return taskScheduler.prepare(groupKeys).handle((ignored, error) -> {
+      if (error != null) {
+        LOG.warn("Failed to prepare scheduling of " + groupKeys, error);
+      }
+      return null;
+    });
+  }
+
+  private void attempt(TaskGroup group, Set<String> taskIds) {
+    if (taskIds.isEmpty()) {
+      group.setPenaltyMs(0);
+      rearmGroup(group);
+      return;
+    }
+
+    CompletableFuture<Set<String>> result = settings.multiGroupRounds
+        ? joinRound(taskIds)
+        : batchWorker.execute(storeProvider -> taskScheduler.schedule(storeProvider, taskIds));
+    result.whenComplete((scheduled, error) -> {
+      if (error == null) {
+        group.setPenaltyMs(getNextPenaltyMs(group, scheduled));
+      } else {
+        LOG.error("Failed to schedule tasks " + taskIds, error);
+        group.setPenaltyMs(settings.taskGroupBackoff.calculateBackoffMs(group.getPenaltyMs()));
+      }
+      rearmGroup(group);
+    });
+  }
+
+  private void rearmGroup(TaskGroup group) {
+    // Atomically re-arm or remove the group, so that a task can not be added to a group that is
+    // being removed.  This does not need the intrinsic lock, since tasks are added with compute().
+    groups.computeIfPresent(group.getKey(), (key, existing) -> {
+      if (existing != group) {
+        return existing;
+      }
+      if (group.hasMore()) {
+        timerWheel.get().schedule(group, clock.nowMillis() + group.getPenaltyMs());
+        return group;
+      }
+      return null;
+    });
+    startTicking();
+  }
+
+  private int getDueGroupBacklog() {
+    synchronized (dueGroups) {
+      return dueGroups.size();
+    }
+  }
+
+  private static final class PendingAttempt {
+    private final Set<String> taskIds;
+    private final CompletableFuture<Set<String>> result = new CompletableFuture<>();
+
+    PendingAttempt(Set<String> taskIds) {
+      this.taskIds = taskIds;
+    }
+  }
+
+  /**
+   * Adds a scheduling attempt to the next multi-group round, starting a round if none is pending.
+   * Attempts that arrive before the round is evaluated join it, so that all task groups that are
+   * due are matched against offers in a single pass.
+   */
+  private CompletableFuture<Set<String>> joinRound(Set<String> taskIds) {
+    PendingAttempt attempt = new PendingAttempt(taskIds);
+    boolean startRound;
+    synchronized (pendingRound) {
+      startRound = pendingRound.isEmpty();
+      pendingRound.add(attempt);
+    }
+    if (startRound) {
+      try {
+        batchWorker.execute(this::scheduleRound);
+      } catch (RuntimeException e) {
+        // The round will never be evaluated, so fail its attempts rather than leaving them (and
+        // every attempt joining after them) waiting forever.
+        failRound(e);
+      }
+    }
+    return attempt.result;
+  }
+
+  private void failRound(Throwable error) {
+    List<PendingAttempt> attempts;
+    synchronized (pendingRound) {
+      attempts = ImmutableList.copyOf(pendingRound);
+      pendingRound.clear();
+    }
+    for (PendingAttempt attempt : attempts) {
+      attempt.result.completeExceptionally(error);
+    }
+  }
+
+  private Set<String> scheduleRound(MutableStoreProvider storeProvider) {
+    List<PendingAttempt> attempts;
+    synchronized (pendingRound) {
+      attempts = ImmutableList.copyOf(pendingRound);
+      pendingRound.clear();
+    }
+
+    Set<String> scheduled = ImmutableSet.of();
+    try {
+      ImmutableSet.Builder<String> taskIds = ImmutableSet.builder();
+      attempts.forEach(attempt -> taskIds.addAll(attempt.taskIds));
+      scheduled = taskScheduler.schedule(storeProvider, taskIds.build());
+      roundGroups.accumulate(attempts.size());
+      return scheduled;
+    } finally {
+      for (PendingAttempt attempt : attempts) {
+        attempt.result.complete(ImmutableSet.copyOf(Sets.intersection(attempt.taskIds, scheduled)));
+      }
+    }
+  }
+
   /**
    * Informs the task groups of a task state change.
    * <p>
@@ -212,9 +495,16 @@ public class TaskGroups implements EventSubscriber {
     if (stateChange.getNewState() == PENDING) {
       IScheduledTask task = stateChange.getTask();
       TaskGroupKey key = TaskGroupKey.from(task.getAssignedTask().getTask());
-      TaskGroup newGroup = new TaskGroup(key, Tasks.id(task));
-      TaskGroup existing = groups.putIfAbsent(key, newGroup);
-      if (existing == null) {
+      String taskId = Tasks.id(task);
+      TaskGroup newGroup = new TaskGroup(key, taskId);
+      TaskGroup group = groups.compute(key, (k, existing) -> {
+        if (existing == null) {
+          return newGroup;
+        }
+        existing.offer(taskId);
+        return existing;
+      });
+      if (group == newGroup) {
         long penaltyMs;
         if (stateChange.isTransition()) {
           penaltyMs = settings.firstScheduleDelay.as(Time.MILLISECONDS);
@@ -223,8 +513,6 @@ public class TaskGroups implements EventSubscriber {
         }
         newGroup.setPenaltyMs(penaltyMs);
         startGroup(newGroup);
-      } else {
-        existing.offer(Tasks.id(task));
       }
     }
   }
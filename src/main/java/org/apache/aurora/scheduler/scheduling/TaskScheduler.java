@@ -14,7 +14,9 @@
 package org.apache.aurora.scheduler.scheduling;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 
@@ -32,4 +34,16 @@ public interface TaskScheduler extends EventSubscriber {
    *         task ID was not present in the result.
    */
   Set<String> schedule(MutableStoreProvider storeProvider, Set<String> taskIds);
+
+  /**
+   * Prepares to schedule tasks of the given groups.  This is called before the storage transaction
+   * in which the tasks are scheduled, so that slow work such as consulting an external service is
+   * not performed while holding the storage lock.
+   *
+   * @param groupKeys Groups of the tasks about to be scheduled.
+   * @return A future that completes when scheduling may proceed.
+   */
+  default CompletableFuture<Void> prepare(Set<TaskGroupKey> groupKeys) {
+    return CompletableFuture.completedFuture(null);
+  }
 }
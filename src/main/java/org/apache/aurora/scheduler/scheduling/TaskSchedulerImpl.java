@@ -15,9 +15,13 @@ package org.apache.aurora.scheduler.scheduling;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -28,11 +32,13 @@ import javax.inject.Qualifier;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.eventbus.Subscribe;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
+import org.apache.aurora.common.stats.SlidingStats;
 import org.apache.aurora.common.stats.Stats;
 import org.apache.aurora.scheduler.TierManager;
 import org.apache.aurora.scheduler.base.Query;
@@ -40,12 +46,14 @@ import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.filter.AttributeAggregate;
+import org.apache.aurora.scheduler.filter.AttributeAggregateCache;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.preemptor.BiCache;
 import org.apache.aurora.scheduler.preemptor.Preemptor;
 import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 import org.slf4j.Logger;
@@ -82,10 +90,14 @@ public class TaskSchedulerImpl implements TaskScheduler {
   private final ExecutorSettings executorSettings;
   private final TierManager tierManager;
   private final BiCache<String, TaskGroupKey> reservations;
+  private final AttributeAggregateCache attributeAggregates;
+  private final Comparator<TaskGroupKey> groupOrder;
 
   private final AtomicLong attemptsFired = Stats.exportLong("schedule_attempts_fired");
   private final AtomicLong attemptsFailed = Stats.exportLong("schedule_attempts_failed");
   private final AtomicLong attemptsNoMatch = Stats.exportLong("schedule_attempts_no_match");
+  private final SlidingStats groupsPerAttempt =
+      new SlidingStats("schedule_attempt_groups", "groups");
 
   @Inject
   TaskSchedulerImpl(
@@ -93,13 +105,18 @@ public class TaskSchedulerImpl implements TaskScheduler {
       Preemptor preemptor,
       ExecutorSettings executorSettings,
       TierManager tierManager,
-      BiCache<String, TaskGroupKey> reservations) {
+      BiCache<String, TaskGroupKey> reservations,
+      AttributeAggregateCache attributeAggregates) {
 
     this.assigner = requireNonNull(assigner);
     this.preemptor = requireNonNull(preemptor);
     this.executorSettings = requireNonNull(executorSettings);
     this.tierManager = requireNonNull(tierManager);
     this.reservations = requireNonNull(reservations);
+    this.attributeAggregates = requireNonNull(attributeAggregates);
+    this.groupOrder = Comparator
+        .comparing((TaskGroupKey key) -> tierManager.getTier(key.getTask()).isPreemptible())
+        .thenComparing(key -> key.getTask().getPriority(), Comparator.reverseOrder());
   }
 
   @Timed("task_schedule_attempt")
@@ -117,6 +134,28 @@ public class TaskSchedulerImpl implements TaskScheduler {
     }
   }
 
+  @Override
+  public CompletableFuture<Void> prepare(Set<TaskGroupKey> groupKeys) {
+    // The job state is only known within the storage transaction, so the requests prepared here
+    // carry an empty attribute aggregate.
+    Map<TaskGroupKey, ResourceRequest> requests = Maps.newHashMap();
+    for (TaskGroupKey groupKey : groupKeys) {
+      requests.put(
+          groupKey,
+          ResourceRequest.fromTask(
+              groupKey.getTask(),
+              executorSettings,
+              AttributeAggregate.empty(),
+              tierManager));
+    }
+    try {
+      return assigner.prepare(requests);
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to prepare scheduling of " + groupKeys, e);
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
   private Map<String, IAssignedTask> fetchTasks(StoreProvider store, Set<String> ids) {
     Map<String, IAssignedTask> tasks = store.getTaskStore()
         .fetchTasks(Query.taskScoped(ids).byStatus(PENDING))
@@ -144,31 +183,51 @@ public class TaskSchedulerImpl implements TaskScheduler {
       return ids;
     }
 
-    // Prepare scheduling context for the tasks
-    ITaskConfig task = Iterables.getOnlyElement(tasksById.values().stream()
-        .map(IAssignedTask::getTask)
-        .collect(Collectors.toSet()));
-    AttributeAggregate aggregate = AttributeAggregate.getJobActiveState(store, task.getJob());
-
-    // Attempt to schedule using available resources.
-    Set<String> launched = assigner.maybeAssign(
-        store,
-        ResourceRequest.fromTask(task, executorSettings, aggregate, tierManager),
-        TaskGroupKey.from(task),
-        ImmutableSet.copyOf(tasksById.values()),
-        reservations.asMap());
-
-    attemptsFired.addAndGet(tasksById.size());
-
-    // Fall back to preemption for tasks not scheduled above.
-    Set<String> unassigned = Sets.difference(tasksById.keySet(), launched);
-    unassigned.forEach(taskId -> {
-      // TODO(maxim): Now that preemption slots are searched asynchronously, consider
-      // retrying a launch attempt within the current scheduling round IFF a reservation is
-      // available.
-      maybePreemptFor(tasksById.get(taskId), aggregate, store);
-    });
-    attemptsNoMatch.addAndGet(unassigned.size());
+    // Tasks of several groups may be scheduled in a single round.  Groups are attempted in order
+    // of importance, so that scarce offers are matched against the most important groups first.
+    Map<TaskGroupKey, Set<IAssignedTask>> tasksByGroup = new LinkedHashMap<>();
+    tasksById.values().forEach(task -> tasksByGroup
+        .computeIfAbsent(TaskGroupKey.from(task.getTask()), key -> Sets.newHashSet())
+        .add(task));
+    List<TaskGroupKey> groups = Lists.newArrayList(tasksByGroup.keySet());
+    groups.sort(groupOrder);
+    groupsPerAttempt.accumulate(groups.size());
+
+    // Groups of the same job share an attribute aggregate, which is computed once per round and
+    // updated as tasks of the job are assigned.
+    Map<IJobKey, AttributeAggregate> aggregates = Maps.newHashMap();
+    Map<String, TaskGroupKey> preemptionReservations = reservations.asMap();
+    Set<String> launched = Sets.newHashSet();
+    for (TaskGroupKey groupKey : groups) {
+      ITaskConfig task = groupKey.getTask();
+      Set<IAssignedTask> groupTasks = tasksByGroup.get(groupKey);
+      AttributeAggregate aggregate = aggregates.computeIfAbsent(
+          task.getJob(),
+          job -> attributeAggregates.getJobActiveState(store, job));
+
+      // Attempt to schedule using available resources.
+      Set<String> groupLaunched = assigner.maybeAssign(
+          store,
+          ResourceRequest.fromTask(task, executorSettings, aggregate, tierManager),
+          groupKey,
+          ImmutableSet.copyOf(groupTasks),
+          preemptionReservations);
+      launched.addAll(groupLaunched);
+      attributeAggregates.tasksAssigned(store, groupLaunched);
+
+      attemptsFired.addAndGet(groupTasks.size());
+
+      // Fall back to preemption for tasks not scheduled above.
+      for (IAssignedTask unassigned : groupTasks) {
+        if (!groupLaunched.contains(unassigned.getTaskId())) {
+          // TODO(maxim): Now that preemption slots are searched asynchronously, consider
+          // retrying a launch attempt within the current scheduling round IFF a reservation is
+          // available.
+          maybePreemptFor(unassigned, aggregate, store);
+          attemptsNoMatch.incrementAndGet();
+        }
+      }
+    }
 
     // Return all successfully launched tasks as well as those weren't tried (not in PENDING).
     return Sets.union(launched, Sets.difference(ids, tasksById.keySet()));
@@ -24,6 +24,7 @@ import com.google.common.eventbus.Subscribe;
 import org.apache.aurora.common.stats.SlidingStats;
 import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.scheduler.BatchWorker;
+import org.apache.aurora.scheduler.BatchWorker.Priority;
 import org.apache.aurora.scheduler.SchedulerModule.TaskEventBatchWorker;
 import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
 import org.apache.aurora.scheduler.base.Tasks;
@@ -75,7 +76,7 @@ class TaskThrottler implements EventSubscriber {
       long delayMs = Math.max(0, readyAtMs - clock.nowMillis());
       throttleStats.accumulate(delayMs);
       executor.schedule((Runnable) () ->
-              batchWorker.execute(storeProvider -> {
+              batchWorker.execute(Priority.HIGH, storeProvider -> {
                 stateManager.changeState(
                     storeProvider,
                     stateChange.getTaskId(),
@@ -0,0 +1,601 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.sla;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Range;
+import com.google.common.collect.Sets;
+import com.google.common.collect.TreeMultiset;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.common.collections.Pair;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCategory;
+import org.apache.aurora.scheduler.sla.SlaAlgorithm.AggregatePlatformUptime;
+import org.apache.aurora.scheduler.sla.SlaAlgorithm.AggregatePlatformUptime.SlaState;
+import org.apache.aurora.scheduler.sla.SlaAlgorithm.AlgorithmType;
+import org.apache.aurora.scheduler.sla.SlaAlgorithm.JobUptime;
+import org.apache.aurora.scheduler.sla.SlaAlgorithm.MedianAlgorithm;
+import org.apache.aurora.scheduler.sla.SlaGroup.GroupType;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.aurora.scheduler.storage.entities.ITaskEvent;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+
+/**
+ * Calculates SLA metrics incrementally from task state changes, rather than from the full task
+ * history on every refresh.
+ * <p>
+ * The state needed by each {@link SlaAlgorithm} is maintained per named group as tasks change:
+ * <ul>
+ *   <li>job uptime: the sorted times at which running tasks started running;</li>
+ *   <li>median times to status: a time-ordered buffer of wait times of recently reached
+ *   statuses;</li>
+ *   <li>platform uptime: the number of instances in each {@link SlaState}, and a buffer of
+ *   recent state transitions of each instance.</li>
+ * </ul>
+ * Buffers only retain entries within the last sampled time frame, so a refresh is proportional to
+ * the number of groups and recent changes rather than the number of tasks.
+ * <p>
+ * The state is loaded from storage on the first calculation, and kept up to date by events
+ * afterwards.  Task events are applied idempotently, by tracking the number of events applied for
+ * each task.
+ */
+class IncrementalSlaMetrics implements EventSubscriber {
+
+  private static final GroupType[] GROUP_TYPES = GroupType.values();
+  private static final long NOT_RUNNING = -1;
+
+  private final Storage storage;
+  private final Map<String, TaskRecord> tasks = Maps.newHashMap();
+  private final Map<String, String> groupNames = Maps.newHashMap();
+  private final Metrics prodMetrics = new Metrics();
+  private final Metrics nonProdMetrics = new Metrics();
+
+  private boolean loaded = false;
+  // Task events before this time are outside of any future time frame, and need not be buffered.
+  private long horizon = Long.MIN_VALUE;
+
+  @Inject
+  IncrementalSlaMetrics(Storage storage) {
+    this.storage = requireNonNull(storage);
+  }
+
+  @Subscribe
+  public synchronized void taskChangedState(TaskStateChange change) {
+    if (loaded) {
+      TaskRecord record = apply(change.getTask());
+      if (record != null) {
+        record.metrics.setRunningSince(record, runningSince(change.getTask()));
+      }
+    }
+  }
+
+  @Subscribe
+  public synchronized void tasksDeleted(TasksDeleted deleted) {
+    if (loaded) {
+      for (IScheduledTask task : deleted.getTasks()) {
+        TaskRecord record = tasks.remove(Tasks.id(task));
+        if (record != null) {
+          record.metrics.removeTask(record);
+        }
+      }
+    }
+  }
+
+  /**
+   * Calculates metrics over a time frame.  Time frames of subsequent calculations are expected
+   * to start no earlier than the previous time frame.
+   *
+   * @param prodCategories Metric categories to calculate for production tasks.
+   * @param nonProdCategories Metric categories to calculate for non-production tasks.
+   * @param timeFrame Time frame to calculate metrics over.
+   * @param sink Receives metric names and values.
+   */
+  synchronized void calculate(
+      Set<MetricCategory> prodCategories,
+      Set<MetricCategory> nonProdCategories,
+      Range<Long> timeFrame,
+      BiConsumer<String, Number> sink) {
+
+    horizon = Math.max(horizon, timeFrame.lowerEndpoint());
+    if (!loaded) {
+      load();
+      loaded = true;
+    }
+
+    prodMetrics.calculate(
+        prodCategories,
+        timeFrame,
+        MetricCalculator.NAME_QUALIFIER_PROD,
+        sink);
+    nonProdMetrics.calculate(
+        nonProdCategories,
+        timeFrame,
+        MetricCalculator.NAME_QUALIFIER_NON_PROD,
+        sink);
+  }
+
+  private void load() {
+    // Events of all tasks are applied in time order, so that the histories of tasks of the same
+    // instance are combined as they are in AggregatePlatformUptime.
+    List<Pair<TaskRecord, ITaskEvent>> events = Lists.newArrayList();
+    for (IScheduledTask task : Storage.Util.fetchTasks(storage, Query.unscoped())) {
+      TaskRecord record = addTask(task);
+      if (record != null) {
+        for (ITaskEvent event : task.getTaskEvents()) {
+          events.add(Pair.of(record, event));
+        }
+        record.appliedEvents = task.getTaskEvents().size();
+        record.status = task.getStatus();
+        record.metrics.setRunningSince(record, runningSince(task));
+      }
+    }
+
+    events.sort(Comparator.comparingLong(event -> event.getSecond().getTimestamp()));
+    for (Pair<TaskRecord, ITaskEvent> event : events) {
+      applyEvent(event.getFirst(), event.getSecond());
+    }
+  }
+
+  private TaskRecord addTask(IScheduledTask task) {
+    ITaskConfig config = Tasks.getConfig(task);
+    if (!config.isIsService()) {
+      return null;
+    }
+
+    String[] groups = new String[GROUP_TYPES.length];
+    for (GroupType type : GROUP_TYPES) {
+      String name = Iterables.getOnlyElement(
+          type.getSlaGroup().createNamedGroups(ImmutableList.of(task)).keySet(),
+          null);
+      groups[type.ordinal()] = name == null ? null : groupNames.computeIfAbsent(name, n -> n);
+    }
+
+    Metrics metrics = config.isProduction() ? prodMetrics : nonProdMetrics;
+    TaskRecord record = new TaskRecord(
+        metrics,
+        groups,
+        metrics.addInstanceTask(
+            Pair.of(config.getJob(), task.getAssignedTask().getInstanceId()),
+            groups));
+    metrics.addTask(record);
+    tasks.put(Tasks.id(task), record);
+    return record;
+  }
+
+  private TaskRecord apply(IScheduledTask task) {
+    TaskRecord record = tasks.get(Tasks.id(task));
+    if (record == null) {
+      record = addTask(task);
+      if (record == null) {
+        return null;
+      }
+    }
+
+    List<ITaskEvent> events = task.getTaskEvents();
+    for (int i = record.appliedEvents; i < events.size(); i++) {
+      applyEvent(record, events.get(i));
+    }
+    record.appliedEvents = Math.max(record.appliedEvents, events.size());
+    record.status = task.getStatus();
+    return record;
+  }
+
+  private void applyEvent(TaskRecord record, ITaskEvent event) {
+    ScheduleStatus status = event.getStatus();
+    long timestamp = event.getTimestamp();
+    if (status == PENDING) {
+      record.pendingTimestamp = timestamp;
+    } else if (record.pendingTimestamp != 0 && timestamp >= horizon) {
+      Deque<Sample> samples = record.metrics.samples.get(status);
+      if (samples != null) {
+        samples.addLast(new Sample(record, timestamp, timestamp - record.pendingTimestamp));
+      }
+    }
+
+    Instance instance = record.instance;
+    SlaState next = AggregatePlatformUptime.nextState(instance.state, status);
+    if (next != instance.state) {
+      if (timestamp >= horizon) {
+        instance.transitions.addLast(new Transition(timestamp, instance.state, next));
+        record.metrics.changedInstances.add(instance);
+      }
+      record.metrics.setInstanceState(instance, next);
+    }
+  }
+
+  private static long runningSince(IScheduledTask task) {
+    return task.getStatus() == RUNNING ? Tasks.getLatestEvent(task).getTimestamp() : NOT_RUNNING;
+  }
+
+  @VisibleForTesting
+  synchronized int getBufferedEvents() {
+    return prodMetrics.getBufferedEvents() + nonProdMetrics.getBufferedEvents();
+  }
+
+  private static final class TaskRecord {
+    private final Metrics metrics;
+    // Names of the groups of the task, indexed by GroupType ordinal.
+    private final String[] groups;
+    private final Instance instance;
+    private int appliedEvents = 0;
+    private ScheduleStatus status = ScheduleStatus.INIT;
+    private long pendingTimestamp = 0;
+    private long runningSince = NOT_RUNNING;
+    private boolean deleted = false;
+
+    TaskRecord(Metrics metrics, String[] groups, Instance instance) {
+      this.metrics = metrics;
+      this.groups = groups;
+      this.instance = instance;
+    }
+  }
+
+  private static final class Instance {
+    private final Pair<IJobKey, Integer> key;
+    private final String[] groups;
+    private final Deque<Transition> transitions = new ArrayDeque<>();
+    private SlaState state = SlaState.REMOVED;
+    private int tasks = 0;
+
+    Instance(Pair<IJobKey, Integer> key, String[] groups) {
+      this.key = key;
+      this.groups = groups;
+    }
+
+    SlaState getStateAt(long timestamp) {
+      Transition first = transitions.peekFirst();
+      return first == null || first.timestamp >= timestamp ? state : first.from;
+    }
+  }
+
+  private static final class Transition {
+    private final long timestamp;
+    private final SlaState from;
+    private final SlaState to;
+
+    Transition(long timestamp, SlaState from, SlaState to) {
+      this.timestamp = timestamp;
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+  private static final class Sample {
+    private final TaskRecord task;
+    private final long timestamp;
+    private final long waitTime;
+
+    Sample(TaskRecord task, long timestamp, long waitTime) {
+      this.task = task;
+      this.timestamp = timestamp;
+      this.waitTime = waitTime;
+    }
+  }
+
+  /**
+   * Metric state of either production or non-production tasks.
+   */
+  private static final class Metrics {
+    private final Map<GroupType, Multiset<String>> groupTasks = new EnumMap<>(GroupType.class);
+    private final Map<String, TreeMultiset<Long>> runningSince = Maps.newHashMap();
+    private final Map<String, Map<Float, Number>> runningSincePercentiles = Maps.newHashMap();
+    private final Map<ScheduleStatus, Deque<Sample>> samples = new EnumMap<>(ScheduleStatus.class);
+    private final Map<Pair<IJobKey, Integer>, Instance> instances = Maps.newHashMap();
+    private final Map<String, int[]> instanceStates = Maps.newHashMap();
+    private final Set<Instance> changedInstances = Sets.newHashSet();
+
+    Metrics() {
+      for (GroupType type : GROUP_TYPES) {
+        groupTasks.put(type, HashMultiset.create());
+      }
+      for (AlgorithmType type : AlgorithmType.values()) {
+        if (type.getAlgorithm() instanceof MedianAlgorithm) {
+          samples.put(((MedianAlgorithm) type.getAlgorithm()).getStatus(), new ArrayDeque<>());
+        }
+      }
+    }
+
+    void addTask(TaskRecord record) {
+      for (GroupType type : GROUP_TYPES) {
+        String group = record.groups[type.ordinal()];
+        if (group != null) {
+          groupTasks.get(type).add(group);
+        }
+      }
+    }
+
+    void removeTask(TaskRecord record) {
+      record.deleted = true;
+      setRunningSince(record, NOT_RUNNING);
+      for (GroupType type : GROUP_TYPES) {
+        String group = record.groups[type.ordinal()];
+        if (group != null) {
+          groupTasks.get(type).remove(group);
+        }
+      }
+
+      Instance instance = record.instance;
+      instance.tasks--;
+      if (instance.tasks == 0) {
+        updateInstanceStates(instance, instance.state, -1);
+        instances.remove(instance.key);
+        changedInstances.remove(instance);
+      }
+    }
+
+    Instance addInstanceTask(Pair<IJobKey, Integer> key, String[] groups) {
+      Instance instance = instances.get(key);
+      if (instance == null) {
+        instance = new Instance(key, groups);
+        instances.put(key, instance);
+        updateInstanceStates(instance, instance.state, 1);
+      }
+      instance.tasks++;
+      return instance;
+    }
+
+    void setInstanceState(Instance instance, SlaState state) {
+      updateInstanceStates(instance, instance.state, -1);
+      instance.state = state;
+      updateInstanceStates(instance, instance.state, 1);
+    }
+
+    private void updateInstanceStates(Instance instance, SlaState state, int delta) {
+      for (String group : instance.groups) {
+        if (group != null) {
+          int[] counts =
+              instanceStates.computeIfAbsent(group, g -> new int[SlaState.values().length]);
+          counts[state.ordinal()] += delta;
+          if (delta < 0 && counts[SlaState.REMOVED.ordinal()] == 0
+              && counts[SlaState.DOWN.ordinal()] == 0
+              && counts[SlaState.UP.ordinal()] == 0) {
+
+            instanceStates.remove(group);
+          }
+        }
+      }
+    }
+
+    void setRunningSince(TaskRecord record, long timestamp) {
+      if (timestamp == record.runningSince) {
+        return;
+      }
+
+      for (String group : record.groups) {
+        if (group != null) {
+          runningSincePercentiles.remove(group);
+          if (record.runningSince != NOT_RUNNING) {
+            TreeMultiset<Long> running = runningSince.get(group);
+            running.remove(record.runningSince);
+            if (running.isEmpty()) {
+              runningSince.remove(group);
+            }
+          }
+          if (timestamp != NOT_RUNNING) {
+            runningSince.computeIfAbsent(group, g -> TreeMultiset.create()).add(timestamp);
+          }
+        }
+      }
+      record.runningSince = timestamp;
+    }
+
+    int getBufferedEvents() {
+      int buffered = 0;
+      for (Deque<Sample> statusSamples : samples.values()) {
+        buffered += statusSamples.size();
+      }
+      for (Instance instance : changedInstances) {
+        buffered += instance.transitions.size();
+      }
+      return buffered;
+    }
+
+    private void evictBefore(long timestamp) {
+      for (Deque<Sample> statusSamples : samples.values()) {
+        while (!statusSamples.isEmpty() && statusSamples.peekFirst().timestamp < timestamp) {
+          statusSamples.removeFirst();
+        }
+      }
+
+      Iterator<Instance> changed = changedInstances.iterator();
+      while (changed.hasNext()) {
+        Deque<Transition> transitions = changed.next().transitions;
+        while (!transitions.isEmpty() && transitions.peekFirst().timestamp < timestamp) {
+          transitions.removeFirst();
+        }
+        if (transitions.isEmpty()) {
+          changed.remove();
+        }
+      }
+    }
+
+    void calculate(
+        Set<MetricCategory> categories,
+        Range<Long> timeFrame,
+        String nameQualifier,
+        BiConsumer<String, Number> sink) {
+
+      evictBefore(timeFrame.lowerEndpoint());
+
+      Map<ScheduleStatus, ListMultimap<String, Long>> waitTimes =
+          new EnumMap<>(ScheduleStatus.class);
+      Map<String, long[]> platformUptimes = null;
+      for (MetricCategory category : categories) {
+        for (Map.Entry<AlgorithmType, GroupType> slaMetric : category.getMetrics().entries()) {
+          AlgorithmType algoType = slaMetric.getKey();
+          SlaAlgorithm algorithm = algoType.getAlgorithm();
+          for (String group : groupTasks.get(slaMetric.getValue()).elementSet()) {
+            Number value;
+            if (algorithm instanceof JobUptime) {
+              value = jobUptime(group, ((JobUptime) algorithm).getPercentile(), timeFrame);
+            } else if (algorithm instanceof MedianAlgorithm) {
+              ListMultimap<String, Long> statusWaitTimes = waitTimes.computeIfAbsent(
+                  ((MedianAlgorithm) algorithm).getStatus(),
+                  status -> waitTimes(status, timeFrame));
+              value = SlaUtil.percentile(statusWaitTimes.get(group), 50.0);
+            } else if (algorithm instanceof AggregatePlatformUptime) {
+              if (platformUptimes == null) {
+                platformUptimes = platformUptimes(timeFrame);
+              }
+              long[] uptime = platformUptimes.get(group);
+              value = uptime == null || uptime[1] == 0
+                  ? 100.0
+                  : (double) uptime[0] * 100 / uptime[1];
+            } else {
+              throw new IllegalStateException("Unsupported SLA algorithm " + algoType);
+            }
+
+            String metricName = group + algoType.getAlgorithmName() + nameQualifier;
+            sink.accept(metricName, value);
+          }
+        }
+      }
+    }
+
+    /**
+     * Calculates the job uptime percentile of a group from the corresponding percentile of the
+     * times its running tasks started running, which only changes when the running tasks do.
+     */
+    private Number jobUptime(String group, float percentile, Range<Long> timeFrame) {
+      TreeMultiset<Long> running = runningSince.get(group);
+      if (running == null) {
+        return 0.0;
+      }
+
+      Number since = runningSincePercentiles
+          .computeIfAbsent(group, g -> Maps.newHashMap())
+          .computeIfAbsent(
+              percentile,
+              p -> SlaUtil.percentile(ImmutableList.copyOf(running), 100 - p));
+      return (timeFrame.upperEndpoint() - since.doubleValue()) / 1000;
+    }
+
+    private ListMultimap<String, Long> waitTimes(ScheduleStatus status, Range<Long> timeFrame) {
+      ListMultimap<String, Long> result = ArrayListMultimap.create();
+      Set<TaskRecord> sampled = Sets.newIdentityHashSet();
+      for (Sample sample : samples.get(status)) {
+        TaskRecord task = sample.task;
+        if (timeFrame.contains(sample.timestamp)
+            && !task.deleted
+            && Tasks.isActive(task.status)
+            && sampled.add(task)) {
+
+          for (String group : task.groups) {
+            if (group != null) {
+              result.put(group, sample.waitTime);
+            }
+          }
+        }
+      }
+      return result;
+    }
+
+    /**
+     * Calculates the aggregate uptime and total time of instances per group.  Instances without
+     * recent transitions contribute according to their current state; only recently changed
+     * instances are evaluated individually.
+     */
+    private Map<String, long[]> platformUptimes(Range<Long> timeFrame) {
+      long start = timeFrame.lowerEndpoint();
+      long end = timeFrame.upperEndpoint();
+      long interval = end - start;
+
+      Map<String, long[]> result = Maps.newHashMap();
+      for (Map.Entry<String, int[]> entry : instanceStates.entrySet()) {
+        int[] counts = entry.getValue();
+        int up = counts[SlaState.UP.ordinal()];
+        int down = counts[SlaState.DOWN.ordinal()];
+        result.put(entry.getKey(), new long[] {interval * up, interval * (up + down)});
+      }
+
+      for (Instance instance : changedInstances) {
+        long[] steady = platformUptime(instance.state, ImmutableList.of(), start, end);
+        long[] actual =
+            platformUptime(instance.getStateAt(start), instance.transitions, start, end);
+        for (String group : instance.groups) {
+          if (group != null) {
+            long[] uptime = result.get(group);
+            uptime[0] += actual[0] - steady[0];
+            uptime[1] += actual[1] - steady[1];
+          }
+        }
+      }
+      return result;
+    }
+
+    private static long[] platformUptime(
+        SlaState initial,
+        Iterable<Transition> transitions,
+        long start,
+        long end) {
+
+      long[] uptime = {end - start, end - start};
+      SlaState state = initial;
+      long since = start;
+      for (Transition transition : transitions) {
+        if (transition.timestamp >= end) {
+          break;
+        }
+        long timestamp = Math.max(since, transition.timestamp);
+        deduct(uptime, state, timestamp - since);
+        state = transition.to;
+        since = timestamp;
+      }
+      deduct(uptime, state, end - since);
+      return uptime;
+    }
+
+    private static void deduct(long[] uptime, SlaState state, long elapsed) {
+      if (state == SlaState.REMOVED) {
+        uptime[0] -= elapsed;
+        uptime[1] -= elapsed;
+      } else if (state == SlaState.DOWN) {
+        uptime[0] -= elapsed;
+      }
+    }
+  }
+}
@@ -111,20 +111,32 @@ public class MetricCalculator implements Runnable {
   private final Storage storage;
   private final Clock clock;
   private final MetricCalculatorSettings settings;
+  private final IncrementalSlaMetrics incrementalMetrics;
 
   static class MetricCalculatorSettings {
     private final long refreshRateMs;
     private final Set<MetricCategory> prodMetrics;
     private final Set<MetricCategory> nonProdMetrics;
+    private final boolean incremental;
 
     MetricCalculatorSettings(
         long refreshRateMs,
         Set<MetricCategory> prodMetrics,
         Set<MetricCategory> nonProdMetrics) {
 
+      this(refreshRateMs, prodMetrics, nonProdMetrics, false);
+    }
+
+    MetricCalculatorSettings(
+        long refreshRateMs,
+        Set<MetricCategory> prodMetrics,
+        Set<MetricCategory> nonProdMetrics,
+        boolean incremental) {
+
       this.refreshRateMs = refreshRateMs;
       this.prodMetrics = requireNonNull(prodMetrics);
       this.nonProdMetrics = requireNonNull(nonProdMetrics);
+      this.incremental = incremental;
     }
 
     long getRefreshRateMs() {
@@ -161,11 +173,13 @@ public class MetricCalculator implements Runnable {
       Storage storage,
       Clock clock,
       MetricCalculatorSettings settings,
-      final StatsProvider statsProvider) {
+      final StatsProvider statsProvider,
+      IncrementalSlaMetrics incrementalMetrics) {
 
     this.storage = requireNonNull(storage);
     this.clock = requireNonNull(clock);
     this.settings = requireNonNull(settings);
+    this.incrementalMetrics = requireNonNull(incrementalMetrics);
 
     requireNonNull(statsProvider);
     this.metricCache = CacheBuilder.newBuilder().build(
@@ -179,6 +193,16 @@ public class MetricCalculator implements Runnable {
   @Timed("sla_stats_computation")
   @Override
   public void run() {
+    if (settings.incremental) {
+      long nowMs = clock.nowMillis();
+      incrementalMetrics.calculate(
+          settings.prodMetrics,
+          settings.nonProdMetrics,
+          Range.closedOpen(nowMs - settings.refreshRateMs, nowMs),
+          this::setMetric);
+      return;
+    }
+
     FluentIterable<IScheduledTask> tasks =
         FluentIterable.from(Storage.Util.fetchTasks(storage, Query.unscoped()));
 
@@ -210,10 +234,15 @@ public class MetricCalculator implements Runnable {
 
           AlgorithmType algoType = slaMetric.getKey();
           String metricName = namedGroup.getKey() + algoType.getAlgorithmName() + nameQualifier;
-          metricCache.getUnchecked(metricName)
-              .set(metricName, algoType.getAlgorithm().calculate(namedGroup.getValue(), timeRange));
+          setMetric(
+              metricName,
+              algoType.getAlgorithm().calculate(namedGroup.getValue(), timeRange));
         }
       }
     }
   }
+
+  private void setMetric(String name, Number value) {
+    metricCache.getUnchecked(name).set(name, value);
+  }
 }
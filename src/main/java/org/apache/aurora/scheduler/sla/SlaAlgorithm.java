@@ -117,6 +117,10 @@ interface SlaAlgorithm {
       this.status = status;
     }
 
+    ScheduleStatus getStatus() {
+      return status;
+    }
+
     @Override
     public Number calculate(Iterable<IScheduledTask> tasks, Range<Long> timeFrame) {
       Iterable<IScheduledTask> activeTasks = FluentIterable.from(tasks)
@@ -168,6 +172,10 @@ interface SlaAlgorithm {
       this.percentile = percentile;
     }
 
+    float getPercentile() {
+      return percentile;
+    }
+
     @Override
     public Number calculate(Iterable<IScheduledTask> tasks, final Range<Long> timeFrame) {
       List<Long> uptimes = FluentIterable.from(tasks)
@@ -306,53 +314,59 @@ interface SlaAlgorithm {
             // Event status in the instance timeline signifies either of the following:
             // - termination of the existing SlaState interval AND start of a new one;
             // - continuation of the existing matching SlaState interval.
-            switch (event.getStatus()) {
-              case LOST:
-              case DRAINING:
-              case PREEMPTING:
-                current = updateIntervals(timestamp, SlaState.DOWN, current, intervals);
-                break;
-
-              case PENDING:
-              case ASSIGNED:
-              case STARTING:
-                if (current.getFirst() != SlaState.DOWN) {
-                  current = updateIntervals(timestamp, SlaState.REMOVED, current, intervals);
-                }
-                break;
-
-              case THROTTLED:
-              case FINISHED:
-              case RESTARTING:
-              case FAILED:
-              case KILLING:
-                current = updateIntervals(timestamp, SlaState.REMOVED, current, intervals);
-                break;
-
-              case RUNNING:
-              case PARTITIONED:
-                current = updateIntervals(timestamp, SlaState.UP, current, intervals);
-                break;
-
-              case KILLED:
-                if (current.getFirst() == SlaState.UP) {
-                  current = updateIntervals(timestamp, SlaState.DOWN, current, intervals);
-                }
-                break;
-
-              case INIT:
-                // Ignore.
-                break;
-
-              default:
-                throw new IllegalArgumentException("Unsupported status:" + event.getStatus());
-            }
+            current = updateIntervals(
+                timestamp,
+                nextState(current.getFirst(), event.getStatus()),
+                current,
+                intervals);
           }
           // Add the last event interval.
           intervals.add(new Interval(current.getFirst(), current.getSecond(), Long.MAX_VALUE));
           return intervals.build();
         };
 
+    /**
+     * Gets the state of an instance after a task event.
+     *
+     * @param current State of the instance before the event.
+     * @param status Status of the task event.
+     * @return State of the instance after the event.
+     */
+    static SlaState nextState(SlaState current, ScheduleStatus status) {
+      switch (status) {
+        case LOST:
+        case DRAINING:
+        case PREEMPTING:
+          return SlaState.DOWN;
+
+        case PENDING:
+        case ASSIGNED:
+        case STARTING:
+          return current == SlaState.DOWN ? SlaState.DOWN : SlaState.REMOVED;
+
+        case THROTTLED:
+        case FINISHED:
+        case RESTARTING:
+        case FAILED:
+        case KILLING:
+          return SlaState.REMOVED;
+
+        case RUNNING:
+        case PARTITIONED:
+          return SlaState.UP;
+
+        case KILLED:
+          return current == SlaState.UP ? SlaState.DOWN : current;
+
+        case INIT:
+          // Ignore.
+          return current;
+
+        default:
+          throw new IllegalArgumentException("Unsupported status:" + status);
+      }
+    }
+
     private static Pair<SlaState, Long> updateIntervals(
         long timestamp,
         SlaState state,
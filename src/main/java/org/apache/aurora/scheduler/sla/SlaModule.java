@@ -38,6 +38,7 @@ import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.config.splitters.CommaSplitter;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
 import org.apache.aurora.scheduler.config.validators.PositiveAmount;
+import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCalculatorSettings;
 import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCategory;
 import org.apache.aurora.scheduler.sla.SlaManager.SlaAwareKillNonProd;
@@ -108,6 +109,12 @@ public class SlaModule extends AbstractModule {
         description = "Enables SLA awareness for drain and and update for non-production tasks",
         arity = 1)
     public boolean slaAwareKillNonProd = false;
+
+    @Parameter(names = "-sla_incremental_metrics",
+        description = "Calculate SLA metrics incrementally from task state changes, rather than "
+            + "from all tasks on every refresh.",
+        arity = 1)
+    public boolean slaIncrementalMetrics = false;
   }
 
   @VisibleForTesting
@@ -127,9 +134,14 @@ public class SlaModule extends AbstractModule {
         .toInstance(new MetricCalculatorSettings(
             options.slaRefreshInterval.as(Time.MILLISECONDS),
             ImmutableSet.copyOf(options.slaProdMetrics),
-            ImmutableSet.copyOf(options.slaNonProdMetrics)));
+            ImmutableSet.copyOf(options.slaNonProdMetrics),
+            options.slaIncrementalMetrics));
 
     bind(MetricCalculator.class).in(Singleton.class);
+    bind(IncrementalSlaMetrics.class).in(Singleton.class);
+    if (options.slaIncrementalMetrics) {
+      PubsubEventModule.bindSubscriber(binder(), IncrementalSlaMetrics.class);
+    }
     bind(ScheduledExecutorService.class)
         .annotatedWith(SlaExecutor.class)
         .toInstance(AsyncUtil.singleThreadLoggingScheduledExecutor("SlaStat-%d", LOG));
@@ -16,6 +16,7 @@ package org.apache.aurora.scheduler.state;
 import com.google.common.collect.Multimap;
 
 import org.apache.aurora.scheduler.preemptor.PreemptionVictim;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
 
 /**
  * The current state of scheduled tasks within the cluster.
@@ -29,4 +30,31 @@ public interface ClusterState {
    * @return Active tasks and their associated slave IDs.
    */
   Multimap<String, PreemptionVictim> getSlavesToActiveTasks();
+
+  /**
+   * Gets the current version of the cluster state.  The version increases with every change to
+   * the active tasks in the cluster, and may be compared with {@link #getAgentVersion(String)} and
+   * {@link #getJobVersion(IJobKey)} to determine whether an agent or job changed since.
+   *
+   * @return The current version.
+   */
+  long getVersion();
+
+  /**
+   * Gets the version of the last change to an agent's active tasks or host attributes.  Agents
+   * without active tasks are always reported as changed at the current version.
+   *
+   * @param agentId Agent ID.
+   * @return Version of the agent's last change.
+   */
+  long getAgentVersion(String agentId);
+
+  /**
+   * Gets the version of the last change to a job's active tasks.  Jobs without active tasks are
+   * always reported as changed at the current version.
+   *
+   * @param jobKey Job key.
+   * @return Version of the job's last change.
+   */
+  long getJobVersion(IJobKey jobKey);
 }
@@ -13,15 +13,22 @@
  */
 package org.apache.aurora.scheduler.state;
 
+import java.util.Map;
+
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
 import com.google.common.eventbus.Subscribe;
 
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.PubsubEvent;
+import org.apache.aurora.scheduler.events.PubsubEvent.HostAttributesChanged;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.preemptor.PreemptionVictim;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
 
 /**
  * A cached view of cluster state, kept up to date by pubsub notifications.
@@ -30,6 +37,12 @@ public class ClusterStateImpl implements ClusterState, PubsubEvent.EventSubscrib
 
   private final Multimap<String, PreemptionVictim> victims = HashMultimap.create();
 
+  // Versions are guarded by the lock on victims, so that they are consistent with snapshots.
+  private long version = 0;
+  private final Map<String, Long> agentVersions = Maps.newHashMap();
+  private final Map<IJobKey, Long> jobVersions = Maps.newHashMap();
+  private final Multiset<IJobKey> activeJobTasks = HashMultiset.create();
+
   @Override
   public Multimap<String, PreemptionVictim> getSlavesToActiveTasks() {
     synchronized (victims) {
@@ -37,15 +50,71 @@ public class ClusterStateImpl implements ClusterState, PubsubEvent.EventSubscrib
     }
   }
 
+  @Override
+  public long getVersion() {
+    synchronized (victims) {
+      return version;
+    }
+  }
+
+  @Override
+  public long getAgentVersion(String agentId) {
+    synchronized (victims) {
+      return agentVersions.getOrDefault(agentId, version);
+    }
+  }
+
+  @Override
+  public long getJobVersion(IJobKey jobKey) {
+    synchronized (victims) {
+      return jobVersions.getOrDefault(jobKey, version);
+    }
+  }
+
   @Subscribe
   public void taskChangedState(TaskStateChange stateChange) {
     synchronized (victims) {
       String slaveId = stateChange.getTask().getAssignedTask().getSlaveId();
       PreemptionVictim victim = PreemptionVictim.fromTask(stateChange.getTask().getAssignedTask());
+      IJobKey jobKey = Tasks.getJob(stateChange.getTask());
       if (Tasks.SLAVE_ASSIGNED_STATES.contains(stateChange.getNewState())) {
-        victims.put(slaveId, victim);
+        if (victims.put(slaveId, victim)) {
+          version++;
+          agentVersions.put(slaveId, version);
+          activeJobTasks.add(jobKey);
+          jobVersions.put(jobKey, version);
+        }
       } else {
-        victims.remove(slaveId, victim);
+        if (victims.remove(slaveId, victim)) {
+          version++;
+          if (victims.containsKey(slaveId)) {
+            agentVersions.put(slaveId, version);
+          } else {
+            agentVersions.remove(slaveId);
+          }
+          activeJobTasks.remove(jobKey);
+          if (activeJobTasks.contains(jobKey)) {
+            jobVersions.put(jobKey, version);
+          } else {
+            jobVersions.remove(jobKey);
+          }
+        }
+      }
+    }
+  }
+
+  @Subscribe
+  public void hostAttributesChanged(HostAttributesChanged change) {
+    String slaveId = change.getAttributes().getSlaveId();
+    if (slaveId == null) {
+      return;
+    }
+
+    synchronized (victims) {
+      // Agents without active tasks are not tracked, and always report the current version.
+      version++;
+      if (victims.containsKey(slaveId)) {
+        agentVersions.put(slaveId, version);
       }
     }
   }
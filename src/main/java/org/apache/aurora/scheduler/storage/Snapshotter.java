@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.storage;
 
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import org.apache.aurora.gen.storage.Op;
@@ -33,6 +34,21 @@ public interface Snapshotter {
    */
   Snapshot from(StoreProvider stores);
 
+  /**
+   * Captures a point-in-time view of the contents of storage, deferring the construction of the
+   * snapshot.  This allows a caller to capture the view while holding the storage lock, and build
+   * the snapshot after releasing it.
+   *
+   * <p>The default implementation builds the snapshot eagerly.
+   *
+   * @param stores stores to capture.
+   * @return A supplier of a snapshot of the captured view.
+   */
+  default Supplier<Snapshot> capture(StoreProvider stores) {
+    Snapshot snapshot = from(stores);
+    return () -> snapshot;
+  }
+
   /**
    * Converts a snapshot into an equivalent linear stream of storage operations.
    *
@@ -14,6 +14,7 @@
 package org.apache.aurora.scheduler.storage;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -50,6 +51,17 @@ public interface TaskStore {
    */
   Collection<IScheduledTask> fetchTasks(Query.Builder query);
 
+  /**
+   * Fetches a single page of tasks matching a query, in task ID order.  Unlike
+   * {@link #fetchTasks(Query.Builder)}, the offset and limit of the query are honored, and only
+   * the tasks within the requested page are retained while matching.
+   *
+   * @param query Builder of the query to identify tasks with.
+   * @param afterTaskId If present, only tasks with an ID ordered after this one are considered.
+   * @return The requested page of matching tasks.
+   */
+  List<IScheduledTask> fetchTaskPage(Query.Builder query, Optional<String> afterTaskId);
+
   /**
    * Fetches all job keys represented in the task store.
    *
@@ -57,6 +69,31 @@ public interface TaskStore {
    */
   Set<IJobKey> getJobKeys();
 
+  /**
+   * Observes changes applied to a mutable task store.  Listeners are notified synchronously from
+   * within the store operation applying the change, so they must be cheap and must not access
+   * storage themselves.
+   * <p>
+   * The store applies each change and notifies the listener while holding the listener's monitor.
+   * A listener may therefore synchronize on itself to read the store consistently with the changes
+   * it has been notified of.
+   */
+  interface Listener {
+
+    /**
+     * Notifies the listener that a task was saved, replaced or deleted.
+     *
+     * @param before The task prior to the change, if it existed.
+     * @param after The task after the change, if it still exists.
+     */
+    void taskChanged(Optional<IScheduledTask> before, Optional<IScheduledTask> after);
+
+    /**
+     * Notifies the listener that all tasks were removed from the store.
+     */
+    void allTasksDeleted();
+  }
+
   interface Mutable extends TaskStore {
 
     /**
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -144,15 +145,30 @@ public interface StorageBackup {
     @Override
     public Snapshot from(StoreProvider stores) {
       Snapshot snapshot = delegate.from(stores);
+      maybeBackup(snapshot);
+      return snapshot;
+    }
+
+    @Override
+    public Supplier<Snapshot> capture(StoreProvider stores) {
+      Supplier<Snapshot> captured = delegate.capture(stores);
+      return () -> {
+        Snapshot snapshot = captured.get();
+        maybeBackup(snapshot);
+        return snapshot;
+      };
+    }
+
+    private void maybeBackup(Snapshot snapshot) {
       if (clock.nowMillis() >= (lastBackupMs + backupIntervalMs)) {
         executor.execute(() -> save(snapshot));
       }
-      return snapshot;
     }
 
     @Override
     public void backupNow() {
-      save(storage.write(delegate::from));
+      // Only the capture needs the write lock, the snapshot is built and saved after releasing it.
+      save(storage.write(delegate::capture).get());
     }
 
     @VisibleForTesting
@@ -15,6 +15,7 @@ package org.apache.aurora.scheduler.storage.durability;
 
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
@@ -33,6 +34,8 @@ import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.Storage.NonVolatileStorage;
 import org.apache.aurora.scheduler.storage.TaskStore;
+import org.apache.aurora.scheduler.storage.durability.Persistence.Edit;
+import org.apache.aurora.scheduler.storage.durability.Persistence.PendingCommit;
 import org.apache.aurora.scheduler.storage.durability.Persistence.PersistenceException;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +65,12 @@ import static java.util.Objects.requireNonNull;
  *
  * <p>If the op fails to apply to local storage we will never persist the op, and if the op
  * fails to persist, it'll throw and abort the local storage operation as well.
+ *
+ * <p>Ops are submitted to persistence while the write lock is held, which fixes their order.  If
+ * the persistence layer returns a pending commit, the writer only waits for it to become durable
+ * after releasing the lock, which allows transactions from concurrent writers to be coalesced into
+ * a single write.  In that case other readers and writers may observe state that is not yet
+ * durable, and would be lost if the scheduler failed before the commit completed.
  */
 public class DurableStorage implements NonVolatileStorage {
 
@@ -94,6 +103,7 @@ public class DurableStorage implements NonVolatileStorage {
   private final WriteRecorder writeRecorder;
 
   private TransactionRecorder transaction = null;
+  private PendingCommit pendingCommit = null;
 
   private final SlidingStats writerWaitStats = new SlidingStats("storage_write_lock_wait", "ns");
 
@@ -154,6 +164,7 @@ public class DurableStorage implements NonVolatileStorage {
   @Override
   @Timed("scheduler_storage_start")
   public void start(final MutateWork.NoResult.Quiet initializationLogic) {
+    PendingCommit commit;
     writeLock.lock();
     try {
       // We recover directly into the forwarded system to avoid persisting replayed operations.
@@ -163,8 +174,10 @@ public class DurableStorage implements NonVolatileStorage {
       // run it in one of our transactions.
       write(initializationLogic);
     } finally {
+      commit = takePendingCommit();
       writeLock.unlock();
     }
+    awaitCommit(commit);
   }
 
   @Override
@@ -174,8 +187,8 @@ public class DurableStorage implements NonVolatileStorage {
 
   @Timed("scheduler_storage_recover")
   void recover(MutableStoreProvider stores) throws RecoveryFailedException {
-    try {
-      Loader.load(stores, thriftBackfill, persistence.recover());
+    try (Stream<Edit> edits = persistence.recover()) {
+      Loader.load(stores, thriftBackfill, edits);
     } catch (PersistenceException e) {
       throw new RecoveryFailedException(e);
     }
@@ -203,7 +216,7 @@ public class DurableStorage implements NonVolatileStorage {
         List<Op> ops = transaction.getOps();
         if (!ops.isEmpty()) {
           try {
-            persistence.persist(ops.stream());
+            pendingCommit = persistence.persistAsync(ops.stream());
           } catch (PersistenceException e) {
             throw new StorageException("Failed to persist storage changes", e);
           }
@@ -218,13 +231,40 @@ public class DurableStorage implements NonVolatileStorage {
   @Override
   public <T, E extends Exception> T write(final MutateWork<T, E> work) throws StorageException, E {
     long waitStart = System.nanoTime();
+    T result;
+    PendingCommit commit = null;
     writeLock.lock();
     try {
       writerWaitStats.accumulate(System.nanoTime() - waitStart);
-      return doInTransaction(work);
+      try {
+        result = doInTransaction(work);
+      } finally {
+        // Nested writes leave waiting to the outermost write, which is the one releasing the lock.
+        if (writeLock.getHoldCount() == 1) {
+          commit = takePendingCommit();
+        }
+      }
     } finally {
       writeLock.unlock();
     }
+    awaitCommit(commit);
+    return result;
+  }
+
+  private PendingCommit takePendingCommit() {
+    PendingCommit commit = pendingCommit;
+    pendingCommit = null;
+    return commit;
+  }
+
+  private static void awaitCommit(PendingCommit commit) throws StorageException {
+    if (commit != null) {
+      try {
+        commit.await();
+      } catch (PersistenceException e) {
+        throw new StorageException("Failed to persist storage changes", e);
+      }
+    }
   }
 
   @Override
@@ -34,7 +34,8 @@ public interface Persistence {
   void prepare();
 
   /**
-   * Recovers previously-persisted records.
+   * Recovers previously-persisted records.  Callers should close the returned stream, which may
+   * hold resources used to read ahead until it is exhausted or closed.
    *
    * @return All edits to apply.
    * @throws PersistenceException If recovery failed.
@@ -50,6 +51,34 @@ public interface Persistence {
    */
   void persist(Stream<Op> records) throws PersistenceException;
 
+  /**
+   * Submits new records to be saved, allowing the implementation to coalesce them with records
+   * submitted concurrently.  Records must be saved in the order they are submitted, and no records
+   * may be considered durably saved until {@link PendingCommit#await()} returns successfully.
+   *
+   * <p>The default implementation saves the records synchronously.
+   *
+   * @param records Records to save.
+   * @return A handle to wait on for the records to become durable.
+   * @throws PersistenceException If the records could not be submitted.
+   */
+  default PendingCommit persistAsync(Stream<Op> records) throws PersistenceException {
+    persist(records);
+    return () -> { };
+  }
+
+  /**
+   * A handle to records submitted by {@link #persistAsync(Stream)}.
+   */
+  interface PendingCommit {
+    /**
+     * Blocks until the submitted records are durably saved.
+     *
+     * @throws PersistenceException If the records could not be saved.
+     */
+    void await() throws PersistenceException;
+  }
+
   /**
    * An edit to apply when recovering from persistence.
    */
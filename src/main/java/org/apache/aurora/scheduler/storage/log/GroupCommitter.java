@@ -0,0 +1,258 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.storage.log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.google.common.collect.ImmutableList;
+
+import org.apache.aurora.common.stats.SlidingStats;
+import org.apache.aurora.gen.storage.Op;
+import org.apache.aurora.scheduler.storage.durability.Persistence.PendingCommit;
+import org.apache.aurora.scheduler.storage.durability.Persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Coalesces transactions submitted by concurrent writers into a single log append.
+ *
+ * <p>Transactions are queued in submission order, which is expected to match the order in which
+ * they were applied to local storage.  There is no dedicated commit thread; the first waiter to
+ * find no append in flight becomes the leader, drains as many queued transactions as fit in a
+ * batch and appends them as one entry, while other waiters block until the batch containing their
+ * transaction is durable.  Transactions queued while an append is in flight naturally form the
+ * next batch, so commit latency is bounded by roughly one append round trip.
+ *
+ * <p>Other appends, such as snapshots, may be queued as barriers.  A barrier is performed on its
+ * own, after all transactions queued before it and before any transactions queued after it.  It
+ * is only ever performed by the thread waiting on it, so the committer never runs a barrier on
+ * behalf of an unrelated writer; writers queued behind a barrier wait until its owner performs it.
+ * Callers must therefore always wait on a submitted barrier.
+ *
+ * <p>A failed transaction append is not retried.  Since transactions queued after a failed batch
+ * were applied locally on top of it, local storage can no longer be reconciled with the log.  The
+ * failure is therefore fatal: it is reported to all current and future waiters, and the failure
+ * handler is invoked to shut down.  A failed barrier is only reported to its own waiters.
+ */
+class GroupCommitter {
+  private static final Logger LOG = LoggerFactory.getLogger(GroupCommitter.class);
+
+  private static final class Pending {
+    private final long sequence;
+    private final List<Op> ops;
+    private final Runnable barrier;
+    private final long submitNanos;
+    private RuntimeException failure;
+
+    Pending(long sequence, List<Op> ops, Runnable barrier, long submitNanos) {
+      this.sequence = sequence;
+      this.ops = ops;
+      this.barrier = barrier;
+      this.submitNanos = submitNanos;
+    }
+
+    boolean isBarrier() {
+      return barrier != null;
+    }
+  }
+
+  private final Consumer<List<Op>> committer;
+  private final int maxOpsPerBatch;
+  private final Runnable onFailure;
+  private final Deque<Pending> queue = new ArrayDeque<>();
+  private final SlidingStats batchSize =
+      new SlidingStats("log_storage_group_commit_batch", "transactions");
+  private final SlidingStats commitLatency =
+      new SlidingStats("log_storage_group_commit_latency", "ns");
+  private final SlidingStats barrierWait =
+      new SlidingStats("log_storage_group_commit_barrier_wait", "ns");
+
+  private long submitted = 0;
+  private long durable = 0;
+  private boolean committing = false;
+  private RuntimeException failure = null;
+
+  /**
+   * Creates a group committer.
+   *
+   * @param committer Appends a batch of operations to the log as a single transaction.
+   * @param maxOpsPerBatch Maximum number of operations to coalesce into a batch.  A single
+   *                       transaction exceeding this limit is committed in a batch of its own.
+   * @param onFailure Invoked once if a batch of transactions fails to be appended.
+   */
+  GroupCommitter(Consumer<List<Op>> committer, int maxOpsPerBatch, Runnable onFailure) {
+    checkArgument(maxOpsPerBatch > 0);
+    this.committer = requireNonNull(committer);
+    this.maxOpsPerBatch = maxOpsPerBatch;
+    this.onFailure = requireNonNull(onFailure);
+  }
+
+  /**
+   * Queues a transaction for the next batch.
+   *
+   * @param ops Operations of the transaction.
+   * @return A handle to wait on until the transaction is durable.
+   */
+  synchronized PendingCommit submit(List<Op> ops) {
+    return enqueue(requireNonNull(ops), null);
+  }
+
+  /**
+   * Queues an append to be performed on its own, once all previously-queued transactions are
+   * durable.  Transactions queued afterwards are not appended until the barrier completes.  The
+   * append is performed by the thread waiting on the returned handle.
+   *
+   * @param append Append to perform.
+   * @return A handle to wait on until the append completes.
+   */
+  synchronized PendingCommit submitBarrier(Runnable append) {
+    return enqueue(ImmutableList.of(), requireNonNull(append));
+  }
+
+  private PendingCommit enqueue(List<Op> ops, Runnable barrier) {
+    Pending pending = new Pending(++submitted, ops, barrier, System.nanoTime());
+    queue.addLast(pending);
+    return () -> {
+      await(pending.sequence, pending);
+      synchronized (this) {
+        if (pending.failure != null) {
+          throw new PersistenceException("Failed to append to the log", pending.failure);
+        }
+      }
+    };
+  }
+
+  /**
+   * Waits until all transactions submitted so far are durable.
+   *
+   * @throws PersistenceException If a batch could not be appended.
+   */
+  void flush() throws PersistenceException {
+    long sequence;
+    synchronized (this) {
+      sequence = submitted;
+    }
+    await(sequence, null);
+  }
+
+  private void await(long sequence, Pending own) throws PersistenceException {
+    // Time spent waiting for another thread's barrier, such as a snapshot, to be performed.
+    long barrierWaitStart = 0;
+    try {
+      while (true) {
+        List<Pending> batch;
+        synchronized (this) {
+          if (failure != null) {
+            throw new PersistenceException("Failed to commit to the log", failure);
+          }
+          if (durable >= sequence) {
+            return;
+          }
+          // A barrier at the head of the queue is left for its owner to perform.
+          Pending head = queue.peekFirst();
+          boolean behindBarrier = head != null && head.isBarrier() && head != own;
+          if (behindBarrier && barrierWaitStart == 0) {
+            barrierWaitStart = System.nanoTime();
+          } else if (!behindBarrier && barrierWaitStart != 0) {
+            barrierWait.accumulate(System.nanoTime() - barrierWaitStart);
+            barrierWaitStart = 0;
+          }
+          if (committing || behindBarrier) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new PersistenceException("Interrupted while waiting for log commit", e);
+            }
+            continue;
+          }
+          committing = true;
+          batch = drainBatch();
+        }
+
+        commitBatch(batch);
+      }
+    } finally {
+      if (barrierWaitStart != 0) {
+        barrierWait.accumulate(System.nanoTime() - barrierWaitStart);
+      }
+    }
+  }
+
+  private List<Pending> drainBatch() {
+    List<Pending> batch = new ArrayList<>();
+    int ops = 0;
+    while (!queue.isEmpty()) {
+      Pending next = queue.peekFirst();
+      if (!batch.isEmpty()) {
+        boolean full = ops + next.ops.size() > maxOpsPerBatch;
+        if (full || next.isBarrier() || batch.get(0).isBarrier()) {
+          break;
+        }
+      }
+      batch.add(queue.removeFirst());
+      ops += next.ops.size();
+    }
+    return batch;
+  }
+
+  private void commitBatch(List<Pending> batch) {
+    Pending first = batch.get(0);
+    RuntimeException error = null;
+    try {
+      if (first.isBarrier()) {
+        first.barrier.run();
+      } else {
+        List<Op> ops = new ArrayList<>();
+        for (Pending pending : batch) {
+          ops.addAll(pending.ops);
+        }
+        committer.accept(ops);
+      }
+    } catch (RuntimeException e) {
+      error = e;
+    }
+
+    long now = System.nanoTime();
+    synchronized (this) {
+      committing = false;
+      if (first.isBarrier()) {
+        durable = first.sequence;
+        first.failure = error;
+      } else if (error == null) {
+        durable = batch.get(batch.size() - 1).sequence;
+        batchSize.accumulate(batch.size());
+        for (Pending pending : batch) {
+          commitLatency.accumulate(now - pending.submitNanos);
+        }
+      } else {
+        failure = error;
+      }
+      notifyAll();
+    }
+
+    if (error != null && !first.isBarrier()) {
+      LOG.error("Failed to append transactions to the log, storage can not be used", error);
+      onFailure.run();
+    }
+  }
+}
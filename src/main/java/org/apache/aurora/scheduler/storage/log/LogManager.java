@@ -46,6 +46,14 @@ public class LogManager {
   @Qualifier
   public @interface LogEntryHashFunction { }
 
+  /**
+   * Number of threads to decode log entries with during recovery.
+   */
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ElementType.METHOD, ElementType.PARAMETER})
+  @Qualifier
+  public @interface RecoveryThreads { }
+
   private final Log log;
   private final StreamManagerFactory streamManagerFactory;
 
@@ -15,26 +15,38 @@ package org.apache.aurora.scheduler.storage.log;
 
 import java.io.IOException;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import javax.inject.Inject;
 
+import com.google.common.base.Suppliers;
+
 import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
+import org.apache.aurora.common.application.Lifecycle;
 import org.apache.aurora.gen.storage.LogEntry;
 import org.apache.aurora.gen.storage.Op;
 import org.apache.aurora.gen.storage.Snapshot;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
 import org.apache.aurora.scheduler.storage.Snapshotter;
 import org.apache.aurora.scheduler.storage.durability.Persistence;
+import org.apache.aurora.scheduler.storage.log.StreamManager.LogEntryIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static java.util.Objects.requireNonNull;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Persistence layer that uses a replicated log.
  */
@@ -44,12 +56,23 @@ class LogPersistence implements Persistence {
 
   private final LogManager logManager;
   private final Snapshotter snapshotter;
+  private final Settings settings;
+  private final Lifecycle lifecycle;
   private StreamManager streamManager;
+  private GroupCommitter groupCommitter;
+  private ExecutorService snapshotExecutor;
 
   @Inject
-  LogPersistence(LogManager logManager, Snapshotter snapshotter) {
+  LogPersistence(
+      LogManager logManager,
+      Snapshotter snapshotter,
+      Settings settings,
+      Lifecycle lifecycle) {
+
     this.logManager = requireNonNull(logManager);
     this.snapshotter = requireNonNull(snapshotter);
+    this.settings = requireNonNull(settings);
+    this.lifecycle = requireNonNull(lifecycle);
   }
 
   @Override
@@ -60,32 +83,117 @@ class LogPersistence implements Persistence {
     } catch (IOException e) {
       throw new IllegalStateException("Failed to open the log, cannot continue", e);
     }
+    if (settings.isGroupCommit()) {
+      // A failed append leaves local storage ahead of the log, so it shuts the scheduler down.
+      groupCommitter = new GroupCommitter(
+          streamManager::commit,
+          settings.getGroupCommitMaxOps(),
+          lifecycle::shutdown);
+    }
+    if (settings.isConcurrentSnapshots()) {
+      snapshotExecutor = AsyncUtil.loggingExecutor(
+          1,
+          1,
+          new LinkedBlockingQueue<>(),
+          "LogPersistence-Snapshot-%d",
+          LOG);
+    }
   }
 
   /**
-   * Saves a snapshot to the log stream.
+   * Saves a snapshot to the log stream.  Any pending group commits are appended first, so that
+   * the log is never truncated ahead of transactions reflected in the snapshot.
    *
    * @param snapshot Snapshot to save.
    */
   void persist(Snapshot snapshot) {
+    if (groupCommitter != null) {
+      try {
+        groupCommitter.flush();
+      } catch (PersistenceException e) {
+        throw new StreamAccessException("Failed to commit transactions preceding snapshot", e);
+      }
+    }
     streamManager.snapshot(snapshot);
   }
 
+  /**
+   * Saves a snapshot to the log stream, ordered after all previously-submitted transactions and
+   * before any submitted afterwards.  When concurrent snapshots are enabled, the snapshot is built
+   * and appended on a dedicated snapshot thread, and only its append is ordered with queued
+   * transactions.  Callers should submit it while holding the storage write lock and wait for it
+   * after releasing the lock.
+   *
+   * @param snapshot Supplier of the snapshot to save.
+   * @return A handle to wait on until the snapshot is saved.
+   */
+  PendingCommit persistAsync(Supplier<Snapshot> snapshot) {
+    if (settings.isConcurrentSnapshots()) {
+      Supplier<Snapshot> built = Suppliers.memoize(snapshot::get);
+      PendingCommit append =
+          groupCommitter.submitBarrier(() -> streamManager.snapshot(built.get()));
+      // The snapshot is built while preceding transactions are appended, and the snapshot thread
+      // then performs the barrier append itself once they are durable.
+      Future<?> done = snapshotExecutor.submit(() -> {
+        try {
+          built.get();
+        } finally {
+          // Writers queued behind the barrier wait until it is performed, so it must be awaited.
+          append.await();
+        }
+        return null;
+      });
+      return () -> {
+        try {
+          done.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new PersistenceException("Interrupted while waiting for snapshot", e);
+        } catch (ExecutionException e) {
+          throw new PersistenceException("Failed to save snapshot", e.getCause());
+        }
+      };
+    }
+
+    persist(snapshot.get());
+    return () -> { };
+  }
+
   @Override
   public void persist(Stream<Op> mutations) throws PersistenceException {
+    persistAsync(mutations).await();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Only with group commit enabled may the returned handle be pending, in which case writers
+   * wait for durability after releasing the storage write lock.  Other readers and writers may
+   * then observe the transaction before it is durable.  Otherwise the transaction is durable by
+   * the time this method returns.
+   */
+  @Override
+  public PendingCommit persistAsync(Stream<Op> mutations) throws PersistenceException {
+    List<Op> ops = mutations.collect(Collectors.toList());
+    if (groupCommitter != null) {
+      return groupCommitter.submit(ops);
+    }
+
     try {
-      streamManager.commit(mutations.collect(Collectors.toList()));
+      streamManager.commit(ops);
     } catch (CodingException e) {
       throw new PersistenceException(e);
     }
+    return () -> { };
   }
 
   @Override
   public Stream<Edit> recover() throws PersistenceException {
     try {
-      Iterator<LogEntry> entries = streamManager.readFromBeginning();
+      LogEntryIterator entries = streamManager.readFromBeginning();
       Iterable<LogEntry> iterableEntries = () -> entries;
-      Stream<LogEntry> entryStream = StreamSupport.stream(iterableEntries.spliterator(), false);
+      Stream<LogEntry> entryStream = StreamSupport.stream(iterableEntries.spliterator(), false)
+          .onClose(entries::close);
 
       return entryStream
           .filter(entry -> entry.getSetField() != LogEntry._Fields.NOOP)
@@ -111,4 +219,36 @@ class LogPersistence implements Persistence {
       throw new PersistenceException(e);
     }
   }
+
+  /**
+   * Configuration settings for log persistence.
+   */
+  public static class Settings {
+    private final boolean groupCommit;
+    private final int groupCommitMaxOps;
+    private final boolean concurrentSnapshots;
+
+    Settings(boolean groupCommit, int groupCommitMaxOps, boolean concurrentSnapshots) {
+      // Transactions queued behind a snapshot are only waited on outside of the storage write
+      // lock with group commit, otherwise writers would still stall for the whole snapshot.
+      checkArgument(
+          groupCommit || !concurrentSnapshots,
+          "-dlog_concurrent_snapshots requires -dlog_group_commit");
+      this.groupCommit = groupCommit;
+      this.groupCommitMaxOps = groupCommitMaxOps;
+      this.concurrentSnapshots = concurrentSnapshots;
+    }
+
+    public boolean isGroupCommit() {
+      return groupCommit;
+    }
+
+    public int getGroupCommitMaxOps() {
+      return groupCommitMaxOps;
+    }
+
+    public boolean isConcurrentSnapshots() {
+      return concurrentSnapshots;
+    }
+  }
 }
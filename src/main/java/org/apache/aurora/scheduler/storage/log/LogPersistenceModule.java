@@ -26,10 +26,13 @@ import com.google.inject.assistedinject.FactoryModuleBuilder;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Data;
 import org.apache.aurora.scheduler.config.types.DataAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.storage.durability.Persistence;
 import org.apache.aurora.scheduler.storage.log.EntrySerializer.EntrySerializerImpl;
 import org.apache.aurora.scheduler.storage.log.LogManager.LogEntryHashFunction;
 import org.apache.aurora.scheduler.storage.log.LogManager.MaxEntrySize;
+import org.apache.aurora.scheduler.storage.log.LogManager.RecoveryThreads;
+import org.apache.aurora.scheduler.storage.log.LogPersistence.Settings;
 import org.apache.aurora.scheduler.storage.log.SnapshotDeduplicator.SnapshotDeduplicatorImpl;
 
 /**
@@ -44,6 +47,32 @@ public class LogPersistenceModule extends PrivateModule {
             "Specifies the maximum entry size to append to the log. Larger entries will be "
                 + "split across entry Frames.")
     public DataAmount maxLogEntrySize = new DataAmount(512, Data.KB);
+
+    @Parameter(names = "-dlog_group_commit",
+        description = "Coalesce transactions from concurrent writers into a single log entry, "
+            + "waiting for durability outside of the storage write lock.  Other readers and "
+            + "writers may observe a transaction before it is durable.",
+        arity = 1)
+    public boolean groupCommit = false;
+
+    @Parameter(names = "-dlog_group_commit_max_ops",
+        validateValueWith = PositiveNumber.class,
+        description = "The maximum number of operations to coalesce into a single log entry when "
+            + "group commit is enabled.")
+    public int groupCommitMaxOps = 1000;
+
+    @Parameter(names = "-dlog_concurrent_snapshots",
+        description = "Build and append snapshots after releasing the storage write lock.  "
+            + "Transactions committed while a snapshot is being appended are acknowledged once "
+            + "it completes.  Requires -dlog_group_commit.",
+        arity = 1)
+    public boolean concurrentSnapshots = false;
+
+    @Parameter(names = "-dlog_recovery_threads",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of threads to decode, inflate and reduplicate log entries with "
+            + "when recovering from the log.  Entries are still applied in log order.")
+    public int recoveryThreads = 1;
   }
 
   private final Options options;
@@ -56,6 +85,11 @@ public class LogPersistenceModule extends PrivateModule {
   protected void configure() {
     bind(new TypeLiteral<Amount<Integer, Data>>() { }).annotatedWith(MaxEntrySize.class)
         .toInstance(options.maxLogEntrySize);
+    bind(Settings.class)
+        .toInstance(new Settings(
+            options.groupCommit,
+            options.groupCommitMaxOps,
+            options.concurrentSnapshots));
     bind(LogManager.class).in(Singleton.class);
     bind(LogPersistence.class).in(Singleton.class);
     bind(Persistence.class).to(LogPersistence.class);
@@ -68,6 +102,7 @@ public class LogPersistenceModule extends PrivateModule {
     @SuppressWarnings("deprecation")
     HashFunction hashFunction = Hashing.md5();
     bind(HashFunction.class).annotatedWith(LogEntryHashFunction.class).toInstance(hashFunction);
+    bind(Integer.class).annotatedWith(RecoveryThreads.class).toInstance(options.recoveryThreads);
 
     bind(SnapshotDeduplicator.class).to(SnapshotDeduplicatorImpl.class);
 
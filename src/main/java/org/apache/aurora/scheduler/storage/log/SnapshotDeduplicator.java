@@ -15,10 +15,17 @@ package org.apache.aurora.scheduler.storage.log;
 
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimaps;
+import com.google.common.collect.Sets;
 
 import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
@@ -62,6 +69,9 @@ public interface SnapshotDeduplicator {
   class SnapshotDeduplicatorImpl implements SnapshotDeduplicator {
     private static final Logger LOG = LoggerFactory.getLogger(SnapshotDeduplicatorImpl.class);
 
+    @VisibleForTesting
+    static final int PARALLEL_REDUPLICATION_THRESHOLD = 10000;
+
     private static final Function<ScheduledTask, TaskConfig> SCHEDULED_TO_CONFIG =
         task -> task.getAssignedTask().getTask();
 
@@ -140,6 +150,23 @@ public interface SnapshotDeduplicator {
       return deduplicatedSnapshot;
     }
 
+    private static ScheduledTask reduplicate(
+        DeduplicatedScheduledTask partialTask,
+        List<TaskConfig> taskConfigs) throws CodingException {
+
+      ScheduledTask scheduledTask = new ScheduledTask(partialTask.getPartialScheduledTask());
+      int taskConfigId = partialTask.getTaskConfigId();
+      TaskConfig config;
+      try {
+        config = taskConfigs.get(taskConfigId);
+      } catch (IndexOutOfBoundsException e) {
+        throw new CodingException(
+            "DeduplicatedScheduledTask referenced invalid task index " + taskConfigId, e);
+      }
+      scheduledTask.getAssignedTask().setTask(config);
+      return scheduledTask;
+    }
+
     @Override
     @Timed("snapshot_reduplicate")
     public Snapshot reduplicate(DeduplicatedSnapshot deduplicatedSnapshot) throws CodingException {
@@ -150,18 +177,26 @@ public interface SnapshotDeduplicator {
         return snapshot;
       }
 
-      for (DeduplicatedScheduledTask partialTask : deduplicatedSnapshot.getPartialTasks()) {
-        ScheduledTask scheduledTask = new ScheduledTask(partialTask.getPartialScheduledTask());
-        int taskConfigId = partialTask.getTaskConfigId();
-        TaskConfig config;
-        try {
-          config = deduplicatedSnapshot.getTaskConfigs().get(taskConfigId);
-        } catch (IndexOutOfBoundsException e) {
-          throw new CodingException(
-              "DeduplicatedScheduledTask referenced invalid task index " + taskConfigId, e);
+      List<DeduplicatedScheduledTask> partialTasks = deduplicatedSnapshot.getPartialTasks();
+      List<TaskConfig> taskConfigs = deduplicatedSnapshot.getTaskConfigs();
+      if (partialTasks != null && !partialTasks.isEmpty()) {
+        // Copying and hashing tasks dominates reduplication, so large snapshots are reduplicated
+        // in parallel when running on a log recovery pool.  A parallel stream started from a
+        // fork-join worker runs on that worker's pool, so this never spills onto the common pool.
+        Set<ScheduledTask> tasks;
+        Stream<DeduplicatedScheduledTask> partialTaskStream;
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        if (partialTasks.size() >= PARALLEL_REDUPLICATION_THRESHOLD
+            && pool != null
+            && pool != ForkJoinPool.commonPool()) {
+          tasks = ConcurrentHashMap.newKeySet(partialTasks.size());
+          partialTaskStream = partialTasks.parallelStream();
+        } else {
+          tasks = Sets.newHashSetWithExpectedSize(partialTasks.size());
+          partialTaskStream = partialTasks.stream();
         }
-        scheduledTask.getAssignedTask().setTask(config);
-        snapshot.addToTasks(scheduledTask);
+        partialTaskStream.forEach(partialTask -> tasks.add(reduplicate(partialTask, taskConfigs)));
+        snapshot.setTasks(tasks);
       }
 
       int numInputTasks = deduplicatedSnapshot.getTaskConfigsSize();
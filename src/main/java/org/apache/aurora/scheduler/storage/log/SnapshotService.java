@@ -13,22 +13,27 @@
  */
 package org.apache.aurora.scheduler.storage.log;
 
+import java.util.function.Supplier;
+
 import javax.inject.Inject;
 
+import com.google.common.base.Suppliers;
 import com.google.common.util.concurrent.AbstractScheduledService;
 
 import org.apache.aurora.codec.ThriftBinaryCodec.CodingException;
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.SlidingStats;
 import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
 import org.apache.aurora.scheduler.storage.SnapshotStore;
 import org.apache.aurora.scheduler.storage.Snapshotter;
 import org.apache.aurora.scheduler.storage.Storage;
-import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.Storage.StorageException;
+import org.apache.aurora.scheduler.storage.durability.Persistence.PendingCommit;
+import org.apache.aurora.scheduler.storage.durability.Persistence.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +50,8 @@ class SnapshotService extends AbstractScheduledService implements SnapshotStore
   private final LogPersistence log;
   private final Snapshotter snapshotter;
   private final Amount<Long, Time> snapshotInterval;
+  private final SlidingStats lockHoldStats =
+      new SlidingStats("scheduler_log_snapshot_lock_hold", "ns");
 
   @Inject
   SnapshotService(Storage storage, LogPersistence log, Snapshotter snapshotter, Settings settings) {
@@ -65,30 +72,47 @@ class SnapshotService extends AbstractScheduledService implements SnapshotStore
     try {
       LOG.info("Creating snapshot");
 
-      // It's important to perform snapshot creation in a write lock to ensure all upstream callers
-      // are correctly synchronized (e.g. during backup creation).
-      storage.write((NoResult.Quiet) stores -> {
-        Snapshot snapshot = snapshotter.from(stores);
+      // It's important to capture the snapshot in a write lock to ensure all upstream callers
+      // are correctly synchronized (e.g. during backup creation).  Depending on the log
+      // persistence settings, building and saving the snapshot may be deferred until the lock
+      // is released.
+      PendingSnapshot pending = storage.write(stores -> {
+        long lockStart = System.nanoTime();
+        Supplier<Snapshot> snapshot = Suppliers.memoize(snapshotter.capture(stores)::get);
         LOG.info("Saving snapshot");
-        snapshotWith(snapshot);
-
-        LOG.info("Snapshot complete."
-            + " host attrs: " + snapshot.getHostAttributesSize()
-            + ", cron jobs: " + snapshot.getCronJobsSize()
-            + ", quota confs: " + snapshot.getQuotaConfigurationsSize()
-            + ", tasks: " + snapshot.getTasksSize()
-            + ", updates: " + snapshot.getJobUpdateDetailsSize()
-            + ", host maintenance requests: " + snapshot.getHostMaintenanceRequestsSize());
+        PendingCommit commit = log.persistAsync(snapshot);
+        lockHoldStats.accumulate(System.nanoTime() - lockStart);
+        return new PendingSnapshot(snapshot, commit);
       });
+      pending.commit.await();
+
+      Snapshot snapshot = pending.snapshot.get();
+      LOG.info("Snapshot complete."
+          + " host attrs: " + snapshot.getHostAttributesSize()
+          + ", cron jobs: " + snapshot.getCronJobsSize()
+          + ", quota confs: " + snapshot.getQuotaConfigurationsSize()
+          + ", tasks: " + snapshot.getTasksSize()
+          + ", updates: " + snapshot.getJobUpdateDetailsSize()
+          + ", host maintenance requests: " + snapshot.getHostMaintenanceRequestsSize());
     } catch (CodingException e) {
       throw new StorageException("Failed to encode a snapshot", e);
     } catch (InvalidPositionException e) {
       throw new StorageException("Saved snapshot but failed to truncate entries preceding it", e);
-    } catch (StreamAccessException e) {
+    } catch (StreamAccessException | PersistenceException e) {
       throw new StorageException("Failed to create a snapshot", e);
     }
   }
 
+  private static final class PendingSnapshot {
+    private final Supplier<Snapshot> snapshot;
+    private final PendingCommit commit;
+
+    PendingSnapshot(Supplier<Snapshot> snapshot, PendingCommit commit) {
+      this.snapshot = snapshot;
+      this.commit = commit;
+    }
+  }
+
   @Timed("scheduler_log_snapshot_persist")
   @Override
   public void snapshotWith(Snapshot snapshot)
@@ -13,9 +13,13 @@
  */
 package org.apache.aurora.scheduler.storage.log;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -56,6 +60,7 @@ import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IHostMaintenanceRequest;
 import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateDetails;
 import org.apache.aurora.scheduler.storage.entities.IResourceAggregate;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.slf4j.Logger;
@@ -99,9 +104,9 @@ public class SnapshotterImpl implements Snapshotter {
         }
 
         @Override
-        void saveToSnapshot(StoreProvider store, Snapshot snapshot) {
-          snapshot.setHostAttributes(
-              IHostAttributes.toBuildersSet(store.getAttributeStore().getHostAttributes()));
+        Consumer<Snapshot> capture(StoreProvider store) {
+          Set<IHostAttributes> attributes = store.getAttributeStore().getHostAttributes();
+          return snapshot -> snapshot.setHostAttributes(IHostAttributes.toBuildersSet(attributes));
         }
 
         @Override
@@ -121,9 +126,9 @@ public class SnapshotterImpl implements Snapshotter {
         }
 
         @Override
-        void saveToSnapshot(StoreProvider store, Snapshot snapshot) {
-          snapshot.setTasks(
-              IScheduledTask.toBuildersSet(store.getTaskStore().fetchTasks(Query.unscoped())));
+        Consumer<Snapshot> capture(StoreProvider store) {
+          Collection<IScheduledTask> tasks = store.getTaskStore().fetchTasks(Query.unscoped());
+          return snapshot -> snapshot.setTasks(IScheduledTask.toBuildersSet(tasks));
         }
 
         @Override
@@ -141,13 +146,16 @@ public class SnapshotterImpl implements Snapshotter {
         }
 
         @Override
-        void saveToSnapshot(StoreProvider store, Snapshot snapshot) {
-          ImmutableSet.Builder<StoredCronJob> jobs = ImmutableSet.builder();
-
-          for (IJobConfiguration config : store.getCronJobStore().fetchJobs()) {
-            jobs.add(new StoredCronJob(config.newBuilder()));
-          }
-          snapshot.setCronJobs(jobs.build());
+        Consumer<Snapshot> capture(StoreProvider store) {
+          Iterable<IJobConfiguration> configs = store.getCronJobStore().fetchJobs();
+          return snapshot -> {
+            ImmutableSet.Builder<StoredCronJob> jobs = ImmutableSet.builder();
+
+            for (IJobConfiguration config : configs) {
+              jobs.add(new StoredCronJob(config.newBuilder()));
+            }
+            snapshot.setCronJobs(jobs.build());
+          };
         }
 
         @Override
@@ -167,8 +175,9 @@ public class SnapshotterImpl implements Snapshotter {
         }
 
         @Override
-        void saveToSnapshot(StoreProvider store, Snapshot snapshot) {
+        Consumer<Snapshot> capture(StoreProvider store) {
           // SchedulerMetadata is updated outside of the static list of SnapshotFields
+          return snapshot -> { };
         }
 
         @Override
@@ -190,15 +199,16 @@ public class SnapshotterImpl implements Snapshotter {
         }
 
         @Override
-        void saveToSnapshot(StoreProvider store, Snapshot snapshot) {
-          ImmutableSet.Builder<QuotaConfiguration> quotas = ImmutableSet.builder();
-          for (Map.Entry<String, IResourceAggregate> entry
-              : store.getQuotaStore().fetchQuotas().entrySet()) {
-
-            quotas.add(new QuotaConfiguration(entry.getKey(), entry.getValue().newBuilder()));
-          }
-
-          snapshot.setQuotaConfigurations(quotas.build());
+        Consumer<Snapshot> capture(StoreProvider store) {
+          Map<String, IResourceAggregate> quotaByRole = store.getQuotaStore().fetchQuotas();
+          return snapshot -> {
+            ImmutableSet.Builder<QuotaConfiguration> quotas = ImmutableSet.builder();
+            for (Map.Entry<String, IResourceAggregate> entry : quotaByRole.entrySet()) {
+              quotas.add(new QuotaConfiguration(entry.getKey(), entry.getValue().newBuilder()));
+            }
+
+            snapshot.setQuotaConfigurations(quotas.build());
+          };
         }
 
         @Override
@@ -219,11 +229,12 @@ public class SnapshotterImpl implements Snapshotter {
         }
 
         @Override
-        void saveToSnapshot(StoreProvider store, Snapshot snapshot) {
-          snapshot.setJobUpdateDetails(
-              store.getJobUpdateStore().fetchJobUpdates(JobUpdateStore.MATCH_ALL).stream()
-                  .map(u -> new StoredJobUpdateDetails().setDetails(u.newBuilder()))
-                  .collect(Collectors.toSet()));
+        Consumer<Snapshot> capture(StoreProvider store) {
+          List<IJobUpdateDetails> updates =
+              store.getJobUpdateStore().fetchJobUpdates(JobUpdateStore.MATCH_ALL);
+          return snapshot -> snapshot.setJobUpdateDetails(updates.stream()
+              .map(u -> new StoredJobUpdateDetails().setDetails(u.newBuilder()))
+              .collect(Collectors.toSet()));
         }
 
         @Override
@@ -268,10 +279,11 @@ public class SnapshotterImpl implements Snapshotter {
         }
 
         @Override
-        void saveToSnapshot(StoreProvider storeProvider, Snapshot snapshot) {
-          snapshot.setHostMaintenanceRequests(
-              IHostMaintenanceRequest.toBuildersSet(
-                  storeProvider.getHostMaintenanceStore().getHostMaintenanceRequests()));
+        Consumer<Snapshot> capture(StoreProvider storeProvider) {
+          Set<IHostMaintenanceRequest> requests =
+              storeProvider.getHostMaintenanceStore().getHostMaintenanceRequests();
+          return snapshot -> snapshot.setHostMaintenanceRequests(
+              IHostMaintenanceRequest.toBuildersSet(requests));
         }
 
         @Override
@@ -295,29 +307,44 @@ public class SnapshotterImpl implements Snapshotter {
     this.clock = requireNonNull(clock);
   }
 
-  private Snapshot createSnapshot(StoreProvider storeProvider) {
-    Snapshot snapshot = new Snapshot();
-
+  private Supplier<Snapshot> captureSnapshot(StoreProvider storeProvider) {
     // Capture timestamp to signify the beginning of a snapshot operation, apply after in case
     // one of the field closures is mean and tries to apply a timestamp.
     long timestamp = clock.nowMillis();
-    for (SnapshotField field : snapshotFields) {
-      field.save(storeProvider, snapshot);
-    }
 
-    SchedulerMetadata metadata = new SchedulerMetadata()
-        .setFrameworkId(storeProvider.getSchedulerStore().fetchFrameworkId().orElse(null))
-        .setDetails(buildInfo.getProperties());
+    // The stores hand out immutable entities in detached collections, so holding on to them is
+    // sufficient to retain a consistent view once the caller releases the storage lock.
+    List<Consumer<Snapshot>> writers = snapshotFields.stream()
+        .map(field -> field.save(storeProvider))
+        .collect(Collectors.toList());
+    Optional<String> frameworkId = storeProvider.getSchedulerStore().fetchFrameworkId();
+
+    return () -> {
+      Snapshot snapshot = new Snapshot();
+      for (Consumer<Snapshot> writer : writers) {
+        writer.accept(snapshot);
+      }
+
+      SchedulerMetadata metadata = new SchedulerMetadata()
+          .setFrameworkId(frameworkId.orElse(null))
+          .setDetails(buildInfo.getProperties());
 
-    snapshot.setSchedulerMetadata(metadata);
-    snapshot.setTimestamp(timestamp);
-    return snapshot;
+      snapshot.setSchedulerMetadata(metadata);
+      snapshot.setTimestamp(timestamp);
+      return snapshot;
+    };
   }
 
   @Timed("snapshot_create")
   @Override
   public Snapshot from(StoreProvider stores) {
-    return createSnapshot(stores);
+    return captureSnapshot(stores).get();
+  }
+
+  @Timed("snapshot_capture")
+  @Override
+  public Supplier<Snapshot> capture(StoreProvider stores) {
+    return captureSnapshot(stores);
   }
 
   @Timed("snapshot_apply")
@@ -334,13 +361,19 @@ public class SnapshotterImpl implements Snapshotter {
 
     abstract String getName();
 
-    abstract void saveToSnapshot(StoreProvider storeProvider, Snapshot snapshot);
+    /**
+     * Captures the field's contents from storage, returning a function that populates a snapshot
+     * with them.  Capturing must be cheap, as it happens while the caller holds the storage lock;
+     * the costly conversion to thrift should be deferred to the returned function.
+     */
+    abstract Consumer<Snapshot> capture(StoreProvider storeProvider);
 
     abstract Stream<Op> doStreamFrom(Snapshot snapshot);
 
-    void save(StoreProvider storeProvider, Snapshot snapshot) {
-      stats.getUnchecked(SNAPSHOT_SAVE + getName())
-          .time((Timeable.NoResult.Quiet) () -> saveToSnapshot(storeProvider, snapshot));
+    Consumer<Snapshot> save(StoreProvider storeProvider) {
+      Consumer<Snapshot> writer = capture(storeProvider);
+      return snapshot -> stats.getUnchecked(SNAPSHOT_SAVE + getName())
+          .time((Timeable.NoResult.Quiet) () -> writer.accept(snapshot));
     }
 
     Stream<Op> streamFrom(Snapshot snapshot) {
@@ -34,14 +34,23 @@ import static org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
  */
 public interface StreamManager {
   /**
-   * Reads all entries in the log stream.
+   * Reads all entries in the log stream.  Entries may be read ahead in the background until the
+   * returned iterator is exhausted or closed, so callers that stop iterating early must close it.
    *
    * @return All stored log entries.
    * @throws CodingException if there was a problem decoding a log entry from the stream.
    * @throws InvalidPositionException if the given position is not found in the log.
    * @throws StreamAccessException if there is a problem reading from the log.
    */
-  Iterator<LogEntry> readFromBeginning() throws CodingException, StreamAccessException;
+  LogEntryIterator readFromBeginning() throws CodingException, StreamAccessException;
+
+  /**
+   * An iterator over log entries that releases any resources used to read ahead when closed.
+   */
+  interface LogEntryIterator extends Iterator<LogEntry>, AutoCloseable {
+    @Override
+    void close();
+  }
 
   /**
    * Truncates all entries in the log stream occuring before the given position.  The entry at the
@@ -13,19 +13,32 @@
  */
 package org.apache.aurora.scheduler.storage.log;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hasher;
 import com.google.common.primitives.Bytes;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.assistedinject.Assisted;
 
 import org.apache.aurora.common.stats.Stats;
@@ -48,6 +61,7 @@ import static org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import static org.apache.aurora.scheduler.log.Log.Stream.InvalidPositionException;
 import static org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
 import static org.apache.aurora.scheduler.storage.log.LogManager.LogEntryHashFunction;
+import static org.apache.aurora.scheduler.storage.log.LogManager.RecoveryThreads;
 
 class StreamManagerImpl implements StreamManager {
   private static final Logger LOG = LoggerFactory.getLogger(StreamManagerImpl.class);
@@ -71,47 +85,151 @@ class StreamManagerImpl implements StreamManager {
   private final EntrySerializer entrySerializer;
   private final HashFunction hashFunction;
   private final SnapshotDeduplicator snapshotDeduplicator;
+  private final int recoveryThreads;
 
   @Inject
   StreamManagerImpl(
       @Assisted Stream stream,
       EntrySerializer entrySerializer,
       @LogEntryHashFunction HashFunction hashFunction,
-      SnapshotDeduplicator snapshotDeduplicator) {
+      SnapshotDeduplicator snapshotDeduplicator,
+      @RecoveryThreads int recoveryThreads) {
 
     this.stream = requireNonNull(stream);
     this.entrySerializer = requireNonNull(entrySerializer);
     this.hashFunction = requireNonNull(hashFunction);
     this.snapshotDeduplicator = requireNonNull(snapshotDeduplicator);
+    this.recoveryThreads = recoveryThreads;
   }
 
   @Override
-  public Iterator<LogEntry> readFromBeginning()
+  public LogEntryIterator readFromBeginning()
       throws CodingException, InvalidPositionException, StreamAccessException {
 
     Iterator<Log.Entry> entries = stream.readAll();
 
-    return new AbstractIterator<LogEntry>() {
+    // Decoding and post-processing of entries are independent of each other and dominate recovery
+    // time, so they are pipelined on a worker pool.  Frames are still reassembled in log order on
+    // the reading thread, and entries are handed out in log order.  The pool is a fork-join pool
+    // so that snapshot reduplication, which runs on it, can split its work across the same pool.
+    ExecutorService recoveryExecutor;
+    int window;
+    if (recoveryThreads > 1) {
+      recoveryExecutor = new ForkJoinPool(
+          recoveryThreads,
+          pool -> {
+            ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("LogRecovery-" + thread.getPoolIndex());
+            return thread;
+          },
+          null,
+          false);
+      window = recoveryThreads * 2;
+    } else {
+      recoveryExecutor = MoreExecutors.newDirectExecutorService();
+      window = 1;
+    }
+
+    Iterator<LogEntry> decoded = new PipelinedIterator<>(
+        Iterators.<Log.Entry, Callable<LogEntry>>transform(
+            entries,
+            entry -> () -> decodeLogEntry(entry)),
+        recoveryExecutor,
+        window * 2);
+    Iterator<LogEntry> pipeline =
+        new PipelinedIterator<>(assembleFrames(decoded), recoveryExecutor, window);
+    return new LogEntryIterator() {
+      @Override
+      public boolean hasNext() {
+        try {
+          boolean hasNext = pipeline.hasNext();
+          if (!hasNext) {
+            recoveryExecutor.shutdown();
+          }
+          return hasNext;
+        } catch (RuntimeException e) {
+          close();
+          throw e;
+        }
+      }
+
+      @Override
+      public LogEntry next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return pipeline.next();
+      }
+
       @Override
-      protected LogEntry computeNext() {
+      public void close() {
+        recoveryExecutor.shutdownNow();
+      }
+    };
+  }
+
+  /**
+   * Hands out the results of tasks in order, while keeping up to a fixed number of subsequent
+   * tasks running ahead.
+   */
+  private static class PipelinedIterator<T> extends AbstractIterator<T> {
+    private final Iterator<Callable<T>> tasks;
+    private final ExecutorService executor;
+    private final int window;
+    private final Deque<Future<T>> running = new ArrayDeque<>();
+
+    PipelinedIterator(Iterator<Callable<T>> tasks, ExecutorService executor, int window) {
+      this.tasks = tasks;
+      this.executor = executor;
+      this.window = window;
+    }
+
+    @Override
+    protected T computeNext() {
+      while (running.size() < window && tasks.hasNext()) {
+        running.addLast(executor.submit(tasks.next()));
+      }
+      if (running.isEmpty()) {
+        endOfData();
+        return null;
+      }
+
+      try {
+        return running.removeFirst().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new StreamAccessException("Interrupted while reading the log", e);
+      } catch (ExecutionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new StreamAccessException("Failed to read the log", e.getCause());
+      }
+    }
+  }
+
+  private Iterator<Callable<LogEntry>> assembleFrames(Iterator<LogEntry> entries) {
+    return new AbstractIterator<Callable<LogEntry>>() {
+      @Override
+      protected Callable<LogEntry> computeNext() {
         while (entries.hasNext()) {
-          LogEntry logEntry = decodeLogEntry(entries.next());
+          LogEntry logEntry = entries.next();
           while (logEntry != null && isFrame(logEntry)) {
-            logEntry = tryDecodeFrame(logEntry.getFrame(), entries);
+            Frame frame = logEntry.getFrame();
+            if (!isHeader(frame)) {
+              LOG.warn("Found a frame with no preceding header, skipping.");
+              logEntry = null;
+            } else {
+              FrameHeader header = frame.getHeader();
+              List<byte[]> chunks = new ArrayList<>(header.getChunkCount());
+              logEntry = readChunks(header, entries, chunks);
+              if (chunks.size() == header.getChunkCount()) {
+                return () -> postProcess(decodeFrame(header, chunks));
+              }
+            }
           }
           if (logEntry != null) {
-            if (logEntry.isSet(LogEntry._Fields.DEFLATED_ENTRY)) {
-              logEntry = Entries.inflate(logEntry);
-              vars.deflatedEntriesRead.incrementAndGet();
-            }
-
-            if (logEntry.isSetDeduplicatedSnapshot()) {
-              logEntry = LogEntry.snapshot(
-                  snapshotDeduplicator.reduplicate(logEntry.getDeduplicatedSnapshot()));
-            }
-
-            vars.entriesRead.incrementAndGet();
-            return logEntry;
+            LogEntry entry = logEntry;
+            return () -> postProcess(entry);
           }
         }
         return endOfData();
@@ -119,22 +237,19 @@ class StreamManagerImpl implements StreamManager {
     };
   }
 
+  /**
+   * Reads the chunks of a framed entry.
+   *
+   * @return The entry that interrupted the frame, if any.
+   */
   @Nullable
-  private LogEntry tryDecodeFrame(Frame frame, Iterator<Log.Entry> entries) throws CodingException {
-    if (!isHeader(frame)) {
-      LOG.warn("Found a frame with no preceding header, skipping.");
-      return null;
-    }
-    FrameHeader header = frame.getHeader();
-    byte[][] chunks = new byte[header.getChunkCount()][];
-
-    Hasher hasher = hashFunction.newHasher();
+  private LogEntry readChunks(FrameHeader header, Iterator<LogEntry> entries, List<byte[]> chunks) {
     for (int i = 0; i < header.getChunkCount(); i++) {
       if (!entries.hasNext()) {
         logBadFrame(header, i);
         return null;
       }
-      LogEntry logEntry = decodeLogEntry(entries.next());
+      LogEntry logEntry = entries.next();
       if (!isFrame(logEntry)) {
         logBadFrame(header, i);
         return logEntry;
@@ -144,14 +259,35 @@ class StreamManagerImpl implements StreamManager {
         logBadFrame(header, i);
         return logEntry;
       }
-      byte[] chunkData = chunkFrame.getChunk().getData();
-      hasher.putBytes(chunkData);
-      chunks[i] = chunkData;
+      chunks.add(chunkFrame.getChunk().getData());
+    }
+    return null;
+  }
+
+  private LogEntry decodeFrame(FrameHeader header, List<byte[]> chunks) throws CodingException {
+    Hasher hasher = hashFunction.newHasher();
+    for (byte[] chunk : chunks) {
+      hasher.putBytes(chunk);
     }
     if (!Arrays.equals(header.getChecksum(), hasher.hash().asBytes())) {
       throw new CodingException("Read back a framed log entry that failed its checksum");
     }
-    return Entries.thriftBinaryDecode(Bytes.concat(chunks));
+    return Entries.thriftBinaryDecode(Bytes.concat(chunks.toArray(new byte[0][])));
+  }
+
+  private LogEntry postProcess(LogEntry logEntry) throws CodingException {
+    if (logEntry.isSet(LogEntry._Fields.DEFLATED_ENTRY)) {
+      logEntry = Entries.inflate(logEntry);
+      vars.deflatedEntriesRead.incrementAndGet();
+    }
+
+    if (logEntry.isSetDeduplicatedSnapshot()) {
+      logEntry = LogEntry.snapshot(
+          snapshotDeduplicator.reduplicate(logEntry.getDeduplicatedSnapshot()));
+    }
+
+    vars.entriesRead.incrementAndGet();
+    return logEntry;
   }
 
   private static boolean isFrame(LogEntry logEntry) {
@@ -14,83 +14,116 @@
 package org.apache.aurora.scheduler.storage.mem;
 
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+
+import static java.util.Objects.requireNonNull;
 
 /**
- * An interning pool that can be used to retrieve the canonical instances of objects, while
- * maintaining a reference count to the canonical instances.
+ * A concurrent interning pool that can be used to retrieve the canonical instances of objects,
+ * while maintaining a reference count to the canonical instances.
+ *
+ * <p>Updates to an entry are performed atomically while holding only the lock of the hash bin
+ * the entry belongs to, so threads interning unrelated objects rarely contend.  Each entry caches
+ * the hash code of its object, which is computed once per call to {@link #intern(Object)} and
+ * never when an entry is released.
  *
  * @param <T> The interned object type.
- * @param <A> The type used for maintaining associations.
  */
-class Interner<T, A> {
+class Interner<T> {
 
-  private final Map<T, InternEntry<A, T>> pool = Maps.newHashMap();
+  private final Map<Entry<T>, Entry<T>> pool = new ConcurrentHashMap<>();
 
   /**
-   * Retrieves the canonical instance of {@code t} and maintains {@code association} with the
-   * interned value.  If {@code t} was not previously interned, the provided instance is stored.
+   * Retrieves the canonical instance of {@code t} and increments its reference count.  If
+   * {@code t} was not previously interned, the provided instance is stored.
    *
    * @param t The object to intern, or get the previously-interned value for.
-   * @param association A value to associate with {@code t}.
-   * @return The interned value, which may be reference-equivalent to {@code t}.
+   * @return A reference to the interned value, which may be reference-equivalent to {@code t}.
+   *         The reference must be released with {@link #release(Entry)} once it is unused.
    */
-  synchronized T addAssociation(T t, A association) {
-    InternEntry<A, T> entry = pool.get(t);
-    if (entry == null) {
-      entry = new InternEntry<>(t, association);
-      pool.put(t, entry);
-    } else {
-      entry.associations.add(association);
-    }
-    return entry.interned;
+  Entry<T> intern(T t) {
+    Entry<T> probe = new Entry<>(t);
+    return pool.compute(probe, (key, existing) -> {
+      Entry<T> entry = existing == null ? probe : existing;
+      entry.references++;
+      return entry;
+    });
   }
 
   /**
-   * Removes an association with an interned value, effectively decrementing the reference count.
+   * Releases a reference to an interned value, removing the value from the pool once no
+   * references remain.  References obtained before the pool was {@link #clear() cleared} are
+   * ignored.
    *
-   * @param t The interned value that {@code association} was associated with.
-   * @param association The association to remove.
+   * @param entry The reference to release.
    */
-  synchronized void removeAssociation(T t, A association) {
-    InternEntry<A, T> entry = pool.get(t);
-    if (entry != null) {
-      entry.associations.remove(association);
-      if (entry.associations.isEmpty()) {
-        pool.remove(t);
+  void release(Entry<T> entry) {
+    requireNonNull(entry);
+    pool.computeIfPresent(entry, (key, existing) -> {
+      if (existing != entry) {
+        return existing;
       }
-    }
+      entry.references--;
+      return entry.references == 0 ? null : entry;
+    });
   }
 
   /**
-   * Removes all interned values and associations.
+   * Removes all interned values.
    */
-  synchronized void clear() {
+  void clear() {
     pool.clear();
   }
 
   @VisibleForTesting
-  synchronized boolean isInterned(T t) {
-    return pool.containsKey(t);
+  boolean isInterned(T t) {
+    return pool.containsKey(new Entry<>(t));
   }
 
   @VisibleForTesting
-  synchronized Set<A> getAssociations(T t) {
-    return ImmutableSet.copyOf(pool.get(t).associations);
+  int getReferences(T t) {
+    Entry<T> entry = pool.get(new Entry<>(t));
+    return entry == null ? 0 : entry.references;
   }
 
-  private static class InternEntry<A, T> {
+  /**
+   * A reference-counted entry in the pool.
+   *
+   * @param <T> The interned object type.
+   */
+  static final class Entry<T> {
     private final T interned;
-    private final Set<A> associations = Sets.newHashSet();
+    private final int hash;
+    // Only accessed while the pool holds the lock for this entry.
+    private int references = 0;
+
+    private Entry(T interned) {
+      this.interned = requireNonNull(interned);
+      this.hash = interned.hashCode();
+    }
+
+    T get() {
+      return interned;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+
+      Entry<?> other = (Entry<?>) o;
+      return hash == other.hash && interned.equals(other.interned);
+    }
 
-    InternEntry(T interned, A initialAssociation) {
-      this.interned = interned;
-      associations.add(initialAssociation);
+    @Override
+    public int hashCode() {
+      return hash;
     }
   }
 }
@@ -18,35 +18,42 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
-import javax.inject.Inject;
+import javax.annotation.Nullable;
 import javax.inject.Qualifier;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
-import com.google.common.base.Supplier;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
+import com.google.common.collect.MinMaxPriorityQueue;
+import com.google.common.primitives.Ints;
+import com.google.inject.Inject;
 
+import org.apache.aurora.codec.ThriftBinaryCodec;
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.scheduler.base.JobKeys;
@@ -75,14 +82,34 @@ class MemTaskStore implements TaskStore.Mutable {
   @Qualifier
   public @interface SlowQueryThreshold { }
 
+  /**
+   * When true, terminal tasks are stored in a compact encoded form.
+   */
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ElementType.METHOD, ElementType.PARAMETER})
+  @Qualifier
+  public @interface CompactTerminalTasks { }
+
   private final long slowQueryThresholdNanos;
 
+  private static final Comparator<IScheduledTask> BY_TASK_ID = Comparator.comparing(Tasks::id);
+
   private static final Function<Query.Builder, Optional<Set<IJobKey>>> QUERY_TO_JOB_KEY =
       JobKeys::from;
   private static final Function<Query.Builder, Optional<Set<String>>> QUERY_TO_SLAVE_HOST =
       query -> query.get().getSlaveHosts().isEmpty()
           ? Optional.empty()
           : Optional.of(query.get().getSlaveHosts());
+  private static final Function<Query.Builder, Optional<Set<ScheduleStatus>>> QUERY_TO_STATUS =
+      query -> query.get().getStatuses().isEmpty()
+          ? Optional.empty()
+          : Optional.of(query.get().getStatuses());
+  // Blank roles are ignored by the query filter, so they must not restrict the index lookup either.
+  private static final Function<Query.Builder, Optional<Set<String>>> QUERY_TO_ROLE =
+      query -> query.get().getRole() == null
+          || CharMatcher.whitespace().matchesAllOf(query.get().getRole())
+          ? Optional.empty()
+          : Optional.of(ImmutableSet.of(query.get().getRole()));
 
   // Since this class operates under the API and umbrella of {@link Storage}, it is expected to be
   // thread-safe but not necessarily strongly-consistent unless the externally-controlled storage
@@ -98,16 +125,41 @@ class MemTaskStore implements TaskStore.Mutable {
   private final List<SecondaryIndex<?>> secondaryIndices;
   // An interner is used here to collapse equivalent TaskConfig instances into canonical instances.
   // Ideally this would fall out of the object hierarchy (TaskConfig being associated with the job
-  // rather than the task), but we intuit this detail here for performance reasons.
-  private final Interner<TaskConfig, String> configInterner = new Interner<>();
+  // rather than the task), but we intuit this detail here for performance reasons.  Each stored
+  // task holds a reference to its canonical config, which is released when the task is replaced or
+  // deleted.
+  private final Interner<TaskConfig> configInterner = new Interner<>();
 
   private final AtomicLong taskQueriesById;
   private final AtomicLong taskQueriesAll;
+  private final AtomicLong taskQueriesIntersected;
+
+  // Terminal tasks are retained until pruned, and may make up most of the store.  When enabled,
+  // they are kept encoded without their (interned) config, and inflated on every read.  Both tiers
+  // report their number of tasks.  The compact tier also reports the size of its encoded payloads,
+  // which excludes configs and object overhead, so it is not a measure of heap usage.
+  private final boolean compactTerminalTasks;
+  private final AtomicLong expandedTasks;
+  private final AtomicLong compactTasks;
+  private final AtomicLong compactTaskEncodedBytes;
+
+  private volatile Listener listener = new Listener() {
+    @Override
+    public void taskChanged(Optional<IScheduledTask> before, Optional<IScheduledTask> after) {
+      // No-op.
+    }
+
+    @Override
+    public void allTasksDeleted() {
+      // No-op.
+    }
+  };
 
   @Inject
   MemTaskStore(
       StatsProvider statsProvider,
-      @SlowQueryThreshold Amount<Long, Time> slowQueryThreshold) {
+      @SlowQueryThreshold Amount<Long, Time> slowQueryThreshold,
+      @CompactTerminalTasks boolean compactTerminalTasks) {
 
     jobIndex = new SecondaryIndex<>(Tasks::getJob, QUERY_TO_JOB_KEY, statsProvider, "job");
     secondaryIndices = ImmutableList.of(
@@ -116,17 +168,41 @@ class MemTaskStore implements TaskStore.Mutable {
             Tasks::scheduledToSlaveHost,
             QUERY_TO_SLAVE_HOST,
             statsProvider,
-            "host"));
+            "host"),
+        new SecondaryIndex<>(IScheduledTask::getStatus, QUERY_TO_STATUS, statsProvider, "status"),
+        new SecondaryIndex<>(
+            task -> Tasks.getJob(task).getRole(),
+            QUERY_TO_ROLE,
+            statsProvider,
+            "role"));
     slowQueryThresholdNanos = slowQueryThreshold.as(Time.NANOSECONDS);
     taskQueriesById = statsProvider.makeCounter("task_queries_by_id");
     taskQueriesAll = statsProvider.makeCounter("task_queries_all");
+    taskQueriesIntersected = statsProvider.makeCounter("task_queries_intersected");
+    this.compactTerminalTasks = compactTerminalTasks;
+    expandedTasks = statsProvider.makeCounter(getTierSizeStatName("expanded", "tasks"));
+    compactTasks = statsProvider.makeCounter(getTierSizeStatName("compact", "tasks"));
+    compactTaskEncodedBytes =
+        statsProvider.makeCounter(getTierSizeStatName("compact", "encoded_bytes"));
+  }
+
+  /**
+   * Registers a listener to be notified of every change to the stored tasks.  Injection is
+   * optional since a listener is only bound by modules that derive state from the task store.
+   * Changes are applied and notified while holding the listener's monitor.
+   *
+   * @param newListener Listener to notify.
+   */
+  @Inject(optional = true)
+  void setListener(Listener newListener) {
+    this.listener = requireNonNull(newListener);
   }
 
   @Timed("mem_storage_fetch_task")
   @Override
   public Optional<IScheduledTask> fetchTask(String taskId) {
     requireNonNull(taskId);
-    return Optional.ofNullable(tasks.get(taskId)).map(t -> t.storedTask);
+    return Optional.ofNullable(tasks.get(taskId)).map(Task::get);
   }
 
   @Timed("mem_storage_fetch_tasks")
@@ -149,13 +225,52 @@ class MemTaskStore implements TaskStore.Mutable {
     return result;
   }
 
+  @Timed("mem_storage_fetch_task_page")
+  @Override
+  public List<IScheduledTask> fetchTaskPage(Query.Builder query, Optional<String> afterTaskId) {
+    requireNonNull(query);
+    requireNonNull(afterTaskId);
+
+    int offset = Math.max(query.get().getOffset(), 0);
+    int limit = query.get().getLimit();
+
+    // Only the first (offset + limit) matches in task ID order can land in the page, so retain no
+    // more than that many while matching rather than every matching task.
+    Collection<IScheduledTask> retained = limit > 0
+        ? MinMaxPriorityQueue.orderedBy(BY_TASK_ID)
+            .maximumSize(Ints.saturatedCast((long) offset + limit))
+            .create()
+        : new ArrayList<>();
+    forEachMatch(query, task -> {
+      if (!afterTaskId.isPresent() || Tasks.id(task).compareTo(afterTaskId.get()) > 0) {
+        retained.add(task);
+      }
+    });
+
+    return retained.stream()
+        .sorted(BY_TASK_ID)
+        .skip(offset)
+        .limit(limit > 0 ? limit : Long.MAX_VALUE)
+        .collect(ImmutableList.toImmutableList());
+  }
+
   @Timed("mem_storage_get_job_keys")
   @Override
   public Set<IJobKey> getJobKeys() {
     return jobIndex.keySet();
   }
 
-  private final Function<IScheduledTask, Task> toTask = task -> new Task(task, configInterner);
+  private final Function<IScheduledTask, Task> toTask =
+      task -> new Task(task, configInterner, compactTerminalTasks);
+
+  private void track(Task task, int delta) {
+    if (task.isCompact()) {
+      compactTasks.addAndGet(delta);
+      compactTaskEncodedBytes.addAndGet(delta * task.compact.length);
+    } else {
+      expandedTasks.addAndGet(delta);
+    }
+  }
 
   @Timed("mem_storage_save_tasks")
   @Override
@@ -164,21 +279,61 @@ class MemTaskStore implements TaskStore.Mutable {
     Preconditions.checkState(Tasks.ids(newTasks).size() == newTasks.size(),
         "Proposed new tasks would create task ID collision.");
 
-    Iterable<Task> canonicalized = newTasks.stream().map(toTask).collect(Collectors.toList());
-    tasks.putAll(Maps.uniqueIndex(canonicalized, task -> Tasks.id(task.storedTask)));
-    for (SecondaryIndex<?> index : secondaryIndices) {
-      index.insert(Iterables.transform(canonicalized, task -> task.storedTask));
+    synchronized (listener) {
+      // Overwritten tasks must be dropped from the indices first, otherwise entries keyed by a
+      // value that changed (e.g. status) would be left behind.
+      List<Task> overwritten = new ArrayList<>();
+      Map<String, IScheduledTask> previous = Maps.newHashMap();
+      for (IScheduledTask task : newTasks) {
+        Task existing = tasks.get(Tasks.id(task));
+        if (existing != null) {
+          overwritten.add(existing);
+          IScheduledTask existingTask = existing.get();
+          previous.put(Tasks.id(existingTask), existingTask);
+          for (SecondaryIndex<?> index : secondaryIndices) {
+            index.remove(existingTask);
+          }
+        }
+      }
+
+      Map<String, Task> canonicalized = Maps.newHashMapWithExpectedSize(newTasks.size());
+      for (IScheduledTask task : newTasks) {
+        canonicalized.put(Tasks.id(task), toTask.apply(task));
+      }
+      tasks.putAll(canonicalized);
+      for (SecondaryIndex<?> index : secondaryIndices) {
+        index.insert(newTasks);
+      }
+      for (Task task : canonicalized.values()) {
+        track(task, 1);
+      }
+      for (IScheduledTask task : newTasks) {
+        listener.taskChanged(Optional.ofNullable(previous.get(Tasks.id(task))), Optional.of(task));
+      }
+
+      // Released only after the new tasks are interned, so that a config shared by the old and
+      // new versions of a task stays in the pool.
+      for (Task task : overwritten) {
+        configInterner.release(task.config);
+        track(task, -1);
+      }
     }
   }
 
   @Timed("mem_storage_delete_all_tasks")
   @Override
   public void deleteAllTasks() {
-    tasks.clear();
-    for (SecondaryIndex<?> index : secondaryIndices) {
-      index.clear();
+    synchronized (listener) {
+      tasks.clear();
+      for (SecondaryIndex<?> index : secondaryIndices) {
+        index.clear();
+      }
+      configInterner.clear();
+      expandedTasks.set(0);
+      compactTasks.set(0);
+      compactTaskEncodedBytes.set(0);
+      listener.allTasksDeleted();
     }
-    configInterner.clear();
   }
 
   @Timed("mem_storage_delete_tasks")
@@ -186,15 +341,18 @@ class MemTaskStore implements TaskStore.Mutable {
   public void deleteTasks(Set<String> taskIds) {
     requireNonNull(taskIds);
 
-    for (String id : taskIds) {
-      Task removed = tasks.remove(id);
-      if (removed != null) {
-        for (SecondaryIndex<?> index : secondaryIndices) {
-          index.remove(removed.storedTask);
+    synchronized (listener) {
+      for (String id : taskIds) {
+        Task removed = tasks.remove(id);
+        if (removed != null) {
+          IScheduledTask removedTask = removed.get();
+          for (SecondaryIndex<?> index : secondaryIndices) {
+            index.remove(removedTask);
+          }
+          configInterner.release(removed.config);
+          track(removed, -1);
+          listener.taskChanged(Optional.of(removedTask), Optional.empty());
         }
-        configInterner.removeAssociation(
-            removed.storedTask.getAssignedTask().getTask().newBuilder(),
-            id);
       }
     }
   }
@@ -205,92 +363,141 @@ class MemTaskStore implements TaskStore.Mutable {
       String taskId,
       Function<IScheduledTask, IScheduledTask> mutator) {
 
-    return fetchTask(taskId).map(original -> {
-      IScheduledTask maybeMutated = mutator.apply(original);
-      requireNonNull(maybeMutated);
-      if (!original.equals(maybeMutated)) {
-        Preconditions.checkState(
-            Tasks.id(original).equals(Tasks.id(maybeMutated)),
-            "A task's ID may not be mutated.");
-        tasks.put(Tasks.id(maybeMutated), toTask.apply(maybeMutated));
-        for (SecondaryIndex<?> index : secondaryIndices) {
-          index.replace(original, maybeMutated);
+    synchronized (listener) {
+      return fetchTask(taskId).map(original -> {
+        IScheduledTask maybeMutated = mutator.apply(original);
+        requireNonNull(maybeMutated);
+        if (!original.equals(maybeMutated)) {
+          Preconditions.checkState(
+              Tasks.id(original).equals(Tasks.id(maybeMutated)),
+              "A task's ID may not be mutated.");
+          Task mutated = toTask.apply(maybeMutated);
+          Task replaced = tasks.put(Tasks.id(maybeMutated), mutated);
+          for (SecondaryIndex<?> index : secondaryIndices) {
+            index.replace(original, maybeMutated);
+          }
+          track(mutated, 1);
+          if (replaced != null) {
+            configInterner.release(replaced.config);
+            track(replaced, -1);
+          }
+          listener.taskChanged(Optional.of(original), Optional.of(maybeMutated));
         }
-      }
-      return maybeMutated;
-    });
+        return maybeMutated;
+      });
+    }
   }
 
-  private Collection<IScheduledTask> fromIdIndex(
+  private void fromIdIndex(
       Iterable<String> taskIds,
-      Predicate<IScheduledTask> filter) {
+      Set<ScheduleStatus> statuses,
+      Predicate<IScheduledTask> filter,
+      Consumer<IScheduledTask> sink) {
 
-    Collection<IScheduledTask> result = new ArrayDeque<>();
     for (String id : taskIds) {
       Task match = tasks.get(id);
-      if (match != null && filter.apply(match.storedTask)) {
-        result.add(match.storedTask);
+      if (match != null && match.hasStatus(statuses)) {
+        IScheduledTask task = match.get();
+        if (filter.apply(task)) {
+          sink.accept(task);
+        }
       }
     }
-    return result;
   }
 
   private Collection<IScheduledTask> matches(Query.Builder query) {
+    Collection<IScheduledTask> result = new ArrayDeque<>();
+    forEachMatch(query, result::add);
+    return Collections.unmodifiableCollection(result);
+  }
+
+  private void forEachMatch(Query.Builder query, Consumer<IScheduledTask> sink) {
     Predicate<IScheduledTask> filter = Util.queryFilter(query);
+    // Statuses are checked before a task is materialized, so that queries for active tasks never
+    // inflate compact terminal tasks.
+    Set<ScheduleStatus> statuses = query.get().getStatuses();
     if (query.get().getTaskIds().isEmpty()) {
+      List<IndexScan<?>> scans = new ArrayList<>();
       for (SecondaryIndex<?> index : secondaryIndices) {
-        Optional<Iterable<String>> indexMatch = index.getMatches(query);
-        if (indexMatch.isPresent()) {
-          // Note: we could leverage multiple indexes here if the query applies to them, by
-          // choosing to intersect the results.  Given current indexes and query profile, this is
-          // unlikely to offer much improvement, though.
-          return fromIdIndex(indexMatch.get(), filter);
+        index.getScan(query).ifPresent(scans::add);
+      }
+
+      // Drive the query from the most selective index, and probe the remaining applicable indices
+      // to intersect before materializing any tasks.  An index that would yield every task is no
+      // better than a full scan, which avoids the per-ID lookups.
+      scans.sort(Comparator.comparingLong(IndexScan::getCost));
+      if (!scans.isEmpty() && scans.get(0).getCost() < tasks.size()) {
+        IndexScan<?> driver = scans.get(0);
+        List<IndexScan<?>> probes = scans.subList(1, scans.size());
+        if (probes.isEmpty()) {
+          fromIdIndex(driver.lookup(), statuses, filter, sink);
+        } else {
+          taskQueriesIntersected.incrementAndGet();
+          fromIdIndex(
+              Iterables.filter(
+                  driver.lookup(),
+                  id -> probes.stream().allMatch(p -> p.contains(id))),
+              statuses,
+              filter,
+              sink);
         }
+        return;
       }
 
-      // No indices match, fall back to a full scan.
+      // No indices are selective, fall back to a full scan.
       taskQueriesAll.incrementAndGet();
-      Collection<IScheduledTask> result = new ArrayDeque<>();
-      for (Task task : tasks.values()) {
-        if (filter.test(task.storedTask)) {
-          result.add(task.storedTask);
+      for (Task match : tasks.values()) {
+        if (match.hasStatus(statuses)) {
+          IScheduledTask task = match.get();
+          if (filter.test(task)) {
+            sink.accept(task);
+          }
         }
       }
-      return Collections.unmodifiableCollection(result);
     } else {
       taskQueriesById.incrementAndGet();
-      return fromIdIndex(query.get().getTaskIds(), filter);
+      fromIdIndex(query.get().getTaskIds(), statuses, filter, sink);
     }
   }
 
   private static class Task {
-    private final IScheduledTask storedTask;
-
-    Task(IScheduledTask storedTask, Interner<TaskConfig, String> interner) {
-      interner.removeAssociation(
-          storedTask.getAssignedTask().getTask().newBuilder(),
-          Tasks.id(storedTask));
-      TaskConfig canonical = interner.addAssociation(
-          storedTask.getAssignedTask().getTask().newBuilder(),
-          Tasks.id(storedTask));
+    private final Interner.Entry<TaskConfig> config;
+    private final ScheduleStatus status;
+    // Exactly one of these is set.
+    @Nullable private final IScheduledTask storedTask;
+    @Nullable private final byte[] compact;
+
+    Task(IScheduledTask storedTask, Interner<TaskConfig> interner, boolean compactTerminal) {
       ScheduledTask builder = storedTask.newBuilder();
-      builder.getAssignedTask().setTask(canonical);
-      this.storedTask = IScheduledTask.build(builder);
+      this.config = interner.intern(builder.getAssignedTask().getTask());
+      this.status = storedTask.getStatus();
+      if (compactTerminal && Tasks.isTerminated(status)) {
+        builder.getAssignedTask().setTask(null);
+        this.storedTask = null;
+        this.compact = ThriftBinaryCodec.encodeNonNull(builder);
+      } else {
+        builder.getAssignedTask().setTask(config.get());
+        this.storedTask = IScheduledTask.build(builder);
+        this.compact = null;
+      }
     }
 
-    @Override
-    public boolean equals(Object o) {
-      if (!(o instanceof Task)) {
-        return false;
-      }
+    boolean isCompact() {
+      return compact != null;
+    }
 
-      Task other = (Task) o;
-      return storedTask.equals(other.storedTask);
+    boolean hasStatus(Set<ScheduleStatus> statuses) {
+      return statuses.isEmpty() || statuses.contains(status);
     }
 
-    @Override
-    public int hashCode() {
-      return storedTask.hashCode();
+    IScheduledTask get() {
+      if (storedTask != null) {
+        return storedTask;
+      }
+
+      ScheduledTask builder = ThriftBinaryCodec.decodeNonNull(ScheduledTask.class, compact);
+      builder.getAssignedTask().setTask(config.get());
+      return IScheduledTask.build(builder);
     }
   }
 
@@ -299,14 +506,24 @@ class MemTaskStore implements TaskStore.Mutable {
     return "task_store_index_" + name + "_items";
   }
 
+  @VisibleForTesting
+  static String getTierSizeStatName(String tier, String unit) {
+    return "task_store_" + tier + "_tier_" + unit;
+  }
+
   /**
    * A non-unique secondary index on the task store.  Maps a custom key type to a set of task IDs.
+   * <p>
+   * Reads are lock-free, and writes only contend with other writes to the same key.  A task moved
+   * between keys by {@link #replace(IScheduledTask, IScheduledTask)} is added under its new key
+   * before being removed from the old one, so a concurrent lookup never misses it, and lookups
+   * spanning several keys de-duplicate IDs so that it is not returned twice either.
    *
    * @param <K> Key type.
    */
   private static class SecondaryIndex<K> {
-    private final Multimap<K, String> index =
-        Multimaps.synchronizedSetMultimap(HashMultimap.create());
+    private final Map<K, Set<String>> index = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
     private final Function<IScheduledTask, K> indexer;
     private final Function<Query.Builder, Optional<Set<K>>> queryExtractor;
     private final AtomicLong hitCount;
@@ -328,14 +545,7 @@ class MemTaskStore implements TaskStore.Mutable {
       this.indexer = indexer;
       this.queryExtractor = queryExtractor;
       this.hitCount = statsProvider.makeCounter("task_queries_by_" + name);
-      statsProvider.makeGauge(
-          getIndexSizeStatName(name),
-          new Supplier<Number>() {
-            @Override
-            public Number get() {
-              return index.size();
-            }
-          });
+      statsProvider.makeGauge(getIndexSizeStatName(name), size::get);
     }
 
     Set<K> keySet() {
@@ -351,45 +561,119 @@ class MemTaskStore implements TaskStore.Mutable {
     void insert(IScheduledTask task) {
       K key = indexer.apply(task);
       if (key != null) {
-        index.put(key, Tasks.id(task));
+        insert(key, Tasks.id(task));
       }
     }
 
+    private void insert(K key, String taskId) {
+      index.compute(key, (k, ids) -> {
+        Set<String> updated = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+        if (updated.add(taskId)) {
+          size.incrementAndGet();
+        }
+        return updated;
+      });
+    }
+
     void clear() {
       index.clear();
+      size.set(0);
     }
 
     void remove(IScheduledTask task) {
       K key = indexer.apply(task);
       if (key != null) {
-        index.remove(key, Tasks.id(task));
+        remove(key, Tasks.id(task));
       }
     }
 
+    private void remove(K key, String taskId) {
+      index.computeIfPresent(key, (k, ids) -> {
+        if (ids.remove(taskId)) {
+          size.decrementAndGet();
+        }
+        return ids.isEmpty() ? null : ids;
+      });
+    }
+
     void replace(IScheduledTask old, IScheduledTask replacement) {
-      synchronized (index) {
-        remove(old);
-        insert(replacement);
+      K oldKey = indexer.apply(old);
+      K newKey = indexer.apply(replacement);
+      if (!Objects.equals(oldKey, newKey)) {
+        if (newKey != null) {
+          insert(newKey, Tasks.id(replacement));
+        }
+        if (oldKey != null) {
+          remove(oldKey, Tasks.id(old));
+        }
       }
     }
 
-    private final Function<Set<K>, Iterable<String>> lookup =
-        new Function<Set<K>, Iterable<String>>() {
-          @Override
-          public Iterable<String> apply(Set<K> keys) {
-            hitCount.incrementAndGet();
-            Collection<String> matches = new ArrayDeque<>();
-            synchronized (index) {
-              for (K key : keys) {
-                matches.addAll(index.get(key));
-              }
-            }
-            return matches;
-          }
-    };
+    Optional<IndexScan<K>> getScan(Query.Builder query) {
+      return queryExtractor.apply(query).map(keys -> new IndexScan<>(this, keys));
+    }
+
+    long estimateMatches(Set<K> keys) {
+      long matches = 0;
+      for (K key : keys) {
+        Set<String> ids = index.get(key);
+        if (ids != null) {
+          matches += ids.size();
+        }
+      }
+      return matches;
+    }
+
+    Iterable<String> lookup(Set<K> keys) {
+      hitCount.incrementAndGet();
+      Collection<String> matches = keys.size() == 1 ? new ArrayDeque<>() : new HashSet<>();
+      for (K key : keys) {
+        Set<String> ids = index.get(key);
+        if (ids != null) {
+          matches.addAll(ids);
+        }
+      }
+      return matches;
+    }
+
+    boolean containsAny(Set<K> keys, String taskId) {
+      for (K key : keys) {
+        Set<String> ids = index.get(key);
+        if (ids != null && ids.contains(taskId)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * A candidate lookup of a query against a single secondary index, along with the estimated
+   * number of task IDs the lookup would yield.
+   *
+   * @param <K> Key type of the index.
+   */
+  private static class IndexScan<K> {
+    private final SecondaryIndex<K> index;
+    private final Set<K> keys;
+    private final long cost;
+
+    IndexScan(SecondaryIndex<K> index, Set<K> keys) {
+      this.index = index;
+      this.keys = keys;
+      this.cost = index.estimateMatches(keys);
+    }
+
+    long getCost() {
+      return cost;
+    }
+
+    Iterable<String> lookup() {
+      return index.lookup(keys);
+    }
 
-    Optional<Iterable<String>> getMatches(Query.Builder query) {
-      return queryExtractor.apply(query).map(lookup);
+    boolean contains(String taskId) {
+      return index.containsAny(keys, taskId);
     }
   }
 }
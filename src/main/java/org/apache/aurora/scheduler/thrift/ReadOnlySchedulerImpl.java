@@ -35,7 +35,6 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
@@ -162,20 +161,17 @@ class ReadOnlySchedulerImpl implements ReadOnlyScheduler.Iface {
   // TODO(William Farner): Provide status information about cron jobs here.
   @Override
   public Response getTasksStatus(TaskQuery query) {
-    return ok(Result.scheduleStatusResult(
-        new ScheduleStatusResult().setTasks(getTasks(query))));
+    return ok(Result.scheduleStatusResult(getTaskPage(query)));
   }
 
   @Override
   public Response getTasksWithoutConfigs(TaskQuery query) {
-    List<ScheduledTask> tasks = Lists.transform(
-        getTasks(query),
-        task -> {
-          task.getAssignedTask().getTask().getExecutorConfig().unsetData();
-          return task;
-        });
-
-    return ok(Result.scheduleStatusResult(new ScheduleStatusResult().setTasks(tasks)));
+    ScheduleStatusResult result = getTaskPage(query);
+    for (ScheduledTask task : result.getTasks()) {
+      task.getAssignedTask().getTask().getExecutorConfig().unsetData();
+    }
+
+    return ok(Result.scheduleStatusResult(result));
   }
 
   @Override
@@ -422,17 +418,27 @@ class ReadOnlySchedulerImpl implements ReadOnlyScheduler.Iface {
   }
 
   private List<ScheduledTask> getTasks(TaskQuery query) {
+    return getTaskPage(query).getTasks();
+  }
+
+  private ScheduleStatusResult getTaskPage(TaskQuery query) {
     requireNonNull(query);
 
-    Iterable<IScheduledTask> tasks = Storage.Util.fetchTasks(storage, Query.arbitrary(query));
-    if (query.getOffset() > 0) {
-      tasks = Iterables.skip(tasks, query.getOffset());
-    }
-    if (query.getLimit() > 0) {
-      tasks = Iterables.limit(tasks, query.getLimit());
+    if (query.getOffset() <= 0 && query.getLimit() <= 0 && !query.isSetContinuationToken()) {
+      return new ScheduleStatusResult().setTasks(IScheduledTask.toBuildersList(
+          Storage.Util.fetchTasks(storage, Query.arbitrary(query))));
     }
 
-    return IScheduledTask.toBuildersList(tasks);
+    // Paginated queries are pushed down to the store, which only retains the requested page.
+    Optional<String> afterTaskId = Optional.ofNullable(query.getContinuationToken());
+    List<IScheduledTask> page = storage.read(storeProvider ->
+        storeProvider.getTaskStore().fetchTaskPage(Query.arbitrary(query), afterTaskId));
+    ScheduleStatusResult result =
+        new ScheduleStatusResult().setTasks(IScheduledTask.toBuildersList(page));
+    if (query.getLimit() > 0 && page.size() == query.getLimit()) {
+      result.setContinuationToken(Tasks.id(Iterables.getLast(page)));
+    }
+    return result;
   }
 
   private Query.Builder maybeRoleScoped(Optional<String> ownerRole) {
@@ -149,8 +149,13 @@ public class UpdaterModule extends AbstractModule {
   public static class UpdateActionBatchWorker extends BatchWorker<NoResult> {
 
     @Inject
-    UpdateActionBatchWorker(CliOptions options, Storage storage, StatsProvider statsProvider) {
-      super(storage, statsProvider, options.updater.slaAwareActionMaxBatchSize);
+    UpdateActionBatchWorker(
+        CliOptions options,
+        Storage storage,
+        StatsProvider statsProvider,
+        BatchWorker.Settings settings) {
+
+      super(storage, statsProvider, options.updater.slaAwareActionMaxBatchSize, settings);
     }
 
     @Override
@@ -15,12 +15,24 @@ package io.github.aurora.scheduler.offers;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
@@ -28,15 +40,23 @@ import org.apache.aurora.gen.AssignedTask;
 import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.offers.HostOffer;
+import org.apache.aurora.scheduler.offers.OfferOrder;
+import org.apache.aurora.scheduler.offers.OfferOrderBuilder;
 import org.apache.aurora.scheduler.offers.Offers;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -147,7 +167,7 @@ public class HttpOfferSetImplTest extends EasyMockTest {
     assertEquals(sortedOffers.get(0).getAttributes().getHost(), HOST_A);
     assertEquals(sortedOffers.get(1).getAttributes().getHost(), HOST_B);
     assertEquals(sortedOffers.get(2).getAttributes().getHost(), HOST_C);
-    assertEquals((long) HttpOfferSetImpl.offerSetDiffList.get(0), 0);
+    assertEquals(0, httpOfferSet.getLastOfferSetDiff());
 
     // plugin returns less offers than Aurora has.
     responseStr = "{\"error\": \"\", \"hosts\": [\""
@@ -157,7 +177,7 @@ public class HttpOfferSetImplTest extends EasyMockTest {
     assertEquals(sortedOffers.size(), 2);
     assertEquals(sortedOffers.get(0).getAttributes().getHost(), HOST_A);
     assertEquals(sortedOffers.get(1).getAttributes().getHost(), HOST_C);
-    assertEquals((long) HttpOfferSetImpl.offerSetDiffList.get(1), 1);
+    assertEquals(1, httpOfferSet.getLastOfferSetDiff());
 
     // plugin returns more offers than Aurora has.
     responseStr = "{\"error\": \"\", \"hosts\": [\""
@@ -170,7 +190,7 @@ public class HttpOfferSetImplTest extends EasyMockTest {
     assertEquals(sortedOffers.get(0).getAttributes().getHost(), HOST_A);
     assertEquals(sortedOffers.get(1).getAttributes().getHost(), HOST_B);
     assertEquals(sortedOffers.get(2).getAttributes().getHost(), HOST_C);
-    assertEquals((long) HttpOfferSetImpl.offerSetDiffList.get(2), 1);
+    assertEquals(1, httpOfferSet.getLastOfferSetDiff());
 
     // plugin omits 1 offer & returns 1 extra offer
     responseStr = "{\"error\": \"\", \"hosts\": [\""
@@ -181,14 +201,14 @@ public class HttpOfferSetImplTest extends EasyMockTest {
     assertEquals(sortedOffers.size(), 2);
     assertEquals(sortedOffers.get(0).getAttributes().getHost(), HOST_A);
     assertEquals(sortedOffers.get(1).getAttributes().getHost(), HOST_C);
-    assertEquals((long) HttpOfferSetImpl.offerSetDiffList.get(3), 2);
+    assertEquals(2, httpOfferSet.getLastOfferSetDiff());
 
     // Test with 1 bad offer
     sortedOffers = httpOfferSet.processResponse(mOffers, responseStr, 1);
     assertEquals(sortedOffers.size(), 2);
     assertEquals(sortedOffers.get(0).getAttributes().getHost(), HOST_A);
     assertEquals(sortedOffers.get(1).getAttributes().getHost(), HOST_C);
-    assertEquals((long) HttpOfferSetImpl.offerSetDiffList.get(4), 3);
+    assertEquals(3, httpOfferSet.getLastOfferSetDiff());
 
     responseStr = "{\"error\": \"Error\", \"hosts\": [\""
             + HOST_A + "\",\""
@@ -237,7 +257,7 @@ public class HttpOfferSetImplTest extends EasyMockTest {
     assertEquals(sortedOffers.get(1).getAttributes().getHost(), HOST_B);
     assertEquals(sortedOffers.get(2).getAttributes().getHost(), HOST_C);
     assertEquals(sortedOffers.get(3).getAttributes().getHost(), HOST_C);
-    assertEquals((long) HttpOfferSetImpl.offerSetDiffList.get(5), 0);
+    assertEquals(0, duplicateHostsHttpOfferSet.getLastOfferSetDiff());
 
     // plugin returns less offers than Aurora has.
     responseStr = "{\"error\": \"\", \"hosts\": [\""
@@ -247,7 +267,7 @@ public class HttpOfferSetImplTest extends EasyMockTest {
     assertEquals(sortedOffers.size(), 3);
     assertEquals(sortedOffers.get(0).getAttributes().getHost(), HOST_A);
     assertEquals(sortedOffers.get(1).getAttributes().getHost(), HOST_C);
-    assertEquals((long) HttpOfferSetImpl.offerSetDiffList.get(6), 1);
+    assertEquals(1, duplicateHostsHttpOfferSet.getLastOfferSetDiff());
 
     // plugin returns more offers than Aurora has.
     responseStr = "{\"error\": \"\", \"hosts\": [\""
@@ -260,7 +280,7 @@ public class HttpOfferSetImplTest extends EasyMockTest {
     assertEquals(sortedOffers.get(0).getAttributes().getHost(), HOST_A);
     assertEquals(sortedOffers.get(1).getAttributes().getHost(), HOST_B);
     assertEquals(sortedOffers.get(2).getAttributes().getHost(), HOST_C);
-    assertEquals((long) HttpOfferSetImpl.offerSetDiffList.get(7), 1);
+    assertEquals(1, duplicateHostsHttpOfferSet.getLastOfferSetDiff());
 
     // plugin omits 1 offer & returns 1 extra offer
     responseStr = "{\"error\": \"\", \"hosts\": [\""
@@ -271,14 +291,14 @@ public class HttpOfferSetImplTest extends EasyMockTest {
     assertEquals(sortedOffers.size(), 2);
     assertEquals(sortedOffers.get(0).getAttributes().getHost(), HOST_A);
     assertEquals(sortedOffers.get(1).getAttributes().getHost(), HOST_B);
-    assertEquals((long) HttpOfferSetImpl.offerSetDiffList.get(8), 3);
+    assertEquals(3, duplicateHostsHttpOfferSet.getLastOfferSetDiff());
 
     // Test with 1 bad offer
     sortedOffers = duplicateHostsHttpOfferSet.processResponse(mDuplicateHostOffers, responseStr, 1);
     assertEquals(sortedOffers.size(), 2);
     assertEquals(sortedOffers.get(0).getAttributes().getHost(), HOST_A);
     assertEquals(sortedOffers.get(1).getAttributes().getHost(), HOST_B);
-    assertEquals((long) HttpOfferSetImpl.offerSetDiffList.get(9), 4);
+    assertEquals(4, duplicateHostsHttpOfferSet.getLastOfferSetDiff());
 
     responseStr = "{\"error\": \"Error\", \"hosts\": [\""
             + HOST_A + "\",\""
@@ -349,4 +369,288 @@ public class HttpOfferSetImplTest extends EasyMockTest {
     sortedOffers = httpOfferSet.getOrdered(groupKey, resourceRequest);
     assertEquals(offers.size() - 1, Iterables.size(sortedOffers));
   }
+
+  @Test
+  public void testStartingTaskCountsFromStateChanges() {
+    control.replay();
+    String agentB = OFFER_B.getOffer().getAgentId().getValue();
+    HttpOfferSetImpl.fetchStartingTasks(storage);
+    assertEquals(ImmutableMap.of(agentB, 1), HttpOfferSetImpl.getStartingTaskCounts());
+
+    IScheduledTask starting = makeAssignedTask("t3", ScheduleStatus.STARTING, OFFER_B);
+    HttpOfferSetImpl.taskChangedState(
+        TaskStateChange.transition(starting, ScheduleStatus.ASSIGNED));
+    assertEquals(ImmutableMap.of(agentB, 2), HttpOfferSetImpl.getStartingTaskCounts());
+
+    for (String taskId : ImmutableList.of("t1", "t3")) {
+      HttpOfferSetImpl.taskChangedState(TaskStateChange.transition(
+          makeAssignedTask(taskId, ScheduleStatus.RUNNING, OFFER_B),
+          ScheduleStatus.STARTING));
+    }
+    assertEquals(ImmutableMap.of(), HttpOfferSetImpl.getStartingTaskCounts());
+
+    // Reconciling with storage restores the count of t1, which is still STARTING there.
+    HttpOfferSetImpl.fetchStartingTasks(storage);
+    assertEquals(ImmutableMap.of(agentB, 1), HttpOfferSetImpl.getStartingTaskCounts());
+  }
+
+  @Test
+  public void testDeltaEncoding() throws Exception {
+    control.replay();
+    IScheduledTask task = makeTask("id", JOB);
+    TaskGroupKey groupKey = TaskGroupKey.from(task.getAssignedTask().getTask());
+    SchedulingFilter.ResourceRequest resourceRequest =
+        TaskTestUtil.toResourceRequest(task.getAssignedTask().getTask());
+    HttpOfferSetImpl.fetchStartingTasks(storage);
+
+    // A stand-in for the endpoint, which orders the hosts in its view in reverse name order.
+    ObjectMapper mapper = new ObjectMapper();
+    List<Map<String, Object>> requests = Collections.synchronizedList(new ArrayList<>());
+    Map<String, String> view = new HashMap<>();
+    AtomicBoolean forgetView = new AtomicBoolean(false);
+    Server jettyServer = new Server(0);
+    jettyServer.setHandler(new AbstractHandler() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void handle(String target, Request baseRequest, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+
+        Map<String, Object> body = mapper.readValue(request.getInputStream(), Map.class);
+        requests.add(body);
+        if (((Number) body.get("baseVersion")).longValue() == 0) {
+          view.clear();
+        }
+        for (Map<String, Object> host : (List<Map<String, Object>>) body.get("hosts")) {
+          view.put((String) host.get("offerId"), (String) host.get("name"));
+        }
+        for (String offerId : (List<String>) body.get("removedOffers")) {
+          view.remove(offerId);
+        }
+        Object version = forgetView.getAndSet(false) ? 0 : body.get("version");
+        response.setStatus(HttpServletResponse.SC_OK);
+        mapper.writeValue(response.getOutputStream(), ImmutableMap.of(
+            "error", "",
+            "hosts", ImmutableList.copyOf(new TreeSet<>(view.values()).descendingSet()),
+            "version", version));
+        baseRequest.setHandled(true);
+      }
+    });
+    jettyServer.start();
+
+    boolean useEndpoint = HttpOfferSetImpl.isUseEndpoint();
+    try {
+      HttpOfferSetImpl.setUseEndpoint(true);
+      HttpOfferSetImpl.resetFailureCount();
+      HttpOfferSetImpl deltaOfferSet = createOfferSet(1000, jettyServer, true, false, 100);
+
+      // The first request carries all offers.
+      assertEquals(
+          ImmutableList.of(OFFER_C, OFFER_B, OFFER_A),
+          ImmutableList.copyOf(deltaOfferSet.getOrdered(groupKey, resourceRequest)));
+      assertEquals(0L, ((Number) requests.get(0).get("baseVersion")).longValue());
+      assertEquals(3, ((List<?>) requests.get(0).get("hosts")).size());
+
+      // Later requests only carry changes.
+      deltaOfferSet.remove(OFFER_C);
+      assertEquals(
+          ImmutableList.of(OFFER_B, OFFER_A),
+          ImmutableList.copyOf(deltaOfferSet.getOrdered(groupKey, resourceRequest)));
+      assertEquals(requests.get(0).get("version"), requests.get(1).get("baseVersion"));
+      assertEquals(ImmutableList.of(), requests.get(1).get("hosts"));
+      assertEquals(ImmutableList.of("OFFER_C"), requests.get(1).get("removedOffers"));
+
+      // A request that is not acknowledged is followed by a full one.
+      forgetView.set(true);
+      deltaOfferSet.getOrdered(groupKey, resourceRequest);
+      assertEquals(1, HttpOfferSetImpl.getFailureCount());
+      assertEquals(
+          ImmutableList.of(OFFER_B, OFFER_A),
+          ImmutableList.copyOf(deltaOfferSet.getOrdered(groupKey, resourceRequest)));
+      assertEquals(0L, ((Number) requests.get(3).get("baseVersion")).longValue());
+      assertEquals(2, ((List<?>) requests.get(3).get("hosts")).size());
+      deltaOfferSet.shutdown();
+    } finally {
+      HttpOfferSetImpl.setUseEndpoint(useEndpoint);
+      HttpOfferSetImpl.resetFailureCount();
+      jettyServer.stop();
+    }
+  }
+
+  @Test
+  public void testBatchOrdering() throws Exception {
+    control.replay();
+    IScheduledTask taskA = makeTask("a", JOB);
+    IScheduledTask taskB = makeTask("b", JobKeys.from("role", "env", "other"));
+    TaskGroupKey groupKeyA = TaskGroupKey.from(taskA.getAssignedTask().getTask());
+    TaskGroupKey groupKeyB = TaskGroupKey.from(taskB.getAssignedTask().getTask());
+    HttpOfferSetImpl.fetchStartingTasks(storage);
+
+    // A stand-in for the endpoint, which orders the hosts in reverse name order for the first
+    // request and in name order for the others.
+    ObjectMapper mapper = new ObjectMapper();
+    List<Map<String, Object>> requests = Collections.synchronizedList(new ArrayList<>());
+    Server jettyServer = new Server(0);
+    jettyServer.setHandler(new AbstractHandler() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void handle(String target, Request baseRequest, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+
+        Map<String, Object> body = mapper.readValue(request.getInputStream(), Map.class);
+        requests.add(body);
+        TreeSet<String> hosts = new TreeSet<>();
+        for (Map<String, Object> host : (List<Map<String, Object>>) body.get("hosts")) {
+          hosts.add((String) host.get("name"));
+        }
+        List<Map<String, Object>> responses = new ArrayList<>();
+        for (int i = 0; i < ((List<?>) body.get("requests")).size(); i++) {
+          responses.add(ImmutableMap.of(
+              "error", "",
+              "hosts", ImmutableList.copyOf(i == 0 ? hosts.descendingSet() : hosts)));
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        mapper.writeValue(
+            response.getOutputStream(),
+            ImmutableMap.of("error", "", "responses", responses));
+        baseRequest.setHandled(true);
+      }
+    });
+    jettyServer.start();
+
+    boolean useEndpoint = HttpOfferSetImpl.isUseEndpoint();
+    try {
+      HttpOfferSetImpl.setUseEndpoint(true);
+      HttpOfferSetImpl.resetFailureCount();
+      HttpOfferSetImpl batchOfferSet = createOfferSet(1000, jettyServer, false, true, 5000);
+
+      // Both groups are ordered in a single request.
+      batchOfferSet.prepareOrdering(ImmutableMap.of(
+          groupKeyA, TaskTestUtil.toResourceRequest(taskA.getAssignedTask().getTask()),
+          groupKeyB, TaskTestUtil.toResourceRequest(taskB.getAssignedTask().getTask())))
+          .get(5, TimeUnit.SECONDS);
+      assertEquals(1, requests.size());
+      assertEquals(2, ((List<?>) requests.get(0).get("requests")).size());
+      assertEquals(3, ((List<?>) requests.get(0).get("hosts")).size());
+
+      assertEquals(
+          ImmutableList.of(OFFER_C, OFFER_B, OFFER_A),
+          ImmutableList.copyOf(batchOfferSet.getOrdered(groupKeyA, null)));
+      assertEquals(
+          ImmutableList.of(OFFER_A, OFFER_B, OFFER_C),
+          ImmutableList.copyOf(batchOfferSet.getOrdered(groupKeyB, null)));
+
+      // Offers added since the ordering was prepared follow the ordered ones, and offers that are
+      // gone are skipped.
+      batchOfferSet.remove(OFFER_B);
+      batchOfferSet.add(OFFER_C1);
+      assertEquals(
+          ImmutableList.of(OFFER_C, OFFER_A, OFFER_C1),
+          ImmutableList.copyOf(batchOfferSet.getOrdered(groupKeyA, null)));
+      assertEquals(0, batchOfferSet.getLocalFallbacks());
+
+      // Groups that were not prepared use the local ordering.
+      IScheduledTask taskC = makeTask("c", JobKeys.from("role", "env", "unprepared"));
+      assertEquals(
+          ImmutableList.copyOf(batchOfferSet.values()),
+          ImmutableList.copyOf(batchOfferSet.getOrdered(
+              TaskGroupKey.from(taskC.getAssignedTask().getTask()),
+              null)));
+      assertEquals(1, batchOfferSet.getLocalFallbacks());
+      assertEquals(1, requests.size());
+      batchOfferSet.shutdown();
+    } finally {
+      HttpOfferSetImpl.setUseEndpoint(useEndpoint);
+      HttpOfferSetImpl.resetFailureCount();
+      jettyServer.stop();
+    }
+  }
+
+  @Test
+  public void testBatchOrderingDeadline() throws Exception {
+    control.replay();
+    IScheduledTask task = makeTask("id", JOB);
+    TaskGroupKey groupKey = TaskGroupKey.from(task.getAssignedTask().getTask());
+    HttpOfferSetImpl.fetchStartingTasks(storage);
+
+    // A stand-in for the endpoint, which does not answer until released.
+    CountDownLatch release = new CountDownLatch(1);
+    Server jettyServer = new Server(0);
+    jettyServer.setHandler(new AbstractHandler() {
+      @Override
+      public void handle(String target, Request baseRequest, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        new ObjectMapper().writeValue(response.getOutputStream(), ImmutableMap.of(
+            "error", "",
+            "responses", ImmutableList.of(ImmutableMap.of("error", "", "hosts", ImmutableList.of(
+                HOST_C, HOST_B, HOST_A)))));
+        baseRequest.setHandled(true);
+      }
+    });
+    jettyServer.start();
+
+    boolean useEndpoint = HttpOfferSetImpl.isUseEndpoint();
+    try {
+      HttpOfferSetImpl.setUseEndpoint(true);
+      HttpOfferSetImpl.resetFailureCount();
+      HttpOfferSetImpl batchOfferSet = createOfferSet(10000, jettyServer, false, true, 50);
+
+      // The round proceeds with the local ordering once the deadline passes.
+      batchOfferSet.prepareOrdering(ImmutableMap.of(
+          groupKey, TaskTestUtil.toResourceRequest(task.getAssignedTask().getTask())))
+          .get(5, TimeUnit.SECONDS);
+      assertEquals(1, batchOfferSet.getDeadlineMisses());
+      assertEquals(
+          ImmutableList.copyOf(batchOfferSet.values()),
+          ImmutableList.copyOf(batchOfferSet.getOrdered(groupKey, null)));
+      assertEquals(1, batchOfferSet.getLocalFallbacks());
+      batchOfferSet.shutdown();
+    } finally {
+      release.countDown();
+      HttpOfferSetImpl.setUseEndpoint(useEndpoint);
+      HttpOfferSetImpl.resetFailureCount();
+      jettyServer.stop();
+    }
+  }
+
+  private HttpOfferSetImpl createOfferSet(
+      int timeoutMs,
+      Server endpoint,
+      boolean deltaEncoding,
+      boolean batchOrdering,
+      long batchDeadlineMs) {
+
+    HttpOfferSetImpl offerSet = new HttpOfferSetImpl(
+        OfferOrderBuilder.create(ImmutableList.of(OfferOrder.RANDOM)),
+        timeoutMs,
+        String.format("http://localhost:%d", endpoint.getURI().getPort()),
+        10,
+        0,
+        false,
+        2,
+        deltaEncoding,
+        batchOrdering,
+        batchDeadlineMs,
+        new FakeStatsProvider());
+    offers.forEach(offerSet::add);
+    return offerSet;
+  }
+
+  private static IScheduledTask makeAssignedTask(
+      String taskId,
+      ScheduleStatus status,
+      HostOffer offer) {
+
+    ScheduledTask builder = makeTask(taskId, JOB).newBuilder().setStatus(status);
+    builder.getAssignedTask()
+        .setSlaveId(offer.getOffer().getAgentId().getValue())
+        .setSlaveHost(offer.getOffer().getHostname());
+    return IScheduledTask.build(builder);
+  }
 }
@@ -0,0 +1,82 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.aurora.scheduler.scheduling;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.INIT;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.base.TaskTestUtil.JOB;
+import static org.apache.aurora.scheduler.base.TaskTestUtil.makeTask;
+import static org.junit.Assert.assertEquals;
+
+public class PendingPrioritiesTest {
+
+  private PendingPriorities pendingPriorities;
+
+  @Before
+  public void setUp() {
+    pendingPriorities = new PendingPriorities();
+  }
+
+  @Test
+  public void testNoPendingTasks() {
+    assertEquals(0, pendingPriorities.getMaxPriority());
+    pendingPriorities.taskChangedState(TaskStateChange.initialized(task("a", RUNNING, 5)));
+    assertEquals(0, pendingPriorities.getMaxPriority());
+  }
+
+  @Test
+  public void testTracksMaxPriority() {
+    pendingPriorities.taskChangedState(TaskStateChange.initialized(task("a", PENDING, 1)));
+    pendingPriorities.taskChangedState(
+        TaskStateChange.transition(task("b", PENDING, 3), INIT));
+    pendingPriorities.taskChangedState(
+        TaskStateChange.transition(task("c", PENDING, 3), INIT));
+    assertEquals(3, pendingPriorities.getMaxPriority());
+    assertEquals(ImmutableMap.of(1, 1, 3, 2), pendingPriorities.getCounts());
+
+    pendingPriorities.taskChangedState(
+        TaskStateChange.transition(task("b", ASSIGNED, 3), PENDING));
+    assertEquals(3, pendingPriorities.getMaxPriority());
+
+    pendingPriorities.tasksDeleted(new TasksDeleted(ImmutableSet.of(
+        task("d", RUNNING, 1),
+        task("c", PENDING, 3))));
+    assertEquals(1, pendingPriorities.getMaxPriority());
+    assertEquals(ImmutableMap.of(1, 1), pendingPriorities.getCounts());
+
+    pendingPriorities.taskChangedState(
+        TaskStateChange.transition(task("a", ASSIGNED, 1), PENDING));
+    assertEquals(0, pendingPriorities.getMaxPriority());
+    assertEquals(ImmutableMap.of(), pendingPriorities.getCounts());
+  }
+
+  private static IScheduledTask task(String taskId, ScheduleStatus status, int priority) {
+    ScheduledTask builder = makeTask(taskId, JOB).newBuilder().setStatus(status);
+    builder.getAssignedTask().getTask().setPriority(priority);
+    return IScheduledTask.build(builder);
+  }
+}
@@ -13,9 +13,6 @@
  */
 package io.github.aurora.scheduler.scheduling;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
 import org.apache.aurora.scheduler.offers.OfferManager;
@@ -40,6 +37,7 @@ public class ProbabilisticPriorityAssignerTest extends EasyMockTest {
         createMock(OfferManager.class),
         createMock(UpdateAgentReserver.class),
         new FakeStatsProvider(),
+        new PendingPriorities(),
         0.0);
   }
 
@@ -48,23 +46,20 @@ public class ProbabilisticPriorityAssignerTest extends EasyMockTest {
     control.replay();
 
     int numOfTests = 1000;
-    Set<Integer> set = new HashSet<>();
-    set.add(0);
-    set.add(1);
-    set.add(2);
+    int maxPriority = 2;
 
     // group with the highest priority is always scheduled
     assigner.setExponent(1.0);
     boolean res = true;
     for (int i = 0; i < numOfTests; i++) {
-      res = res & assigner.isScheduled(set, 2);
+      res = res & assigner.isScheduled(maxPriority, 2);
     }
     assertTrue(res);
 
     assigner.setExponent(99.0);
     res = true;
     for (int i = 0; i < numOfTests; i++) {
-      res = res & assigner.isScheduled(set, 2);
+      res = res & assigner.isScheduled(maxPriority, 2);
     }
     assertTrue(res);
 
@@ -72,24 +67,24 @@ public class ProbabilisticPriorityAssignerTest extends EasyMockTest {
     assigner.setExponent(1.0);
     res = false;
     for (int i = 0; i < numOfTests; i++) {
-      res = res | assigner.isScheduled(set, 1);
+      res = res | assigner.isScheduled(maxPriority, 1);
     }
     assertTrue(res);
     res = false;
     for (int i = 0; i < numOfTests; i++) {
-      res = res | assigner.isScheduled(set, 0);
+      res = res | assigner.isScheduled(maxPriority, 0);
     }
     assertTrue(res);
 
     // groups with the low priority are not always scheduled
     res = true;
     for (int i = 0; i < numOfTests; i++) {
-      res = res & assigner.isScheduled(set, 1);
+      res = res & assigner.isScheduled(maxPriority, 1);
     }
     assertFalse(res);
     res = true;
     for (int i = 0; i < numOfTests; i++) {
-      res = res & assigner.isScheduled(set, 0);
+      res = res & assigner.isScheduled(maxPriority, 0);
     }
     assertFalse(res);
 
@@ -97,9 +92,9 @@ public class ProbabilisticPriorityAssignerTest extends EasyMockTest {
     assigner.setExponent(0.0);
     res = true;
     for (int i = 0; i < numOfTests; i++) {
-      res = res & assigner.isScheduled(set, 0);
-      res = res & assigner.isScheduled(set, 1);
-      res = res & assigner.isScheduled(set, 2);
+      res = res & assigner.isScheduled(maxPriority, 0);
+      res = res & assigner.isScheduled(maxPriority, 1);
+      res = res & assigner.isScheduled(maxPriority, 2);
     }
     assertTrue(res);
   }
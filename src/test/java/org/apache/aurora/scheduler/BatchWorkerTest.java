@@ -13,37 +13,68 @@
  */
 package org.apache.aurora.scheduler;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Service;
 
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.BackoffStrategy;
+import org.apache.aurora.scheduler.BatchWorker.Priority;
 import org.apache.aurora.scheduler.BatchWorker.Result;
+import org.apache.aurora.scheduler.BatchWorker.Settings;
 import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
 import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.apache.aurora.scheduler.BatchWorker.Priority.HIGH;
+import static org.apache.aurora.scheduler.BatchWorker.Priority.LOW;
 import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class BatchWorkerTest extends EasyMockTest {
   private static final String SERVICE_NAME = "TestWorker";
   private static final String BATCH_STAT = SERVICE_NAME + "_batches_processed";
+  private StorageTestUtil storageUtil;
   private FakeStatsProvider statsProvider;
   private BatchWorker<Boolean> batchWorker;
 
   @Before
   public void setUp() {
-    StorageTestUtil storageUtil = new StorageTestUtil(this);
+    storageUtil = new StorageTestUtil(this);
     storageUtil.expectOperations();
     statsProvider = new FakeStatsProvider();
-    batchWorker = new BatchWorker<Boolean>(storageUtil.storage, statsProvider, 2) {
+    batchWorker = new BatchWorker<Boolean>(
+        storageUtil.storage,
+        statsProvider,
+        2,
+        new Settings()) {
+
+      @Override
+      protected String serviceName() {
+        return SERVICE_NAME;
+      }
+    };
+  }
+
+  private BatchWorker<Boolean> prioritizedWorker(Amount<Long, Time> targetLockHold) {
+    return new BatchWorker<Boolean>(
+        storageUtil.storage,
+        statsProvider,
+        2,
+        new Settings(true, targetLockHold)) {
+
       @Override
       protected String serviceName() {
         return SERVICE_NAME;
@@ -107,4 +138,47 @@ public class BatchWorkerTest extends EasyMockTest {
 
     assertTrue(complete.await(10L, TimeUnit.SECONDS));
   }
+
+  @Test
+  public void testPrioritizedExecute() throws Exception {
+    control.replay();
+
+    BatchWorker<Boolean> worker = prioritizedWorker(Amount.of(1L, Time.HOURS));
+    List<Priority> executed = Collections.synchronizedList(Lists.newArrayList());
+    List<CompletableFuture<Boolean>> results = Lists.newArrayList();
+    for (Priority priority : ImmutableList.of(LOW, HIGH)) {
+      for (int i = 0; i < 5; i++) {
+        results.add(worker.execute(priority, store -> executed.add(priority)));
+      }
+    }
+    worker.startAsync().awaitRunning();
+    for (CompletableFuture<Boolean> result : results) {
+      assertTrue(result.get());
+    }
+
+    // High priority work takes its larger share of batches first, but does not starve low
+    // priority work submitted earlier.
+    assertEquals(
+        ImmutableList.of(HIGH, HIGH, HIGH, HIGH, LOW, HIGH, LOW, LOW, LOW, LOW),
+        executed);
+  }
+
+  @Test
+  public void testPrioritizedAdaptsBatchSize() throws Exception {
+    control.replay();
+
+    BatchWorker<Boolean> worker = prioritizedWorker(Amount.of(1L, Time.NANOSECONDS));
+    assertEquals(2, statsProvider.getValue(SERVICE_NAME + "_batch_size_limit").intValue());
+
+    CompletableFuture<Boolean> result1 = worker.execute(store -> true);
+    CompletableFuture<Boolean> result2 = worker.execute(store -> true);
+    worker.startAsync().awaitRunning();
+    assertTrue(result1.get());
+    assertTrue(result2.get());
+    // The batch size is adapted after the batch completes, so wait for a later batch.
+    assertTrue(worker.execute(store -> true).get());
+
+    // Any batch holds the lock for longer than the target, so batches shrink to single items.
+    assertEquals(1, statsProvider.getValue(SERVICE_NAME + "_batch_size_limit").intValue());
+  }
 }
@@ -19,6 +19,7 @@ import com.google.common.collect.ImmutableList;
 
 import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.scheduler.offers.HostOffer;
+import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.junit.Test;
 
@@ -26,7 +27,9 @@ import static org.apache.aurora.gen.MaintenanceMode.NONE;
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosScalar;
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.offer;
 import static org.apache.aurora.scheduler.resources.ResourceType.CPUS;
+import static org.apache.aurora.scheduler.resources.ResourceType.DISK_MB;
 import static org.apache.aurora.scheduler.resources.ResourceType.RAM_MB;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -86,4 +89,27 @@ public class HostOfferTest {
       assertTrue(offer.hasCpuAndMem());
     }
   }
+
+  @Test
+  public void testResourceValues() {
+    HostOffer offer = new HostOffer(
+        offer(
+            "mixed",
+            mesosScalar(CPUS, 2, false),
+            mesosScalar(CPUS, 3, true),
+            mesosScalar(RAM_MB, 1024)),
+        HOST_ATTRIBUTES_A);
+
+    for (boolean revocable : ImmutableList.of(false, true)) {
+      for (ResourceType type : ImmutableList.of(CPUS, RAM_MB, DISK_MB)) {
+        assertEquals(
+            offer.getResourceBag(revocable).valueOf(type),
+            offer.getResourceValue(type, revocable),
+            0.0);
+      }
+    }
+    assertEquals(2.0, offer.getResourceValue(CPUS, false), 0.0);
+    assertEquals(3.0, offer.getResourceValue(CPUS, true), 0.0);
+    assertEquals(0.0, offer.getResourceValue(DISK_MB, false), 0.0);
+  }
 }
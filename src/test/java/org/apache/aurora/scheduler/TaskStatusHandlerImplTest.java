@@ -20,6 +20,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.state.StateChangeResult;
 import org.apache.aurora.scheduler.state.StateManager;
@@ -36,6 +37,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.apache.aurora.gen.ScheduleStatus.FAILED;
+import static org.apache.aurora.gen.ScheduleStatus.FINISHED;
 import static org.apache.aurora.gen.ScheduleStatus.KILLED;
 import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
 import static org.apache.aurora.scheduler.TaskStatusHandlerImpl.statName;
@@ -47,6 +49,7 @@ import static org.junit.Assert.assertTrue;
 public class TaskStatusHandlerImplTest extends EasyMockTest {
 
   private static final String TASK_ID_A = "task_id_a";
+  private static final String TASK_ID_B = "task_id_b";
 
   private StateManager stateManager;
   private StorageTestUtil storageUtil;
@@ -71,7 +74,9 @@ public class TaskStatusHandlerImplTest extends EasyMockTest {
         driver,
         queue,
         1000,
-        new CachedCounters(stats));
+        new CachedCounters(stats),
+        new TaskStatusHandlerImpl.Settings(),
+        Clock.SYSTEM_CLOCK);
 
     statusHandler.startAsync();
   }
@@ -247,6 +252,60 @@ public class TaskStatusHandlerImplTest extends EasyMockTest {
     assertTrue(latch.await(5L, TimeUnit.SECONDS));
   }
 
+  @Test
+  public void testPipelinedCoalescesUpdates() throws Exception {
+    statusHandler.stopAsync();
+    statusHandler.awaitTerminated();
+
+    statusHandler = new TaskStatusHandlerImpl(
+        storageUtil.storage,
+        stateManager,
+        stats,
+        driver,
+        queue,
+        1000,
+        new CachedCounters(stats),
+        new TaskStatusHandlerImpl.Settings(true, 2000),
+        Clock.SYSTEM_CLOCK);
+
+    storageUtil.expectWrite();
+    expect(stateManager.changeState(
+        storageUtil.mutableStoreProvider,
+        TASK_ID_A,
+        Optional.empty(),
+        FINISHED,
+        Optional.of("fake message")))
+        .andReturn(StateChangeResult.SUCCESS);
+    expect(stateManager.changeState(
+        storageUtil.mutableStoreProvider,
+        TASK_ID_B,
+        Optional.empty(),
+        RUNNING,
+        Optional.of("fake message")))
+        .andReturn(StateChangeResult.SUCCESS);
+
+    // Every update is acknowledged, including the ones that were coalesced.
+    CountDownLatch latch = new CountDownLatch(5);
+    driver.acknowledgeStatusUpdate(EasyMock.anyObject());
+    expectLastCall().andAnswer(() -> {
+      latch.countDown();
+      return null;
+    }).times(5);
+
+    control.replay();
+
+    // Queue the updates before starting, so that they are processed in a single batch.
+    queue.add(makeStatus(TASK_ID_A, TaskState.TASK_RUNNING));
+    queue.add(makeStatus(TASK_ID_B, TaskState.TASK_STARTING));
+    queue.add(makeStatus(TASK_ID_A, TaskState.TASK_FINISHED));
+    queue.add(makeStatus(TASK_ID_A, TaskState.TASK_LOST));
+    queue.add(makeStatus(TASK_ID_B, TaskState.TASK_RUNNING));
+    statusHandler.startAsync();
+
+    assertTrue(latch.await(5L, TimeUnit.SECONDS));
+    assertEquals(3L, stats.getLongValue("status_updates_coalesced"));
+  }
+
   @Test
   public void testThreadFailure() throws Exception {
     // Re-create the objects from @Before, since we need to inject a mock queue.
@@ -265,7 +324,9 @@ public class TaskStatusHandlerImplTest extends EasyMockTest {
         driver,
         queue,
         1000,
-        new CachedCounters(stats));
+        new CachedCounters(stats),
+        new TaskStatusHandlerImpl.Settings(),
+        Clock.SYSTEM_CLOCK);
 
     expect(queue.add(EasyMock.anyObject())).andReturn(true);
 
@@ -293,6 +354,14 @@ public class TaskStatusHandlerImplTest extends EasyMockTest {
     assertTrue(latch.await(5L, TimeUnit.SECONDS));
   }
 
+  private static TaskStatus makeStatus(String taskId, TaskState state) {
+    return TaskStatus.newBuilder()
+        .setState(state)
+        .setTaskId(TaskID.newBuilder().setValue(taskId))
+        .setMessage("fake message")
+        .build();
+  }
+
   private static void waitAndAnswer(CountDownLatch latch) {
     expectLastCall().andAnswer(() -> {
       latch.countDown();
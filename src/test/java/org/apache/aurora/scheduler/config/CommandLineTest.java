@@ -120,6 +120,7 @@ public class CommandLineTest {
     expected.offer.minOfferHoldTime = TEST_TIME;
     expected.offer.offerHoldJitterWindow = TEST_TIME;
     expected.offer.offerStaticBanCacheMaxSize = 42L;
+    expected.offer.offerShapeIndex = true;
     expected.offer.offerFilterDuration = TEST_TIME;
     expected.offer.unavailabilityThreshold = TEST_TIME;
     expected.offer.offerOrder = ImmutableList.of(OfferOrder.CPU, OfferOrder.DISK);
@@ -160,6 +161,10 @@ public class CommandLineTest {
     expected.scheduling.reservationDuration = TEST_TIME;
     expected.scheduling.schedulingMaxBatchSize = 42;
     expected.scheduling.maxTasksPerScheduleAttempt = 42;
+    expected.scheduling.schedulingMultiGroupRounds = true;
+    expected.scheduling.incrementalAttributeAggregates = true;
+    expected.scheduling.taskGroupTimerWheel = true;
+    expected.scheduling.taskGroupTimerWheelTick = TEST_TIME;
     expected.async.asyncWorkerThreads = 42;
     expected.zk.inProcess = true;
     expected.zk.zkEndpoints = ImmutableList.of(InetSocketAddress.createUnresolved("testing", 42));
@@ -175,6 +180,10 @@ public class CommandLineTest {
     expected.state.taskAssignerModules = ImmutableList.of(NoopModule.class);
     expected.snapshot.snapshotInterval = TEST_TIME;
     expected.logPersistence.maxLogEntrySize = TEST_DATA;
+    expected.logPersistence.groupCommit = true;
+    expected.logPersistence.groupCommitMaxOps = 42;
+    expected.logPersistence.concurrentSnapshots = true;
+    expected.logPersistence.recoveryThreads = 42;
     expected.backup.backupInterval = TEST_TIME;
     expected.backup.maxSavedBackups = 42;
     expected.backup.backupDir = new File("testing");
@@ -226,7 +235,10 @@ public class CommandLineTest {
     expected.preemptor.preemptionSlotSearchInitialDelay = TEST_TIME;
     expected.preemptor.preemptionSlotSearchInterval = TEST_TIME;
     expected.preemptor.reservationMaxBatchSize = 42;
+    expected.preemptor.incrementalSlotSearch = true;
+    expected.preemptor.slotSearchThreads = 42;
     expected.preemptor.slotFinderModules = ImmutableList.of(NoopModule.class);
+    expected.memStorage.compactTerminalTasks = true;
     expected.mesosLog.quorumSize = 42;
     expected.mesosLog.logPath = new File("testing");
     expected.mesosLog.zkLogGroupPath = "testing";
@@ -242,11 +254,16 @@ public class CommandLineTest {
     expected.sla.slaNonProdMetrics = ImmutableList.of(MetricCategory.JOB_UPTIMES);
     expected.sla.slaRefreshInterval = TEST_TIME;
     expected.sla.slaAwareKillNonProd = true;
+    expected.sla.slaIncrementalMetrics = true;
     expected.webhook.webhookConfigFile = tempFile;
     expected.scheduler.maxRegistrationDelay = TEST_TIME;
     expected.scheduler.maxLeadingDuration = TEST_TIME;
     expected.scheduler.maxStatusUpdateBatchSize = 42;
+    expected.scheduler.statusUpdatePipeline = true;
+    expected.scheduler.maxStatusUpdateAdaptiveBatchSize = 42;
     expected.scheduler.maxTaskEventBatchSize = 42;
+    expected.scheduler.batchWorkerPrioritized = true;
+    expected.scheduler.batchWorkerTargetLockHold = TEST_TIME;
     expected.tiers.tierConfigFile = tempFile;
     expected.asyncStats.taskStatInterval = TEST_TIME;
     expected.asyncStats.slotStatInterval = TEST_TIME;
@@ -260,6 +277,8 @@ public class CommandLineTest {
     expected.resourceSettings.enableRevocableCpus = false;
     expected.resourceSettings.enableRevocableRam = true;
     expected.maintenance.hostMaintenancePollingInterval = TEST_TIME;
+    expected.quota.enableQuotaLedger = true;
+    expected.quota.quotaLedgerReconciliationInterval = 42;
 
     assertAllNonDefaultParameters(expected);
 
@@ -280,6 +299,7 @@ public class CommandLineTest {
         "-offer_order=CPU,DISK",
         "-offer_set_module=org.apache.aurora.scheduler.config.CommandLineTest$NoopModule",
         "-offer_static_ban_cache_max_size=42",
+        "-offer_shape_index=true",
         "-custom_executor_config=" + tempFile.getAbsolutePath(),
         "-thermos_executor_path=testing",
         "-thermos_executor_resources=testing",
@@ -315,6 +335,10 @@ public class CommandLineTest {
         "-offer_reservation_duration=42days",
         "-scheduling_max_batch_size=42",
         "-max_tasks_per_schedule_attempt=42",
+        "-scheduling_multi_group_rounds=true",
+        "-incremental_attribute_aggregates=true",
+        "-task_group_timer_wheel=true",
+        "-task_group_timer_wheel_tick=42days",
         "-async_worker_threads=42",
         "-zk_in_proc=true",
         "-zk_endpoints=testing:42",
@@ -331,6 +355,10 @@ public class CommandLineTest {
         "-task_assigner_modules=org.apache.aurora.scheduler.config.CommandLineTest$NoopModule",
         "-dlog_snapshot_interval=42days",
         "-dlog_max_entry_size=42GB",
+        "-dlog_group_commit=true",
+        "-dlog_group_commit_max_ops=42",
+        "-dlog_concurrent_snapshots=true",
+        "-dlog_recovery_threads=42",
         "-backup_interval=42days",
         "-max_saved_backups=42",
         "-backup_dir=testing",
@@ -369,6 +397,8 @@ public class CommandLineTest {
         "-preemption_slot_search_initial_delay=42days",
         "-preemption_slot_search_interval=42days",
         "-preemption_reservation_max_batch_size=42",
+        "-preemption_incremental_slot_search=true",
+        "-preemption_slot_search_threads=42",
         "-preemption_slot_finder_modules="
             + "org.apache.aurora.scheduler.config.CommandLineTest$NoopModule",
         "-native_log_quorum_size=42",
@@ -378,14 +408,20 @@ public class CommandLineTest {
         "-native_log_election_retries=42",
         "-native_log_read_timeout=42days",
         "-native_log_write_timeout=42days",
+        "-compact_terminal_tasks=true",
         "-sla_stat_refresh_interval=42days",
         "-sla_prod_metrics=JOB_UPTIMES",
         "-sla_non_prod_metrics=JOB_UPTIMES",
+        "-sla_incremental_metrics=true",
         "-webhook_config=" + tempFile.getAbsolutePath(),
         "-max_registration_delay=42days",
         "-max_leading_duration=42days",
         "-max_status_update_batch_size=42",
+        "-status_update_pipeline=true",
+        "-max_status_update_adaptive_batch_size=42",
         "-max_task_event_batch_size=42",
+        "-batch_worker_prioritized=true",
+        "-batch_worker_target_lock_hold=42days",
         "-tier_config=" + tempFile.getAbsolutePath(),
         "-async_task_stat_update_interval=42days",
         "-async_slot_stat_update_interval=42days",
@@ -403,7 +439,9 @@ public class CommandLineTest {
         "-host_maintenance_polling_interval=42days",
         "-max_parallel_coordinated_maintenance=42",
         "-min_required_instances_for_sla_check=42",
-        "-max_sla_duration_secs=42days"
+        "-max_sla_duration_secs=42days",
+        "-enable_quota_ledger=true",
+        "-quota_ledger_reconciliation_interval=42"
     );
     assertEqualOptions(expected, parsed);
   }
@@ -15,17 +15,22 @@ package org.apache.aurora.scheduler.events;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
@@ -51,6 +56,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class WebhookTest {
   private static final String STATIC_URL = "http://localhost:8080/";
@@ -279,6 +285,105 @@ public class WebhookTest {
     webhook.taskChangedState(CHANGE_OLD_STATE);
   }
 
+  @Test
+  public void testQueuedDeliveryBatchesEvents() throws Exception {
+    List<String> bodies = Collections.synchronizedList(Lists.newArrayList());
+    CountDownLatch requests = new CountDownLatch(2);
+    jettyServer.setHandler(createRecordingHandler(bodies, requests, HttpServletResponse.SC_OK));
+    jettyServer.start();
+    WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(
+        newDeliveryBuilder(new WebhookInfo.Delivery(10, 2, 10, 0, 1, 1)));
+    Webhook webhook = new Webhook(httpClient, webhookInfo, statsProvider);
+
+    // Queue the events before starting delivery, so that the first two form a full batch.
+    webhook.taskChangedState(CHANGE_OLD_STATE);
+    webhook.taskChangedState(CHANGE_LOST);
+    webhook.taskChangedState(CHANGE_OLD_STATE);
+    webhook.taskChangedState(CHANGE);
+    webhook.startAsync().awaitRunning();
+
+    assertTrue(requests.await(5L, TimeUnit.SECONDS));
+    waitForStat(Webhook.BATCHES_STAT_NAME, 2);
+    webhook.stopAsync().awaitTerminated();
+
+    assertEquals(
+        ImmutableList.of(
+            "[" + CHANGE_JSON + "," + CHANGE_LOST_JSON + "]",
+            "[" + CHANGE_JSON + "]"),
+        ImmutableList.copyOf(bodies));
+    assertEquals(2, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
+    assertEquals(2, statsProvider.getLongValue(Webhook.SUCCESS_STAT_NAME));
+    assertEquals(0, statsProvider.getLongValue(Webhook.RETRIES_STAT_NAME));
+  }
+
+  @Test
+  public void testQueuedDeliveryRetries() throws Exception {
+    List<String> bodies = Collections.synchronizedList(Lists.newArrayList());
+    CountDownLatch requests = new CountDownLatch(2);
+    jettyServer.setHandler(createRecordingHandler(
+        bodies,
+        requests,
+        HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+        HttpServletResponse.SC_OK));
+    jettyServer.start();
+    WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(
+        newDeliveryBuilder(new WebhookInfo.Delivery(10, 2, 0, 1, 1, 1)));
+    Webhook webhook = new Webhook(httpClient, webhookInfo, statsProvider);
+    webhook.startAsync().awaitRunning();
+
+    webhook.taskChangedState(CHANGE_LOST);
+
+    assertTrue(requests.await(5L, TimeUnit.SECONDS));
+    waitForStat(Webhook.BATCHES_STAT_NAME, 1);
+    webhook.stopAsync().awaitTerminated();
+
+    String body = "[" + CHANGE_LOST_JSON + "]";
+    assertEquals(ImmutableList.of(body, body), ImmutableList.copyOf(bodies));
+    assertEquals(1, statsProvider.getLongValue(Webhook.RETRIES_STAT_NAME));
+    assertEquals(1, statsProvider.getLongValue(Webhook.USER_ERRORS_STAT_NAME));
+    assertEquals(0, statsProvider.getLongValue(Webhook.UNDELIVERABLE_DROPS_STAT_NAME));
+  }
+
+  @Test
+  public void testQueuedDeliveryDropsUndeliverableBatch() throws Exception {
+    List<String> bodies = Collections.synchronizedList(Lists.newArrayList());
+    CountDownLatch requests = new CountDownLatch(2);
+    jettyServer.setHandler(createRecordingHandler(
+        bodies,
+        requests,
+        HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+    jettyServer.start();
+    WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(
+        newDeliveryBuilder(new WebhookInfo.Delivery(10, 2, 0, 1, 1, 1)));
+    Webhook webhook = new Webhook(httpClient, webhookInfo, statsProvider);
+    webhook.startAsync().awaitRunning();
+
+    webhook.taskChangedState(CHANGE_LOST);
+
+    assertTrue(requests.await(5L, TimeUnit.SECONDS));
+    waitForStat(Webhook.UNDELIVERABLE_DROPS_STAT_NAME, 1);
+    webhook.stopAsync().awaitTerminated();
+
+    assertEquals(2, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
+    assertEquals(0, statsProvider.getLongValue(Webhook.BATCHES_STAT_NAME));
+  }
+
+  @Test
+  public void testQueuedDeliveryOverflow() throws Exception {
+    WebhookInfo webhookInfo = buildWebhookInfo(
+        newDeliveryBuilder(new WebhookInfo.Delivery(1, 2, 0, 0, 1, 1)),
+        STATIC_URL);
+    Webhook webhook = new Webhook(httpClient, webhookInfo, statsProvider);
+
+    // Delivery is not started, so the second event does not fit in the queue.
+    webhook.taskChangedState(CHANGE_OLD_STATE);
+    webhook.taskChangedState(CHANGE_LOST);
+
+    assertEquals(1, statsProvider.getValue(Webhook.QUEUE_SIZE_STAT_NAME));
+    assertEquals(1, statsProvider.getLongValue(Webhook.OVERFLOW_DROPS_STAT_NAME));
+    assertEquals(0, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
+  }
+
   private static final String TEST_CONFIG = "{\n"
       + "  \"headers\": {\n"
       + "    \"Content-Type\": \"application/vnd.kafka.json.v1+json\",\n"
@@ -306,6 +411,29 @@ public class WebhookTest {
     assertEquals(parsedWebhookInfo.getWhitelistedStatuses(), webhookInfo.getWhitelistedStatuses());
   }
 
+  @Test
+  public void testParsingWebhookInfoWithDelivery() throws Exception {
+    WebhookInfo webhookInfo = WebhookModule.parseWebhookConfig("{\n"
+        + "  \"headers\": {},\n"
+        + "  \"targetURL\": \"http://localhost:8080/\",\n"
+        + "  \"timeoutMsec\": 5000,\n"
+        + "  \"delivery\": {\n"
+        + "    \"batchSize\": 50,\n"
+        + "    \"maxRetries\": 5\n"
+        + "  }\n"
+        + "}\n");
+
+    WebhookInfo.Delivery delivery = webhookInfo.getDelivery().get();
+    assertEquals(50, delivery.getBatchSize());
+    assertEquals(5, delivery.getMaxRetries());
+    assertEquals(WebhookInfo.Delivery.DEFAULT_MAX_QUEUE_SIZE, delivery.getMaxQueueSize());
+    assertEquals(WebhookInfo.Delivery.DEFAULT_BATCH_DELAY_MSEC, delivery.getBatchDelayMsec());
+    assertEquals(WebhookInfo.Delivery.DEFAULT_RETRY_BACKOFF_MSEC, delivery.getRetryBackoffMsec());
+    assertEquals(
+        WebhookInfo.Delivery.DEFAULT_MAX_RETRY_BACKOFF_MSEC,
+        delivery.getMaxRetryBackoffMsec());
+  }
+
   @Test
   public void testWebhookInfo() throws Exception {
     WebhookInfo webhookInfo = WEBHOOK_INFO_BUILDER
@@ -392,6 +520,46 @@ public class WebhookTest {
     };
   }
 
+  /**
+   * Create a Jetty handler that records request bodies, and responds with the given status codes in
+   * turn, repeating the last one.
+   */
+  private AbstractHandler createRecordingHandler(
+      List<String> bodies,
+      CountDownLatch requests,
+      int... statusCodes) {
+
+    AtomicInteger count = new AtomicInteger();
+    return new AbstractHandler() {
+      @Override
+      public void handle(String target, Request baseRequest, HttpServletRequest request,
+                         HttpServletResponse response) throws IOException, ServletException {
+        bodies.add(request.getReader().lines().collect(Collectors.joining()));
+        int index = Math.min(count.getAndIncrement(), statusCodes.length - 1);
+        response.setStatus(validateRequest(request)
+            ? statusCodes[index]
+            : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        baseRequest.setHandled(true);
+        requests.countDown();
+      }
+    };
+  }
+
+  private void waitForStat(String name, long expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+    while (statsProvider.getLongValue(name) < expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(expected, statsProvider.getLongValue(name));
+  }
+
+  private static WebhookInfoBuilder newDeliveryBuilder(WebhookInfo.Delivery delivery) {
+    return WebhookInfo.newBuilder()
+        .setHeaders(HEADERS)
+        .setTimeout(TIMEOUT)
+        .setDelivery(delivery);
+  }
+
   /** Validate that the request is what we are expecting to send out (ex. POST, headers). */
   private boolean validateRequest(HttpServletRequest request) {
     // Validate general fields are what we expect (POST, headers).
@@ -0,0 +1,220 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.filter;
+
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+
+import org.apache.aurora.common.collections.Pair;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.Attribute;
+import org.apache.aurora.gen.HostAttributes;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.events.PubsubEvent.HostAttributesChanged;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.MaintenanceMode.NONE;
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.FINISHED;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.base.TaskTestUtil.JOB;
+import static org.apache.aurora.scheduler.base.TaskTestUtil.makeTask;
+import static org.apache.aurora.scheduler.filter.IncrementalAttributeAggregateCache.HITS;
+import static org.apache.aurora.scheduler.filter.IncrementalAttributeAggregateCache.LOADS;
+import static org.apache.aurora.scheduler.filter.IncrementalAttributeAggregateCache.RELOAD_INTERVAL_MS;
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalAttributeAggregateCacheTest {
+
+  private static final IHostAttributes HOST_A = attributes("a", "rack1");
+  private static final IHostAttributes HOST_B = attributes("b", "rack1");
+  private static final IHostAttributes HOST_C = attributes("c", "rack2");
+
+  private Storage storage;
+  private FakeClock clock;
+  private FakeStatsProvider statsProvider;
+  private IncrementalAttributeAggregateCache cache;
+
+  @Before
+  public void setUp() {
+    storage = MemStorageModule.newEmptyStorage();
+    clock = new FakeClock();
+    statsProvider = new FakeStatsProvider();
+    cache = new IncrementalAttributeAggregateCache(storage, clock, statsProvider);
+    storage.write((NoResult.Quiet) store -> {
+      store.getAttributeStore().saveHostAttributes(HOST_A);
+      store.getAttributeStore().saveHostAttributes(HOST_B);
+      store.getAttributeStore().saveHostAttributes(HOST_C);
+    });
+  }
+
+  private static IHostAttributes attributes(String host, String rack) {
+    return IHostAttributes.build(new HostAttributes()
+        .setHost(host)
+        .setMode(NONE)
+        .setAttributes(ImmutableSet.of(
+            new Attribute("host", ImmutableSet.of(host)),
+            new Attribute("rack", ImmutableSet.of(rack)))));
+  }
+
+  private static IScheduledTask task(String id, String host, ScheduleStatus status) {
+    ScheduledTask builder = makeTask(id, JOB).newBuilder().setStatus(status);
+    builder.getAssignedTask().setSlaveHost(host);
+    return IScheduledTask.build(builder);
+  }
+
+  private void saveTasks(IScheduledTask... tasks) {
+    storage.write((NoResult.Quiet)
+        store -> store.getUnsafeTaskStore().saveTasks(ImmutableSet.copyOf(tasks)));
+  }
+
+  private Multiset<Pair<String, String>> getAggregates() {
+    return storage.read(store -> cache.getJobActiveState(store, JOB)).getAggregates();
+  }
+
+  private static Multiset<Pair<String, String>> expected(IHostAttributes... hosts) {
+    ImmutableMultiset.Builder<Pair<String, String>> builder = ImmutableMultiset.builder();
+    for (IHostAttributes host : hosts) {
+      host.getAttributes().forEach(attribute ->
+          builder.add(Pair.of(attribute.getName(), attribute.getValues().iterator().next())));
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void testLoadsFromStorage() {
+    saveTasks(
+        task("1", "a", RUNNING),
+        task("2", "b", ASSIGNED),
+        task("3", "a", PENDING));
+
+    assertEquals(expected(HOST_A, HOST_B), getAggregates());
+    assertEquals(expected(HOST_A, HOST_B), getAggregates());
+    assertEquals(1L, statsProvider.getLongValue(LOADS));
+    assertEquals(1L, statsProvider.getLongValue(HITS));
+  }
+
+  @Test
+  public void testEmptyJobsAreNotCached() {
+    assertEquals(expected(), getAggregates());
+    assertEquals(Optional.empty(), cache.getCached(JOB));
+
+    // Tasks of jobs that are not cached are picked up when the job is next loaded.
+    IScheduledTask assigned = task("1", "a", ASSIGNED);
+    saveTasks(assigned);
+    cache.taskChangedState(TaskStateChange.transition(assigned, PENDING));
+    assertEquals(expected(HOST_A), getAggregates());
+    assertEquals(2L, statsProvider.getLongValue(LOADS));
+  }
+
+  @Test
+  public void testTaskStateChanges() {
+    saveTasks(task("2", "b", RUNNING));
+    assertEquals(expected(HOST_B), getAggregates());
+
+    IScheduledTask assigned = task("1", "a", ASSIGNED);
+    saveTasks(assigned);
+    cache.taskChangedState(TaskStateChange.transition(assigned, PENDING));
+    assertEquals(expected(HOST_A, HOST_B), getAggregates());
+
+    IScheduledTask running = task("1", "a", RUNNING);
+    cache.taskChangedState(TaskStateChange.transition(running, ASSIGNED));
+    assertEquals(expected(HOST_A, HOST_B), getAggregates());
+
+    IScheduledTask finished = task("1", "a", FINISHED);
+    cache.taskChangedState(TaskStateChange.transition(finished, RUNNING));
+    assertEquals(expected(HOST_B), getAggregates());
+
+    cache.taskChangedState(TaskStateChange.transition(task("2", "b", FINISHED), RUNNING));
+    assertEquals(Optional.empty(), cache.getCached(JOB));
+    assertEquals(1L, statsProvider.getLongValue(LOADS));
+  }
+
+  @Test
+  public void testTasksAssigned() {
+    saveTasks(task("2", "a", RUNNING));
+    assertEquals(expected(HOST_A), getAggregates());
+
+    IScheduledTask assigned = task("1", "b", ASSIGNED);
+    saveTasks(assigned);
+    storage.read(store -> {
+      cache.tasksAssigned(store, ImmutableSet.of("1"));
+      return null;
+    });
+    assertEquals(expected(HOST_A, HOST_B), getAggregates());
+
+    // A late notification of the task becoming pending does not remove it.
+    cache.taskChangedState(TaskStateChange.initialized(task("1", null, PENDING)));
+    assertEquals(expected(HOST_A, HOST_B), getAggregates());
+  }
+
+  @Test
+  public void testTasksDeleted() {
+    IScheduledTask taskA = task("1", "a", RUNNING);
+    IScheduledTask taskC = task("2", "c", RUNNING);
+    saveTasks(taskA, taskC);
+    assertEquals(expected(HOST_A, HOST_C), getAggregates());
+
+    cache.tasksDeleted(new TasksDeleted(ImmutableSet.of(taskA)));
+    assertEquals(expected(HOST_C), getAggregates());
+  }
+
+  @Test
+  public void testHostAttributesChanged() {
+    saveTasks(task("1", "a", RUNNING), task("2", "a", RUNNING), task("3", "b", RUNNING));
+    assertEquals(expected(HOST_A, HOST_A, HOST_B), getAggregates());
+
+    IHostAttributes moved = attributes("a", "rack2");
+    cache.hostAttributesChanged(new HostAttributesChanged(moved));
+    assertEquals(expected(moved, moved, HOST_B), getAggregates());
+  }
+
+  @Test
+  public void testReloadsExpiredJobs() {
+    saveTasks(task("1", "a", RUNNING));
+    assertEquals(expected(HOST_A), getAggregates());
+
+    // A change that was not delivered as an event is picked up once the job is reloaded.
+    saveTasks(task("2", "b", RUNNING));
+    assertEquals(expected(HOST_A), getAggregates());
+
+    clock.waitFor(RELOAD_INTERVAL_MS);
+    assertEquals(expected(HOST_A, HOST_B), getAggregates());
+    assertEquals(2L, statsProvider.getLongValue(LOADS));
+  }
+
+  @Test
+  public void testSnapshotsAreNotShared() {
+    saveTasks(task("1", "a", RUNNING));
+    AttributeAggregate aggregate = storage.read(store -> cache.getJobActiveState(store, JOB));
+    aggregate.updateAttributeAggregate(HOST_B);
+
+    assertEquals(expected(HOST_A, HOST_B), aggregate.getAggregates());
+    assertEquals(expected(HOST_A), getAggregates());
+  }
+}
@@ -503,6 +503,28 @@ public class SchedulingFilterImplTest extends EasyMockTest {
     checkConstraint(hostA, "jvm", true, "1.6", "1.7");
   }
 
+  @Test
+  public void testDuplicatedAttributeLimit() {
+    control.replay();
+
+    AttributeAggregate state = AttributeAggregate.create(
+        Suppliers.ofInstance(ImmutableList.of(rack(RACK_A), rack(RACK_B), rack(RACK_B))));
+    IHostAttributes hostA = hostAttributes(HOST_A, rack(RACK_A), rack(RACK_B));
+
+    // Each value of every attribute sharing the constraint name must be under the limit.
+    assertVetoes(
+        rackLimitTask(JOB_A, 2),
+        hostA,
+        state,
+        Veto.unsatisfiedLimit(RACK_ATTRIBUTE));
+    assertNoVetoes(rackLimitTask(JOB_A, 3), hostA, state);
+    assertVetoes(
+        rackLimitTask(JOB_A, 3),
+        hostAttributes(HOST_B, host(HOST_B)),
+        state,
+        Veto.constraintMismatch(RACK_ATTRIBUTE));
+  }
+
   @Test
   public void testVetoGroups() {
     control.replay();
@@ -61,6 +61,7 @@ import static org.apache.aurora.scheduler.offers.OfferManagerImpl.GLOBALLY_BANNE
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.OFFER_ACCEPT_RACES;
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.OFFER_CANCEL_FAILURES;
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.OUTSTANDING_OFFERS;
+import static org.apache.aurora.scheduler.offers.OfferManagerImpl.SHAPE_SKIPPED_OFFERS;
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.STATICALLY_BANNED_OFFERS;
 import static org.apache.aurora.scheduler.offers.OfferManagerImpl.VETO_EVALUATED_OFFERS;
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosRange;
@@ -753,4 +754,69 @@ public class OfferManagerImplTest extends EasyMockTest {
     assertEquals(ImmutableSet.of(Pair.of(OFFER_A.getOffer().getId(), GROUP_KEY)),
         offerManager.getStaticBans());
   }
+
+  private OfferManager createShapeIndexedManager() {
+    OfferSettings settings =
+        new OfferSettings(
+            Amount.of(OFFER_FILTER_SECONDS, Time.SECONDS),
+            new OfferSetImpl(OfferOrderBuilder.create(ImmutableList.of(OfferOrder.RANDOM))),
+            RETURN_DELAY,
+            Long.MAX_VALUE,
+            FAKE_TICKER,
+            true);
+    return new OfferManagerImpl(driver, settings, statsProvider, new Noop(), schedulingFilter);
+  }
+
+  private static HostOffer largeOffer(String agentId) {
+    return new HostOffer(
+        offer(
+            agentId,
+            mesosScalar(CPUS, 10.0),
+            mesosScalar(RAM_MB, 4096),
+            mesosScalar(DISK_MB, 4096)),
+        HOST_ATTRIBUTES_A);
+  }
+
+  @Test
+  public void testGetAllMatchingShapeIndexSkipsSmallOffers() {
+    OfferManager indexedManager = createShapeIndexedManager();
+    HostOffer large = largeOffer("host1");
+
+    // Only the offer with enough disk and RAM is evaluated by the scheduling filter.
+    expect(schedulingFilter.filter(new UnusedResource(large, false), EMPTY_REQUEST))
+        .andReturn(ImmutableSet.of());
+
+    control.replay();
+    indexedManager.add(OFFER_A);
+    indexedManager.add(large);
+    indexedManager.add(OFFER_B);
+    assertEquals(ImmutableSet.of(large),
+        ImmutableSet.copyOf(indexedManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+    assertEquals(1, statsProvider.getLongValue(VETO_EVALUATED_OFFERS));
+    assertEquals(2, statsProvider.getLongValue(SHAPE_SKIPPED_OFFERS));
+  }
+
+  @Test
+  public void testGetAllMatchingShapeIndexNoCandidates() {
+    OfferManager indexedManager = createShapeIndexedManager();
+    HostOffer large = largeOffer("host1");
+
+    expect(schedulingFilter.filter(new UnusedResource(large, false), EMPTY_REQUEST))
+        .andReturn(ImmutableSet.of());
+
+    control.replay();
+    indexedManager.add(OFFER_A);
+    indexedManager.add(OFFER_B);
+    assertTrue(Iterables.isEmpty(indexedManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+    assertEquals(0, statsProvider.getLongValue(VETO_EVALUATED_OFFERS));
+    assertEquals(2, statsProvider.getLongValue(SHAPE_SKIPPED_OFFERS));
+
+    indexedManager.add(large);
+    assertEquals(ImmutableSet.of(large),
+        ImmutableSet.copyOf(indexedManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+
+    indexedManager.cancel(large.getOffer().getId());
+    assertTrue(Iterables.isEmpty(indexedManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST)));
+    assertEquals(1, statsProvider.getLongValue(VETO_EVALUATED_OFFERS));
+  }
 }
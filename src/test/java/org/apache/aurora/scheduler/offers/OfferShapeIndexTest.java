@@ -0,0 +1,124 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.offers;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.gen.HostAttributes;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.mesos.v1.Protos;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.bag;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosScalar;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.offer;
+import static org.apache.aurora.scheduler.resources.ResourceType.CPUS;
+import static org.apache.aurora.scheduler.resources.ResourceType.DISK_MB;
+import static org.apache.aurora.scheduler.resources.ResourceType.RAM_MB;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OfferShapeIndexTest {
+
+  private static final IHostAttributes ATTRIBUTES =
+      IHostAttributes.build(new HostAttributes().setHost("host"));
+
+  private static final HostOffer SMALL = new HostOffer(
+      offer("small", mesosScalar(CPUS, 1.0), mesosScalar(RAM_MB, 512), mesosScalar(DISK_MB, 512)),
+      ATTRIBUTES);
+  private static final HostOffer LARGE = new HostOffer(
+      offer(
+          "large",
+          mesosScalar(CPUS, 4.0),
+          mesosScalar(CPUS, 8.0, true),
+          mesosScalar(RAM_MB, 4096),
+          mesosScalar(DISK_MB, 4096)),
+      ATTRIBUTES);
+
+  private static final ResourceBag TINY = bag(0.5, 256, 256);
+  private static final ResourceBag MEDIUM = bag(2.0, 1024, 1024);
+  private static final ResourceBag HUGE = bag(6.0, 1024, 1024);
+
+  private OfferShapeIndex index;
+
+  @Before
+  public void setUp() {
+    index = new OfferShapeIndex();
+  }
+
+  @Test
+  public void testEmpty() {
+    assertEquals(ImmutableSet.of(), index.getCandidates(TINY, false));
+    assertEquals(ImmutableSet.of(), index.getCandidates(TINY, true));
+  }
+
+  @Test
+  public void testGetCandidates() {
+    index.add(SMALL);
+    index.add(LARGE);
+
+    assertEquals(ImmutableSet.of(id(SMALL), id(LARGE)), index.getCandidates(TINY, false));
+    assertEquals(ImmutableSet.of(id(LARGE)), index.getCandidates(MEDIUM, false));
+    assertEquals(ImmutableSet.of(), index.getCandidates(HUGE, false));
+    assertEquals(ImmutableSet.of(id(LARGE)), index.getCandidates(HUGE, true));
+
+    index.remove(LARGE);
+    assertEquals(ImmutableSet.of(), index.getCandidates(MEDIUM, false));
+    assertEquals(ImmutableSet.of(id(SMALL)), index.getCandidates(TINY, false));
+
+    index.clear();
+    assertEquals(ImmutableSet.of(), index.getCandidates(TINY, false));
+  }
+
+  @Test
+  public void testGetCandidatesChecksAllResources() {
+    // Each offer has enough of some of the requested resources, but only the large one has
+    // enough of all of them.
+    HostOffer lowRam = new HostOffer(
+        offer(
+            "low_ram",
+            mesosScalar(CPUS, 8.0),
+            mesosScalar(RAM_MB, 256),
+            mesosScalar(DISK_MB, 4096)),
+        ATTRIBUTES);
+    HostOffer lowCpu = new HostOffer(
+        offer(
+            "low_cpu",
+            mesosScalar(CPUS, 1.0),
+            mesosScalar(RAM_MB, 8192),
+            mesosScalar(DISK_MB, 4096)),
+        ATTRIBUTES);
+    index.add(lowRam);
+    index.add(lowCpu);
+    index.add(LARGE);
+
+    assertEquals(ImmutableSet.of(id(LARGE)), index.getCandidates(MEDIUM, false));
+  }
+
+  @Test
+  public void testMayFit() {
+    assertTrue(OfferShapeIndex.mayFit(SMALL, TINY, false));
+    assertFalse(OfferShapeIndex.mayFit(SMALL, MEDIUM, false));
+    assertTrue(OfferShapeIndex.mayFit(LARGE, MEDIUM, false));
+    assertFalse(OfferShapeIndex.mayFit(LARGE, HUGE, false));
+    assertTrue(OfferShapeIndex.mayFit(LARGE, HUGE, true));
+  }
+
+  private static Protos.OfferID id(HostOffer offer) {
+    return offer.getOffer().getId();
+  }
+}
@@ -17,13 +17,18 @@ import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSetMultimap;
 
 import org.apache.aurora.gen.AssignedTask;
+import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.gen.JobKey;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.events.PubsubEvent.HostAttributesChanged;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.state.ClusterStateImpl;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.junit.Before;
 import org.junit.Test;
@@ -109,6 +114,45 @@ public class ClusterStateImplTest {
     assertVictims(b, d, f);
   }
 
+  @Test
+  public void testVersions() {
+    IAssignedTask a = makeTask("a", "s1");
+    IAssignedTask b = makeTask("b", "s2");
+    IJobKey job = JobKeys.from("role", "env", "job");
+
+    assertEquals(0L, state.getVersion());
+    changeState(a, RUNNING);
+    assertEquals(1L, state.getVersion());
+    assertEquals(1L, state.getAgentVersion("s1"));
+    assertEquals(1L, state.getJobVersion(job));
+
+    changeState(b, RUNNING);
+    assertEquals(2L, state.getVersion());
+    assertEquals(1L, state.getAgentVersion("s1"));
+    assertEquals(2L, state.getAgentVersion("s2"));
+    assertEquals(2L, state.getJobVersion(job));
+
+    // Transitions between active states do not change the version.
+    changeState(b, KILLING);
+    assertEquals(2L, state.getVersion());
+
+    changeState(b, KILLED);
+    assertEquals(3L, state.getVersion());
+    assertEquals(1L, state.getAgentVersion("s1"));
+    assertEquals(3L, state.getAgentVersion("s2"));
+    assertEquals(3L, state.getJobVersion(job));
+
+    state.hostAttributesChanged(new HostAttributesChanged(
+        IHostAttributes.build(new HostAttributes().setHost("s1host").setSlaveId("s1"))));
+    assertEquals(4L, state.getVersion());
+    assertEquals(4L, state.getAgentVersion("s1"));
+    assertEquals(3L, state.getJobVersion(job));
+
+    // Untracked agents and jobs report the current version.
+    assertEquals(4L, state.getAgentVersion("s3"));
+    assertEquals(4L, state.getJobVersion(JobKeys.from("role", "env", "other")));
+  }
+
   private void assertVictims(IAssignedTask... tasks) {
     ImmutableMultimap.Builder<String, PreemptionVictim> victims = ImmutableSetMultimap.builder();
     for (IAssignedTask task : tasks) {
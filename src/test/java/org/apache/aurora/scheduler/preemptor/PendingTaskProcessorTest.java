@@ -38,6 +38,7 @@ import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.filter.AttributeAggregate;
+import org.apache.aurora.scheduler.filter.AttributeAggregateCache;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.state.ClusterState;
@@ -53,6 +54,10 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.PARALLEL_SLOT_SEARCHES;
+import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.PARALLEL_SLOT_SEARCH_BATCHES;
+import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.SLOT_SEARCH_POOL_SIZE;
+import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.SLOT_SEARCH_SKIPPED;
 import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.TASK_PROCESSOR_RUN_NAME;
 import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.UNMATCHED_TASKS;
 import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.attemptsByJobStatName;
@@ -105,16 +110,7 @@ public class PendingTaskProcessorTest extends EasyMockTest {
         new BiCache.BiCacheSettings(EXPIRATION, CACHE_NAME),
         clock);
 
-    slotFinder = new PendingTaskProcessor(
-        storageUtil.storage,
-        offerManager,
-        preemptionVictimFilter,
-        new PreemptorMetrics(new CachedCounters(statsProvider)),
-        PREEMPTION_DELAY,
-        slotCache,
-        clusterState,
-        clock,
-        RESERVATION_BATCH_SIZE);
+    slotFinder = newSlotFinder(false, 1);
   }
 
   @Test
@@ -228,6 +224,80 @@ public class PendingTaskProcessorTest extends EasyMockTest {
     assertEquals(2L, statsProvider.getLongValue(CACHE_SIZE_STAT_NAME));
   }
 
+  @Test
+  public void testIncrementalSlotSearch() throws Exception {
+    slotFinder = newSlotFinder(true, 1);
+
+    HostOffer offer1 = makeOffer(SLAVE_ID_1);
+
+    // The first run finds no slot.
+    expect(clusterState.getVersion()).andReturn(1L);
+    expectGetPendingTasks(TASK_A);
+    expectGetClusterState(TASK_A);
+    expectOffers(offer1);
+    expectFailedSlotSearch(TASK_A.getAssignedTask().getTask());
+
+    // The second run skips the agent, as nothing changed.
+    expect(clusterState.getVersion()).andReturn(1L);
+    expectGetPendingTasks(TASK_A);
+    expectGetClusterState(TASK_A);
+    expectOffers(offer1);
+    expect(clusterState.getAgentVersion(SLAVE_ID_1)).andReturn(1L);
+
+    // The third run searches the agent again, as its tasks changed.
+    expect(clusterState.getVersion()).andReturn(2L);
+    expectGetPendingTasks(TASK_A);
+    expectGetClusterState(TASK_A);
+    expectOffers(offer1);
+    expect(clusterState.getAgentVersion(SLAVE_ID_1)).andReturn(2L);
+    expectFailedSlotSearch(TASK_A.getAssignedTask().getTask());
+
+    control.replay();
+
+    clock.advance(PREEMPTION_DELAY);
+
+    slotFinder.run();
+    slotFinder.run();
+    assertEquals(1L, statsProvider.getLongValue(SLOT_SEARCH_SKIPPED));
+    assertEquals(1L, statsProvider.getLongValue(slotSearchStatName(false, true)));
+
+    slotFinder.run();
+    assertEquals(1L, statsProvider.getLongValue(SLOT_SEARCH_SKIPPED));
+    assertEquals(2L, statsProvider.getLongValue(slotSearchStatName(false, true)));
+    assertEquals(3L, statsProvider.getLongValue(UNMATCHED_TASKS));
+  }
+
+  @Test
+  public void testParallelSlotSearch() throws Exception {
+    slotFinder = newSlotFinder(false, 2);
+
+    IScheduledTask task1 = makeTask(JOB_B, "1");
+    IScheduledTask task2 = makeTask(JOB_B, "2");
+    expectGetPendingTasks(task1, task2);
+    expectGetClusterState(TASK_A, TASK_B);
+    expectOffers(makeOffer(SLAVE_ID_1), makeOffer(SLAVE_ID_2));
+    expectSlotSearch(task1.getAssignedTask().getTask(), TASK_B);
+
+    control.replay();
+
+    clock.advance(PREEMPTION_DELAY);
+
+    slotFinder.run();
+    assertEquals(
+        slotCache.get(createPreemptionProposal(TASK_B, SLAVE_ID_1)),
+        Optional.of(group(task1)));
+    assertEquals(
+        slotCache.get(createPreemptionProposal(TASK_B, SLAVE_ID_2)),
+        Optional.of(group(task2)));
+    assertEquals(2L, statsProvider.getLongValue(slotSearchStatName(true, true)));
+    assertEquals(0L, statsProvider.getLongValue(UNMATCHED_TASKS));
+    assertEquals(2L, statsProvider.getLongValue(SLOT_SEARCH_POOL_SIZE));
+    // Both slaves are searched in a single parallel batch, and the second instance of the group
+    // reuses the result for the slave not reserved by the first.
+    assertEquals(1L, statsProvider.getLongValue(PARALLEL_SLOT_SEARCH_BATCHES));
+    assertEquals(2L, statsProvider.getLongValue(PARALLEL_SLOT_SEARCHES));
+  }
+
   @Test
   public void testNoVictims() throws Exception {
     expectGetClusterState();
@@ -301,6 +371,25 @@ public class PendingTaskProcessorTest extends EasyMockTest {
     );
   }
 
+  private PendingTaskProcessor newSlotFinder(
+      boolean incrementalSlotSearch,
+      int slotSearchThreads) {
+
+    return new PendingTaskProcessor(
+        storageUtil.storage,
+        offerManager,
+        preemptionVictimFilter,
+        new PreemptorMetrics(new CachedCounters(statsProvider)),
+        PREEMPTION_DELAY,
+        slotCache,
+        clusterState,
+        clock,
+        RESERVATION_BATCH_SIZE,
+        new AttributeAggregateCache.Uncached(),
+        incrementalSlotSearch,
+        slotSearchThreads);
+  }
+
   private HostOffer makeOffer(String slaveId) {
     Protos.Offer.Builder builder = Protos.Offer.newBuilder();
     builder.getIdBuilder().setValue("id");
@@ -334,6 +423,16 @@ public class PendingTaskProcessorTest extends EasyMockTest {
         .anyTimes();
   }
 
+  private void expectFailedSlotSearch(ITaskConfig config) {
+    expect(preemptionVictimFilter.filterPreemptionVictims(
+        eq(config),
+        anyObject(),
+        anyObject(AttributeAggregate.class),
+        anyObject(),
+        eq(storageUtil.storeProvider)))
+        .andReturn(Optional.empty());
+  }
+
   private static PreemptionProposal createPreemptionProposal(IScheduledTask task, String slaveId) {
     return new PreemptionProposal(
         ImmutableSet.of(PreemptionVictim.fromTask(task.getAssignedTask())),
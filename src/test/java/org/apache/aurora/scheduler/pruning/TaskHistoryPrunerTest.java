@@ -30,6 +30,7 @@ import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.testing.FakeClock;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.BatchWorker.Priority;
 import org.apache.aurora.scheduler.SchedulerModule.TaskEventBatchWorker;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
@@ -86,7 +87,7 @@ public class TaskHistoryPrunerTest extends EasyMockTest {
     shutdownCommand = createMock(Command.class);
     TaskEventBatchWorker batchWorker = createMock(TaskEventBatchWorker.class);
     statsProvider = new FakeStatsProvider();
-    expectBatchExecute(batchWorker, storageUtil.storage, control).anyTimes();
+    expectBatchExecute(batchWorker, Priority.LOW, storageUtil.storage, control).anyTimes();
 
     pruner = new TaskHistoryPruner(
         executor,
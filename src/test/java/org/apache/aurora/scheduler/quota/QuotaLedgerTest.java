@@ -0,0 +1,215 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.quota;
+
+import java.util.Optional;
+
+import javax.inject.Singleton;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.gen.InstanceTaskConfig;
+import org.apache.aurora.gen.JobConfiguration;
+import org.apache.aurora.gen.JobUpdate;
+import org.apache.aurora.gen.JobUpdateEvent;
+import org.apache.aurora.gen.JobUpdateInstructions;
+import org.apache.aurora.gen.JobUpdateKey;
+import org.apache.aurora.gen.JobUpdateStatus;
+import org.apache.aurora.gen.JobUpdateSummary;
+import org.apache.aurora.gen.Range;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.quota.QuotaManager.QuotaManagerImpl;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
+import org.apache.aurora.scheduler.storage.entities.IJobConfiguration;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdate;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateEvent;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.Resource.diskMb;
+import static org.apache.aurora.gen.Resource.numCpus;
+import static org.apache.aurora.gen.Resource.ramMb;
+import static org.junit.Assert.assertEquals;
+
+public class QuotaLedgerTest {
+  private static final String ROLE = "role";
+  private static final IJobKey JOB_A = JobKeys.from(ROLE, "env", "a");
+  private static final IJobKey JOB_B = JobKeys.from(ROLE, "env", "b");
+  private static final IJobKey CRON = JobKeys.from(ROLE, "env", "cron");
+  private static final IJobKey OTHER_ROLE = JobKeys.from("other", "env", "a");
+
+  private Storage storage;
+  private QuotaLedger ledger;
+
+  @Before
+  public void setUp() {
+    QuotaModule.Options options = new QuotaModule.Options();
+    options.enableQuotaLedger = true;
+    Injector injector = Guice.createInjector(
+        new MemStorageModule(),
+        new QuotaModule(options),
+        new AbstractModule() {
+          @Override
+          protected void configure() {
+            bind(StatsProvider.class).to(FakeStatsProvider.class);
+            bind(FakeStatsProvider.class).in(Singleton.class);
+          }
+        });
+    storage = injector.getInstance(Storage.class);
+    storage.prepare();
+    ledger = injector.getInstance(Key.get(new TypeLiteral<Optional<QuotaLedger>>() { })).get();
+  }
+
+  @Test
+  public void testTracksActiveTasks() {
+    IScheduledTask a0 = task("a0", JOB_A, 0, 1, true);
+    IScheduledTask a1 = task("a1", JOB_A, 1, 1, true);
+    IScheduledTask b0 = task("b0", JOB_B, 0, 2, false);
+    IScheduledTask other = task("other", OTHER_ROLE, 0, 1, true);
+    saveTasks(a0, a1, b0, other);
+
+    assertEquals(
+        ImmutableMap.of(
+            JOB_A, ImmutableMultiset.of(config(a0), config(a1)),
+            JOB_B, ImmutableMultiset.of(config(b0))),
+        ledger.getActiveTasks(ROLE));
+
+    changeStatus("a1", ScheduleStatus.RUNNING);
+    changeStatus("b0", ScheduleStatus.FINISHED);
+    assertEquals(
+        ImmutableMap.of(JOB_A, ImmutableMultiset.of(config(a0), config(a1))),
+        ledger.getActiveTasks(ROLE));
+
+    // Overwriting a task replaces its ledger entry.
+    IScheduledTask a1Resized = task("a1", JOB_A, 1, 3, true);
+    saveTasks(a1Resized);
+    storage.write((NoResult.Quiet) storeProvider ->
+        storeProvider.getUnsafeTaskStore().deleteTasks(ImmutableSet.of("a0", "b0")));
+    assertEquals(
+        ImmutableMap.of(JOB_A, ImmutableMultiset.of(config(a1Resized))),
+        ledger.getActiveTasks(ROLE));
+
+    storage.write((NoResult.Quiet) storeProvider ->
+        storeProvider.getUnsafeTaskStore().deleteAllTasks());
+    assertEquals(ImmutableMap.of(), ledger.getActiveTasks(ROLE));
+    assertEquals(ImmutableMap.of(), ledger.getActiveTasks("other"));
+  }
+
+  @Test
+  public void testMatchesFullComputation() {
+    saveTasks(
+        task("a0", JOB_A, 0, 1, true),
+        task("a1", JOB_A, 1, 1, true),
+        task("a2", JOB_A, 2, 2, false),
+        task("b0", JOB_B, 0, 4, true),
+        task("b1", JOB_B, 1, 4, true),
+        task("cron0", CRON, 0, 8, true),
+        task("other", OTHER_ROLE, 0, 16, true));
+    changeStatus("a2", ScheduleStatus.KILLED);
+
+    IJobUpdateKey updateKey = IJobUpdateKey.build(new JobUpdateKey(JOB_B.newBuilder(), "u1"));
+    storage.write((NoResult.Quiet) storeProvider -> {
+      storeProvider.getCronJobStore().saveAcceptedJob(IJobConfiguration.build(
+          new JobConfiguration()
+              .setKey(CRON.newBuilder())
+              .setTaskConfig(config(task("cron", CRON, 0, 2, true)).newBuilder())
+              .setInstanceCount(2)));
+      storeProvider.getJobUpdateStore().saveJobUpdate(IJobUpdate.build(new JobUpdate()
+          .setSummary(new JobUpdateSummary().setKey(updateKey.newBuilder()).setUser("user"))
+          .setInstructions(new JobUpdateInstructions()
+              .setInitialState(ImmutableSet.of(new InstanceTaskConfig()
+                  .setTask(config(task("b", JOB_B, 0, 4, true)).newBuilder())
+                  .setInstances(ImmutableSet.of(new Range(0, 0)))))
+              .setDesiredState(new InstanceTaskConfig()
+                  .setTask(config(task("b", JOB_B, 0, 6, true)).newBuilder())
+                  .setInstances(ImmutableSet.of(new Range(0, 0)))))));
+      storeProvider.getJobUpdateStore().saveJobUpdateEvent(
+          updateKey,
+          IJobUpdateEvent.build(new JobUpdateEvent()
+              .setStatus(JobUpdateStatus.ROLLING_FORWARD)
+              .setTimestampMs(1L)));
+    });
+
+    assertLedgerMatchesFullComputation();
+  }
+
+  @Test
+  public void testReconcileRepairsLedger() {
+    IScheduledTask a0 = task("a0", JOB_A, 0, 1, true);
+    saveTasks(a0);
+    ledger.reset(ROLE, ImmutableMap.of(JOB_B, ImmutableMultiset.of(config(a0))));
+
+    assertLedgerMatchesFullComputation();
+    assertEquals(ImmutableMap.of(JOB_A, ImmutableMultiset.of(config(a0))),
+        ledger.getActiveTasks(ROLE));
+  }
+
+  private void assertLedgerMatchesFullComputation() {
+    QuotaManagerImpl fullManager =
+        new QuotaManagerImpl(Optional.empty(), 1, new FakeStatsProvider());
+    QuotaManagerImpl ledgerManager =
+        new QuotaManagerImpl(Optional.of(ledger), 1, new FakeStatsProvider());
+    assertEquals(
+        storage.read(storeProvider -> fullManager.getQuotaInfo(ROLE, storeProvider)),
+        storage.read(storeProvider -> ledgerManager.getQuotaInfo(ROLE, storeProvider)));
+  }
+
+  private void saveTasks(IScheduledTask... tasks) {
+    storage.write((NoResult.Quiet) storeProvider ->
+        storeProvider.getUnsafeTaskStore().saveTasks(ImmutableSet.copyOf(tasks)));
+  }
+
+  private void changeStatus(String taskId, ScheduleStatus status) {
+    storage.write((NoResult.Quiet) storeProvider ->
+        storeProvider.getUnsafeTaskStore().mutateTask(
+            taskId,
+            task -> IScheduledTask.build(task.newBuilder().setStatus(status))));
+  }
+
+  private static ITaskConfig config(IScheduledTask task) {
+    return task.getAssignedTask().getTask();
+  }
+
+  private static IScheduledTask task(
+      String taskId,
+      IJobKey job,
+      int instanceId,
+      int cpus,
+      boolean production) {
+
+    ScheduledTask builder = TaskTestUtil.makeTask(taskId, job, instanceId).newBuilder();
+    builder.getAssignedTask().getTask()
+        .setResources(ImmutableSet.of(numCpus(cpus), ramMb(cpus), diskMb(cpus)))
+        .setProduction(production);
+    return IScheduledTask.build(builder);
+  }
+}
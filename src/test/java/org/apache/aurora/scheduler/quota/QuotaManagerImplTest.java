@@ -50,6 +50,7 @@ import org.apache.aurora.scheduler.storage.entities.IResourceAggregate;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.easymock.IExpectationSetters;
 import org.junit.Before;
 import org.junit.Test;
@@ -88,7 +89,7 @@ public class QuotaManagerImplTest extends EasyMockTest {
     storageUtil = new StorageTestUtil(this);
     storeProvider = storageUtil.storeProvider;
     jobUpdateStore = storageUtil.jobUpdateStore;
-    quotaManager = new QuotaManagerImpl();
+    quotaManager = new QuotaManagerImpl(Optional.empty(), 1, new FakeStatsProvider());
     storageUtil.expectOperations();
   }
 
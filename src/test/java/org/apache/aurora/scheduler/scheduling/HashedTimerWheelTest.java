@@ -0,0 +1,91 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.scheduling;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HashedTimerWheelTest {
+
+  private static final Amount<Long, Time> TICK = Amount.of(10L, Time.MILLISECONDS);
+
+  private HashedTimerWheel<String> wheel;
+
+  @Before
+  public void setUp() {
+    wheel = new HashedTimerWheel<>(TICK, 4, 0);
+  }
+
+  @Test
+  public void testExpiresAfterDeadline() {
+    wheel.schedule("a", 15);
+    wheel.schedule("b", 20);
+    assertEquals(2, wheel.size());
+
+    assertEquals(ImmutableList.of(), expire(10));
+    assertEquals(ImmutableList.of(), expire(19));
+    assertEquals(ImmutableList.of("a", "b"), expire(20));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void testMultipleRotations() {
+    wheel.schedule("a", 35);
+    wheel.schedule("b", 125);
+    wheel.schedule("c", 1000);
+
+    assertEquals(ImmutableList.of("a"), expire(50));
+    assertEquals(ImmutableList.of(), expire(120));
+    // Skipping more than a full rotation visits each bucket once.
+    assertEquals(ImmutableList.of("b"), expire(500));
+    assertEquals(1, wheel.size());
+    assertEquals(ImmutableList.of("c"), expire(1000));
+  }
+
+  @Test
+  public void testPastDeadline() {
+    assertEquals(ImmutableList.of(), expire(100));
+    wheel.schedule("a", 50);
+    wheel.schedule("b", 100);
+    assertEquals(ImmutableList.of(), expire(105));
+    assertEquals(ImmutableList.of("a", "b"), expire(110));
+  }
+
+  @Test
+  public void testDeadline() {
+    wheel.schedule("a", 42);
+    List<HashedTimerWheel.Timeout<String>> expired = wheel.expire(55);
+    assertEquals(1, expired.size());
+    assertEquals("a", expired.get(0).getItem());
+    assertEquals(42L, expired.get(0).getDeadlineMs());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWheelSizeNotPowerOfTwo() {
+    new HashedTimerWheel<String>(TICK, 3, 0);
+  }
+
+  private List<String> expire(long nowMs) {
+    return ImmutableList.copyOf(
+        wheel.expire(nowMs).stream().map(HashedTimerWheel.Timeout::getItem).iterator());
+  }
+}
@@ -13,10 +13,13 @@
  */
 package org.apache.aurora.scheduler.scheduling;
 
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.RateLimiter;
 
 import org.apache.aurora.common.quantity.Amount;
@@ -44,6 +47,7 @@ import org.junit.Test;
 import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
 import static org.apache.aurora.gen.ScheduleStatus.INIT;
 import static org.apache.aurora.scheduler.testing.BatchWorkerUtil.expectBatchExecute;
+import static org.apache.aurora.scheduler.testing.BatchWorkerUtil.expectCompletedBatchExecute;
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
@@ -65,26 +69,47 @@ public class TaskGroupsTest extends EasyMockTest {
   private TaskGroupBatchWorker batchWorker;
   private StorageTestUtil storageUtil;
   private FakeStatsProvider statsProvider;
+  private ScheduledExecutorService executor;
 
   @Before
   public void setUp() throws Exception {
     storageUtil = new StorageTestUtil(this);
     storageUtil.expectOperations();
-    ScheduledExecutorService executor = createMock(ScheduledExecutorService.class);
+    executor = createMock(ScheduledExecutorService.class);
     clock = FakeScheduledExecutor.fromScheduledExecutorService(executor);
     backoffStrategy = createMock(BackoffStrategy.class);
     taskScheduler = createMock(TaskScheduler.class);
+    expect(taskScheduler.prepare(anyObject()))
+        .andStubReturn(CompletableFuture.completedFuture(null));
     rateLimiter = createMock(RateLimiter.class);
     rescheduleCalculator = createMock(RescheduleCalculator.class);
     batchWorker = createMock(TaskGroupBatchWorker.class);
     statsProvider = new FakeStatsProvider();
-    taskGroups = new TaskGroups(
+    taskGroups = createTaskGroups(false);
+  }
+
+  private TaskGroups createTaskGroups(boolean multiGroupRounds) {
+    return createTaskGroups(multiGroupRounds, Optional.empty());
+  }
+
+  private TaskGroups createTaskGroups(
+      boolean multiGroupRounds,
+      Optional<Amount<Long, Time>> timerWheelTick) {
+
+    return new TaskGroups(
         executor,
-        new TaskGroupsSettings(FIRST_SCHEDULE_DELAY, backoffStrategy, rateLimiter, 2),
+        new TaskGroupsSettings(
+            FIRST_SCHEDULE_DELAY,
+            backoffStrategy,
+            rateLimiter,
+            2,
+            multiGroupRounds,
+            timerWheelTick),
         taskScheduler,
         rescheduleCalculator,
         batchWorker,
-        statsProvider);
+        statsProvider,
+        clock);
   }
 
   @Test
@@ -171,6 +196,72 @@ public class TaskGroupsTest extends EasyMockTest {
     assertEquals(2L, statsProvider.getLongValue(TaskGroups.SCHEDULE_ATTEMPTS_BLOCKS));
   }
 
+  @Test
+  public void testMultiGroupRounds() throws Exception {
+    taskGroups = createTaskGroups(true);
+
+    expect(rateLimiter.acquire()).andReturn(0D).times(2);
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("a0", "a1"))))
+        .andReturn(ImmutableSet.of("a0", "a1"));
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("b0"))))
+        .andReturn(ImmutableSet.of());
+    expectBatchExecute(batchWorker, storageUtil.storage, control, ImmutableSet.of()).anyTimes();
+    expect(backoffStrategy.calculateBackoffMs(FIRST_SCHEDULE_DELAY.as(Time.MILLISECONDS)))
+        .andReturn(1000L);
+
+    control.replay();
+
+    taskGroups.taskChangedState(TaskStateChange.transition(makeTask(JOB_A, "a0", 0), INIT));
+    taskGroups.taskChangedState(TaskStateChange.transition(makeTask(JOB_A, "a1", 1), INIT));
+    taskGroups.taskChangedState(TaskStateChange.transition(
+        makeTask(IJobKey.build(JOB_A.newBuilder().setName("jobB")), "b0", 0), INIT));
+
+    clock.advance(FIRST_SCHEDULE_DELAY);
+
+    // The first group was fully scheduled, while the second group backs off.
+    assertEquals(
+        ImmutableSet.of(ImmutableSet.of("b0")),
+        ImmutableSet.copyOf(Iterables.transform(taskGroups.getGroups(), TaskGroup::getTaskIds)));
+  }
+
+  @Test
+  public void testTimerWheel() throws Exception {
+    Amount<Long, Time> tick = Amount.of(10L, Time.MILLISECONDS);
+    taskGroups = createTaskGroups(false, Optional.of(tick));
+
+    expect(rateLimiter.tryAcquire()).andReturn(true).andReturn(false).andReturn(true);
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("a0", "a1"))))
+        .andReturn(ImmutableSet.of("a0", "a1"));
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("b0"))))
+        .andReturn(ImmutableSet.of());
+    expectCompletedBatchExecute(batchWorker, storageUtil.storage).times(2);
+    expect(backoffStrategy.calculateBackoffMs(FIRST_SCHEDULE_DELAY.as(Time.MILLISECONDS)))
+        .andReturn(1000L);
+
+    control.replay();
+
+    taskGroups.taskChangedState(TaskStateChange.transition(makeTask(JOB_A, "a0", 0), INIT));
+    taskGroups.taskChangedState(TaskStateChange.transition(makeTask(JOB_A, "a1", 1), INIT));
+    taskGroups.taskChangedState(TaskStateChange.transition(
+        makeTask(IJobKey.build(JOB_A.newBuilder().setName("jobB")), "b0", 0), INIT));
+    assertEquals(2, statsProvider.getValue(TaskGroups.TIMER_WHEEL_SIZE));
+
+    // Both groups are due on the first tick, but the rate limit only admits the first one.
+    clock.advance(tick);
+    assertEquals(1L, statsProvider.getLongValue(TaskGroups.SCHEDULE_ATTEMPTS_BLOCKS));
+    assertEquals(1, statsProvider.getValue(TaskGroups.DUE_GROUP_BACKLOG));
+    assertEquals(0, statsProvider.getValue(TaskGroups.TIMER_WHEEL_SIZE));
+    assertEquals(
+        ImmutableSet.of(ImmutableSet.of("b0")),
+        ImmutableSet.copyOf(Iterables.transform(taskGroups.getGroups(), TaskGroup::getTaskIds)));
+
+    // The backlog is drained on the next tick, and the second group is re-armed with a backoff.
+    clock.advance(tick);
+    assertEquals(0, statsProvider.getValue(TaskGroups.DUE_GROUP_BACKLOG));
+    assertEquals(1, statsProvider.getValue(TaskGroups.TIMER_WHEEL_SIZE));
+    assertEquals(1000L, Iterables.getOnlyElement(taskGroups.getGroups()).getPenaltyMs());
+  }
+
   @Test
   public void testNonPendingIgnored() {
     control.replay();
@@ -13,14 +13,18 @@
  */
 package org.apache.aurora.scheduler.scheduling;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -42,6 +46,7 @@ import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
+import org.apache.aurora.scheduler.filter.AttributeAggregateCache;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.preemptor.BiCache;
 import org.apache.aurora.scheduler.preemptor.Preemptor;
@@ -67,6 +72,7 @@ import static org.apache.aurora.scheduler.mesos.TestExecutorSettings.THERMOS_EXE
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class TaskSchedulerImplTest extends EasyMockTest {
   private static final String TASK_ID = "a";
@@ -112,6 +118,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
             bind(TaskScheduler.class).to(TaskSchedulerImpl.class);
             bind(Preemptor.class).toInstance(preemptor);
             bind(TaskAssigner.class).toInstance(assigner);
+            bind(AttributeAggregateCache.class).to(AttributeAggregateCache.Uncached.class);
             bind(Clock.class).toInstance(createMock(Clock.class));
             bind(StatsProvider.class).toInstance(new FakeStatsProvider());
             bind(Storage.class).toInstance(storageImpl);
@@ -159,6 +166,23 @@ public class TaskSchedulerImplTest extends EasyMockTest {
         scheduler.schedule(storageUtil.mutableStoreProvider, SINGLE_TASK));
   }
 
+  @Test
+  public void testPrepare() {
+    CompletableFuture<Void> prepared = new CompletableFuture<>();
+    expect(assigner.prepare(ImmutableMap.of(
+        GROUP_KEY,
+        ResourceRequest.fromTask(
+            TASK_A.getAssignedTask().getTask(),
+            THERMOS_EXECUTOR,
+            empty(),
+            TIER_MANAGER))))
+        .andReturn(prepared);
+
+    control.replay();
+
+    assertSame(prepared, scheduler.prepare(ImmutableSet.of(GROUP_KEY)));
+  }
+
   @Test
   public void testScheduleNoTask() {
     storageUtil.expectOperations();
@@ -194,19 +218,39 @@ public class TaskSchedulerImplTest extends EasyMockTest {
   }
 
   @Test
-  public void testMultipleGroupsRejected() {
+  public void testMultipleGroups() {
     storageUtil.expectOperations();
 
     String taskB = "b";
+    ScheduledTask builder = TaskTestUtil.makeTask(taskB, JobKeys.from("b", "b", "b")).newBuilder();
+    builder.getAssignedTask().getTask().setPriority(
+        TASK_A.getAssignedTask().getTask().getPriority() + 1);
+    IScheduledTask higherPriority = IScheduledTask.build(builder);
+
+    expectAsMap(NO_RESERVATION);
     storageUtil.expectTaskFetch(
         Query.taskScoped(Tasks.id(TASK_A), taskB).byStatus(PENDING),
-        ImmutableSet.of(TASK_A, TaskTestUtil.makeTask(taskB, JobKeys.from("b", "b", "b"))));
+        ImmutableSet.of(TASK_A, higherPriority));
+    expectActiveJobFetch(TASK_A);
+    expectActiveJobFetch(higherPriority);
+
+    // Groups are attempted in a single round, most important first.
+    List<String> attempted = Lists.newArrayList();
+    expectAssigned(higherPriority, NO_RESERVATION).andAnswer(() -> {
+      attempted.add(taskB);
+      return ImmutableSet.of(taskB);
+    });
+    expectAssigned(TASK_A, NO_RESERVATION).andAnswer(() -> {
+      attempted.add(TASK_ID);
+      return SCHEDULED_RESULT;
+    });
 
     control.replay();
 
     assertEquals(
-        NOT_SCHEDULED_RESULT,
+        ImmutableSet.of(TASK_ID, taskB),
         scheduler.schedule(storageUtil.mutableStoreProvider, ImmutableSet.of(TASK_ID, taskB)));
+    assertEquals(ImmutableList.of(taskB, TASK_ID), attempted);
   }
 
   @Test
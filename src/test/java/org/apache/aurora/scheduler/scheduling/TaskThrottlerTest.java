@@ -27,6 +27,7 @@ import org.apache.aurora.gen.AssignedTask;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskEvent;
+import org.apache.aurora.scheduler.BatchWorker.Priority;
 import org.apache.aurora.scheduler.SchedulerModule.TaskEventBatchWorker;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
@@ -65,7 +66,7 @@ public class TaskThrottlerTest extends EasyMockTest {
     storageUtil.expectOperations();
     stateManager = createMock(StateManager.class);
     TaskEventBatchWorker batchWorker = createMock(TaskEventBatchWorker.class);
-    expectBatchExecute(batchWorker, storageUtil.storage, control).anyTimes();
+    expectBatchExecute(batchWorker, Priority.HIGH, storageUtil.storage, control).anyTimes();
 
     throttler = new TaskThrottler(
         rescheduleCalculator,
@@ -0,0 +1,193 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.sla;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Range;
+
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.sla.MetricCalculator.MetricCategory;
+import org.apache.aurora.scheduler.sla.SlaAlgorithm.AlgorithmType;
+import org.apache.aurora.scheduler.sla.SlaGroup.GroupType;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.KILLED;
+import static org.apache.aurora.gen.ScheduleStatus.KILLING;
+import static org.apache.aurora.gen.ScheduleStatus.LOST;
+import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.gen.ScheduleStatus.STARTING;
+import static org.apache.aurora.scheduler.sla.MetricCalculator.NAME_QUALIFIER_NON_PROD;
+import static org.apache.aurora.scheduler.sla.MetricCalculator.NAME_QUALIFIER_PROD;
+import static org.apache.aurora.scheduler.sla.SlaTestUtil.makeTask;
+import static org.junit.Assert.assertEquals;
+
+public class IncrementalSlaMetricsTest extends EasyMockTest {
+
+  private static final Set<MetricCategory> CATEGORIES =
+      ImmutableSet.copyOf(MetricCategory.values());
+  private static final double DELTA = 0.001;
+
+  private StorageTestUtil storageUtil;
+  private IncrementalSlaMetrics metrics;
+  private Map<String, IScheduledTask> tasks;
+
+  @Before
+  public void setUp() {
+    storageUtil = new StorageTestUtil(this);
+    storageUtil.expectOperations();
+    metrics = new IncrementalSlaMetrics(storageUtil.storage);
+    tasks = Maps.newHashMap();
+  }
+
+  private void addTask(IScheduledTask task) {
+    tasks.put(Tasks.id(task), task);
+  }
+
+  private void changeTask(IScheduledTask task) {
+    IScheduledTask old = tasks.put(Tasks.id(task), task);
+    metrics.taskChangedState(old == null
+        ? TaskStateChange.initialized(task)
+        : TaskStateChange.transition(task, old.getStatus()));
+  }
+
+  private void deleteTask(String taskId) {
+    metrics.tasksDeleted(new TasksDeleted(ImmutableSet.of(tasks.remove(taskId))));
+  }
+
+  private static Map<String, Number> calculateFull(
+      Collection<IScheduledTask> tasks,
+      Range<Long> timeFrame) {
+
+    Map<String, Number> values = Maps.newHashMap();
+    for (boolean prod : new boolean[] {true, false}) {
+      List<IScheduledTask> group = tasks.stream()
+          .filter(task -> Tasks.getConfig(task).isProduction() == prod)
+          .collect(Collectors.toList());
+      String qualifier = prod ? NAME_QUALIFIER_PROD : NAME_QUALIFIER_NON_PROD;
+      for (MetricCategory category : CATEGORIES) {
+        for (Entry<AlgorithmType, GroupType> metric : category.getMetrics().entries()) {
+          for (Entry<String, Collection<IScheduledTask>> namedGroup
+              : metric.getValue().getSlaGroup().createNamedGroups(group).asMap().entrySet()) {
+
+            AlgorithmType type = metric.getKey();
+            values.put(
+                namedGroup.getKey() + type.getAlgorithmName() + qualifier,
+                type.getAlgorithm().calculate(namedGroup.getValue(), timeFrame));
+          }
+        }
+      }
+    }
+    return values;
+  }
+
+  private void assertMatchesFull(Range<Long> timeFrame) {
+    Map<String, Number> actual = Maps.newHashMap();
+    metrics.calculate(CATEGORIES, CATEGORIES, timeFrame, actual::put);
+
+    Map<String, Number> expected = calculateFull(tasks.values(), timeFrame);
+    assertEquals(expected.keySet(), actual.keySet());
+    for (Entry<String, Number> entry : expected.entrySet()) {
+      assertEquals(
+          entry.getKey(),
+          entry.getValue().doubleValue(),
+          actual.get(entry.getKey()).doubleValue(),
+          DELTA);
+    }
+  }
+
+  private static IScheduledTask task(
+      String taskId,
+      int instanceId,
+      boolean prod,
+      ImmutableMap<Long, ScheduleStatus> events) {
+
+    return makeTask(taskId, events, instanceId, prod);
+  }
+
+  @Test
+  public void testMatchesFullCalculation() {
+    addTask(task("t1", 0, true, ImmutableMap.of(
+        100L, PENDING, 200L, ASSIGNED, 300L, STARTING, 400L, RUNNING)));
+    addTask(task("t2", 1, true, ImmutableMap.of(
+        900L, PENDING, 950L, ASSIGNED, 960L, STARTING, 990L, RUNNING)));
+    addTask(task("t3", 2, true, ImmutableMap.of(
+        100L, PENDING, 150L, ASSIGNED, 200L, RUNNING, 950L, LOST)));
+    addTask(task("t4", 2, true, ImmutableMap.of(960L, PENDING, 970L, ASSIGNED)));
+    addTask(task("t5", 3, false, ImmutableMap.of(
+        100L, PENDING, 300L, RUNNING, 920L, KILLING, 940L, KILLED)));
+    storageUtil.expectTaskFetch(Query.unscoped(), ImmutableSet.copyOf(tasks.values()));
+
+    control.replay();
+
+    assertMatchesFull(Range.closedOpen(900L, 1000L));
+
+    changeTask(task("t6", 4, true, ImmutableMap.of(1005L, PENDING)));
+    changeTask(task("t4", 2, true, ImmutableMap.of(
+        960L, PENDING, 970L, ASSIGNED, 1010L, STARTING)));
+    changeTask(task("t1", 0, true, ImmutableMap.of(
+        100L, PENDING, 200L, ASSIGNED, 300L, STARTING, 400L, RUNNING, 1020L, KILLING)));
+    changeTask(task("t1", 0, true, ImmutableMap.<Long, ScheduleStatus>builder()
+        .put(100L, PENDING)
+        .put(200L, ASSIGNED)
+        .put(300L, STARTING)
+        .put(400L, RUNNING)
+        .put(1020L, KILLING)
+        .put(1030L, KILLED)
+        .build()));
+    changeTask(task("t4", 2, true, ImmutableMap.of(
+        960L, PENDING, 970L, ASSIGNED, 1010L, STARTING, 1050L, RUNNING)));
+    changeTask(task("t6", 4, true, ImmutableMap.of(1005L, PENDING, 1060L, ASSIGNED)));
+    deleteTask("t5");
+
+    assertMatchesFull(Range.closedOpen(1000L, 1100L));
+    assertMatchesFull(Range.closedOpen(1050L, 1150L));
+  }
+
+  @Test
+  public void testEvictsEventsOutsideTimeFrame() {
+    addTask(task("t1", 0, true, ImmutableMap.of(
+        100L, PENDING, 200L, ASSIGNED, 300L, STARTING, 400L, RUNNING)));
+    storageUtil.expectTaskFetch(Query.unscoped(), ImmutableSet.copyOf(tasks.values()));
+
+    control.replay();
+
+    assertMatchesFull(Range.closedOpen(0L, 1000L));
+
+    changeTask(task("t2", 1, true, ImmutableMap.of(
+        1100L, PENDING, 1200L, ASSIGNED, 1300L, STARTING, 1400L, RUNNING)));
+    assertMatchesFull(Range.closedOpen(1000L, 2000L));
+
+    assertMatchesFull(Range.closedOpen(2000L, 3000L));
+    assertEquals(0, metrics.getBufferedEvents());
+  }
+}
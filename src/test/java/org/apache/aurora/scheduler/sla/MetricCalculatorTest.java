@@ -77,7 +77,8 @@ public class MetricCalculatorTest extends EasyMockTest {
         storageUtil.storage,
         clock,
         settings,
-        statsProvider);
+        statsProvider,
+        new IncrementalSlaMetrics(storageUtil.storage));
 
     expect(statsProvider.untracked()).andReturn(untracked).anyTimes();
 
@@ -37,8 +37,17 @@ final class SlaTestUtil {
   }
 
   static IScheduledTask makeTask(Map<Long, ScheduleStatus> events, int instanceId, boolean isProd) {
+    return makeTask("task_id", events, instanceId, isProd);
+  }
+
+  static IScheduledTask makeTask(
+      String taskId,
+      Map<Long, ScheduleStatus> events,
+      int instanceId,
+      boolean isProd) {
+
     List<ITaskEvent> taskEvents = makeEvents(events);
-    ScheduledTask builder = TaskTestUtil.makeTask("task_id", TaskTestUtil.JOB).newBuilder()
+    ScheduledTask builder = TaskTestUtil.makeTask(taskId, TaskTestUtil.JOB).newBuilder()
         .setStatus(Iterables.getLast(taskEvents).getStatus())
         .setTaskEvents(ITaskEvent.toBuildersList(taskEvents));
     builder.getAssignedTask().setInstanceId(instanceId);
@@ -286,6 +286,40 @@ public abstract class AbstractTaskStoreTest extends TearDownTestCase {
         TASK_A, TASK_B, TASK_C, TASK_D);
   }
 
+  private List<IScheduledTask> fetchTaskPage(TaskQuery query, Optional<String> afterTaskId) {
+    return storage.read(storeProvider ->
+        storeProvider.getTaskStore().fetchTaskPage(Query.arbitrary(query), afterTaskId));
+  }
+
+  @Test
+  public void testFetchTaskPage() {
+    saveTasks(TASK_D, TASK_B, TASK_A, TASK_C);
+
+    assertEquals(
+        ImmutableList.of(TASK_A, TASK_B, TASK_C, TASK_D),
+        fetchTaskPage(new TaskQuery(), Optional.empty()));
+    assertEquals(
+        ImmutableList.of(TASK_A, TASK_B),
+        fetchTaskPage(new TaskQuery().setLimit(2), Optional.empty()));
+    assertEquals(
+        ImmutableList.of(TASK_C),
+        fetchTaskPage(new TaskQuery().setOffset(2).setLimit(1), Optional.empty()));
+    assertEquals(
+        ImmutableList.of(TASK_C, TASK_D),
+        fetchTaskPage(new TaskQuery().setLimit(2), Optional.of(Tasks.id(TASK_B))));
+    assertEquals(
+        ImmutableList.of(TASK_D),
+        fetchTaskPage(new TaskQuery().setOffset(1), Optional.of(Tasks.id(TASK_B))));
+    assertEquals(
+        ImmutableList.of(TASK_C),
+        fetchTaskPage(
+            new TaskQuery().setRole("role-c").setLimit(2),
+            Optional.of(Tasks.id(TASK_A))));
+    assertEquals(
+        ImmutableList.of(),
+        fetchTaskPage(new TaskQuery().setLimit(2), Optional.of(Tasks.id(TASK_D))));
+  }
+
   @Test
   public void testQueryMultipleInstances() {
     ImmutableSet.Builder<IScheduledTask> tasksBuilder = ImmutableSet.builder();
@@ -94,7 +94,6 @@ import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
 import org.easymock.Capture;
 import org.easymock.EasyMock;
-import org.easymock.IAnswer;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -379,13 +378,12 @@ public class DurableStorageTest extends EasyMockTest {
   private void expectPersist(Op op, Op... ops) {
     try {
       // Workaround for comparing streams.
-      persistence.persist(anyObject());
-      expectLastCall().andAnswer((IAnswer<Void>) () -> {
+      expect(persistence.persistAsync(anyObject())).andAnswer(() -> {
         assertEquals(
             ImmutableList.<Op>builder().add(op).add(ops).build(),
             ((Stream<Op>) EasyMock.getCurrentArguments()[0]).collect(Collectors.toList()));
 
-        return null;
+        return () -> { };
       });
     } catch (Persistence.PersistenceException e) {
       throw new RuntimeException(e);
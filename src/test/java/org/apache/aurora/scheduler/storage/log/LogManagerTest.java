@@ -79,11 +79,19 @@ public class LogManagerTest extends EasyMockTest {
   }
 
   private StreamManager createStreamManager(final Amount<Integer, Data> maxEntrySize) {
+    return createStreamManager(maxEntrySize, 1);
+  }
+
+  private StreamManager createStreamManager(
+      Amount<Integer, Data> maxEntrySize,
+      int recoveryThreads) {
+
     return new StreamManagerImpl(
         stream,
         new EntrySerializer.EntrySerializerImpl(maxEntrySize, Hashing.md5()),
         Hashing.md5(),
-        new SnapshotDeduplicatorImpl());
+        new SnapshotDeduplicatorImpl(),
+        recoveryThreads);
   }
 
   @Test
@@ -233,6 +241,15 @@ public class LogManagerTest extends EasyMockTest {
 
   @Test
   public void testStreamManagerReadFrames() throws Exception {
+    assertReadFrames(1);
+  }
+
+  @Test
+  public void testStreamManagerReadFramesParallel() throws Exception {
+    assertReadFrames(4);
+  }
+
+  private void assertReadFrames(int recoveryThreads) throws Exception {
     LogEntry transaction1 = createLogEntry(
         Op.removeJob(new RemoveJob(JobKeys.from("r1", "env", "name").newBuilder())));
     LogEntry transaction2 = createLogEntry(
@@ -276,7 +293,7 @@ public class LogManagerTest extends EasyMockTest {
 
     expect(stream.readAll()).andReturn(entries.iterator());
 
-    StreamManager streamManager = createStreamManager(message.chunkSize);
+    StreamManager streamManager = createStreamManager(message.chunkSize, recoveryThreads);
     control.replay();
 
     assertEquals(
@@ -306,7 +323,8 @@ public class LogManagerTest extends EasyMockTest {
         stream,
         new EntrySerializer.EntrySerializerImpl(NO_FRAMES_EVER_SIZE, md5),
         md5,
-        new SnapshotDeduplicatorImpl());
+        new SnapshotDeduplicatorImpl(),
+        1);
     streamManager.snapshot(snapshot);
     assertEquals(
         ImmutableList.of(snapshotLogEntry),
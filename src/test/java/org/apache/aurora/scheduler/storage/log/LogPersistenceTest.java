@@ -14,15 +14,18 @@
 package org.apache.aurora.scheduler.storage.log;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.AbstractModule;
+import com.google.inject.CreationException;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 
 import org.apache.aurora.codec.ThriftBinaryCodec;
+import org.apache.aurora.common.application.Lifecycle;
 import org.apache.aurora.common.inject.Bindings;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
@@ -35,24 +38,33 @@ import org.apache.aurora.gen.storage.Op;
 import org.apache.aurora.gen.storage.SaveTasks;
 import org.apache.aurora.gen.storage.Snapshot;
 import org.apache.aurora.gen.storage.Transaction;
+import org.apache.aurora.gen.storage.storageConstants;
 import org.apache.aurora.scheduler.TierModule;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.log.Log;
 import org.apache.aurora.scheduler.log.Log.Entry;
+import org.apache.aurora.scheduler.log.Log.Position;
 import org.apache.aurora.scheduler.log.Log.Stream;
+import org.apache.aurora.scheduler.log.Log.Stream.StreamAccessException;
 import org.apache.aurora.scheduler.storage.Snapshotter;
 import org.apache.aurora.scheduler.storage.Storage.Volatile;
 import org.apache.aurora.scheduler.storage.durability.Persistence;
 import org.apache.aurora.scheduler.storage.durability.Persistence.Edit;
+import org.apache.aurora.scheduler.storage.durability.Persistence.PendingCommit;
+import org.apache.aurora.scheduler.storage.durability.Persistence.PersistenceException;
 import org.apache.aurora.scheduler.storage.log.LogPersistenceModule.Options;
 import org.apache.aurora.scheduler.storage.mem.MemStorageModule;
 import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.aryEq;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class LogPersistenceTest extends EasyMockTest {
 
@@ -60,14 +72,19 @@ public class LogPersistenceTest extends EasyMockTest {
 
   private Log mockLog;
   private Stream mockStream;
+  private AtomicBoolean shutDown;
 
   @Before
   public void setUp() {
     mockLog = createMock(Log.class);
     mockStream = createMock(Stream.class);
+    shutDown = new AtomicBoolean(false);
+    persistence = createPersistence(new Options());
+  }
 
+  private Persistence createPersistence(Options options) {
     Injector injector = Guice.createInjector(
-        new LogPersistenceModule(new Options()),
+        new LogPersistenceModule(options),
         new MemStorageModule(Bindings.annotatedKeyFactory(Volatile.class)),
         new TierModule(TaskTestUtil.TIER_CONFIG),
         new AbstractModule() {
@@ -79,11 +96,12 @@ public class LogPersistenceTest extends EasyMockTest {
             bind(Clock.class).toInstance(new FakeClock());
             bind(Snapshotter.class).to(SnapshotterImpl.class);
             bind(Log.class).toInstance(mockLog);
+            bind(Lifecycle.class).toInstance(new Lifecycle(() -> shutDown.set(true)));
           }
         }
     );
 
-    persistence = injector.getInstance(Persistence.class);
+    return injector.getInstance(Persistence.class);
   }
 
   @Test
@@ -128,6 +146,67 @@ public class LogPersistenceTest extends EasyMockTest {
         persistence.recover().collect(Collectors.toList()));
   }
 
+  @Test
+  public void testGroupCommit() throws Exception {
+    expect(mockLog.open()).andReturn(mockStream);
+
+    Op saveA = Op.saveTasks(new SaveTasks().setTasks(ImmutableSet.of(
+        TaskTestUtil.makeTask("a", TaskTestUtil.JOB).newBuilder())));
+    Op saveB = Op.saveTasks(new SaveTasks().setTasks(ImmutableSet.of(
+        TaskTestUtil.makeTask("b", TaskTestUtil.JOB).newBuilder())));
+
+    // Both transactions are appended as a single entry.
+    Transaction transaction = new Transaction()
+        .setSchemaVersion(storageConstants.CURRENT_SCHEMA_VERSION)
+        .setOps(ImmutableList.of(saveA, saveB));
+    expect(mockStream.append(aryEq(Entries.thriftBinaryEncode(LogEntry.transaction(transaction)))))
+        .andReturn(createMock(Position.class));
+
+    control.replay();
+
+    Options options = new Options();
+    options.groupCommit = true;
+    Persistence groupCommit = createPersistence(options);
+    groupCommit.prepare();
+    PendingCommit first = groupCommit.persistAsync(ImmutableList.of(saveA).stream());
+    PendingCommit second = groupCommit.persistAsync(ImmutableList.of(saveB).stream());
+    second.await();
+    first.await();
+  }
+
+  @Test
+  public void testGroupCommitFailureIsFatal() throws Exception {
+    expect(mockLog.open()).andReturn(mockStream);
+
+    Op saveA = Op.saveTasks(new SaveTasks().setTasks(ImmutableSet.of(
+        TaskTestUtil.makeTask("a", TaskTestUtil.JOB).newBuilder())));
+    expect(mockStream.append(anyObject()))
+        .andThrow(new StreamAccessException("Append failed", new RuntimeException()));
+
+    control.replay();
+
+    Options options = new Options();
+    options.groupCommit = true;
+    Persistence groupCommit = createPersistence(options);
+    groupCommit.prepare();
+    try {
+      groupCommit.persistAsync(ImmutableList.of(saveA).stream()).await();
+      fail("Expected the append to fail.");
+    } catch (PersistenceException e) {
+      // Expected.
+    }
+    assertTrue(shutDown.get());
+  }
+
+  @Test(expected = CreationException.class)
+  public void testConcurrentSnapshotsRequireGroupCommit() {
+    control.replay();
+
+    Options options = new Options();
+    options.concurrentSnapshots = true;
+    createPersistence(options);
+  }
+
   private static Entry logEntry(LogEntry entry) {
     return () -> ThriftBinaryCodec.encodeNonNull(entry);
   }
@@ -22,6 +22,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 
+import org.apache.aurora.common.application.Lifecycle;
 import org.apache.aurora.common.application.ShutdownRegistry;
 import org.apache.aurora.common.application.ShutdownRegistry.ShutdownRegistryImpl;
 import org.apache.aurora.common.collections.Pair;
@@ -90,6 +91,7 @@ public class NonVolatileStorageTest extends TearDownTestCase {
             bind(ShutdownRegistry.class).toInstance(shutdownRegistry);
             bind(StatsProvider.class).toInstance(new FakeStatsProvider());
             bind(Log.class).toInstance(log);
+            bind(Lifecycle.class).toInstance(new Lifecycle(() -> { }));
             bind(Snapshotter.class).to(SnapshotterImpl.class);
           }
         }
@@ -15,6 +15,7 @@ package org.apache.aurora.scheduler.storage.log;
 
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -77,6 +78,24 @@ public class SnapshotDeduplicatorImplTest {
         snapshotDeduplicator.reduplicate(snapshotDeduplicator.deduplicate(snapshot)));
   }
 
+  @Test
+  public void testParallelRoundTrip() throws Exception {
+    Snapshot snapshot = makeSnapshot();
+    for (int i = 0; i < SnapshotDeduplicatorImpl.PARALLEL_REDUPLICATION_THRESHOLD; i++) {
+      snapshot.addToTasks(makeTask("task-" + i, makeConfig(Integer.toString(i % 10))));
+    }
+
+    DeduplicatedSnapshot deduplicated = snapshotDeduplicator.deduplicate(snapshot);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      assertEquals(
+          snapshot,
+          pool.submit(() -> snapshotDeduplicator.reduplicate(deduplicated)).get());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
   @Test
   public void testDeduplicatedFormat() {
     DeduplicatedSnapshot deduplicatedSnapshot = snapshotDeduplicator.deduplicate(makeSnapshot());
@@ -16,6 +16,7 @@ package org.apache.aurora.scheduler.storage.log;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -58,6 +59,7 @@ import org.junit.Test;
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.junit.Assert.assertTrue;
 
 public class SnapshotServiceTest extends EasyMockTest {
 
@@ -74,6 +76,13 @@ public class SnapshotServiceTest extends EasyMockTest {
   private Position mockPosition;
 
   private void setUp(Amount<Long, Time> snapshotInterval) {
+    setUp(snapshotInterval, new LogPersistenceModule.Options());
+  }
+
+  private void setUp(
+      Amount<Long, Time> snapshotInterval,
+      LogPersistenceModule.Options logOptions) {
+
     mockSnapshotter = createMock(Snapshotter.class);
     mockLog = createMock(Log.class);
     mockStream = createMock(Stream.class);
@@ -85,7 +94,7 @@ public class SnapshotServiceTest extends EasyMockTest {
 
     Injector injector = Guice.createInjector(
         new SchedulerServicesModule(),
-        new LogPersistenceModule(new LogPersistenceModule.Options()),
+        new LogPersistenceModule(logOptions),
         new SnapshotModule(options),
         new DurableStorageModule(),
         new MemStorageModule(Bindings.annotatedKeyFactory(Volatile.class)),
@@ -129,7 +138,7 @@ public class SnapshotServiceTest extends EasyMockTest {
 
     expectStorageInitialized();
 
-    expect(mockSnapshotter.from(anyObject())).andReturn(SNAPSHOT).atLeastOnce();
+    expect(mockSnapshotter.capture(anyObject())).andReturn(() -> SNAPSHOT).atLeastOnce();
 
     CountDownLatch snapshotCalled = new CountDownLatch(2);
     expectSnapshotPersist(snapshotCalled);
@@ -151,7 +160,30 @@ public class SnapshotServiceTest extends EasyMockTest {
 
     expectStorageInitialized();
 
-    expect(mockSnapshotter.from(anyObject())).andReturn(SNAPSHOT);
+    expect(mockSnapshotter.capture(anyObject())).andReturn(() -> SNAPSHOT);
+    expectSnapshotPersist(new CountDownLatch(1));
+
+    control.replay();
+
+    storage.prepare();
+    storage.start(stores -> { });
+    snapshotStore.snapshot();
+  }
+
+  @Test
+  public void testConcurrentSnapshot() throws Exception {
+    LogPersistenceModule.Options logOptions = new LogPersistenceModule.Options();
+    logOptions.groupCommit = true;
+    logOptions.concurrentSnapshots = true;
+    setUp(Amount.of(1L, Time.HOURS), logOptions);
+
+    expectStorageInitialized();
+
+    AtomicReference<String> snapshotThread = new AtomicReference<>();
+    expect(mockSnapshotter.capture(anyObject())).andReturn(() -> {
+      snapshotThread.set(Thread.currentThread().getName());
+      return SNAPSHOT;
+    });
     expectSnapshotPersist(new CountDownLatch(1));
 
     control.replay();
@@ -159,6 +191,7 @@ public class SnapshotServiceTest extends EasyMockTest {
     storage.prepare();
     storage.start(stores -> { });
     snapshotStore.snapshot();
+    assertTrue(snapshotThread.get().startsWith("LogPersistence-Snapshot-"));
   }
 
   @Test
@@ -13,7 +13,11 @@
  */
 package org.apache.aurora.scheduler.storage.mem;
 
-import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -29,11 +33,7 @@ public class InternerTest {
   private static final Internable SAME_JOAN = new Internable("joan");
   private static final Internable STEVE = new Internable("steve");
 
-  private static final String BOB = "bob";
-  private static final String BOB2 = "bob2";
-  private static final String BARRY = "barry";
-
-  private Interner<Internable, String> interner;
+  private Interner<Internable> interner;
 
   @Before
   public void setUp() {
@@ -42,57 +42,80 @@ public class InternerTest {
 
   @Test
   public void testReferenceCounting() {
-    assertSame(JOAN, interner.addAssociation(JOAN, BOB));
-    assertSame(JOAN, interner.addAssociation(SAME_JOAN, BOB2));
-    assertEquals(ImmutableSet.of(BOB2, BOB), interner.getAssociations(JOAN));
+    Interner.Entry<Internable> joan = interner.intern(JOAN);
+    assertSame(JOAN, joan.get());
+    Interner.Entry<Internable> sameJoan = interner.intern(SAME_JOAN);
+    assertSame(JOAN, sameJoan.get());
+    assertEquals(2, interner.getReferences(JOAN));
     assertTrue(interner.isInterned(JOAN));
     assertTrue(interner.isInterned(SAME_JOAN));
 
-    // Re-associate.
-    assertSame(JOAN, interner.addAssociation(JOAN, BOB));
-    assertEquals(ImmutableSet.of(BOB2, BOB), interner.getAssociations(JOAN));
-
-    // Noop.
-    interner.removeAssociation(JOAN, "bob3");
-    assertEquals(ImmutableSet.of(BOB2, BOB), interner.getAssociations(JOAN));
-
-    interner.removeAssociation(JOAN, BOB);
-    assertEquals(ImmutableSet.of(BOB2), interner.getAssociations(JOAN));
+    interner.release(joan);
+    assertEquals(1, interner.getReferences(JOAN));
+    assertTrue(interner.isInterned(JOAN));
 
-    interner.removeAssociation(JOAN, BOB2);
+    interner.release(sameJoan);
+    assertEquals(0, interner.getReferences(JOAN));
     assertFalse(interner.isInterned(JOAN));
   }
 
   @Test
   public void testNonEqual() {
-    assertSame(JOAN, interner.addAssociation(JOAN, BOB));
-    assertSame(STEVE, interner.addAssociation(STEVE, BOB));
-    assertSame(JOAN, interner.addAssociation(JOAN, BOB));
-    assertSame(STEVE, interner.addAssociation(STEVE, BOB));
-    assertSame(STEVE, interner.addAssociation(STEVE, BARRY));
-    assertEquals(ImmutableSet.of(BOB), interner.getAssociations(JOAN));
-    assertEquals(ImmutableSet.of(BARRY, BOB), interner.getAssociations(STEVE));
-
-    interner.removeAssociation(JOAN, BOB);
+    Interner.Entry<Internable> joan = interner.intern(JOAN);
+    Interner.Entry<Internable> steve = interner.intern(STEVE);
+    Interner.Entry<Internable> steve2 = interner.intern(STEVE);
+    assertSame(JOAN, joan.get());
+    assertSame(STEVE, steve.get());
+    assertSame(STEVE, steve2.get());
+    assertEquals(1, interner.getReferences(JOAN));
+    assertEquals(2, interner.getReferences(STEVE));
+
+    interner.release(joan);
     assertFalse(interner.isInterned(JOAN));
+    assertEquals(2, interner.getReferences(STEVE));
 
-    interner.removeAssociation(STEVE, BOB);
-    assertEquals(ImmutableSet.of(BARRY), interner.getAssociations(STEVE));
-    interner.removeAssociation(STEVE, BARRY);
+    interner.release(steve);
+    interner.release(steve2);
     assertFalse(interner.isInterned(STEVE));
   }
 
   @Test
-  public void testNoopRemoveAssociation() {
-    interner.removeAssociation(JOAN, BOB);
+  public void testClear() {
+    Interner.Entry<Internable> joan = interner.intern(JOAN);
+
+    interner.clear();
     assertFalse(interner.isInterned(JOAN));
+
+    // References obtained before clearing do not affect entries interned afterwards.
+    Interner.Entry<Internable> sameJoan = interner.intern(SAME_JOAN);
+    assertSame(SAME_JOAN, sameJoan.get());
+    interner.release(joan);
+    assertEquals(1, interner.getReferences(JOAN));
   }
 
   @Test
-  public void testClear() {
-    assertSame(JOAN, interner.addAssociation(JOAN, BOB));
+  public void testConcurrentInterning() throws Exception {
+    int threads = 8;
+    int iterations = 1000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < iterations; j++) {
+            Interner.Entry<Internable> entry = interner.intern(new Internable("joan"));
+            assertEquals(JOAN, entry.get());
+            interner.release(entry);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
 
-    interner.clear();
     assertFalse(interner.isInterned(JOAN));
   }
 
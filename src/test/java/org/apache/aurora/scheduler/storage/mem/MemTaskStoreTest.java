@@ -13,20 +13,33 @@
  */
 package org.apache.aurora.scheduler.storage.mem;
 
+import java.util.Optional;
+
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
 import com.google.inject.Module;
 import com.google.inject.util.Modules;
 
+import org.apache.aurora.common.inject.Bindings.KeyFactory;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.storage.AbstractTaskStoreTest;
+import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.TaskStore;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.junit.Test;
 
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.FINISHED;
+import static org.apache.aurora.gen.ScheduleStatus.KILLED;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.storage.mem.MemTaskStore.getTierSizeStatName;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class MemTaskStoreTest extends AbstractTaskStoreTest {
 
@@ -55,4 +68,97 @@ public class MemTaskStoreTest extends AbstractTaskStoreTest {
       assertEquals(0L, statsProvider.getLongValue(MemTaskStore.getIndexSizeStatName("job")));
     });
   }
+
+  private ImmutableSet<IScheduledTask> query(Query.Builder query) {
+    return storage.read(
+        storeProvider -> ImmutableSet.copyOf(storeProvider.getTaskStore().fetchTasks(query)));
+  }
+
+  @Test
+  public void testStatusIndex() {
+    saveTasks(TASK_A, TASK_B, TASK_C);
+
+    assertEquals(ImmutableSet.of(), query(Query.statusScoped(RUNNING)));
+    assertEquals(1L, statsProvider.getLongValue("task_queries_by_status"));
+    assertEquals(0L, statsProvider.getLongValue("task_queries_all"));
+
+    // Overwriting a task with a different status must not leave a stale index entry behind.
+    IScheduledTask aRunning = IScheduledTask.build(TASK_A.newBuilder().setStatus(RUNNING));
+    saveTasks(aRunning);
+    assertEquals(3L, statsProvider.getLongValue(MemTaskStore.getIndexSizeStatName("status")));
+    assertEquals(ImmutableSet.of(aRunning), query(Query.statusScoped(RUNNING)));
+    assertEquals(ImmutableSet.of(TASK_B, TASK_C), query(Query.statusScoped(ASSIGNED)));
+  }
+
+  @Test
+  public void testIndexIntersection() {
+    saveTasks(TASK_A, TASK_B, TASK_C);
+
+    assertEquals(
+        ImmutableSet.of(TASK_B),
+        query(Query.roleScoped("role-b").byStatus(ASSIGNED)));
+    assertEquals(1L, statsProvider.getLongValue("task_queries_by_role"));
+    assertEquals(0L, statsProvider.getLongValue("task_queries_by_status"));
+    assertEquals(1L, statsProvider.getLongValue("task_queries_intersected"));
+
+    // An index that selects every task is not used.
+    assertEquals(
+        ImmutableSet.of(TASK_A, TASK_B, TASK_C),
+        query(Query.statusScoped(ASSIGNED)));
+    assertEquals(0L, statsProvider.getLongValue("task_queries_by_status"));
+    assertEquals(1L, statsProvider.getLongValue("task_queries_all"));
+  }
+
+  @Test
+  public void testCompactTerminalTasks() {
+    MemStorageModule.Options options = new MemStorageModule.Options();
+    options.compactTerminalTasks = true;
+    FakeStatsProvider compactStats = new FakeStatsProvider();
+    Storage compactStorage = Guice.createInjector(
+        new MemStorageModule(options, KeyFactory.PLAIN),
+        new AbstractModule() {
+          @Override
+          protected void configure() {
+            bind(StatsProvider.class).toInstance(compactStats);
+          }
+        }).getInstance(Storage.class);
+    compactStorage.prepare();
+
+    IScheduledTask finished = IScheduledTask.build(TASK_A.newBuilder().setStatus(FINISHED));
+    IScheduledTask killed = IScheduledTask.build(TASK_B.newBuilder().setStatus(KILLED));
+    compactStorage.write((NoResult.Quiet) storeProvider ->
+        storeProvider.getUnsafeTaskStore().saveTasks(ImmutableSet.of(finished, killed, TASK_C)));
+    assertEquals(1L, compactStats.getLongValue(getTierSizeStatName("expanded", "tasks")));
+    assertEquals(2L, compactStats.getLongValue(getTierSizeStatName("compact", "tasks")));
+    assertTrue(compactStats.getLongValue(getTierSizeStatName("compact", "encoded_bytes")) > 0);
+
+    // Compact tasks are inflated transparently.
+    assertEquals(
+        ImmutableSet.of(finished, killed, TASK_C),
+        compactStorage.read(storeProvider ->
+            ImmutableSet.copyOf(storeProvider.getTaskStore().fetchTasks(Query.unscoped()))));
+    assertEquals(
+        ImmutableSet.of(killed),
+        compactStorage.read(storeProvider ->
+            ImmutableSet.copyOf(storeProvider.getTaskStore().fetchTasks(
+                Query.statusScoped(KILLED)))));
+    assertEquals(
+        Optional.of(finished),
+        compactStorage.read(storeProvider ->
+            storeProvider.getTaskStore().fetchTask(Tasks.id(finished))));
+
+    // A task moves to the compact tier once it becomes terminal.
+    IScheduledTask finishedC = IScheduledTask.build(TASK_C.newBuilder().setStatus(FINISHED));
+    assertEquals(
+        Optional.of(finishedC),
+        compactStorage.write(storeProvider -> storeProvider.getUnsafeTaskStore()
+            .mutateTask(Tasks.id(TASK_C), task -> finishedC)));
+    assertEquals(0L, compactStats.getLongValue(getTierSizeStatName("expanded", "tasks")));
+    assertEquals(3L, compactStats.getLongValue(getTierSizeStatName("compact", "tasks")));
+
+    compactStorage.write((NoResult.Quiet) storeProvider ->
+        storeProvider.getUnsafeTaskStore().deleteTasks(Tasks.ids(finished, killed, finishedC)));
+    assertEquals(0L, compactStats.getLongValue(getTierSizeStatName("compact", "tasks")));
+    assertEquals(0L, compactStats.getLongValue(getTierSizeStatName("compact", "encoded_bytes")));
+  }
 }
@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.storage.testing;
 
+import java.util.List;
 import java.util.Optional;
 
 import com.google.common.collect.ImmutableSet;
@@ -124,6 +125,14 @@ public class StorageTestUtil {
     return expect(taskStore.fetchTasks(query)).andReturn(result);
   }
 
+  public IExpectationSetters<?> expectTaskPageFetch(
+      Query.Builder query,
+      Optional<String> afterTaskId,
+      List<IScheduledTask> result) {
+
+    return expect(taskStore.fetchTaskPage(query, afterTaskId)).andReturn(result);
+  }
+
   public IExpectationSetters<?> expectTaskFetch(String taskId, IScheduledTask result) {
     return expect(taskStore.fetchTask(taskId)).andReturn(Optional.of(result));
   }
@@ -17,6 +17,7 @@ import java.util.concurrent.CompletableFuture;
 
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.scheduler.BatchWorker;
+import org.apache.aurora.scheduler.BatchWorker.Priority;
 import org.apache.aurora.scheduler.BatchWorker.Work;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.easymock.Capture;
@@ -25,6 +26,7 @@ import org.easymock.IMocksControl;
 
 import static org.apache.aurora.common.testing.easymock.EasyMockTest.createCapture;
 import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 
 public final class BatchWorkerUtil {
@@ -56,4 +58,31 @@ public final class BatchWorkerUtil {
 
     return expectBatchExecute(batchWorker, storage, control, null);
   }
+
+  public static <T> IExpectationSetters<CompletableFuture<T>> expectCompletedBatchExecute(
+      BatchWorker<T> batchWorker,
+      Storage storage) {
+
+    final Capture<Work<T>> capture = createCapture();
+    return expect(batchWorker.execute(capture(capture))).andAnswer(() ->
+        CompletableFuture.completedFuture(storage.write(
+            (Storage.MutateWork.Quiet<T>) store -> capture.getValue().execute(store))));
+  }
+
+  public static <T> IExpectationSetters<CompletableFuture<T>> expectBatchExecute(
+      BatchWorker<T> batchWorker,
+      Priority priority,
+      Storage storage,
+      IMocksControl control) throws Exception {
+
+    final CompletableFuture<T> result = new EasyMockTest.Clazz<CompletableFuture<T>>() { }
+        .createMock(control);
+    expect(result.get()).andReturn(null).anyTimes();
+
+    final Capture<Work<T>> capture = createCapture();
+    return expect(batchWorker.execute(eq(priority), capture(capture))).andAnswer(() -> {
+      storage.write((Storage.MutateWork.NoResult.Quiet) store -> capture.getValue().apply(store));
+      return result;
+    });
+  }
 }
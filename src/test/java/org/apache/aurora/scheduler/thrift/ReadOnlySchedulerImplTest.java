@@ -59,6 +59,7 @@ import org.apache.aurora.gen.Result;
 import org.apache.aurora.gen.RoleSummary;
 import org.apache.aurora.gen.RoleSummaryResult;
 import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduleStatusResult;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.gen.TaskQuery;
@@ -485,7 +486,7 @@ public class ReadOnlySchedulerImplTest extends EasyMockTest {
 
   @Test
   public void testGetTasksStatusPagination() throws Exception {
-    Iterable<IScheduledTask> tasks = makeDefaultScheduledTasks(10);
+    List<IScheduledTask> tasks = ImmutableList.copyOf(makeDefaultScheduledTasks(10));
 
     TaskQuery page1Query = setupPaginatedQuery(tasks, 0, 4);
     TaskQuery page2Query = setupPaginatedQuery(tasks, 4, 4);
@@ -509,13 +510,49 @@ public class ReadOnlySchedulerImplTest extends EasyMockTest {
     assertEquals(Lists.newArrayList(8, 9), page3Ids);
   }
 
-  private TaskQuery setupPaginatedQuery(Iterable<IScheduledTask> tasks, int offset, int limit) {
+  private TaskQuery setupPaginatedQuery(List<IScheduledTask> tasks, int offset, int limit) {
     TaskQuery query = new TaskQuery().setOffset(offset).setLimit(limit);
     Builder builder = Query.arbitrary(query);
-    storageUtil.expectTaskFetch(builder, ImmutableSet.copyOf(tasks));
+    storageUtil.expectTaskPageFetch(
+        builder,
+        Optional.empty(),
+        tasks.subList(offset, Math.min(offset + limit, tasks.size())));
     return query;
   }
 
+  @Test
+  public void testGetTasksWithoutConfigsContinuationToken() throws Exception {
+    IScheduledTask a = TaskTestUtil.makeTask("a", JOB_KEY);
+    IScheduledTask b = TaskTestUtil.makeTask("b", JOB_KEY);
+    IScheduledTask c = TaskTestUtil.makeTask("c", JOB_KEY);
+    TaskQuery page1Query = new TaskQuery().setLimit(2);
+    TaskQuery page2Query = new TaskQuery().setLimit(2).setContinuationToken("b");
+    storageUtil.expectTaskPageFetch(
+        Query.arbitrary(page1Query),
+        Optional.empty(),
+        ImmutableList.of(a, b));
+    storageUtil.expectTaskPageFetch(
+        Query.arbitrary(page2Query),
+        Optional.of("b"),
+        ImmutableList.of(c));
+
+    control.replay();
+
+    ScheduleStatusResult page1 = assertOkResponse(thrift.getTasksWithoutConfigs(page1Query))
+        .getResult().getScheduleStatusResult();
+    assertEquals(ImmutableSet.of("a", "b"), Tasks.ids(IScheduledTask.listFromBuilders(
+        page1.getTasks())));
+    assertEquals("b", page1.getContinuationToken());
+    assertFalse(page1.getTasks().get(0).getAssignedTask().getTask().getExecutorConfig()
+        .isSetData());
+
+    ScheduleStatusResult page2 = assertOkResponse(thrift.getTasksWithoutConfigs(page2Query))
+        .getResult().getScheduleStatusResult();
+    assertEquals(ImmutableSet.of("c"), Tasks.ids(IScheduledTask.listFromBuilders(
+        page2.getTasks())));
+    assertFalse(page2.isSetContinuationToken());
+  }
+
   private static final Function<ScheduledTask, Integer> TO_INSTANCE_ID =
       input -> input.getAssignedTask().getInstanceId();
 